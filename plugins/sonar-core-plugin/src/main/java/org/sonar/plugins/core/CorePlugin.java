@@ -31,7 +31,6 @@ import org.sonar.api.resources.Java;
 import org.sonar.api.resources.Qualifiers;
 import org.sonar.batch.components.PastSnapshotFinder;
 import org.sonar.core.timemachine.Periods;
-import org.sonar.plugins.core.batch.IndexProjectPostJob;
 import org.sonar.plugins.core.charts.DistributionAreaChart;
 import org.sonar.plugins.core.charts.DistributionBarChart;
 import org.sonar.plugins.core.charts.XradarChart;
@@ -85,6 +84,7 @@ import org.sonar.plugins.core.sensors.UnitTestDecorator;
 import org.sonar.plugins.core.sensors.VersionEventsSensor;
 import org.sonar.plugins.core.technicaldebt.TechnicalDebtDecorator;
 import org.sonar.plugins.core.timemachine.NewCoverageAggregator;
+import org.sonar.plugins.core.timemachine.LineDataCache;
 import org.sonar.plugins.core.timemachine.NewCoverageFileAnalyzer;
 import org.sonar.plugins.core.timemachine.NewItCoverageFileAnalyzer;
 import org.sonar.plugins.core.timemachine.NewOverallCoverageFileAnalyzer;
@@ -383,7 +383,6 @@ public final class CorePlugin extends SonarPlugin {
       NoSonarFilter.class,
       DirectoriesDecorator.class,
       FilesDecorator.class,
-      IndexProjectPostJob.class,
       ManualMeasureDecorator.class,
       FileHashSensor.class,
 
@@ -391,6 +390,7 @@ public final class CorePlugin extends SonarPlugin {
       TendencyDecorator.class,
       VariationDecorator.class,
       TimeMachineConfigurationPersister.class,
+      LineDataCache.class,
       NewCoverageFileAnalyzer.class,
       NewItCoverageFileAnalyzer.class,
       NewOverallCoverageFileAnalyzer.class,
@@ -445,6 +445,24 @@ public final class CorePlugin extends SonarPlugin {
         .category(CoreProperties.CATEGORY_SECURITY)
         .build(),
 
+      PropertyDefinition.builder(CoreProperties.CORE_COMPRESS_SOURCES_PROPERTY)
+        .defaultValue("" + CoreProperties.CORE_COMPRESS_SOURCES_DEFAULT_VALUE)
+        .name("Compress sources")
+        .description("Set to true to store the sources imported by the next analyses in a compressed format, which reduces the size of the database. "
+          + "Plugins which read the table snapshot_sources directly may not support this format.")
+        .type(PropertyType.BOOLEAN)
+        .category(CoreProperties.CATEGORY_GENERAL)
+        .build(),
+
+      PropertyDefinition.builder(CoreProperties.CORE_IN_MEMORY_RESOURCE_SEARCH_PROPERTY)
+        .defaultValue("" + CoreProperties.CORE_IN_MEMORY_RESOURCE_SEARCH_DEFAULT_VALUE)
+        .name("In-memory resource search")
+        .description("Set to true to search for resources by name in memory instead of requesting the database. "
+          + "It requires additional heap on the server. The database is still requested when there are too many resources.")
+        .type(PropertyType.BOOLEAN)
+        .category(CoreProperties.CATEGORY_GENERAL)
+        .build(),
+
       PropertyDefinition.builder(CoreProperties.CORE_FORCE_AUTHENTICATION_PROPERTY)
         .defaultValue("" + CoreProperties.CORE_FORCE_AUTHENTICATION_DEFAULT_VALUE)
         .name("Force user authentication")
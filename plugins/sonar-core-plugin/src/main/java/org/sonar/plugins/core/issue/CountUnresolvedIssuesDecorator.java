@@ -19,15 +19,10 @@
  */
 package org.sonar.plugins.core.issue;
 
-import com.google.common.annotations.VisibleForTesting;
-import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.HashMultiset;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multiset;
-import com.google.common.collect.Sets;
-import org.apache.commons.lang.time.DateUtils;
 import org.sonar.api.batch.Decorator;
 import org.sonar.api.batch.DecoratorBarriers;
 import org.sonar.api.batch.DecoratorContext;
@@ -51,14 +46,9 @@ import org.sonar.api.rules.RulePriority;
 import org.sonar.batch.components.PastSnapshot;
 import org.sonar.batch.components.TimeMachineConfiguration;
 
-import javax.annotation.Nullable;
-
-import java.util.Calendar;
 import java.util.Collection;
-import java.util.Date;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 /**
  * Computes metrics related to number of issues.
@@ -106,154 +96,131 @@ public class CountUnresolvedIssuesDecorator implements Decorator {
   public void decorate(Resource resource, DecoratorContext context) {
     Issuable issuable = perspectives.as(Issuable.class, resource);
     if (issuable != null) {
-      Collection<Issue> issues = issuable.issues();
       boolean shouldSaveNewMetrics = shouldSaveNewMetrics(context);
+      List<PastSnapshot> pastSnapshots = timeMachineConfiguration.getProjectPastSnapshots();
 
-      Multiset<RulePriority> severityBag = HashMultiset.create();
-      Map<RulePriority, Multiset<Rule>> rulesPerSeverity = Maps.newHashMap();
-      ListMultimap<RulePriority, Issue> issuesPerSeverity = ArrayListMultimap.create();
-      int countOpen = 0;
-      int countReopened = 0;
-      int countConfirmed = 0;
-
-      for (Issue issue : issues) {
-        severityBag.add(RulePriority.valueOf(issue.severity()));
-        Multiset<Rule> rulesBag = initRules(rulesPerSeverity, RulePriority.valueOf(issue.severity()));
-        rulesBag.add(rulefinder.findByKey(issue.ruleKey().repository(), issue.ruleKey().rule()));
-        issuesPerSeverity.put(RulePriority.valueOf(issue.severity()), issue);
-
-        if (Issue.STATUS_OPEN.equals(issue.status())) {
-          countOpen++;
-        }
-        if (Issue.STATUS_REOPENED.equals(issue.status())) {
-          countReopened++;
-        }
-        if (Issue.STATUS_CONFIRMED.equals(issue.status())) {
-          countConfirmed++;
-        }
+      UnresolvedIssuesCounter counter = new UnresolvedIssuesCounter(pastSnapshots);
+      for (Issue issue : issuable.issues()) {
+        counter.add(issue, rulefinder.findByKey(issue.ruleKey().repository(), issue.ruleKey().rule()));
       }
 
       for (RulePriority ruleSeverity : RulePriority.values()) {
-        saveIssuesForSeverity(context, ruleSeverity, severityBag);
-        saveIssuesPerRules(context, ruleSeverity, rulesPerSeverity);
-        saveNewIssuesForSeverity(context, ruleSeverity, issuesPerSeverity, shouldSaveNewMetrics);
-        saveNewIssuesPerRule(context, ruleSeverity, issues, shouldSaveNewMetrics);
+        saveIssuesForSeverity(context, ruleSeverity, counter);
+        saveIssuesPerRules(context, ruleSeverity, counter);
+        if (shouldSaveNewMetrics) {
+          saveNewIssuesForSeverity(context, ruleSeverity, counter, pastSnapshots);
+          saveNewIssuesPerRule(context, ruleSeverity, counter, pastSnapshots);
+        }
       }
 
-      saveTotalIssues(context, issues);
-      saveNewIssues(context, issues, shouldSaveNewMetrics);
+      saveTotalIssues(context, counter);
+      if (shouldSaveNewMetrics) {
+        saveNewIssues(context, counter, pastSnapshots);
+      }
 
-      saveMeasure(context, CoreMetrics.OPEN_ISSUES, countOpen);
-      saveMeasure(context, CoreMetrics.REOPENED_ISSUES, countReopened);
-      saveMeasure(context, CoreMetrics.CONFIRMED_ISSUES, countConfirmed);
+      saveMeasure(context, CoreMetrics.OPEN_ISSUES, counter.countOpen());
+      saveMeasure(context, CoreMetrics.REOPENED_ISSUES, counter.countReopened());
+      saveMeasure(context, CoreMetrics.CONFIRMED_ISSUES, counter.countConfirmed());
     }
   }
 
-  private void saveTotalIssues(DecoratorContext context, Collection<Issue> issues) {
+  private void saveTotalIssues(DecoratorContext context, UnresolvedIssuesCounter counter) {
     if (context.getMeasure(CoreMetrics.VIOLATIONS) == null) {
       Collection<Measure> childrenIssues = context.getChildrenMeasures(CoreMetrics.VIOLATIONS);
       Double sum = MeasureUtils.sum(true, childrenIssues);
-      context.saveMeasure(CoreMetrics.VIOLATIONS, sum + issues.size());
+      context.saveMeasure(CoreMetrics.VIOLATIONS, sum + counter.count());
     }
   }
 
-  private void saveNewIssues(DecoratorContext context, Collection<Issue> issues, boolean shouldSaveNewMetrics) {
-    if (shouldSaveNewMetrics) {
-      Measure measure = new Measure(CoreMetrics.NEW_VIOLATIONS);
-      saveNewIssues(context, measure, issues);
+  private void saveNewIssues(DecoratorContext context, UnresolvedIssuesCounter counter, List<PastSnapshot> pastSnapshots) {
+    Measure measure = new Measure(CoreMetrics.NEW_VIOLATIONS);
+    Collection<Measure> children = context.getChildrenMeasures(measure.getMetric());
+    for (int period = 0; period < pastSnapshots.size(); period++) {
+      int variationIndex = pastSnapshots.get(period).getIndex();
+      double sum = MeasureUtils.sumOnVariation(true, variationIndex, children) + counter.countNew(period);
+      measure.setVariation(variationIndex, sum);
     }
+    context.saveMeasure(measure);
   }
 
-  private void saveIssuesForSeverity(DecoratorContext context, RulePriority ruleSeverity, Multiset<RulePriority> severitiesBag) {
+  private void saveIssuesForSeverity(DecoratorContext context, RulePriority ruleSeverity, UnresolvedIssuesCounter counter) {
     Metric metric = SeverityUtils.severityToIssueMetric(ruleSeverity);
     if (context.getMeasure(metric) == null) {
       Collection<Measure> children = context.getChildrenMeasures(MeasuresFilters.metric(metric));
-      int sum = MeasureUtils.sum(true, children).intValue() + severitiesBag.count(ruleSeverity);
+      int sum = MeasureUtils.sum(true, children).intValue() + counter.count(ruleSeverity);
       context.saveMeasure(metric, (double) sum);
     }
   }
 
-  private void saveNewIssuesForSeverity(DecoratorContext context, RulePriority severity, ListMultimap<RulePriority, Issue> issuesPerSeverities, boolean shouldSaveNewMetrics) {
-    if (shouldSaveNewMetrics) {
-      Metric metric = SeverityUtils.severityToNewMetricIssue(severity);
-      Measure measure = new Measure(metric);
-      saveNewIssues(context, measure, issuesPerSeverities.get(severity));
+  private void saveNewIssuesForSeverity(DecoratorContext context, RulePriority severity, UnresolvedIssuesCounter counter, List<PastSnapshot> pastSnapshots) {
+    Metric metric = SeverityUtils.severityToNewMetricIssue(severity);
+    Measure measure = new Measure(metric);
+    Collection<Measure> children = context.getChildrenMeasures(metric);
+    for (int period = 0; period < pastSnapshots.size(); period++) {
+      int variationIndex = pastSnapshots.get(period).getIndex();
+      double sum = MeasureUtils.sumOnVariation(true, variationIndex, children) + counter.countNew(severity, period);
+      measure.setVariation(variationIndex, sum);
     }
+    context.saveMeasure(measure);
   }
 
-  private void saveIssuesPerRules(DecoratorContext context, RulePriority severity, Map<RulePriority, Multiset<Rule>> rulesPerSeverity) {
+  private void saveIssuesPerRules(DecoratorContext context, RulePriority severity, UnresolvedIssuesCounter counter) {
     Metric metric = SeverityUtils.severityToIssueMetric(severity);
 
-    Collection<Measure> children = context.getChildrenMeasures(MeasuresFilters.rules(metric));
-    for (Measure child : children) {
+    Multiset<Rule> rulesBag = HashMultiset.create();
+    for (Rule rule : counter.rules(severity)) {
+      rulesBag.add(rule, counter.count(severity, rule));
+    }
+    for (Measure child : context.getChildrenMeasures(MeasuresFilters.rules(metric))) {
       RuleMeasure childRuleMeasure = (RuleMeasure) child;
       Rule rule = childRuleMeasure.getRule();
       if (rule != null && MeasureUtils.hasValue(childRuleMeasure)) {
-        Multiset<Rule> rulesBag = initRules(rulesPerSeverity, severity);
         rulesBag.add(rule, childRuleMeasure.getIntValue());
       }
     }
 
-    Multiset<Rule> rulesBag = rulesPerSeverity.get(severity);
-    if (rulesBag != null) {
-      for (Multiset.Entry<Rule> entry : rulesBag.entrySet()) {
-        RuleMeasure measure = RuleMeasure.createForRule(metric, entry.getElement(), (double) entry.getCount());
-        measure.setSeverity(severity);
-        context.saveMeasure(measure);
-      }
+    for (Multiset.Entry<Rule> entry : rulesBag.entrySet()) {
+      RuleMeasure measure = RuleMeasure.createForRule(metric, entry.getElement(), (double) entry.getCount());
+      measure.setSeverity(severity);
+      context.saveMeasure(measure);
     }
   }
 
-  private void saveNewIssuesPerRule(DecoratorContext context, RulePriority severity, Collection<Issue> issues, boolean shouldSaveNewMetrics) {
-    if (shouldSaveNewMetrics) {
-      Metric metric = SeverityUtils.severityToNewMetricIssue(severity);
-      ListMultimap<Rule, Measure> childMeasuresPerRule = ArrayListMultimap.create();
-      ListMultimap<Rule, Issue> issuesPerRule = ArrayListMultimap.create();
-      Set<Rule> rules = Sets.newHashSet();
-
-      Collection<Measure> children = context.getChildrenMeasures(MeasuresFilters.rules(metric));
-      for (Measure child : children) {
-        RuleMeasure childRuleMeasure = (RuleMeasure) child;
-        Rule rule = childRuleMeasure.getRule();
-        if (rule != null) {
-          childMeasuresPerRule.put(rule, childRuleMeasure);
-          rules.add(rule);
-        }
-      }
+  private void saveNewIssuesPerRule(DecoratorContext context, RulePriority severity, UnresolvedIssuesCounter counter, List<PastSnapshot> pastSnapshots) {
+    Metric metric = SeverityUtils.severityToNewMetricIssue(severity);
 
-      for (Issue issue : issues) {
-        if (RulePriority.valueOf(issue.severity()).equals(severity)) {
-          Rule rule = rulefinder.findByKey(issue.ruleKey().repository(), issue.ruleKey().rule());
-          rules.add(rule);
-          issuesPerRule.put(rule, issue);
+    // sums of the variations of children, per rule and period
+    Map<Rule, double[]> childrenVariationsPerRule = Maps.newHashMap();
+    for (Rule rule : counter.rules(severity)) {
+      childrenVariationsPerRule.put(rule, new double[pastSnapshots.size()]);
+    }
+    for (Measure child : context.getChildrenMeasures(MeasuresFilters.rules(metric))) {
+      Rule rule = ((RuleMeasure) child).getRule();
+      if (rule != null) {
+        double[] variations = childrenVariationsPerRule.get(rule);
+        if (variations == null) {
+          variations = new double[pastSnapshots.size()];
+          childrenVariationsPerRule.put(rule, variations);
         }
-      }
-
-      for (Rule rule : rules) {
-        RuleMeasure measure = RuleMeasure.createForRule(metric, rule, null);
-        measure.setSeverity(severity);
-        for (PastSnapshot pastSnapshot : timeMachineConfiguration.getProjectPastSnapshots()) {
-          int variationIndex = pastSnapshot.getIndex();
-          int count = countIssuesAfterDate(issuesPerRule.get(rule), pastSnapshot.getTargetDate());
-          double sum = MeasureUtils.sumOnVariation(true, variationIndex, childMeasuresPerRule.get(rule)) + count;
-          measure.setVariation(variationIndex, sum);
+        for (int period = 0; period < pastSnapshots.size(); period++) {
+          Double variation = child.getVariation(pastSnapshots.get(period).getIndex());
+          if (variation != null) {
+            variations[period] += variation;
+          }
         }
-        context.saveMeasure(measure);
       }
     }
-  }
 
-  private void saveNewIssues(DecoratorContext context, Measure measure, Collection<Issue> issues) {
-    for (PastSnapshot pastSnapshot : timeMachineConfiguration.getProjectPastSnapshots()) {
-      int variationIndex = pastSnapshot.getIndex();
-      Collection<Measure> children = context.getChildrenMeasures(measure.getMetric());
-      // SONAR-3647 Use real snapshot date and not target date in order to stay consistent with other measure variations
-      Date datePlusOneSecond = pastSnapshot.getDate() != null ? DateUtils.addSeconds(pastSnapshot.getDate(), 1) : null;
-      int count = countIssuesAfterDate(issues, datePlusOneSecond);
-      double sum = MeasureUtils.sumOnVariation(true, variationIndex, children) + count;
-      measure.setVariation(variationIndex, sum);
+    for (Map.Entry<Rule, double[]> entry : childrenVariationsPerRule.entrySet()) {
+      Rule rule = entry.getKey();
+      RuleMeasure measure = RuleMeasure.createForRule(metric, rule, null);
+      measure.setSeverity(severity);
+      for (int period = 0; period < pastSnapshots.size(); period++) {
+        double sum = entry.getValue()[period] + counter.countNew(severity, rule, period);
+        measure.setVariation(pastSnapshots.get(period).getIndex(), sum);
+      }
+      context.saveMeasure(measure);
     }
-    context.saveMeasure(measure);
   }
 
   private void saveMeasure(DecoratorContext context, Metric metric, int value) {
@@ -268,33 +235,6 @@ public class CountUnresolvedIssuesDecorator implements Decorator {
     return sum;
   }
 
-  private Multiset<Rule> initRules(Map<RulePriority, Multiset<Rule>> rulesPerSeverity, RulePriority severity) {
-    Multiset<Rule> rulesBag = rulesPerSeverity.get(severity);
-    if (rulesBag == null) {
-      rulesBag = HashMultiset.create();
-      rulesPerSeverity.put(severity, rulesBag);
-    }
-    return rulesBag;
-  }
-
-  @VisibleForTesting
-  int countIssuesAfterDate(Collection<Issue> issues, @Nullable Date targetDate) {
-    if (issues == null) {
-      return 0;
-    }
-    int count = 0;
-    for (Issue issue : issues) {
-      if (isAfter(issue, targetDate)) {
-        count++;
-      }
-    }
-    return count;
-  }
-
-  private boolean isAfter(Issue issue, @Nullable Date date) {
-    return date == null || (issue.creationDate() != null && DateUtils.truncatedCompareTo(issue.creationDate(), date, Calendar.SECOND) > 0);
-  }
-
   private boolean shouldSaveNewMetrics(DecoratorContext context) {
     return context.getMeasure(CoreMetrics.NEW_VIOLATIONS) == null;
   }
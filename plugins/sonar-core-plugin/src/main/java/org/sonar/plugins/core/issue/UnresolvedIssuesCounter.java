@@ -0,0 +1,176 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.core.issue;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.apache.commons.lang.time.DateUtils;
+import org.sonar.api.issue.Issue;
+import org.sonar.api.rules.Rule;
+import org.sonar.api.rules.RulePriority;
+import org.sonar.batch.components.PastSnapshot;
+
+import javax.annotation.Nullable;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Counts in a single pass the unresolved issues of a resource, per severity, rule and period. Periods are identified
+ * by their position in the list of past snapshots given to the constructor.
+ *
+ * @since 4.0
+ */
+class UnresolvedIssuesCounter {
+
+  private static final int SEVERITIES = RulePriority.values().length;
+
+  private final int periods;
+  // SONAR-3647 new issues per severity use the real snapshot date (plus one second) and not the target date, in order to stay
+  // consistent with other measure variations
+  private final Date[] snapshotDates;
+  private final Date[] targetDates;
+
+  private int count = 0;
+  private final int[] countPerSeverity = new int[SEVERITIES];
+  private final int[] newCount;
+  private final int[][] newCountPerSeverity;
+
+  /**
+   * For each severity, the counters of each rule: the number of issues followed by the number of new issues per period
+   */
+  private final List<Map<Rule, int[]>> countersPerRule;
+
+  private int countOpen = 0;
+  private int countReopened = 0;
+  private int countConfirmed = 0;
+
+  UnresolvedIssuesCounter(List<PastSnapshot> pastSnapshots) {
+    periods = pastSnapshots.size();
+    snapshotDates = new Date[periods];
+    targetDates = new Date[periods];
+    for (int period = 0; period < periods; period++) {
+      PastSnapshot pastSnapshot = pastSnapshots.get(period);
+      snapshotDates[period] = pastSnapshot.getDate() != null ? DateUtils.addSeconds(pastSnapshot.getDate(), 1) : null;
+      targetDates[period] = pastSnapshot.getTargetDate();
+    }
+    newCount = new int[periods];
+    newCountPerSeverity = new int[SEVERITIES][periods];
+    countersPerRule = newRuleCounters();
+  }
+
+  private static List<Map<Rule, int[]>> newRuleCounters() {
+    List<Map<Rule, int[]>> counters = Lists.newArrayListWithCapacity(SEVERITIES);
+    for (int i = 0; i < SEVERITIES; i++) {
+      counters.add(Maps.<Rule, int[]>newHashMap());
+    }
+    return counters;
+  }
+
+  void add(Issue issue, @Nullable Rule rule) {
+    int severity = RulePriority.valueOf(issue.severity()).ordinal();
+    count++;
+    countPerSeverity[severity]++;
+
+    int[] ruleCounters = countersPerRule.get(severity).get(rule);
+    if (ruleCounters == null) {
+      ruleCounters = new int[1 + periods];
+      countersPerRule.get(severity).put(rule, ruleCounters);
+    }
+    ruleCounters[0]++;
+
+    for (int period = 0; period < periods; period++) {
+      if (isAfter(issue, snapshotDates[period])) {
+        newCount[period]++;
+        newCountPerSeverity[severity][period]++;
+      }
+      if (isAfter(issue, targetDates[period])) {
+        ruleCounters[1 + period]++;
+      }
+    }
+
+    if (Issue.STATUS_OPEN.equals(issue.status())) {
+      countOpen++;
+    } else if (Issue.STATUS_REOPENED.equals(issue.status())) {
+      countReopened++;
+    } else if (Issue.STATUS_CONFIRMED.equals(issue.status())) {
+      countConfirmed++;
+    }
+  }
+
+  int count() {
+    return count;
+  }
+
+  int count(RulePriority severity) {
+    return countPerSeverity[severity.ordinal()];
+  }
+
+  int count(RulePriority severity, @Nullable Rule rule) {
+    int[] ruleCounters = countersPerRule.get(severity.ordinal()).get(rule);
+    return ruleCounters != null ? ruleCounters[0] : 0;
+  }
+
+  /**
+   * Number of new issues on the period at the given position, issues being new when created after the date of the past snapshot.
+   */
+  int countNew(int period) {
+    return newCount[period];
+  }
+
+  int countNew(RulePriority severity, int period) {
+    return newCountPerSeverity[severity.ordinal()][period];
+  }
+
+  /**
+   * Number of new issues of the rule on the period at the given position. Contrary to the other new issues,
+   * issues are new when created after the target date of the past snapshot.
+   */
+  int countNew(RulePriority severity, @Nullable Rule rule, int period) {
+    int[] ruleCounters = countersPerRule.get(severity.ordinal()).get(rule);
+    return ruleCounters != null ? ruleCounters[1 + period] : 0;
+  }
+
+  /**
+   * Rules having issues of the given severity. The rule is null for issues whose rule can't be found.
+   */
+  Set<Rule> rules(RulePriority severity) {
+    return countersPerRule.get(severity.ordinal()).keySet();
+  }
+
+  int countOpen() {
+    return countOpen;
+  }
+
+  int countReopened() {
+    return countReopened;
+  }
+
+  int countConfirmed() {
+    return countConfirmed;
+  }
+
+  static boolean isAfter(Issue issue, @Nullable Date date) {
+    return date == null || (issue.creationDate() != null && DateUtils.truncatedCompareTo(issue.creationDate(), date, Calendar.SECOND) > 0);
+  }
+}
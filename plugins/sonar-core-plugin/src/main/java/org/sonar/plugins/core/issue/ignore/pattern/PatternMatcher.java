@@ -20,35 +20,64 @@
 package org.sonar.plugins.core.issue.ignore.pattern;
 
 import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
+import org.apache.commons.lang.StringUtils;
 import org.sonar.api.issue.Issue;
+import org.sonar.api.rule.RuleKey;
 
 import java.util.Collection;
-import java.util.Iterator;
+import java.util.Map;
 import java.util.Set;
 
 public class PatternMatcher {
 
   private Multimap<String, IssuePattern> patternByComponent = LinkedHashMultimap.create();
 
+  // patterns of each component, indexed by rule key. Patterns with wildcards or separators in rule are indexed with a null rule key.
+  private Map<String, Multimap<String, IssuePattern>> patternByComponentAndRule = Maps.newHashMap();
+
   public IssuePattern getMatchingPattern(Issue issue) {
+    Multimap<String, IssuePattern> patternByRule = patternByComponentAndRule.get(issue.componentKey());
+    if (patternByRule == null) {
+      return null;
+    }
     IssuePattern matchingPattern = null;
-    Iterator<IssuePattern> patternIterator = getPatternsForComponent(issue.componentKey()).iterator();
-    while(matchingPattern == null && patternIterator.hasNext()) {
-      IssuePattern nextPattern = patternIterator.next();
-      if (nextPattern.match(issue)) {
-        matchingPattern = nextPattern;
-      }
+    RuleKey ruleKey = issue.ruleKey();
+    if (ruleKey != null) {
+      String rule = new StringBuilder().append(ruleKey.repository()).append(':').append(ruleKey.rule()).toString();
+      matchingPattern = getMatchingPattern(issue, patternByRule.get(rule));
+    }
+    if (matchingPattern == null) {
+      matchingPattern = getMatchingPattern(issue, patternByRule.get(null));
     }
     return matchingPattern;
   }
 
+  private static IssuePattern getMatchingPattern(Issue issue, Collection<IssuePattern> patterns) {
+    for (IssuePattern pattern : patterns) {
+      if (pattern.match(issue)) {
+        return pattern;
+      }
+    }
+    return null;
+  }
+
   public Collection<IssuePattern> getPatternsForComponent(String componentKey) {
     return patternByComponent.get(componentKey);
   }
 
   public void addPatternForComponent(String component, IssuePattern pattern) {
-    patternByComponent.put(component, pattern.forResource(component));
+    IssuePattern componentPattern = pattern.forResource(component);
+    patternByComponent.put(component, componentPattern);
+
+    Multimap<String, IssuePattern> patternByRule = patternByComponentAndRule.get(component);
+    if (patternByRule == null) {
+      patternByRule = LinkedHashMultimap.create();
+      patternByComponentAndRule.put(component, patternByRule);
+    }
+    String rule = componentPattern.getRulePattern().toString();
+    patternByRule.put(StringUtils.containsAny(rule, "*?/\\") ? null : rule, componentPattern);
   }
 
   public void addPatternToExcludeResource(String resource) {
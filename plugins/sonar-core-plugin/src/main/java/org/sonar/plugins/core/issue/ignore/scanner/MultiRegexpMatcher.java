@@ -0,0 +1,89 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.core.issue.ignore.scanner;
+
+import javax.annotation.CheckForNull;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Finds which of several regular expressions is found in a line. Patterns are combined into a single
+ * alternation, so that a line which matches none of them, which is the most frequent case, is read once.
+ * When the line matches, patterns are evaluated one by one in order to report the first one,
+ * as if they were evaluated sequentially.
+ * <p/>
+ * Matchers are reused between lines, so instances are not thread-safe.
+ */
+class MultiRegexpMatcher {
+
+  private static final Pattern BACK_REFERENCE = Pattern.compile("\\\\[1-9]");
+
+  private final Matcher combined;
+  private final Matcher[] matchers;
+
+  MultiRegexpMatcher(List<Pattern> patterns) {
+    matchers = new Matcher[patterns.size()];
+    StringBuilder regexp = new StringBuilder();
+    boolean combinable = patterns.size() > 1;
+    for (int i = 0; i < patterns.size(); i++) {
+      Pattern pattern = patterns.get(i);
+      matchers[i] = pattern.matcher("");
+      if (i > 0) {
+        regexp.append('|');
+      }
+      regexp.append("(?:").append(pattern.pattern()).append(')');
+      // back references would refer to the groups of the previous patterns
+      combinable &= !BACK_REFERENCE.matcher(pattern.pattern()).find();
+    }
+    combined = combinable ? compile(regexp.toString()) : null;
+  }
+
+  @CheckForNull
+  private static Matcher compile(String regexp) {
+    try {
+      return Pattern.compile(regexp).matcher("");
+    } catch (PatternSyntaxException e) {
+      // for example a comment in a pattern using the COMMENTS flag would swallow the next alternatives
+      return null;
+    }
+  }
+
+  boolean isEmpty() {
+    return matchers.length == 0;
+  }
+
+  /**
+   * @return the index of the first pattern found in the line, or -1 if none
+   */
+  int find(CharSequence line) {
+    if (combined != null && !combined.reset(line).find()) {
+      return -1;
+    }
+    for (int i = 0; i < matchers.length; i++) {
+      if (matchers[i].reset(line).find()) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
@@ -22,11 +22,11 @@ package org.sonar.plugins.core.issue.ignore.scanner;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonar.api.BatchExtension;
+import org.sonar.batch.scan.filesystem.SourceContents;
 import org.sonar.plugins.core.issue.ignore.pattern.ExclusionPatternInitializer;
 import org.sonar.plugins.core.issue.ignore.pattern.IssuePattern;
 import org.sonar.plugins.core.issue.ignore.pattern.LineRange;
@@ -34,6 +34,7 @@ import org.sonar.plugins.core.issue.ignore.pattern.LineRange;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 
@@ -42,8 +43,11 @@ public class RegexpScanner implements BatchExtension {
   private static final Logger LOG = LoggerFactory.getLogger(RegexpScanner.class);
 
   private ExclusionPatternInitializer exclusionPatternInitializer;
+  private SourceContents sourceContents;
   private List<java.util.regex.Pattern> allFilePatterns;
+  private MultiRegexpMatcher allFileMatcher;
   private List<DoubleRegexpMatcher> blockMatchers;
+  private MultiRegexpMatcher beginBlockMatcher;
 
   // fields to be reset at every new scan
   private DoubleRegexpMatcher currentMatcher;
@@ -51,21 +55,24 @@ public class RegexpScanner implements BatchExtension {
   private List<LineExclusion> lineExclusions;
   private LineExclusion currentLineExclusion;
 
-  public RegexpScanner(ExclusionPatternInitializer patternsInitializer) {
+  public RegexpScanner(ExclusionPatternInitializer patternsInitializer, SourceContents sourceContents) {
     this.exclusionPatternInitializer = patternsInitializer;
+    this.sourceContents = sourceContents;
 
     lineExclusions = Lists.newArrayList();
     allFilePatterns = Lists.newArrayList();
     blockMatchers = Lists.newArrayList();
+    List<java.util.regex.Pattern> beginBlockPatterns = Lists.newArrayList();
 
     for (IssuePattern pattern : patternsInitializer.getAllFilePatterns()) {
       allFilePatterns.add(java.util.regex.Pattern.compile(pattern.getAllFileRegexp()));
     }
     for (IssuePattern pattern : patternsInitializer.getBlockPatterns()) {
-      blockMatchers.add(new DoubleRegexpMatcher(
-          java.util.regex.Pattern.compile(pattern.getBeginBlockRegexp()),
-          java.util.regex.Pattern.compile(pattern.getEndBlockRegexp())));
+      beginBlockPatterns.add(java.util.regex.Pattern.compile(pattern.getBeginBlockRegexp()));
+      blockMatchers.add(new DoubleRegexpMatcher(java.util.regex.Pattern.compile(pattern.getEndBlockRegexp())));
     }
+    allFileMatcher = new MultiRegexpMatcher(allFilePatterns);
+    beginBlockMatcher = new MultiRegexpMatcher(beginBlockPatterns);
 
     init();
   }
@@ -81,22 +88,22 @@ public class RegexpScanner implements BatchExtension {
     LOG.debug("Scanning {}", resource);
     init();
 
-    List<String> lines = FileUtils.readLines(file, sourcesEncoding.name());
+    Iterator<String> lines = sourceContents.lineIterator(file, sourcesEncoding);
     int lineIndex = 0;
-    for (String line : lines) {
+    while (lines.hasNext()) {
+      String line = lines.next();
       lineIndex++;
       if (line.trim().length() == 0) {
         continue;
       }
 
       // first check the single regexp patterns that can be used to totally exclude a file
-      for (java.util.regex.Pattern pattern : allFilePatterns) {
-        if (pattern.matcher(line).find()) {
-          exclusionPatternInitializer.getPatternMatcher().addPatternToExcludeResource(resource);
-          // nothing more to do on this file
-          LOG.debug("- Exclusion pattern '{}': every violation in this file will be ignored.", pattern);
-          return;
-        }
+      int allFilePattern = allFileMatcher.find(line);
+      if (allFilePattern >= 0) {
+        exclusionPatternInitializer.getPatternMatcher().addPatternToExcludeResource(resource);
+        // nothing more to do on this file
+        LOG.debug("- Exclusion pattern '{}': every violation in this file will be ignored.", allFilePatterns.get(allFilePattern));
+        return;
       }
 
       // then check the double regexps if we're still here
@@ -127,12 +134,10 @@ public class RegexpScanner implements BatchExtension {
 
   private void checkDoubleRegexps(String line, int lineIndex) {
     if (currentMatcher == null) {
-      for (DoubleRegexpMatcher matcher : blockMatchers) {
-        if (matcher.matchesFirstPattern(line)) {
-          startExclusion(lineIndex);
-          currentMatcher = matcher;
-          break;
-        }
+      int beginBlockPattern = beginBlockMatcher.find(line);
+      if (beginBlockPattern >= 0) {
+        startExclusion(lineIndex);
+        currentMatcher = blockMatchers.get(beginBlockPattern);
       }
     } else {
       if (currentMatcher.matchesSecondPattern(line)) {
@@ -174,24 +179,20 @@ public class RegexpScanner implements BatchExtension {
 
   private static class DoubleRegexpMatcher {
 
-    private java.util.regex.Pattern firstPattern;
-    private java.util.regex.Pattern secondPattern;
+    private java.util.regex.Matcher secondMatcher;
+    private boolean hasSecondPattern;
 
-    DoubleRegexpMatcher(java.util.regex.Pattern firstPattern, java.util.regex.Pattern secondPattern) {
-      this.firstPattern = firstPattern;
-      this.secondPattern = secondPattern;
-    }
-
-    boolean matchesFirstPattern(String line) {
-      return firstPattern.matcher(line).find();
+    DoubleRegexpMatcher(java.util.regex.Pattern secondPattern) {
+      this.secondMatcher = secondPattern.matcher("");
+      this.hasSecondPattern = StringUtils.isNotEmpty(secondPattern.toString());
     }
 
     boolean matchesSecondPattern(String line) {
-      return hasSecondPattern() && secondPattern.matcher(line).find();
+      return hasSecondPattern && secondMatcher.reset(line).find();
     }
 
     boolean hasSecondPattern() {
-      return StringUtils.isNotEmpty(secondPattern.toString());
+      return hasSecondPattern;
     }
   }
 
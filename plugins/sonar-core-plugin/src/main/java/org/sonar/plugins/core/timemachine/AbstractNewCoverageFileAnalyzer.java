@@ -20,8 +20,6 @@
 package org.sonar.plugins.core.timemachine;
 
 import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
-import org.apache.commons.lang.ObjectUtils;
 import org.sonar.api.batch.*;
 import org.sonar.api.measures.CoreMetrics;
 import org.sonar.api.measures.Measure;
@@ -30,7 +28,7 @@ import org.sonar.api.resources.Project;
 import org.sonar.api.resources.Qualifiers;
 import org.sonar.api.resources.Resource;
 import org.sonar.api.resources.Scopes;
-import org.sonar.api.utils.KeyValueFormat;
+import org.sonar.api.utils.LineDataFormat;
 import org.sonar.batch.components.PastSnapshot;
 import org.sonar.batch.components.TimeMachineConfiguration;
 import org.sonar.core.DryRunIncompatible;
@@ -38,7 +36,6 @@ import org.sonar.core.DryRunIncompatible;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
-import java.util.Map;
 
 /**
  * @since 2.7
@@ -48,16 +45,19 @@ import java.util.Map;
 public abstract class AbstractNewCoverageFileAnalyzer implements Decorator {
 
   private List<PeriodStruct> structs;
+  private final LineDataCache lineDataCache;
 
-  public AbstractNewCoverageFileAnalyzer(TimeMachineConfiguration timeMachineConfiguration) {
+  public AbstractNewCoverageFileAnalyzer(TimeMachineConfiguration timeMachineConfiguration, LineDataCache lineDataCache) {
     structs = Lists.newArrayList();
     for (PastSnapshot pastSnapshot : timeMachineConfiguration.getProjectPastSnapshots()) {
       structs.add(new PeriodStruct(pastSnapshot));
     }
+    this.lineDataCache = lineDataCache;
   }
 
   AbstractNewCoverageFileAnalyzer(List<PeriodStruct> structs) {
     this.structs = structs;
+    this.lineDataCache = new LineDataCache();
   }
 
   public abstract Metric getCoverageLineHitsDataMetric();
@@ -111,21 +111,22 @@ public abstract class AbstractNewCoverageFileAnalyzer implements Decorator {
     Measure hitsByLineMeasure = context.getMeasure(getCoverageLineHitsDataMetric());
 
     if (lastCommits != null && lastCommits.hasData() && hitsByLineMeasure != null && hitsByLineMeasure.hasData()) {
-      Map<Integer, Date> datesByLine = KeyValueFormat.parseIntDateTime(lastCommits.getData());
-      Map<Integer, Integer> hitsByLine = parseCountByLine(hitsByLineMeasure);
-      Map<Integer, Integer> conditionsByLine = parseCountByLine(context.getMeasure(getConditionsByLineMetric()));
-      Map<Integer, Integer> coveredConditionsByLine = parseCountByLine(context.getMeasure(getCoveredConditionsByLineMetric()));
+      long[] datesByLine = lineDataCache.dateTimeByLine(lastCommits);
+      int[] hitsByLine = lineDataCache.intByLine(hitsByLineMeasure);
+      int[] conditionsByLine = lineDataCache.intByLine(context.getMeasure(getConditionsByLineMetric()));
+      int[] coveredConditionsByLine = lineDataCache.intByLine(context.getMeasure(getCoveredConditionsByLineMetric()));
 
       reset();
 
-      for (Map.Entry<Integer, Integer> entry : hitsByLine.entrySet()) {
-        int lineId = entry.getKey();
-        int hits = entry.getValue();
-        int conditions = (Integer) ObjectUtils.defaultIfNull(conditionsByLine.get(lineId), 0);
-        int coveredConditions = (Integer) ObjectUtils.defaultIfNull(coveredConditionsByLine.get(lineId), 0);
-        Date date = datesByLine.get(lineId);
-        for (PeriodStruct struct : structs) {
-          struct.analyze(date, hits, conditions, coveredConditions);
+      for (int lineId = 1; lineId < hitsByLine.length; lineId++) {
+        int hits = hitsByLine[lineId];
+        if (hits != LineDataFormat.NO_INT_VALUE) {
+          int conditions = countAt(conditionsByLine, lineId);
+          int coveredConditions = countAt(coveredConditionsByLine, lineId);
+          long date = lineId < datesByLine.length ? datesByLine[lineId] : LineDataFormat.NO_DATE_VALUE;
+          for (PeriodStruct struct : structs) {
+            struct.analyze(date, hits, conditions, coveredConditions);
+          }
         }
       }
 
@@ -161,11 +162,11 @@ public abstract class AbstractNewCoverageFileAnalyzer implements Decorator {
     context.saveMeasure(newUncoveredConditions);
   }
 
-  private Map<Integer, Integer> parseCountByLine(Measure measure) {
-    if (measure != null && measure.hasData()) {
-      return KeyValueFormat.parseIntInt(measure.getData());
+  private static int countAt(int[] countByLine, int lineId) {
+    if (lineId < countByLine.length && countByLine[lineId] != LineDataFormat.NO_INT_VALUE) {
+      return countByLine[lineId];
     }
-    return Maps.newHashMap();
+    return 0;
   }
 
   public static final class PeriodStruct {
@@ -193,12 +194,11 @@ public abstract class AbstractNewCoverageFileAnalyzer implements Decorator {
       newCoveredConditions = null;
     }
 
-    void analyze(Date lineDate, int hits, int conditions, int coveredConditions) {
-      if (lineDate == null) {
+    void analyze(long lineDate, int hits, int conditions, int coveredConditions) {
+      if (lineDate == LineDataFormat.NO_DATE_VALUE) {
         // TODO warning
 
-      } else if (date == null || lineDate.after(date)) {
-        // TODO test if string comparison is faster or not
+      } else if (date == null || lineDate > date.getTime()) {
         addLine(hits > 0);
         addConditions(conditions, coveredConditions);
       }
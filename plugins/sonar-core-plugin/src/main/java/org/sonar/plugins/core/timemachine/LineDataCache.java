@@ -0,0 +1,87 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.core.timemachine;
+
+import com.google.common.collect.Maps;
+import org.sonar.api.BatchExtension;
+import org.sonar.api.batch.InstantiationStrategy;
+import org.sonar.api.measures.Measure;
+import org.sonar.api.utils.LineDataFormat;
+
+import javax.annotation.Nullable;
+
+import java.util.Map;
+
+/**
+ * Keeps the last decoded value of each data measure by line, so that the new coverage analyzers, which are executed
+ * one after the other on the same file, decode the shared SCM data only once.
+ *
+ * @since 4.0
+ */
+@InstantiationStrategy(InstantiationStrategy.PER_BATCH)
+public class LineDataCache implements BatchExtension {
+
+  private static final int[] NO_INTS = new int[0];
+  private static final long[] NO_LONGS = new long[0];
+
+  private final Map<String, Entry> entriesByMetric = Maps.newHashMap();
+
+  public int[] intByLine(@Nullable Measure measure) {
+    if (measure == null || !measure.hasData()) {
+      return NO_INTS;
+    }
+    Entry entry = entry(measure);
+    if (entry.ints == null) {
+      entry.ints = LineDataFormat.parseIntByLine(entry.data);
+    }
+    return entry.ints;
+  }
+
+  public long[] dateTimeByLine(@Nullable Measure measure) {
+    if (measure == null || !measure.hasData()) {
+      return NO_LONGS;
+    }
+    Entry entry = entry(measure);
+    if (entry.longs == null) {
+      entry.longs = LineDataFormat.parseDateTimeByLine(entry.data);
+    }
+    return entry.longs;
+  }
+
+  private Entry entry(Measure measure) {
+    String data = measure.getData();
+    Entry entry = entriesByMetric.get(measure.getMetricKey());
+    if (entry == null || !entry.data.equals(data)) {
+      entry = new Entry(data);
+      entriesByMetric.put(measure.getMetricKey(), entry);
+    }
+    return entry;
+  }
+
+  private static final class Entry {
+    private final String data;
+    private int[] ints;
+    private long[] longs;
+
+    private Entry(String data) {
+      this.data = data;
+    }
+  }
+}
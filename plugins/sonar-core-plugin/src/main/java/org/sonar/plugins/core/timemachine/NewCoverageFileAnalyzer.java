@@ -27,8 +27,8 @@ import java.util.List;
 
 public class NewCoverageFileAnalyzer extends AbstractNewCoverageFileAnalyzer {
 
-  public NewCoverageFileAnalyzer(TimeMachineConfiguration timeMachineConfiguration) {
-    super(timeMachineConfiguration);
+  public NewCoverageFileAnalyzer(TimeMachineConfiguration timeMachineConfiguration, LineDataCache lineDataCache) {
+    super(timeMachineConfiguration, lineDataCache);
   }
 
   NewCoverageFileAnalyzer(List<PeriodStruct> structs) {
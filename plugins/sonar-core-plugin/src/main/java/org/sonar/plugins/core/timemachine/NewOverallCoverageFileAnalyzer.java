@@ -25,8 +25,8 @@ import org.sonar.batch.components.TimeMachineConfiguration;
 
 public class NewOverallCoverageFileAnalyzer extends AbstractNewCoverageFileAnalyzer {
 
-  public NewOverallCoverageFileAnalyzer(TimeMachineConfiguration timeMachineConfiguration) {
-    super(timeMachineConfiguration);
+  public NewOverallCoverageFileAnalyzer(TimeMachineConfiguration timeMachineConfiguration, LineDataCache lineDataCache) {
+    super(timeMachineConfiguration, lineDataCache);
   }
 
   @Override
@@ -0,0 +1,119 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.core.issue;
+
+import org.apache.commons.lang.time.DateUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonar.api.issue.Issue;
+import org.sonar.api.issue.internal.DefaultIssue;
+import org.sonar.api.rules.Rule;
+import org.sonar.api.rules.RulePriority;
+import org.sonar.batch.components.PastSnapshot;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class UnresolvedIssuesCounterTest {
+
+  Rule ruleA1 = Rule.create().setRepositoryKey("ruleA1").setKey("ruleA1").setName("nameA1");
+  Rule ruleA2 = Rule.create().setRepositoryKey("ruleA2").setKey("ruleA2").setName("nameA2");
+  Date rightNow;
+  Date tenDaysAgo;
+  Date fiveDaysAgo;
+  UnresolvedIssuesCounter counter;
+
+  @Before
+  public void before() {
+    rightNow = new Date();
+    tenDaysAgo = DateUtils.addDays(rightNow, -10);
+    fiveDaysAgo = DateUtils.addDays(rightNow, -5);
+
+    PastSnapshot pastSnapshot = mock(PastSnapshot.class);
+    when(pastSnapshot.getDate()).thenReturn(DateUtils.addDays(fiveDaysAgo, 1));
+    when(pastSnapshot.getTargetDate()).thenReturn(fiveDaysAgo);
+    PastSnapshot pastSnapshot2 = mock(PastSnapshot.class);
+    when(pastSnapshot2.getDate()).thenReturn(DateUtils.addDays(tenDaysAgo, 1));
+    when(pastSnapshot2.getTargetDate()).thenReturn(tenDaysAgo);
+
+    counter = new UnresolvedIssuesCounter(Arrays.asList(pastSnapshot, pastSnapshot2));
+  }
+
+  @Test
+  public void should_count_issues_per_severity_and_rule() {
+    counter.add(newIssue(RulePriority.CRITICAL, rightNow, Issue.STATUS_OPEN), ruleA1);
+    counter.add(newIssue(RulePriority.CRITICAL, rightNow, Issue.STATUS_REOPENED), ruleA1);
+    counter.add(newIssue(RulePriority.MINOR, rightNow, Issue.STATUS_CONFIRMED), ruleA1);
+    counter.add(newIssue(RulePriority.MINOR, rightNow, Issue.STATUS_OPEN), ruleA2);
+
+    assertThat(counter.count()).isEqualTo(4);
+    assertThat(counter.count(RulePriority.CRITICAL)).isEqualTo(2);
+    assertThat(counter.count(RulePriority.MINOR)).isEqualTo(2);
+    assertThat(counter.count(RulePriority.BLOCKER)).isEqualTo(0);
+    assertThat(counter.rules(RulePriority.CRITICAL)).containsOnly(ruleA1);
+    assertThat(counter.rules(RulePriority.MINOR)).containsOnly(ruleA1, ruleA2);
+    assertThat(counter.count(RulePriority.CRITICAL, ruleA1)).isEqualTo(2);
+    assertThat(counter.count(RulePriority.CRITICAL, ruleA2)).isEqualTo(0);
+    assertThat(counter.countOpen()).isEqualTo(2);
+    assertThat(counter.countReopened()).isEqualTo(1);
+    assertThat(counter.countConfirmed()).isEqualTo(1);
+  }
+
+  @Test
+  public void should_count_new_issues_per_period() {
+    counter.add(newIssue(RulePriority.CRITICAL, rightNow, Issue.STATUS_OPEN), ruleA1);
+    counter.add(newIssue(RulePriority.CRITICAL, tenDaysAgo, Issue.STATUS_OPEN), ruleA1);
+    counter.add(newIssue(RulePriority.MAJOR, fiveDaysAgo, Issue.STATUS_OPEN), ruleA2);
+
+    // new issues per severity are compared to the snapshot date
+    assertThat(counter.countNew(0)).isEqualTo(1);
+    assertThat(counter.countNew(1)).isEqualTo(2);
+    assertThat(counter.countNew(RulePriority.CRITICAL, 0)).isEqualTo(1);
+    assertThat(counter.countNew(RulePriority.CRITICAL, 1)).isEqualTo(1);
+    assertThat(counter.countNew(RulePriority.MAJOR, 0)).isEqualTo(0);
+    assertThat(counter.countNew(RulePriority.MAJOR, 1)).isEqualTo(1);
+
+    // new issues per rule are compared to the target date
+    assertThat(counter.countNew(RulePriority.CRITICAL, ruleA1, 0)).isEqualTo(1);
+    assertThat(counter.countNew(RulePriority.CRITICAL, ruleA1, 1)).isEqualTo(1);
+    assertThat(counter.countNew(RulePriority.MAJOR, ruleA2, 0)).isEqualTo(0);
+    assertThat(counter.countNew(RulePriority.MAJOR, ruleA2, 1)).isEqualTo(1);
+    assertThat(counter.countNew(RulePriority.MAJOR, ruleA1, 1)).isEqualTo(0);
+  }
+
+  @Test
+  public void should_compare_creation_dates_on_seconds() {
+    Date sameSecond = DateUtils.truncate(rightNow, Calendar.SECOND);
+
+    assertThat(UnresolvedIssuesCounter.isAfter(newIssue(RulePriority.MAJOR, rightNow, Issue.STATUS_OPEN), null)).isTrue();
+    assertThat(UnresolvedIssuesCounter.isAfter(newIssue(RulePriority.MAJOR, rightNow, Issue.STATUS_OPEN), fiveDaysAgo)).isTrue();
+    assertThat(UnresolvedIssuesCounter.isAfter(newIssue(RulePriority.MAJOR, rightNow, Issue.STATUS_OPEN), sameSecond)).isFalse();
+    assertThat(UnresolvedIssuesCounter.isAfter(newIssue(RulePriority.MAJOR, null, Issue.STATUS_OPEN), fiveDaysAgo)).isFalse();
+  }
+
+  private Issue newIssue(RulePriority severity, Date creationDate, String status) {
+    return new DefaultIssue().setSeverity(severity.name()).setCreationDate(creationDate).setStatus(status);
+  }
+}
@@ -101,6 +101,17 @@ public class PatternMatcherTest {
     assertThat(patternMatcher.getMatchingPattern(create(CHECKSTYLE_RULE, JAVA_FILE, 5))).isNull();
   }
 
+  @Test
+  public void shouldMatchOnlyPatternsOfRule() throws IOException {
+    patternMatcher.addPatternForComponent(JAVA_FILE, createPattern("org.foo.Hello;checkstyle:IllegalRegexp;[15-200]"));
+    assertThat(patternMatcher.getMatchingPattern(create(CHECKSTYLE_RULE, JAVA_FILE, 150))).isNull();
+
+    patternMatcher.addPatternForComponent(JAVA_FILE, createPattern("org.foo.Hello;checkstyle:Magic*;[15-200]"));
+    assertThat(patternMatcher.getMatchingPattern(create(CHECKSTYLE_RULE, JAVA_FILE, 150))).isNotNull();
+    assertThat(patternMatcher.getMatchingPattern(create(CHECKSTYLE_RULE, "org.foo.Other", 150))).isNull();
+    assertThat(patternMatcher.getMatchingPattern(create(null, JAVA_FILE, 150))).isNull();
+  }
+
   private Issue create(Rule rule, String component, Integer line) {
     Issue mockIssue = mock(Issue.class);
     RuleKey ruleKey = null;
@@ -0,0 +1,66 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.core.issue.ignore.scanner;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.regex.Pattern;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class MultiRegexpMatcherTest {
+
+  @Test
+  public void should_find_first_pattern_in_declaration_order() {
+    MultiRegexpMatcher matcher = new MultiRegexpMatcher(Arrays.asList(Pattern.compile("// FOO-OFF"), Pattern.compile("OFF"), Pattern.compile("^int")));
+
+    assertThat(matcher.isEmpty()).isFalse();
+    assertThat(matcher.find("int i = 0; // FOO-OFF")).isEqualTo(0);
+    assertThat(matcher.find("int i = 0; // BAR-OFF")).isEqualTo(1);
+    assertThat(matcher.find("int i = 0;")).isEqualTo(2);
+    assertThat(matcher.find("long l = 0;")).isEqualTo(-1);
+  }
+
+  @Test
+  public void should_support_back_references() {
+    MultiRegexpMatcher matcher = new MultiRegexpMatcher(Arrays.asList(Pattern.compile("(a)b"), Pattern.compile("(x)\\1")));
+
+    assertThat(matcher.find("xx")).isEqualTo(1);
+    assertThat(matcher.find("xa")).isEqualTo(-1);
+  }
+
+  @Test
+  public void should_support_comments_flag() {
+    MultiRegexpMatcher matcher = new MultiRegexpMatcher(Arrays.asList(Pattern.compile("(?x) foo # comment"), Pattern.compile("bar")));
+
+    assertThat(matcher.find("bar")).isEqualTo(1);
+    assertThat(matcher.find("foo")).isEqualTo(0);
+  }
+
+  @Test
+  public void should_not_find_if_no_patterns() {
+    MultiRegexpMatcher matcher = new MultiRegexpMatcher(Collections.<Pattern>emptyList());
+
+    assertThat(matcher.isEmpty()).isTrue();
+    assertThat(matcher.find("foo")).isEqualTo(-1);
+  }
+}
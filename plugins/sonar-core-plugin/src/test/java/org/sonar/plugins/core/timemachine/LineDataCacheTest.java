@@ -0,0 +1,58 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.core.timemachine;
+
+import org.junit.Test;
+import org.sonar.api.measures.CoreMetrics;
+import org.sonar.api.measures.Measure;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class LineDataCacheTest {
+
+  LineDataCache cache = new LineDataCache();
+
+  @Test
+  public void should_decode_data_once() {
+    Measure measure = new Measure(CoreMetrics.SCM_LAST_COMMIT_DATETIMES_BY_LINE, "1=2008-05-18T00:00:00+0000");
+
+    long[] dates = cache.dateTimeByLine(measure);
+
+    assertThat(dates).hasSize(2);
+    assertThat(cache.dateTimeByLine(measure)).isSameAs(dates);
+    assertThat(cache.dateTimeByLine(new Measure(CoreMetrics.SCM_LAST_COMMIT_DATETIMES_BY_LINE, "1=2008-05-18T00:00:00+0000"))).isSameAs(dates);
+  }
+
+  @Test
+  public void should_decode_new_data_of_same_metric() {
+    int[] hits = cache.intByLine(new Measure(CoreMetrics.COVERAGE_LINE_HITS_DATA, "1=3"));
+    int[] otherHits = cache.intByLine(new Measure(CoreMetrics.COVERAGE_LINE_HITS_DATA, "1=3;2=0"));
+
+    assertThat(otherHits).isNotSameAs(hits);
+    assertThat(otherHits).hasSize(3);
+  }
+
+  @Test
+  public void should_return_empty_array_if_no_data() {
+    assertThat(cache.intByLine(null)).isEmpty();
+    assertThat(cache.intByLine(new Measure(CoreMetrics.COVERAGE_LINE_HITS_DATA))).isEmpty();
+    assertThat(cache.dateTimeByLine(null)).isEmpty();
+  }
+}
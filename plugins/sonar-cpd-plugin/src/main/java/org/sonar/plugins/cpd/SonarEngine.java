@@ -21,7 +21,6 @@
 package org.sonar.plugins.cpd;
 
 import com.google.common.collect.Iterables;
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringEscapeUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,6 +36,7 @@ import org.sonar.api.scan.filesystem.FileQuery;
 import org.sonar.api.scan.filesystem.ModuleFileSystem;
 import org.sonar.api.scan.filesystem.PathResolver;
 import org.sonar.api.utils.SonarException;
+import org.sonar.batch.scan.filesystem.SourceContents;
 import org.sonar.duplications.block.Block;
 import org.sonar.duplications.block.BlockChunker;
 import org.sonar.duplications.detector.suffixtree.SuffixTreeCloneDetectionAlgorithm;
@@ -76,9 +76,11 @@ public class SonarEngine extends CpdEngine {
   private final ModuleFileSystem fileSystem;
   private final PathResolver pathResolver;
   private final Settings settings;
+  private final SourceContents sourceContents;
 
-  public SonarEngine(IndexFactory indexFactory, ModuleFileSystem moduleFileSystem, PathResolver pathResolver, Settings settings) {
+  public SonarEngine(IndexFactory indexFactory, ModuleFileSystem moduleFileSystem, PathResolver pathResolver, Settings settings, SourceContents sourceContents) {
     this.indexFactory = indexFactory;
+    this.sourceContents = sourceContents;
     this.fileSystem = moduleFileSystem;
     this.pathResolver = pathResolver;
     this.settings = settings;
@@ -121,17 +123,8 @@ public class SonarEngine extends CpdEngine {
       Resource resource = getResource(file);
       String resourceKey = getFullKey(project, resource);
 
-      List<Statement> statements;
-
-      Reader reader = null;
-      try {
-        reader = new InputStreamReader(new FileInputStream(file), fileSystem.sourceCharset());
-        statements = statementChunker.chunk(tokenChunker.chunk(reader));
-      } catch (FileNotFoundException e) {
-        throw new SonarException("Cannot find file "+ file, e);
-      } finally {
-        IOUtils.closeQuietly(reader);
-      }
+      Reader reader = sourceContents.reader(file, fileSystem.sourceCharset());
+      List<Statement> statements = statementChunker.chunk(tokenChunker.chunk(reader));
 
       List<Block> blocks = blockChunker.chunk(resourceKey, statements);
       index.insert(resource, blocks);
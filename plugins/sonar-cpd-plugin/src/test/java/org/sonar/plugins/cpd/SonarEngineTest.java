@@ -66,7 +66,7 @@ public class SonarEngineTest {
     RelativePath relativePath = new RelativePath(null, "com/foo/Bar.java");
     when(pathResolver.relativePath(anyCollection(), any(java.io.File.class))).thenReturn(relativePath);
 
-    SonarEngine engine = new SonarEngine(null, fileSystem, pathResolver, null);
+    SonarEngine engine = new SonarEngine(null, fileSystem, pathResolver, null, null);
     Resource resource = engine.getResource(new java.io.File(""));
 
     assertThat(resource.getKey()).isEqualTo("com.foo.Bar");
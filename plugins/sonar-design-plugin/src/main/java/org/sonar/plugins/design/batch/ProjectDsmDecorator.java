@@ -19,6 +19,7 @@
  */
 package org.sonar.plugins.design.batch;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
 import org.sonar.api.batch.Decorator;
 import org.sonar.api.batch.DecoratorContext;
@@ -41,11 +42,24 @@ import java.util.Set;
  */
 public class ProjectDsmDecorator implements Decorator {
 
+  /**
+   * Above this number of cycles, the exact solver does not give good results anymore, so feedback edges
+   * are computed by the heuristic solver without enumerating cycles.
+   */
+  private static final int MAX_CYCLES_FOR_MINIMUM_SOLVER = 1500;
+
   // hack as long as DecoratorContext does not implement SonarIndex
   private SonarIndex index;
+  private final int maxCyclesForMinimumSolver;
 
   public ProjectDsmDecorator(SonarIndex index) {
+    this(index, MAX_CYCLES_FOR_MINIMUM_SOLVER);
+  }
+
+  @VisibleForTesting
+  ProjectDsmDecorator(SonarIndex index, int maxCyclesForMinimumSolver) {
     this.index = index;
+    this.maxCyclesForMinimumSolver = maxCyclesForMinimumSolver;
   }
 
   public boolean shouldExecuteOnProject(Project project) {
@@ -70,17 +84,23 @@ public class ProjectDsmDecorator implements Decorator {
   }
 
   private Dsm<Resource> getDsm(Collection<Resource> subProjects) {
-    CycleDetector<Resource> cycleDetector = new CycleDetector<Resource>(index, subProjects);
-    Set<Cycle> cycles = cycleDetector.getCycles();
-
-    MinimumFeedbackEdgeSetSolver solver = new MinimumFeedbackEdgeSetSolver(cycles);
-    Set<Edge> feedbackEdges = solver.getEdges();
+    Set<Edge> feedbackEdges = getFeedbackEdges(subProjects);
 
     Dsm<Resource> dsm = new Dsm<Resource>(index, subProjects, feedbackEdges);
     DsmTopologicalSorter.sort(dsm);
     return dsm;
   }
 
+  @VisibleForTesting
+  Set<Edge> getFeedbackEdges(Collection<Resource> subProjects) {
+    CycleDetector<Resource> cycleDetector = new CycleDetector<Resource>(index, subProjects);
+    Set<Cycle> cycles = cycleDetector.detectCyclesWithUpperLimit(maxCyclesForMinimumSolver);
+    if (cycles.size() < maxCyclesForMinimumSolver) {
+      return new MinimumFeedbackEdgeSetSolver(cycles).getEdges();
+    }
+    return new HeuristicFeedbackEdgeSetSolver<Resource>(index, subProjects).getEdges();
+  }
+
   /**
    * sub-projects, including all descendants but not only direct children
    */
@@ -0,0 +1,142 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.design.batch;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.sonar.api.batch.DecoratorContext;
+import org.sonar.api.batch.SonarIndex;
+import org.sonar.api.design.Dependency;
+import org.sonar.api.measures.CoreMetrics;
+import org.sonar.api.measures.Measure;
+import org.sonar.api.resources.Project;
+import org.sonar.api.resources.Resource;
+import org.sonar.graph.DirectedGraph;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+public class ProjectDsmDecoratorTest {
+
+  private Project root;
+  private Project a, b, c, d;
+  private List<Resource> modules;
+  private DirectedGraph<Resource, Dependency> graph;
+  private SonarIndex index;
+
+  /**
+   * Single cycle B -> D -> C -> B. The exact solver removes its lightest edge D -> C, whereas the heuristic
+   * solver, which orders vertices by their weights of outgoing and incoming edges, removes C -> B.
+   */
+  @Before
+  public void setUp() {
+    root = new Project("root");
+    a = newModule("a");
+    b = newModule("b");
+    c = newModule("c");
+    d = newModule("d");
+    modules = Arrays.<Resource>asList(a, b, c, d);
+
+    graph = new DirectedGraph<Resource, Dependency>();
+    for (Resource module : modules) {
+      graph.addVertex(module);
+    }
+    addDependency(a, b, 4);
+    addDependency(a, d, 2);
+    addDependency(b, d, 5);
+    addDependency(c, b, 4);
+    addDependency(d, c, 3);
+
+    index = mock(SonarIndex.class);
+    when(index.getResource(any(Resource.class))).thenAnswer(new Answer<Resource>() {
+      public Resource answer(InvocationOnMock invocation) {
+        return (Resource) invocation.getArguments()[0];
+      }
+    });
+    when(index.getOutgoingEdges(any(Resource.class))).thenAnswer(new Answer<Collection<Dependency>>() {
+      public Collection<Dependency> answer(InvocationOnMock invocation) {
+        return graph.getOutgoingEdges((Resource) invocation.getArguments()[0]);
+      }
+    });
+    when(index.getIncomingEdges(any(Resource.class))).thenAnswer(new Answer<Collection<Dependency>>() {
+      public Collection<Dependency> answer(InvocationOnMock invocation) {
+        return graph.getIncomingEdges((Resource) invocation.getArguments()[0]);
+      }
+    });
+    when(index.getEdge(any(Resource.class), any(Resource.class))).thenAnswer(new Answer<Dependency>() {
+      public Dependency answer(InvocationOnMock invocation) {
+        return graph.getEdge((Resource) invocation.getArguments()[0], (Resource) invocation.getArguments()[1]);
+      }
+    });
+  }
+
+  @Test
+  public void should_remove_minimum_feedback_edges_when_cycles_are_few() {
+    ProjectDsmDecorator decorator = new ProjectDsmDecorator(index);
+
+    assertThat(decorator.getFeedbackEdges(modules)).containsOnly(graph.getEdge(d, c));
+  }
+
+  @Test
+  public void should_remove_heuristic_feedback_edges_when_cycles_are_too_many() {
+    ProjectDsmDecorator decorator = new ProjectDsmDecorator(index, 1);
+
+    assertThat(decorator.getFeedbackEdges(modules)).containsOnly(graph.getEdge(c, b));
+  }
+
+  @Test
+  public void should_save_dependency_matrix_of_modules() {
+    DecoratorContext context = mock(DecoratorContext.class);
+
+    new ProjectDsmDecorator(index).decorate(root, context);
+
+    ArgumentCaptor<Measure> measure = ArgumentCaptor.forClass(Measure.class);
+    verify(context).saveMeasure(measure.capture());
+    assertThat(measure.getValue().getMetric()).isEqualTo(CoreMetrics.DEPENDENCY_MATRIX);
+    assertThat(measure.getValue().getData()).contains("\"w\":3");
+  }
+
+  @Test
+  public void should_not_decorate_project_without_modules() {
+    DecoratorContext context = mock(DecoratorContext.class);
+
+    new ProjectDsmDecorator(index).decorate(new Project("single"), context);
+
+    verify(context, never()).saveMeasure(any(Measure.class));
+  }
+
+  private Project newModule(String key) {
+    Project module = new Project(key);
+    module.setParent(root);
+    return module;
+  }
+
+  private void addDependency(Resource from, Resource to, int weight) {
+    graph.addEdge(new Dependency(from, to).setWeight(weight));
+  }
+}
@@ -44,6 +44,7 @@ import org.sonar.core.persistence.DatabaseVersion;
 import org.sonar.core.persistence.MyBatis;
 import org.sonar.core.persistence.SemaphoreUpdater;
 import org.sonar.core.persistence.SemaphoresImpl;
+import org.sonar.core.profiling.ProfilingRegistry;
 import org.sonar.core.qualitymodel.DefaultModelFinder;
 import org.sonar.core.rule.CacheRuleFinder;
 import org.sonar.core.user.HibernateUserFinder;
@@ -85,6 +86,7 @@ public class BootstrapContainer extends ComponentContainer {
       ServerClient.class,
       ExtensionInstaller.class,
       Logback.class,
+      ProfilingRegistry.class,
       ServerMetadata.class,
       org.sonar.batch.ServerMetadata.class,
       TempDirectories.class,
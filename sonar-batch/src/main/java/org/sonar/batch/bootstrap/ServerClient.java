@@ -19,6 +19,7 @@
  */
 package org.sonar.batch.bootstrap;
 
+import com.google.common.base.Charsets;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import com.google.common.io.Files;
@@ -37,6 +38,8 @@ import javax.annotation.Nullable;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.net.URI;
 
 /**
@@ -93,6 +96,22 @@ public class ServerClient implements BatchComponent {
     }
   }
 
+  /**
+   * Streams the response, so that large responses are not loaded in memory. The reader must be closed by caller.
+   *
+   * @since 4.0
+   */
+  public Reader requestAsReader(String pathStartingWithSlash, boolean wrapHttpException) {
+    InputSupplier<InputStream> inputSupplier = doRequest(pathStartingWithSlash, null);
+    try {
+      return new InputStreamReader(inputSupplier.getInput(), Charsets.UTF_8);
+    } catch (HttpDownloader.HttpException e) {
+      throw wrapHttpException ? handleHttpException(e) : e;
+    } catch (IOException e) {
+      throw new SonarException(String.format("Unable to request: %s", pathStartingWithSlash), e);
+    }
+  }
+
   private InputSupplier<InputStream> doRequest(String pathStartingWithSlash, @Nullable Integer timeoutMillis) {
     Preconditions.checkArgument(pathStartingWithSlash.startsWith("/"), "Path must start with slash /");
     String path = StringEscapeUtils.escapeHtml(pathStartingWithSlash);
@@ -24,6 +24,8 @@ import com.persistit.Exchange;
 import com.persistit.Key;
 import com.persistit.exception.PersistitException;
 import org.apache.commons.lang.builder.ToStringBuilder;
+import org.sonar.core.profiling.Counter;
+import org.sonar.core.profiling.ProfilingRegistry;
 
 import javax.annotation.CheckForNull;
 import java.io.Serializable;
@@ -40,10 +42,16 @@ public class Cache<K, V extends Serializable> {
   private static final String DEFAULT_GROUP = "_";
   private final String name;
   private final Exchange exchange;
+  private final Counter gets;
+  private final Counter misses;
+  private final Counter puts;
 
-  Cache(String name, Exchange exchange) {
+  Cache(String name, Exchange exchange, ProfilingRegistry profiling) {
     this.name = name;
     this.exchange = exchange;
+    this.gets = profiling.counter("batch.cache." + name + ".get");
+    this.misses = profiling.counter("batch.cache." + name + ".miss");
+    this.puts = profiling.counter("batch.cache." + name + ".put");
   }
 
   public Cache put(K key, V value) {
@@ -51,6 +59,7 @@ public class Cache<K, V extends Serializable> {
   }
 
   public Cache put(String group, K key, V value) {
+    puts.inc();
     try {
       exchange.clear();
       exchange.append(group).append(key);
@@ -71,11 +80,13 @@ public class Cache<K, V extends Serializable> {
    */
   @SuppressWarnings("unchecked")
   public V get(String group, K key) {
+    gets.inc();
     try {
       exchange.clear();
       exchange.append(group).append(key);
       exchange.fetch();
       if (!exchange.getValue().isDefined()) {
+        misses.inc();
         return null;
       }
       return (V) exchange.getValue().get();
@@ -31,6 +31,7 @@ import org.apache.commons.io.FileUtils;
 import org.picocontainer.Startable;
 import org.slf4j.LoggerFactory;
 import org.sonar.api.BatchComponent;
+import org.sonar.core.profiling.ProfilingRegistry;
 
 import java.io.File;
 import java.io.Serializable;
@@ -45,11 +46,20 @@ import java.util.Set;
 public class Caches implements BatchComponent, Startable {
 
   private final Set<String> cacheNames = Sets.newHashSet();
+  private final ProfilingRegistry profiling;
   private File tempDir;
   private Persistit persistit;
   private Volume volume;
 
   public Caches() {
+    this(new ProfilingRegistry());
+  }
+
+  /**
+   * @since 4.0
+   */
+  public Caches(ProfilingRegistry profiling) {
+    this.profiling = profiling;
     initPersistit();
   }
 
@@ -80,7 +90,7 @@ public class Caches implements BatchComponent, Startable {
     Preconditions.checkState(!cacheNames.contains(cacheName), "Cache is already created: " + cacheName);
     try {
       Exchange exchange = persistit.getExchange(volume, cacheName, true);
-      Cache<K, V> cache = new Cache<K, V>(cacheName, exchange);
+      Cache<K, V> cache = new Cache<K, V>(cacheName, exchange, profiling);
       cacheNames.add(cacheName);
       return cache;
     } catch (Exception e) {
@@ -19,46 +19,75 @@
  */
 package org.sonar.batch.index;
 
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 import org.sonar.api.database.model.Snapshot;
+import org.sonar.api.resources.Resource;
 import org.sonar.core.persistence.BatchSession;
-import org.sonar.core.persistence.MyBatis;
 import org.sonar.core.source.jdbc.SnapshotDataDao;
 import org.sonar.core.source.jdbc.SnapshotDataDto;
 
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
-public class ComponentDataPersister implements ScanPersister {
+public class ComponentDataPersister implements ResourceScanPersister {
   private final ComponentDataCache data;
   private final SnapshotCache snapshots;
   private final SnapshotDataDao dao;
-  private final MyBatis mybatis;
+  private final PersistenceQueue queue;
+  private final Set<String> persistedComponents = Sets.newHashSet();
 
   public ComponentDataPersister(ComponentDataCache data, SnapshotCache snapshots,
-                                SnapshotDataDao dao, MyBatis mybatis) {
+                                SnapshotDataDao dao, PersistenceQueue queue) {
     this.data = data;
     this.snapshots = snapshots;
     this.dao = dao;
-    this.mybatis = mybatis;
+    this.queue = queue;
+  }
+
+  @Override
+  public void persist(Resource resource) {
+    String componentKey = resource.getEffectiveKey();
+    Snapshot snapshot = snapshots.get(componentKey);
+    if (snapshot != null) {
+      persist(componentKey, snapshot);
+    }
   }
 
   @Override
   public void persist() {
-    BatchSession session = mybatis.openBatchSession();
     for (Map.Entry<String, Snapshot> componentEntry : snapshots.snapshots()) {
-      String componentKey = componentEntry.getKey();
-      Snapshot snapshot = componentEntry.getValue();
-      for (Cache.Entry<Data> dataEntry : data.entries(componentKey)) {
-        Data value = dataEntry.value();
-        if (value != null) {
-          SnapshotDataDto dto = new SnapshotDataDto();
-          dto.setSnapshotId(snapshot.getId());
-          dto.setResourceId(snapshot.getResourceId());
-          dto.setDataType(dataEntry.key());
-          dto.setData(value.writeString());
-          dao.insert(session, dto);
-        }
+      if (!persistedComponents.contains(componentEntry.getKey())) {
+        persist(componentEntry.getKey(), componentEntry.getValue());
       }
     }
-    session.commit();
+    queue.flush();
+  }
+
+  private void persist(String componentKey, Snapshot snapshot) {
+    persistedComponents.add(componentKey);
+    // the cache is read on the analysis thread, only the inserts are executed in background
+    final List<SnapshotDataDto> dtos = Lists.newArrayList();
+    for (Cache.Entry<Data> dataEntry : data.entries(componentKey)) {
+      Data value = dataEntry.value();
+      if (value != null) {
+        SnapshotDataDto dto = new SnapshotDataDto();
+        dto.setSnapshotId(snapshot.getId());
+        dto.setResourceId(snapshot.getResourceId());
+        dto.setDataType(dataEntry.key());
+        dto.setData(value.writeString());
+        dtos.add(dto);
+      }
+    }
+    if (!dtos.isEmpty()) {
+      queue.submit(new PersistenceQueue.Task() {
+        public void persist(BatchSession session) {
+          for (SnapshotDataDto dto : dtos) {
+            dao.insert(session, dto);
+          }
+        }
+      });
+    }
   }
 }
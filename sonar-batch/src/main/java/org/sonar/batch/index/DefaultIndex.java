@@ -433,7 +433,7 @@ public class DefaultIndex extends SonarIndex {
   public void setSource(Resource reference, String source) {
     Bucket bucket = checkIndexed(reference);
     if (bucket != null && !bucket.isExcluded()) {
-      persistence.setSource(reference, source);
+      persistence.setSource(bucket.getResource(), source);
     }
   }
 
@@ -20,6 +20,7 @@
 package org.sonar.batch.index;
 
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import org.apache.commons.lang.ObjectUtils;
 import org.apache.commons.lang.StringUtils;
 import org.sonar.api.database.DatabaseSession;
@@ -29,13 +30,16 @@ import org.sonar.api.resources.*;
 import org.sonar.api.security.ResourcePermissions;
 import org.sonar.api.utils.SonarException;
 
+import javax.annotation.CheckForNull;
 import javax.persistence.NonUniqueResultException;
 import javax.persistence.Query;
 
+import java.util.Arrays;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public final class DefaultResourcePersister implements ResourcePersister {
 
@@ -50,6 +54,7 @@ public final class DefaultResourcePersister implements ResourcePersister {
   private final ResourcePermissions permissions;
   private final SnapshotCache snapshotCache;
   private final ResourceCache resourceCache;
+  private ModuleModels moduleModels;
 
   public DefaultResourcePersister(DatabaseSession session, ResourcePermissions permissions, SnapshotCache snapshotCache, ResourceCache resourceCache) {
     this.session = session;
@@ -204,10 +209,8 @@ public final class DefaultResourcePersister implements ResourcePersister {
    * Everything except project and library
    */
   private Snapshot persistFileOrDirectory(Project project, Resource resource, Resource parentReference) {
-    ResourceModel model = findOrCreateModel(resource);
     Snapshot projectSnapshot = snapshotsByResource.get(project);
-    model.setRootId(projectSnapshot.getResourceId());
-    model = session.save(model);
+    ResourceModel model = saveModuleModel(project, resource, projectSnapshot.getResourceId());
     resource.setId(model.getId());
 
     Snapshot parentSnapshot = (Snapshot) ObjectUtils.defaultIfNull(getSnapshot(parentReference), projectSnapshot);
@@ -218,6 +221,45 @@ public final class DefaultResourcePersister implements ResourcePersister {
     return snapshot;
   }
 
+  /**
+   * Existing resources of the module are loaded with a single query, so that files and directories
+   * are neither looked up one by one nor updated when they did not change.
+   */
+  private ResourceModel saveModuleModel(Project project, Resource resource, Integer rootId) {
+    if (moduleModels == null || !moduleModels.isModule(project)) {
+      moduleModels = new ModuleModels(project, loadModuleModels(rootId));
+    }
+    ResourceModel model = moduleModels.consume(resource.getEffectiveKey());
+    if (model == null) {
+      // new resource, or resource previously attached to another module
+      model = findOrCreateModel(resource);
+      model.setRootId(rootId);
+      return session.save(model);
+    }
+    List<Object> state = state(model);
+    mergeModel(model, resource);
+    model.setRootId(rootId);
+    if (!state.equals(state(model))) {
+      // the model may have been detached by a commit since it was loaded
+      model = (ResourceModel) session.merge(model);
+    }
+    return model;
+  }
+
+  /**
+   * Resources of sub-modules and of other branches are not loaded, as their root is not this module.
+   */
+  private List<ResourceModel> loadModuleModels(Integer moduleId) {
+    return session.createQuery("from " + ResourceModel.class.getSimpleName() + " r WHERE r.rootId=:rootId")
+      .setParameter("rootId", moduleId)
+      .getResultList();
+  }
+
+  private static List<Object> state(ResourceModel model) {
+    return Arrays.<Object>asList(model.getEnabled(), model.getName(), model.getLongName(), model.getDescription(), model.getScope(),
+      model.getQualifier(), model.getLanguageKey(), model.getRootId());
+  }
+
   public Snapshot getLastSnapshot(Snapshot snapshot, boolean onlyOlder) {
     String hql = "SELECT s FROM " + Snapshot.class.getSimpleName() + " s WHERE s.last=:last AND s.resourceId=:resourceId";
     if (onlyOlder) {
@@ -259,6 +301,37 @@ public final class DefaultResourcePersister implements ResourcePersister {
     }
   }
 
+  private static final class ModuleModels {
+    private final String moduleKey;
+    private final Map<String, ResourceModel> modelsByKey = Maps.newHashMap();
+    // keys that must be looked up in database: duplicated keys, or resources already saved during this analysis
+    private final Set<String> uncoveredKeys = Sets.newHashSet();
+
+    ModuleModels(Project module, List<ResourceModel> models) {
+      this.moduleKey = module.getKey();
+      for (ResourceModel model : models) {
+        if (modelsByKey.put(model.getKey(), model) != null) {
+          uncoveredKeys.add(model.getKey());
+        }
+      }
+    }
+
+    boolean isModule(Project project) {
+      return moduleKey.equals(project.getKey());
+    }
+
+    /**
+     * @return the loaded model, or null if the resource must be looked up in database
+     */
+    @CheckForNull
+    ResourceModel consume(String key) {
+      if (!uncoveredKeys.add(key)) {
+        return null;
+      }
+      return modelsByKey.remove(key);
+    }
+  }
+
   static ResourceModel createModel(Resource resource) {
     ResourceModel model = new ResourceModel();
     model.setEnabled(Boolean.TRUE);
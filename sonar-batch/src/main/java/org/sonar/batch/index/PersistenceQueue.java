@@ -0,0 +1,248 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.batch.index;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.BatchComponent;
+import org.sonar.api.utils.SonarException;
+import org.sonar.core.persistence.BatchSession;
+import org.sonar.core.persistence.MyBatis;
+import org.sonar.core.profiling.ProfilingRegistry;
+import org.sonar.core.profiling.Timer;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded queue of database writes executed by a background thread, so that persistence overlaps with the
+ * decoration of the remaining resources. Tasks are executed in submission order within a single batch session,
+ * which is committed on {@link #flush()} only. The analysis thread is blocked when the queue is full. If the background
+ * thread dies, the analysis thread fails instead of waiting forever.
+ *
+ * @since 4.0
+ */
+public class PersistenceQueue implements BatchComponent {
+
+  public interface Task {
+    /**
+     * Executed by the background thread. Must not access the batch caches, which are not thread-safe.
+     */
+    void persist(BatchSession session);
+  }
+
+  private static final Logger LOG = LoggerFactory.getLogger(PersistenceQueue.class);
+  private static final int DEFAULT_CAPACITY = 1000;
+  // period of verification that the background thread is still alive while the analysis thread is blocked
+  private static final long CHECK_PERIOD_MS = 500L;
+
+  private final MyBatis mybatis;
+  private final BlockingQueue<Task> queue;
+  private final Timer taskTimer;
+  private final Timer submitTimer;
+  private final Timer flushTimer;
+  private volatile Thread worker;
+  private volatile Throwable failure;
+
+  public PersistenceQueue(MyBatis mybatis) {
+    this(mybatis, new ProfilingRegistry());
+  }
+
+  public PersistenceQueue(MyBatis mybatis, ProfilingRegistry profiling) {
+    this(mybatis, DEFAULT_CAPACITY, profiling);
+  }
+
+  @VisibleForTesting
+  PersistenceQueue(MyBatis mybatis, int capacity, ProfilingRegistry profiling) {
+    this.mybatis = mybatis;
+    this.queue = new ArrayBlockingQueue<Task>(capacity);
+    this.taskTimer = profiling.timer("batch.persistence_queue.task");
+    // includes the time the analysis thread is blocked because the queue is full
+    this.submitTimer = profiling.timer("batch.persistence_queue.submit");
+    this.flushTimer = profiling.timer("batch.persistence_queue.flush");
+  }
+
+  public void submit(Task task) {
+    startWorker();
+    Timer.Context context = submitTimer.start();
+    put(task);
+    context.stop();
+  }
+
+  /**
+   * Waits for the execution of all the submitted tasks, then commits. Changes are rolled back if a task failed.
+   *
+   * @throws SonarException if a task failed
+   */
+  public void flush() {
+    if (worker != null) {
+      Timer.Context context = flushTimer.start();
+      Flush flush = new Flush();
+      put(flush);
+      flush.await();
+      context.stop();
+    }
+    if (failure != null) {
+      throw new SonarException("Fail to persist analysis results", failure);
+    }
+  }
+
+  public synchronized void stop() {
+    if (worker != null) {
+      if (worker.isAlive()) {
+        try {
+          put(new Stop());
+        } catch (SonarException e) {
+          // the worker died meanwhile
+        }
+      }
+      try {
+        worker.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      worker = null;
+    }
+  }
+
+  private synchronized void startWorker() {
+    if (worker == null) {
+      worker = new Thread(new Worker(), "Persistence queue");
+      worker.setDaemon(true);
+      worker.start();
+    }
+  }
+
+  private void put(Task task) {
+    checkWorkerAlive();
+    try {
+      while (!queue.offer(task, CHECK_PERIOD_MS, TimeUnit.MILLISECONDS)) {
+        checkWorkerAlive();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SonarException("Interrupted while persisting analysis results", e);
+    }
+  }
+
+  private void checkWorkerAlive() {
+    Thread thread = worker;
+    if (thread == null || !thread.isAlive()) {
+      throw new SonarException("Fail to persist analysis results", failure);
+    }
+  }
+
+  private class Worker implements Runnable {
+    public void run() {
+      BatchSession session = null;
+      try {
+        // statements are flushed by batches but never committed before the next Flush task
+        session = mybatis.openTransactionalBatchSession();
+        while (true) {
+          Task task = queue.take();
+          if (task instanceof Stop) {
+            return;
+          }
+          execute(task, session);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        terminate(e);
+      } catch (Throwable e) {
+        terminate(e);
+      } finally {
+        MyBatis.closeQuietly(session);
+      }
+    }
+
+    private void terminate(Throwable cause) {
+      LOG.debug("Persistence queue stopped unexpectedly", cause);
+      if (failure == null) {
+        failure = cause;
+      }
+      // pending tasks are never executed
+      Task task = queue.poll();
+      while (task != null) {
+        if (task instanceof Flush) {
+          ((Flush) task).release();
+        }
+        task = queue.poll();
+      }
+    }
+
+    private void execute(Task task, BatchSession session) {
+      if (failure != null && !(task instanceof Flush)) {
+        // results are lost anyway, queue is drained until flush
+        return;
+      }
+      Timer.Context context = taskTimer.start();
+      try {
+        task.persist(session);
+        context.stop();
+      } catch (Throwable e) {
+        LOG.debug("Fail to persist analysis results", e);
+        failure = e;
+        if (task instanceof Flush) {
+          ((Flush) task).release();
+        }
+      }
+    }
+  }
+
+  private class Flush implements Task {
+    private final CountDownLatch latch = new CountDownLatch(1);
+
+    public void persist(BatchSession session) {
+      try {
+        if (failure == null) {
+          session.commit();
+        } else {
+          session.rollback();
+        }
+      } finally {
+        release();
+      }
+    }
+
+    void release() {
+      latch.countDown();
+    }
+
+    void await() {
+      try {
+        while (!latch.await(CHECK_PERIOD_MS, TimeUnit.MILLISECONDS)) {
+          checkWorkerAlive();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new SonarException("Interrupted while persisting analysis results", e);
+      }
+    }
+  }
+
+  private static class Stop implements Task {
+    public void persist(BatchSession session) {
+      // never executed
+    }
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.batch.index;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.CoreProperties;
+import org.sonar.api.config.Settings;
+import org.sonar.api.database.model.Snapshot;
+import org.sonar.api.resources.Resource;
+import org.sonar.core.resource.ResourceDto;
+import org.sonar.core.resource.ResourceIndexerDao;
+
+import java.util.Map;
+
+/**
+ * Updates the search index of the resources that have been saved by the analysis. It replaces the re-indexing
+ * of the whole project, which was executed as a post-job.
+ * Executed at the end of project scan, when all the modules are completed.
+ *
+ * @since 4.0
+ */
+public class ResourceIndexPersister implements ScanPersister {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ResourceIndexPersister.class);
+
+  private final SnapshotCache snapshots;
+  private final ResourceCache resources;
+  private final ResourceIndexerDao indexer;
+  private final Settings settings;
+
+  public ResourceIndexPersister(SnapshotCache snapshots, ResourceCache resources, ResourceIndexerDao indexer, Settings settings) {
+    this.snapshots = snapshots;
+    this.resources = resources;
+    this.indexer = indexer;
+    this.settings = settings;
+  }
+
+  @Override
+  public void persist() {
+    if (settings.getBoolean(CoreProperties.DRY_RUN)) {
+      LOG.debug("ResourceIndexPersister skipped in dryRun");
+      return;
+    }
+    ListMultimap<Long, ResourceDto> resourcesByRootProject = ArrayListMultimap.create();
+    for (Map.Entry<String, Snapshot> entry : snapshots.snapshots()) {
+      Resource resource = resources.get(entry.getKey());
+      // Blank names are not updated in database, so the indexed name can not be known
+      if (resource != null && !(resource instanceof ResourceCopy) && StringUtils.isNotBlank(resource.getName())) {
+        Snapshot snapshot = entry.getValue();
+        Integer rootProjectId = snapshot.getRootProjectId() != null ? snapshot.getRootProjectId() : snapshot.getResourceId();
+        resourcesByRootProject.put(rootProjectId.longValue(), new ResourceDto()
+          .setId(snapshot.getResourceId().longValue())
+          .setName(resource.getName())
+          .setScope(snapshot.getScope())
+          .setQualifier(snapshot.getQualifier()));
+      }
+    }
+    for (Long rootProjectId : resourcesByRootProject.keySet()) {
+      indexer.indexResources(rootProjectId, resourcesByRootProject.get(rootProjectId));
+    }
+  }
+}
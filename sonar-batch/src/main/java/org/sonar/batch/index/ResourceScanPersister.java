@@ -0,0 +1,38 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.batch.index;
+
+import org.sonar.api.resources.Resource;
+
+/**
+ * Persister that can save the data of a resource as soon as its decorators are executed, instead of waiting
+ * for the end of project scan. {@link #persist()} is still called at the end of scan to save the remaining
+ * components and to wait for the completion of background writes.
+ *
+ * @since 4.0
+ */
+public interface ResourceScanPersister extends ScanPersister {
+
+  /**
+   * Called on the analysis thread when all the decorators have been executed on the resource.
+   */
+  void persist(Resource resource);
+
+}
@@ -19,24 +19,49 @@
  */
 package org.sonar.batch.index;
 
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.sonar.api.CoreProperties;
+import org.sonar.api.config.Settings;
 import org.sonar.api.database.DatabaseSession;
 import org.sonar.api.database.model.Snapshot;
 import org.sonar.api.database.model.SnapshotSource;
 import org.sonar.api.resources.DuplicatedSourceException;
 import org.sonar.api.resources.Resource;
+import org.sonar.core.source.SnapshotDataTypes;
+import org.sonar.core.source.SnapshotSourceFormat;
+import org.sonar.core.source.jdbc.SnapshotDataDao;
+import org.sonar.core.source.jdbc.SnapshotDataDto;
+import org.sonar.core.source.jdbc.SnapshotSourceDao;
 
+import java.util.Map;
 import java.util.Set;
 
 public final class SourcePersister {
 
+  // appended to the hashes of compressed sources, so that sources are rewritten when the format is changed
+  private static final String COMPRESSED_HASH_SUFFIX = "-z";
+
   private DatabaseSession session;
   private Set<Integer> savedSnapshotIds = Sets.newHashSet();
   private ResourcePersister resourcePersister;
+  private final Settings settings;
+  private final SnapshotSourceDao sourceDao;
+  private final SnapshotDataDao dataDao;
+  private final ComponentDataCache componentDataCache;
+
+  // hashes of the sources saved by the previous analysis, by resource id. Loaded on first save.
+  private Map<Long, String> previousHashes;
 
-  public SourcePersister(DatabaseSession session, ResourcePersister resourcePersister) {
+  public SourcePersister(DatabaseSession session, ResourcePersister resourcePersister, Settings settings,
+                         SnapshotSourceDao sourceDao, SnapshotDataDao dataDao, ComponentDataCache componentDataCache) {
     this.session = session;
     this.resourcePersister = resourcePersister;
+    this.settings = settings;
+    this.sourceDao = sourceDao;
+    this.dataDao = dataDao;
+    this.componentDataCache = componentDataCache;
   }
 
   public void saveSource(Resource resource, String source) {
@@ -44,18 +69,40 @@ public final class SourcePersister {
     if (isCached(snapshot)) {
       throw new DuplicatedSourceException(resource);
     }
-    session.save(new SnapshotSource(snapshot.getId(), source));
-    session.commit();
+    boolean compress = settings.getBoolean(CoreProperties.CORE_COMPRESS_SOURCES_PROPERTY);
+    String hash = DigestUtils.md5Hex(source) + (compress ? COMPRESSED_HASH_SUFFIX : "");
+    if (!copyPreviousSource(snapshot, hash)) {
+      session.save(new SnapshotSource(snapshot.getId(), compress ? SnapshotSourceFormat.compress(source) : source));
+      session.commit();
+    }
+    componentDataCache.setStringData(resource.getEffectiveKey(), SnapshotDataTypes.SOURCE_HASH, hash);
     addToCache(snapshot);
   }
 
+  /**
+   * Unchanged sources are copied by the database from the previous analysis instead of being sent again
+   */
+  private boolean copyPreviousSource(Snapshot snapshot, String hash) {
+    if (snapshot.getResourceId() == null || snapshot.getRootProjectId() == null) {
+      return false;
+    }
+    if (previousHashes == null) {
+      previousHashes = Maps.newHashMap();
+      for (SnapshotDataDto dto : dataDao.selectLastSnapshotDataOfRootProject(snapshot.getRootProjectId(), SnapshotDataTypes.SOURCE_HASH)) {
+        previousHashes.put(dto.getResourceId(), dto.getData());
+      }
+    }
+    long resourceId = snapshot.getResourceId();
+    return hash.equals(previousHashes.get(resourceId)) && sourceDao.insertCopyOfLastSnapshotSource(snapshot.getId(), resourceId);
+  }
+
   public String getSource(Resource resource) {
     SnapshotSource source = null;
     Snapshot snapshot = resourcePersister.getSnapshot(resource);
     if (snapshot!=null && snapshot.getId()!=null) {
       source = session.getSingleResult(SnapshotSource.class, "snapshotId", snapshot.getId());
     }
-    return source!=null ? source.getData() : null;
+    return source!=null ? SnapshotSourceFormat.decode(source.getData()) : null;
   }
 
   private boolean isCached(Snapshot snapshot) {
@@ -34,6 +34,7 @@ import org.sonar.api.utils.SonarException;
 import org.sonar.batch.DecoratorsSelector;
 import org.sonar.batch.DefaultDecoratorContext;
 import org.sonar.batch.events.EventBus;
+import org.sonar.batch.index.ResourceScanPersister;
 
 import java.util.Collection;
 import java.util.List;
@@ -45,14 +46,21 @@ public class DecoratorsExecutor implements BatchComponent {
   private EventBus eventBus;
   private Project project;
   private MeasurementFilters measurementFilters;
+  private ResourceScanPersister[] persisters;
 
   public DecoratorsExecutor(BatchExtensionDictionnary batchExtDictionnary,
-      Project project, SonarIndex index, EventBus eventBus, MeasurementFilters measurementFilters) {
+      Project project, SonarIndex index, EventBus eventBus, MeasurementFilters measurementFilters, ResourceScanPersister[] persisters) {
     this.decoratorsSelector = new DecoratorsSelector(batchExtDictionnary);
     this.index = index;
     this.eventBus = eventBus;
     this.project = project;
     this.measurementFilters = measurementFilters;
+    this.persisters = persisters;
+  }
+
+  public DecoratorsExecutor(BatchExtensionDictionnary batchExtDictionnary,
+      Project project, SonarIndex index, EventBus eventBus, MeasurementFilters measurementFilters) {
+    this(batchExtDictionnary, project, index, eventBus, measurementFilters, new ResourceScanPersister[0]);
   }
 
   public void execute() {
@@ -75,6 +83,10 @@ public class DecoratorsExecutor implements BatchComponent {
       for (Decorator decorator : decorators) {
         executeDecorator(decorator, context, resource);
       }
+      // data of resource is final, it can be saved while the next resources are decorated
+      for (ResourceScanPersister persister : persisters) {
+        persister.persist(resource);
+      }
     }
     return context;
   }
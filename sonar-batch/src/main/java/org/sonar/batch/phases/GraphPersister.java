@@ -19,10 +19,14 @@
  */
 package org.sonar.batch.phases;
 
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 import com.tinkerpop.blueprints.Graph;
 import org.apache.commons.io.IOUtils;
 import org.sonar.api.component.Perspective;
-import org.sonar.batch.index.ScanPersister;
+import org.sonar.api.resources.Resource;
+import org.sonar.batch.index.PersistenceQueue;
+import org.sonar.batch.index.ResourceScanPersister;
 import org.sonar.core.component.ComponentVertex;
 import org.sonar.core.component.GraphPerspectiveBuilder;
 import org.sonar.core.component.PerspectiveBuilder;
@@ -33,60 +37,76 @@ import org.sonar.core.graph.graphson.GraphsonWriter;
 import org.sonar.core.graph.jdbc.GraphDto;
 import org.sonar.core.graph.jdbc.GraphDtoMapper;
 import org.sonar.core.persistence.BatchSession;
-import org.sonar.core.persistence.MyBatis;
 
 import java.io.StringWriter;
+import java.util.List;
+import java.util.Set;
 
-public class GraphPersister implements ScanPersister {
-  private final MyBatis myBatis;
+public class GraphPersister implements ResourceScanPersister {
+  private final PersistenceQueue queue;
   private final ScanGraph projectGraph;
   private final GraphPerspectiveBuilder[] builders;
+  private final Set<String> persistedComponents = Sets.newHashSet();
 
-  public GraphPersister(MyBatis myBatis, ScanGraph projectGraph, GraphPerspectiveBuilder[] builders) {
-    this.myBatis = myBatis;
+  public GraphPersister(PersistenceQueue queue, ScanGraph projectGraph, GraphPerspectiveBuilder[] builders) {
+    this.queue = queue;
     this.projectGraph = projectGraph;
     this.builders = builders;
   }
 
+  public void persist(Resource resource) {
+    ComponentVertex component = projectGraph.getComponent(resource.getEffectiveKey());
+    if (component != null) {
+      persistComponentGraph(component);
+    }
+  }
+
   public void persist() {
-    BatchSession session = myBatis.openBatchSession();
-    GraphDtoMapper mapper = session.getMapper(GraphDtoMapper.class);
-    try {
-      for (ComponentVertex component : projectGraph.getComponents()) {
-        persistComponentGraph(mapper, component);
+    for (ComponentVertex component : projectGraph.getComponents()) {
+      if (!persistedComponents.contains(component.key())) {
+        persistComponentGraph(component);
       }
-      session.commit();
-    } finally {
-      session.close();
     }
+    queue.flush();
   }
 
-  private void persistComponentGraph(GraphDtoMapper mapper, ComponentVertex component) {
+  private void persistComponentGraph(ComponentVertex component) {
+    persistedComponents.add(component.key());
     Long snapshotId = (Long) component.element().getProperty("sid");
     if (snapshotId != null) {
+      // graphs are not thread-safe, so they are serialized on the analysis thread
+      final List<GraphDto> dtos = Lists.newArrayList();
       for (PerspectiveBuilder builder : builders) {
         GraphPerspectiveBuilder graphPerspectiveBuilder = (GraphPerspectiveBuilder) builder;
         Perspective perspective = graphPerspectiveBuilder.getPerspectiveLoader().load(component);
         if (perspective != null) {
-          serializePerspectiveData(mapper, component, snapshotId, graphPerspectiveBuilder);
+          dtos.add(serializePerspectiveData(component, snapshotId, graphPerspectiveBuilder));
         }
       }
+      if (!dtos.isEmpty()) {
+        queue.submit(new PersistenceQueue.Task() {
+          public void persist(BatchSession session) {
+            GraphDtoMapper mapper = session.getMapper(GraphDtoMapper.class);
+            for (GraphDto dto : dtos) {
+              mapper.insert(dto);
+            }
+          }
+        });
+      }
     }
   }
 
-  private void serializePerspectiveData(GraphDtoMapper mapper, ComponentVertex component, Long snapshotId,
-                                        GraphPerspectiveBuilder builder) {
+  private GraphDto serializePerspectiveData(ComponentVertex component, Long snapshotId, GraphPerspectiveBuilder builder) {
     Graph subGraph = SubGraph.extract(component.element(), builder.path());
     String data = write(subGraph);
-    mapper.insert(new GraphDto()
+    return new GraphDto()
       .setData(data)
       .setFormat("graphson")
       .setPerspective(builder.getPerspectiveLoader().getPerspectiveKey())
       .setVersion(1)
       .setResourceId((Long) component.element().getProperty("rid"))
       .setSnapshotId(snapshotId)
-      .setRootVertexId(component.element().getId().toString())
-    );
+      .setRootVertexId(component.element().getId().toString());
   }
 
   private String write(Graph graph) {
@@ -63,6 +63,7 @@ public class UpdateStatusJob implements BatchComponent {
     disablePreviousSnapshot();
     enableCurrentSnapshot();
     evictDryRunDB();
+    notifyAnalysisCompleted();
   }
 
   @VisibleForTesting
@@ -80,6 +81,20 @@ public class UpdateStatusJob implements BatchComponent {
     }
   }
 
+  @VisibleForTesting
+  void notifyAnalysisCompleted() {
+    if (settings.getBoolean(CoreProperties.DRY_RUN)) {
+      return;
+    }
+    String url = "/batch_bootstrap/analysis_completed?project=" + project.getId();
+    try {
+      LOG.debug("Notify server of the end of analysis");
+      server.request(url);
+    } catch (Exception e) {
+      throw new SonarException("Unable to notify server of the end of analysis: " + url, e);
+    }
+  }
+
   private void disablePreviousSnapshot() {
     // disable on all modules
     Query query = session.createQuery("FROM " + Snapshot.class.getSimpleName() + " WHERE (root_snapshot_id=:rootId OR id=:rootId) AND scope=:scope");
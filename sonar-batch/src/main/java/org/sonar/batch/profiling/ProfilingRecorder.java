@@ -0,0 +1,136 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.batch.profiling;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Maps;
+import com.google.common.io.Closeables;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.batch.bootstrap.ProjectReactor;
+import org.sonar.api.batch.events.DecoratorExecutionHandler;
+import org.sonar.api.batch.events.PostJobExecutionHandler;
+import org.sonar.api.batch.events.ProjectAnalysisHandler;
+import org.sonar.api.batch.events.SensorExecutionHandler;
+import org.sonar.api.resources.Project;
+import org.sonar.batch.events.BatchStepEvent;
+import org.sonar.batch.events.BatchStepHandler;
+import org.sonar.core.profiling.ProfilingRegistry;
+import org.sonar.core.profiling.Timer;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+
+/**
+ * Records the durations of the sensors, decorators, post-jobs and batch steps in the {@link ProfilingRegistry},
+ * then exports the registry to the file profiling.json of the working directory at the end of analysis.
+ * Contrary to {@link PhasesSumUpTimeProfiler}, it is always enabled.
+ *
+ * @since 4.0
+ */
+public class ProfilingRecorder implements ProjectAnalysisHandler, SensorExecutionHandler, DecoratorExecutionHandler, PostJobExecutionHandler, BatchStepHandler {
+
+  static final String REPORT_FILENAME = "profiling.json";
+  private static final Logger LOG = LoggerFactory.getLogger(ProfilingRecorder.class);
+
+  private final ProfilingRegistry profiling;
+  private final ProjectReactor reactor;
+  // sensors, decorators and post-jobs are executed sequentially
+  private Timer.Context currentExecution;
+  private final Map<String, Timer.Context> currentSteps = Maps.newHashMap();
+  private Timer.Context currentModule;
+
+  public ProfilingRecorder(ProfilingRegistry profiling, ProjectReactor reactor) {
+    this.profiling = profiling;
+    this.reactor = reactor;
+  }
+
+  @Override
+  public void onProjectAnalysis(ProjectAnalysisEvent event) {
+    Project module = event.getProject();
+    if (event.isStart()) {
+      currentModule = profiling.timer("batch.module").start();
+    } else {
+      if (currentModule != null) {
+        currentModule.stop();
+        currentModule = null;
+      }
+      if (module.isRoot()) {
+        export(new File(reactor.getRoot().getWorkDir(), REPORT_FILENAME));
+      }
+    }
+  }
+
+  @Override
+  public void onSensorExecution(SensorExecutionEvent event) {
+    onExecution("batch.sensor.", event.getSensor(), event.isStart());
+  }
+
+  @Override
+  public void onDecoratorExecution(DecoratorExecutionEvent event) {
+    onExecution("batch.decorator.", event.getDecorator(), event.isStart());
+  }
+
+  @Override
+  public void onPostJobExecution(PostJobExecutionEvent event) {
+    onExecution("batch.postjob.", event.getPostJob(), event.isStart());
+  }
+
+  private void onExecution(String prefix, Object extension, boolean start) {
+    if (start) {
+      currentExecution = profiling.timer(prefix + extension.getClass().getName()).start();
+    } else if (currentExecution != null) {
+      currentExecution.stop();
+      currentExecution = null;
+    }
+  }
+
+  @Override
+  public void onBatchStep(BatchStepEvent event) {
+    if (event.isStart()) {
+      currentSteps.put(event.stepName(), profiling.timer("batch.step." + event.stepName()).start());
+    } else {
+      Timer.Context context = currentSteps.remove(event.stepName());
+      if (context != null) {
+        context.stop();
+      }
+    }
+  }
+
+  @VisibleForTesting
+  void export(File file) {
+    Writer writer = null;
+    try {
+      file.getParentFile().mkdirs();
+      writer = new BufferedWriter(new FileWriter(file));
+      profiling.writeJson(writer);
+      LOG.debug("Profiling report written to {}", file.getAbsolutePath());
+    } catch (IOException e) {
+      // the report must not fail the analysis
+      LOG.warn("Fail to write profiling report to " + file.getAbsolutePath(), e);
+    } finally {
+      Closeables.closeQuietly(writer);
+    }
+  }
+}
@@ -19,71 +19,154 @@
  */
 package org.sonar.batch.scan;
 
+import com.google.common.collect.Sets;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import org.apache.commons.io.IOUtils;
 import org.sonar.api.BatchComponent;
 import org.sonar.api.CoreProperties;
+import org.sonar.api.batch.SonarIndex;
 import org.sonar.api.config.Settings;
 import org.sonar.api.database.DatabaseSession;
 import org.sonar.api.database.model.ResourceModel;
 import org.sonar.api.database.model.Snapshot;
 import org.sonar.api.database.model.SnapshotSource;
+import org.sonar.api.resources.Project;
 import org.sonar.api.resources.Resource;
 import org.sonar.api.resources.ResourceUtils;
+import org.sonar.api.resources.Scopes;
 import org.sonar.api.utils.HttpDownloader;
+import org.sonar.api.utils.SonarException;
 import org.sonar.batch.bootstrap.ServerClient;
+import org.sonar.batch.index.Cache;
+import org.sonar.batch.index.Caches;
+import org.sonar.core.source.SnapshotSourceFormat;
 
+import javax.annotation.Nullable;
 import javax.persistence.Query;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Sources of the last analysis. They are loaded for all the files of a module at once, from database
+ * or from web service in dry run mode, then kept in the batch caches.
+ */
 public class LastSnapshots implements BatchComponent {
 
+  private static final int PAGE_SIZE = 500;
+
   private final Settings settings;
   private final DatabaseSession session;
   private final ServerClient server;
+  private final SonarIndex index;
+  private final Cache<String, String> sources;
+  private final Set<String> loadedModules = Sets.newHashSet();
 
-  public LastSnapshots(Settings settings, DatabaseSession session, ServerClient server) {
+  public LastSnapshots(Settings settings, DatabaseSession session, ServerClient server, SonarIndex index, Caches caches) {
     this.settings = settings;
     this.session = session;
     this.server = server;
+    this.index = index;
+    this.sources = caches.createCache("lastSources");
   }
 
   public String getSource(Resource resource) {
-    String source = "";
+    String source = null;
     if (ResourceUtils.isFile(resource)) {
-      if (settings.getBoolean(CoreProperties.DRY_RUN)) {
-        source = loadSourceFromWs(resource);
-      } else {
-        source = loadSourceFromDb(resource);
+      Project module = index.getProject();
+      if (loadedModules.add(module.getKey())) {
+        if (settings.getBoolean(CoreProperties.DRY_RUN)) {
+          loadSourcesFromWs(module);
+        } else {
+          loadSourcesFromDb(module);
+        }
       }
+      source = sources.get(module.getKey(), resource.getEffectiveKey());
     }
-    return source;
+    return source == null ? "" : source;
   }
 
-  private String loadSourceFromWs(Resource resource) {
+  /**
+   * The response is parsed as a stream, so that the sources of the whole module are not loaded in memory
+   * before being written to the cache.
+   */
+  private void loadSourcesFromWs(Project module) {
+    Reader reader;
     try {
-      return server.request("/api/sources?resource=" + resource.getEffectiveKey() + "&format=txt", false);
+      reader = server.requestAsReader("/batch_bootstrap/sources?project=" + module.getKey(), false);
     } catch (HttpDownloader.HttpException he) {
       if (he.getResponseCode() == 404) {
-        return "";
+        return;
       }
       throw he;
     }
+    try {
+      JsonReader json = new JsonReader(reader);
+      json.beginArray();
+      while (json.hasNext()) {
+        readFile(module, json);
+      }
+      json.endArray();
+    } catch (IOException e) {
+      throw new SonarException("Fail to download sources of module " + module.getKey(), e);
+    } finally {
+      IOUtils.closeQuietly(reader);
+    }
   }
 
-  private String loadSourceFromDb(Resource resource) {
-    Snapshot snapshot = getSnapshot(resource);
-    if (snapshot != null) {
-      SnapshotSource source = session.getSingleResult(SnapshotSource.class, "snapshotId", snapshot.getId());
-      if (source != null) {
-        return source.getData();
+  private void readFile(Project module, JsonReader json) throws IOException {
+    String fileKey = null;
+    String source = null;
+    json.beginObject();
+    while (json.hasNext()) {
+      String name = json.nextName();
+      if (json.peek() == JsonToken.NULL) {
+        json.nextNull();
+      } else if ("k".equals(name)) {
+        fileKey = json.nextString();
+      } else if ("s".equals(name)) {
+        source = json.nextString();
+      } else {
+        json.skipValue();
       }
     }
-    return "";
+    json.endObject();
+    if (fileKey != null) {
+      put(module, fileKey, source);
+    }
   }
 
-  private Snapshot getSnapshot(Resource resource) {
-    Query query = session.createQuery("from " + Snapshot.class.getSimpleName() + " s where s.last=:last and s.resourceId=(select r.id from "
-      + ResourceModel.class.getSimpleName() + " r where r.key=:key)");
-    query.setParameter("key", resource.getEffectiveKey());
-    query.setParameter("last", Boolean.TRUE);
-    return session.getSingleResult(query, null);
+  private void loadSourcesFromDb(Project module) {
+    if (module.getId() == null) {
+      return;
+    }
+    // sources are loaded by pages in order to not keep all of them in memory
+    int lastSnapshotId = 0;
+    List<Object[]> rows;
+    do {
+      Query query = session.createQuery("SELECT s.id, r.key, ss.data FROM " + SnapshotSource.class.getSimpleName() + " ss, "
+        + Snapshot.class.getSimpleName() + " s, " + ResourceModel.class.getSimpleName() + " r "
+        + "WHERE ss.snapshotId=s.id AND s.resourceId=r.id AND s.last=:last AND s.scope=:scope AND r.rootId=:moduleId AND s.id>:lastSnapshotId "
+        + "ORDER BY s.id");
+      query.setParameter("last", Boolean.TRUE);
+      query.setParameter("scope", Scopes.FILE);
+      query.setParameter("moduleId", module.getId());
+      query.setParameter("lastSnapshotId", lastSnapshotId);
+      query.setMaxResults(PAGE_SIZE);
+      rows = query.getResultList();
+      for (Object[] row : rows) {
+        lastSnapshotId = (Integer) row[0];
+        put(module, (String) row[1], SnapshotSourceFormat.decode((String) row[2]));
+      }
+    } while (rows.size() == PAGE_SIZE);
+  }
+
+  private void put(Project module, String fileKey, @Nullable String source) {
+    if (source != null) {
+      sources.put(module.getKey(), fileKey, source);
+    }
   }
 }
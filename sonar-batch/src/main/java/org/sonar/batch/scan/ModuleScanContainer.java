@@ -94,6 +94,7 @@ public class ModuleScanContainer extends ComponentContainer {
       FileExclusions.class,
       ExclusionFilters.class,
       DeprecatedFileFilters.class,
+      SourceContents.class,
       FileHashes.class,
       RemoteFileHashes.class,
       FileIndex.class,
@@ -23,19 +23,19 @@ import org.sonar.api.scan.filesystem.InputFile;
 import org.sonar.api.scan.filesystem.InputFileFilter;
 
 class ExclusionFilter implements InputFileFilter {
-  private final PathPattern pattern;
+  private final PathPatternSet patterns;
 
-  ExclusionFilter(String s) {
-    this.pattern = PathPattern.create(s);
+  ExclusionFilter(String... s) {
+    this.patterns = PathPatternSet.create(s);
   }
 
   @Override
   public boolean accept(InputFile inputFile) {
-    return !pattern.match(inputFile);
+    return !patterns.match(inputFile);
   }
 
   @Override
   public String toString() {
-    return "Excludes: " + pattern;
+    return "Excludes: " + patterns;
   }
 }
@@ -29,8 +29,14 @@ import org.sonar.api.scan.filesystem.FileExclusions;
 import org.sonar.api.scan.filesystem.InputFile;
 import org.sonar.api.scan.filesystem.InputFileFilter;
 
+import javax.annotation.Nullable;
+
 public class ExclusionFilters implements InputFileFilter, ResourceFilter, BatchComponent {
   private final FileExclusions exclusionSettings;
+  private PathPatternSet sourceInclusions;
+  private PathPatternSet testInclusions;
+  private PathPatternSet sourceExclusions;
+  private PathPatternSet testExclusions;
 
   public ExclusionFilters(FileExclusions exclusions) {
     this.exclusionSettings = exclusions;
@@ -56,35 +62,21 @@ public class ExclusionFilters implements InputFileFilter, ResourceFilter, BatchC
   @Override
   public boolean accept(InputFile inputFile) {
     String type = inputFile.attribute(InputFile.ATTRIBUTE_TYPE);
-    PathPattern[] inclusionPatterns = null;
-    PathPattern[] exclusionPatterns = null;
+    PathPatternSet inclusionPatterns = null;
+    PathPatternSet exclusionPatterns = null;
     if (InputFile.TYPE_SOURCE.equals(type)) {
-      inclusionPatterns = sourceInclusions();
-      exclusionPatterns = sourceExclusions();
+      inclusionPatterns = sourceInclusionSet();
+      exclusionPatterns = sourceExclusionSet();
     } else if (InputFile.TYPE_TEST.equals(type)) {
-      inclusionPatterns = testInclusions();
-      exclusionPatterns = testExclusions();
-    }
-    if (inclusionPatterns != null && inclusionPatterns.length > 0) {
-      boolean matchInclusion = false;
-      for (PathPattern pattern : inclusionPatterns) {
-        matchInclusion |= pattern.match(inputFile);
-      }
-      if (!matchInclusion) {
-        return false;
-      }
+      inclusionPatterns = testInclusionSet();
+      exclusionPatterns = testExclusionSet();
     }
-    if (exclusionPatterns != null && exclusionPatterns.length > 0) {
-      for (PathPattern pattern : exclusionPatterns) {
-        if (pattern.match(inputFile)) {
-          return false;
-        }
-      }
+    if (inclusionPatterns != null && !inclusionPatterns.isEmpty() && !inclusionPatterns.match(inputFile)) {
+      return false;
     }
-    return true;
+    return exclusionPatterns == null || exclusionPatterns.isEmpty() || !exclusionPatterns.match(inputFile);
   }
 
-
   public boolean isIgnored(Resource resource) {
     if (ResourceUtils.isFile(resource)) {
       PathPattern[] inclusionPatterns = ResourceUtils.isUnitTestClass(resource) ? testInclusions() : sourceInclusions();
@@ -124,18 +116,48 @@ public class ExclusionFilters implements InputFileFilter, ResourceFilter, BatchC
   }
 
   PathPattern[] sourceInclusions() {
-    return PathPattern.create(exclusionSettings.sourceInclusions());
+    return sourceInclusionSet().patterns();
   }
 
   PathPattern[] testInclusions() {
-    return PathPattern.create(exclusionSettings.testInclusions());
+    return testInclusionSet().patterns();
   }
 
   PathPattern[] sourceExclusions() {
-    return PathPattern.create(exclusionSettings.sourceExclusions());
+    return sourceExclusionSet().patterns();
   }
 
   PathPattern[] testExclusions() {
-    return PathPattern.create(exclusionSettings.testExclusions());
+    return testExclusionSet().patterns();
+  }
+
+  private PathPatternSet sourceInclusionSet() {
+    sourceInclusions = compile(sourceInclusions, exclusionSettings.sourceInclusions());
+    return sourceInclusions;
+  }
+
+  private PathPatternSet testInclusionSet() {
+    testInclusions = compile(testInclusions, exclusionSettings.testInclusions());
+    return testInclusions;
+  }
+
+  private PathPatternSet sourceExclusionSet() {
+    sourceExclusions = compile(sourceExclusions, exclusionSettings.sourceExclusions());
+    return sourceExclusions;
+  }
+
+  private PathPatternSet testExclusionSet() {
+    testExclusions = compile(testExclusions, exclusionSettings.testExclusions());
+    return testExclusions;
+  }
+
+  /**
+   * Patterns are compiled again only if settings changed, for example by an initializer
+   */
+  private static PathPatternSet compile(@Nullable PathPatternSet previous, String[] patterns) {
+    if (previous != null && previous.hasSource(patterns)) {
+      return previous;
+    }
+    return PathPatternSet.create(patterns);
   }
 }
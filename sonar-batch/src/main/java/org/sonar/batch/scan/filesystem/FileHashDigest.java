@@ -37,6 +37,8 @@ class FileHashDigest {
   // to test the private method !
   static final FileHashDigest INSTANCE = new FileHashDigest();
 
+  private static final int BUFFER_SIZE = 8192;
+
   private FileHashDigest() {
   }
 
@@ -47,29 +49,8 @@ class FileHashDigest {
   String hash(File file, Charset charset) {
     Reader reader = null;
     try {
-      MessageDigest md5Digest = DigestUtils.getMd5Digest();
-      md5Digest.reset();
       reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), charset));
-      int i = reader.read();
-      boolean afterCR = true;
-      while (i != -1) {
-        char c = (char) i;
-        if (afterCR) {
-          afterCR = false;
-          if (c == '\n') {
-            // Ignore
-            i = reader.read();
-            continue;
-          }
-        }
-        if (c == '\r') {
-          afterCR = true;
-          c = '\n';
-        }
-        md5Digest.update(charToBytesUTF(c));
-        i = reader.read();
-      }
-      return Hex.encodeHexString(md5Digest.digest());
+      return hash(IOUtils.toString(reader));
     } catch (IOException e) {
       throw new IllegalStateException(String.format("Fail to compute hash of file %s with charset %s", file.getAbsolutePath(), charset), e);
     } finally {
@@ -77,14 +58,38 @@ class FileHashDigest {
     }
   }
 
-  private byte[] charToBytesUTF(char c) {
-    char[] buffer = new char[]{c};
-    byte[] b = new byte[buffer.length << 1];
-    for (int i = 0; i < buffer.length; i++) {
-      int bpos = i << 1;
-      b[bpos] = (byte) ((buffer[i] & 0xFF00) >> 8);
-      b[bpos + 1] = (byte) (buffer[i] & 0x00FF);
+  /**
+   * Compute hash of a decoded content ignoring line ends differences. Each character is digested
+   * as its two UTF-16 bytes, big-endian.
+   */
+  String hash(CharSequence content) {
+    MessageDigest md5Digest = DigestUtils.getMd5Digest();
+    md5Digest.reset();
+    byte[] buffer = new byte[BUFFER_SIZE];
+    int pos = 0;
+    boolean afterCR = true;
+    for (int i = 0; i < content.length(); i++) {
+      char c = content.charAt(i);
+      if (afterCR) {
+        afterCR = false;
+        if (c == '\n') {
+          // Ignore
+          continue;
+        }
+      }
+      if (c == '\r') {
+        afterCR = true;
+        c = '\n';
+      }
+      if (pos == BUFFER_SIZE) {
+        md5Digest.update(buffer, 0, pos);
+        pos = 0;
+      }
+      buffer[pos] = (byte) ((c & 0xFF00) >> 8);
+      buffer[pos + 1] = (byte) (c & 0x00FF);
+      pos += 2;
     }
-    return b;
+    md5Digest.update(buffer, 0, pos);
+    return Hex.encodeHexString(md5Digest.digest());
   }
 }
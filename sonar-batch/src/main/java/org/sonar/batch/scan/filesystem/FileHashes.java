@@ -31,14 +31,16 @@ import java.nio.charset.Charset;
 public class FileHashes implements BatchComponent {
 
   private final RemoteFileHashes remoteFileHashes;
+  private final SourceContents sourceContents;
 
-  public FileHashes(RemoteFileHashes remoteFileHashes) {
+  public FileHashes(RemoteFileHashes remoteFileHashes, SourceContents sourceContents) {
     this.remoteFileHashes = remoteFileHashes;
+    this.sourceContents = sourceContents;
   }
 
   @CheckForNull
   public String hash(File file, Charset charset) {
-    return FileHashDigest.INSTANCE.hash(file, charset);
+    return sourceContents.hash(file, charset);
   }
 
   @CheckForNull
@@ -40,8 +40,9 @@ class FileQueryFilter {
     for (String pattern : query.inclusions()) {
       filters.add(new InclusionFilter(pattern));
     }
-    for (String pattern : query.exclusions()) {
-      filters.add(new ExclusionFilter(pattern));
+    if (!query.exclusions().isEmpty()) {
+      // all the exclusion patterns are evaluated at once
+      filters.add(new ExclusionFilter(query.exclusions().toArray(new String[query.exclusions().size()])));
     }
     for (Map.Entry<String, Collection<String>> entry : query.attributes().entrySet()) {
       filters.add(new AttributeFilter(entry.getKey(), entry.getValue()));
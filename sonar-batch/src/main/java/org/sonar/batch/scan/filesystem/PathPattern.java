@@ -38,6 +38,8 @@ abstract class PathPattern {
 
   abstract boolean supportResource();
 
+  abstract boolean isAbsolute();
+
   static PathPattern create(String s) {
     String trimmed = StringUtils.trim(s);
     if (StringUtils.startsWithIgnoreCase(trimmed, "file:")) {
@@ -74,6 +76,11 @@ abstract class PathPattern {
       return false;
     }
 
+    @Override
+    boolean isAbsolute() {
+      return true;
+    }
+
     @Override
     public String toString() {
       return "file:" + pattern.toString();
@@ -104,6 +111,11 @@ abstract class PathPattern {
       return true;
     }
 
+    @Override
+    boolean isAbsolute() {
+      return false;
+    }
+
     @Override
     public String toString() {
       return pattern.toString();
@@ -0,0 +1,273 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.batch.scan.filesystem;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.apache.commons.lang.StringUtils;
+import org.sonar.api.scan.filesystem.InputFile;
+import org.sonar.api.utils.WildcardPattern;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Set of {@link PathPattern}s compiled into a single automaton over path segments, so that a path is
+ * evaluated once whatever the number of patterns. Segments mixing "**" with other characters,
+ * like in "**Foo.java", can't be evaluated segment by segment and fall back to {@link WildcardPattern}.
+ * <p/>
+ * Instances are immutable, thus thread-safe.
+ */
+final class PathPatternSet {
+
+  private static final String GLOBSTAR = "**";
+
+  private final String[] source;
+  private final PathPattern[] patterns;
+  private final Automaton relativePatterns = new Automaton();
+  private final Automaton absolutePatterns = new Automaton();
+
+  private PathPatternSet(String[] source) {
+    this.source = source.clone();
+    this.patterns = PathPattern.create(source);
+    for (PathPattern pattern : patterns) {
+      if (pattern.isAbsolute()) {
+        absolutePatterns.add(pattern.pattern);
+      } else {
+        relativePatterns.add(pattern.pattern);
+      }
+    }
+  }
+
+  static PathPatternSet create(String[] s) {
+    return new PathPatternSet(s);
+  }
+
+  PathPattern[] patterns() {
+    return patterns;
+  }
+
+  boolean isEmpty() {
+    return patterns.length == 0;
+  }
+
+  boolean hasSource(String[] s) {
+    return Arrays.equals(source, s);
+  }
+
+  /**
+   * Returns true if at least one of the patterns matches the file
+   */
+  boolean match(InputFile inputFile) {
+    if (!absolutePatterns.isEmpty() && absolutePatterns.match(inputFile.path())) {
+      return true;
+    }
+    if (!relativePatterns.isEmpty()) {
+      String path = inputFile.attribute(InputFile.ATTRIBUTE_SOURCE_RELATIVE_PATH);
+      return path != null && relativePatterns.match(path);
+    }
+    return false;
+  }
+
+  @Override
+  public String toString() {
+    return StringUtils.join(patterns, ",");
+  }
+
+  /**
+   * Same semantic as {@link WildcardPattern} with "/" as directory separator
+   */
+  static final class Automaton {
+    private final Node root = new Node(false);
+    private final List<WildcardPattern> fallbacks = Lists.newArrayList();
+    private boolean empty = true;
+
+    void add(WildcardPattern pattern) {
+      empty = false;
+      String s = pattern.toString();
+      if (s.startsWith("/") || s.startsWith("\\")) {
+        s = s.substring(1);
+      }
+      List<String> segments = split(s, true);
+      for (String segment : segments) {
+        if (segment.contains(GLOBSTAR) && !GLOBSTAR.equals(segment)) {
+          fallbacks.add(pattern);
+          return;
+        }
+      }
+      Node node = root;
+      for (int i = 0; i < segments.size(); i++) {
+        String segment = segments.get(i);
+        if (GLOBSTAR.equals(segment)) {
+          if (i == segments.size() - 1) {
+            // trailing "**" requires at least one more segment
+            node = node.child("*");
+          }
+          node = node.globstar();
+        } else {
+          node = node.child(segment);
+        }
+      }
+      node.terminal = true;
+    }
+
+    boolean isEmpty() {
+      return empty;
+    }
+
+    boolean match(String path) {
+      String value = StringUtils.removeEnd(StringUtils.removeStart(path, "/"), "/");
+      return matchAutomaton(value) || matchFallbacks(path);
+    }
+
+    private boolean matchAutomaton(String value) {
+      List<Node> states = Lists.newArrayList();
+      addWithGlobstars(states, root);
+      for (String segment : split(value, false)) {
+        List<Node> next = Lists.newArrayList();
+        for (Node state : states) {
+          state.step(segment, next);
+        }
+        if (next.isEmpty()) {
+          return false;
+        }
+        states = next;
+      }
+      for (Node state : states) {
+        if (state.terminal) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private boolean matchFallbacks(String path) {
+      for (WildcardPattern fallback : fallbacks) {
+        if (fallback.match(path)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private static List<String> split(String s, boolean backslashIsSeparator) {
+      List<String> segments = Lists.newArrayList();
+      int start = 0;
+      for (int i = 0; i < s.length(); i++) {
+        char c = s.charAt(i);
+        if (c == '/' || (backslashIsSeparator && c == '\\')) {
+          segments.add(s.substring(start, i));
+          start = i + 1;
+        }
+      }
+      segments.add(s.substring(start));
+      return segments;
+    }
+  }
+
+  private static final class Node {
+    private final boolean globstar;
+    private final Map<String, Node> literals = Maps.newHashMap();
+    private final Map<String, Node> wildcards = Maps.newLinkedHashMap();
+    private Node globstarChild;
+    private boolean terminal = false;
+
+    private Node(boolean globstar) {
+      this.globstar = globstar;
+    }
+
+    private Node child(String segment) {
+      boolean wildcard = StringUtils.containsAny(segment, "*?");
+      Map<String, Node> children = wildcard ? wildcards : literals;
+      Node child = children.get(segment);
+      if (child == null) {
+        child = new Node(false);
+        children.put(segment, child);
+      }
+      return child;
+    }
+
+    private Node globstar() {
+      if (globstarChild == null) {
+        globstarChild = new Node(true);
+      }
+      return globstarChild;
+    }
+
+    private void step(String segment, List<Node> next) {
+      Node literal = literals.get(segment);
+      if (literal != null) {
+        addWithGlobstars(next, literal);
+      }
+      for (Map.Entry<String, Node> entry : wildcards.entrySet()) {
+        if (matchSegment(entry.getKey(), segment)) {
+          addWithGlobstars(next, entry.getValue());
+        }
+      }
+      if (globstar) {
+        // "**" consumes any number of directories
+        addWithGlobstars(next, this);
+      }
+    }
+  }
+
+  /**
+   * Adds the node and the "**" nodes that can be reached without consuming any segment
+   */
+  private static void addWithGlobstars(List<Node> states, Node node) {
+    Node current = node;
+    while (current != null && !states.contains(current)) {
+      states.add(current);
+      current = current.globstarChild;
+    }
+  }
+
+  /**
+   * Matches a segment against a pattern made of literal characters, "*" (zero or more characters)
+   * and "?" (exactly one character)
+   */
+  static boolean matchSegment(String pattern, String segment) {
+    int p = 0;
+    int s = 0;
+    int starPattern = -1;
+    int starSegment = 0;
+    while (s < segment.length()) {
+      if (p < pattern.length() && (pattern.charAt(p) == '?' || pattern.charAt(p) == segment.charAt(s))) {
+        p++;
+        s++;
+      } else if (p < pattern.length() && pattern.charAt(p) == '*') {
+        starPattern = p;
+        starSegment = s;
+        p++;
+      } else if (starPattern >= 0) {
+        p = starPattern + 1;
+        starSegment++;
+        s = starSegment;
+      } else {
+        return false;
+      }
+    }
+    while (p < pattern.length() && pattern.charAt(p) == '*') {
+      p++;
+    }
+    return p == pattern.length();
+  }
+}
@@ -0,0 +1,259 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.batch.scan.filesystem;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Lists;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.BatchComponent;
+import org.sonar.api.batch.events.DecoratorsPhaseHandler;
+import org.sonar.api.batch.events.SensorsPhaseHandler;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads and decodes source files once per module, so that file indexing, issue exclusions, CPD, etc.
+ * do not read the same file from disk again and again. Decoded contents are kept in a LRU cache
+ * bounded by the total number of characters.
+ *
+ * @since 4.0
+ */
+public class SourceContents implements BatchComponent, SensorsPhaseHandler, DecoratorsPhaseHandler {
+
+  private static final Logger LOG = LoggerFactory.getLogger(SourceContents.class);
+
+  // about 16Mb of heap
+  static final int DEFAULT_MAX_CHARS = 8 * 1024 * 1024;
+
+  private final int maxChars;
+  private final Map<Key, String> cache = new LinkedHashMap<Key, String>(16, 0.75f, true);
+  private long cachedChars = 0L;
+
+  // statistics of the current phase
+  private int filesRead = 0;
+  private long bytesRead = 0L;
+  private int hits = 0;
+
+  public SourceContents() {
+    this(DEFAULT_MAX_CHARS);
+  }
+
+  @VisibleForTesting
+  SourceContents(int maxChars) {
+    this.maxChars = maxChars;
+  }
+
+  /**
+   * Decoded content of the file. Malformed characters are replaced, as {@link java.io.InputStreamReader} does.
+   */
+  public synchronized String content(File file, Charset charset) {
+    Key key = new Key(file, charset);
+    String content = cache.get(key);
+    if (content != null) {
+      hits++;
+      return content;
+    }
+    content = read(file, charset);
+    if (content.length() <= maxChars) {
+      cache.put(key, content);
+      cachedChars += content.length();
+      evict();
+    }
+    return content;
+  }
+
+  public Reader reader(File file, Charset charset) {
+    return new StringReader(content(file, charset));
+  }
+
+  /**
+   * Same lines as {@link org.apache.commons.io.FileUtils#readLines(File, String)}
+   */
+  public List<String> lines(File file, Charset charset) {
+    return Lists.newArrayList(lineIterator(file, charset));
+  }
+
+  /**
+   * Same lines as {@link #lines(File, Charset)}, without loading all of them in memory.
+   */
+  public Iterator<String> lineIterator(File file, Charset charset) {
+    return new LineIterator(content(file, charset));
+  }
+
+  /**
+   * Hash of the file ignoring line ends differences. See {@link FileHashDigest}.
+   */
+  public String hash(File file, Charset charset) {
+    return FileHashDigest.INSTANCE.hash(content(file, charset));
+  }
+
+  private String read(File file, Charset charset) {
+    FileInputStream input = null;
+    try {
+      input = new FileInputStream(file);
+      FileChannel channel = input.getChannel();
+      // Heap buffer rather than a mapped one : mapped buffers keep files locked on Windows until they are garbage-collected
+      ByteBuffer bytes = ByteBuffer.allocate((int) channel.size());
+      while (bytes.hasRemaining() && channel.read(bytes) >= 0) {
+        // continue
+      }
+      bytes.flip();
+      filesRead++;
+      bytesRead += bytes.limit();
+      return decode(bytes, charset);
+    } catch (IOException e) {
+      throw new IllegalStateException(String.format("Fail to read file %s with charset %s", file.getAbsolutePath(), charset), e);
+    } finally {
+      IOUtils.closeQuietly(input);
+    }
+  }
+
+  private static String decode(ByteBuffer bytes, Charset charset) throws CharacterCodingException {
+    CharsetDecoder decoder = charset.newDecoder()
+      .onMalformedInput(CodingErrorAction.REPLACE)
+      .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    CharBuffer chars = decoder.decode(bytes);
+    return chars.toString();
+  }
+
+  private void evict() {
+    Iterator<Map.Entry<Key, String>> it = cache.entrySet().iterator();
+    while (cachedChars > maxChars && it.hasNext()) {
+      cachedChars -= it.next().getValue().length();
+      it.remove();
+    }
+  }
+
+  public void onSensorsPhase(SensorsPhaseEvent event) {
+    if (event.isStart()) {
+      logAndReset("initialization");
+    } else {
+      logAndReset("sensors");
+    }
+  }
+
+  public void onDecoratorsPhase(DecoratorsPhaseEvent event) {
+    if (event.isEnd()) {
+      logAndReset("decorators");
+    }
+  }
+
+  private synchronized void logAndReset(String phase) {
+    if (filesRead > 0 || hits > 0) {
+      LOG.debug("Sources read during {}: {} files, {} bytes, {} cache hits", new Object[] {phase, filesRead, bytesRead, hits});
+    }
+    filesRead = 0;
+    bytesRead = 0L;
+    hits = 0;
+  }
+
+  @VisibleForTesting
+  synchronized int filesRead() {
+    return filesRead;
+  }
+
+  @VisibleForTesting
+  synchronized long bytesRead() {
+    return bytesRead;
+  }
+
+  @VisibleForTesting
+  synchronized int hits() {
+    return hits;
+  }
+
+  private static final class LineIterator extends AbstractIterator<String> {
+    private final String content;
+    private int start = 0;
+
+    LineIterator(String content) {
+      this.content = content;
+    }
+
+    @Override
+    protected String computeNext() {
+      int length = content.length();
+      if (start >= length) {
+        return endOfData();
+      }
+      int i = start;
+      while (i < length) {
+        char c = content.charAt(i);
+        if (c == '\n' || c == '\r') {
+          String line = content.substring(start, i);
+          if (c == '\r' && i + 1 < length && content.charAt(i + 1) == '\n') {
+            i++;
+          }
+          start = i + 1;
+          return line;
+        }
+        i++;
+      }
+      String line = content.substring(start);
+      start = length;
+      return line;
+    }
+  }
+
+  private static final class Key {
+    private final File file;
+    private final Charset charset;
+
+    Key(File file, Charset charset) {
+      this.file = file;
+      this.charset = charset;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return file.equals(other.file) && charset.equals(other.charset);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * file.hashCode() + charset.hashCode();
+    }
+  }
+}
@@ -39,6 +39,7 @@ import javax.servlet.http.HttpServletResponse;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.Reader;
 
 import static javax.servlet.http.HttpServletResponse.SC_OK;
 import static org.apache.commons.io.IOUtils.write;
@@ -83,6 +84,20 @@ public class ServerClientTest {
     assertThat(newServerClient().request("/foo")).isEqualTo("this is the content");
   }
 
+  @Test
+  public void should_stream_response() throws Exception {
+    server = new MockHttpServer();
+    server.start();
+    server.setMockResponseData("this is the content");
+
+    Reader reader = newServerClient().requestAsReader("/foo", true);
+    try {
+      assertThat(IOUtils.toString(reader)).isEqualTo("this is the content");
+    } finally {
+      IOUtils.closeQuietly(reader);
+    }
+  }
+
   @Test
   public void should_escape_html_from_url() throws Exception {
     server = new MockHttpServer();
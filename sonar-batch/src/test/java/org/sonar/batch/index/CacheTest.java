@@ -24,11 +24,13 @@ import com.persistit.exception.PersistitException;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.sonar.core.profiling.ProfilingRegistry;
 
 import static org.fest.assertions.Assertions.assertThat;
 
 public class CacheTest {
-  Caches caches = new Caches();
+  ProfilingRegistry profiling = new ProfilingRegistry();
+  Caches caches = new Caches(profiling);
 
   @Before
   public void start() {
@@ -207,4 +209,16 @@ public class CacheTest {
     assertThat(entries[1].key()).isEqualTo("ncloc");
     assertThat(entries[1].value()).isEqualTo(123f);
   }
+
+  @Test
+  public void should_count_operations() throws Exception {
+    Cache<String, String> cache = caches.createCache("issues");
+    cache.get("foo");
+    cache.put("foo", "bar");
+    cache.get("foo");
+
+    assertThat(profiling.counter("batch.cache.issues.get").count()).isEqualTo(2L);
+    assertThat(profiling.counter("batch.cache.issues.miss").count()).isEqualTo(1L);
+    assertThat(profiling.counter("batch.cache.issues.put").count()).isEqualTo(1L);
+  }
 }
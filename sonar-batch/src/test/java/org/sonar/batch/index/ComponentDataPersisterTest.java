@@ -23,9 +23,13 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.sonar.api.database.model.Snapshot;
+import org.sonar.api.resources.Resource;
 import org.sonar.core.persistence.AbstractDaoTestCase;
 import org.sonar.core.source.jdbc.SnapshotDataDao;
 
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
 public class ComponentDataPersisterTest extends AbstractDaoTestCase {
 
   SnapshotCache snapshots = new SnapshotCache();
@@ -56,7 +60,30 @@ public class ComponentDataPersisterTest extends AbstractDaoTestCase {
     data.setStringData("org/struts/Other.java", "SYMBOL", "unregistered component, should not be persisted");
 
     SnapshotDataDao dataDao = new SnapshotDataDao(getMyBatis());
-    ComponentDataPersister persister = new ComponentDataPersister(data, snapshots, dataDao, getMyBatis());
+    ComponentDataPersister persister = new ComponentDataPersister(data, snapshots, dataDao, new PersistenceQueue(getMyBatis()));
+    persister.persist();
+
+    checkTables("should_persist_component_data", new String[]{"id", "created_at", "updated_at"}, "snapshot_data");
+  }
+
+  @Test
+  public void should_persist_component_data_once_resource_is_decorated() throws Exception {
+    setupData("should_persist_component_data");
+    Snapshot snapshot = new Snapshot();
+    snapshot.setId(100);
+    snapshot.setResourceId(200);
+    snapshots.put("org/struts/Action.java", snapshot);
+
+    data = new ComponentDataCache(caches);
+    data.setStringData("org/struts/Action.java", "SYMBOL", "content of symbol");
+    data.setStringData("org/struts/Action.java", "SYNTAX", "content of syntax");
+
+    SnapshotDataDao dataDao = new SnapshotDataDao(getMyBatis());
+    ComponentDataPersister persister = new ComponentDataPersister(data, snapshots, dataDao, new PersistenceQueue(getMyBatis()));
+    Resource resource = mock(Resource.class);
+    when(resource.getEffectiveKey()).thenReturn("org/struts/Action.java");
+    persister.persist(resource);
+    // already persisted components are not inserted twice
     persister.persist();
 
     checkTables("should_persist_component_data", new String[]{"id", "created_at", "updated_at"}, "snapshot_data");
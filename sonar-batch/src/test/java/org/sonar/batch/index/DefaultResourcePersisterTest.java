@@ -188,6 +188,49 @@ public class DefaultResourcePersisterTest extends AbstractDbUnitTestCase {
     checkTables("shouldUpdateExistingResource", new String[] {"build_date", "created_at"}, "projects", "snapshots");
   }
 
+  @Test
+  public void shouldUpdateExistingFilesOfModule() {
+    setupData("shouldUpdateExistingFilesOfModule");
+
+    DefaultResourcePersister persister = new DefaultResourcePersister(getSession(), mock(ResourcePermissions.class), snapshotCache, resourceCache);
+    persister.saveProject(singleProject, null);
+    JavaFile existingFile = new JavaFile("org.foo.Bar");
+    existingFile.setEffectiveKey("foo:org.foo.Bar");
+    persister.saveResource(singleProject, existingFile);
+    JavaFile newFile = new JavaFile("org.foo.Baz");
+    newFile.setEffectiveKey("foo:org.foo.Baz");
+    persister.saveResource(singleProject, newFile);
+
+    // saved again after the cache of snapshots is cleared
+    persister.clear();
+    persister.saveResource(singleProject, newFile);
+
+    assertThat(existingFile.getId(), is(1002));
+    ResourceModel model = getSession().getSingleResult(ResourceModel.class, "key", "foo:org.foo.Bar");
+    assertThat(model.getName(), is("Bar"));
+    assertThat(model.getLongName(), is("org.foo.Bar"));
+    assertThat(model.getEnabled(), is(true));
+    assertThat(model.getRootId(), is(1001));
+
+    assertThat(getSession().getResults(ResourceModel.class, "key", "foo:org.foo.Baz").size(), is(1));
+    assertThat(newFile.getId(), is(getSession().getSingleResult(ResourceModel.class, "key", "foo:org.foo.Baz").getId()));
+  }
+
+  @Test
+  public void shouldNotDuplicateFileAttachedToAnotherModule() {
+    setupData("shouldUpdateExistingFilesOfModule");
+
+    DefaultResourcePersister persister = new DefaultResourcePersister(getSession(), mock(ResourcePermissions.class), snapshotCache, resourceCache);
+    persister.saveProject(singleProject, null);
+    JavaFile movedFile = new JavaFile("org.foo.Moved");
+    movedFile.setEffectiveKey("foo:org.foo.Moved");
+    persister.saveResource(singleProject, movedFile);
+
+    assertThat(movedFile.getId(), is(1004));
+    assertThat(getSession().getResults(ResourceModel.class, "key", "foo:org.foo.Moved").size(), is(1));
+    assertThat(getSession().getSingleResult(ResourceModel.class, "key", "foo:org.foo.Moved").getRootId(), is(1001));
+  }
+
   // SONAR-1700
   @Test
   public void shouldRemoveRootIndexIfResourceIsProject() {
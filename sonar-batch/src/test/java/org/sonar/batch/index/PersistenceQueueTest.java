@@ -0,0 +1,159 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.batch.index;
+
+import com.google.common.collect.Lists;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonar.api.utils.SonarException;
+import org.sonar.core.persistence.AbstractDaoTestCase;
+import org.sonar.core.persistence.BatchSession;
+import org.sonar.core.persistence.MyBatis;
+import org.sonar.core.profiling.ProfilingRegistry;
+import org.sonar.core.source.jdbc.SnapshotDataDto;
+import org.sonar.core.source.jdbc.SnapshotDataMapper;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.fest.assertions.Fail.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PersistenceQueueTest extends AbstractDaoTestCase {
+
+  PersistenceQueue queue;
+  ProfilingRegistry profiling = new ProfilingRegistry();
+
+  @Before
+  public void before() {
+    queue = new PersistenceQueue(getMyBatis(), 2, profiling);
+  }
+
+  @After
+  public void after() {
+    queue.stop();
+  }
+
+  @Test
+  public void should_execute_tasks_in_background_and_in_order() {
+    final List<Integer> executed = Collections.synchronizedList(Lists.<Integer>newArrayList());
+    final Thread analysisThread = Thread.currentThread();
+    for (int i = 0; i < 10; i++) {
+      final int index = i;
+      queue.submit(new PersistenceQueue.Task() {
+        public void persist(BatchSession session) {
+          assertThat(Thread.currentThread()).isNotSameAs(analysisThread);
+          executed.add(index);
+        }
+      });
+    }
+    queue.flush();
+
+    assertThat(executed).containsExactly(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+    assertThat(profiling.timer("batch.persistence_queue.submit").durations().count()).isEqualTo(10L);
+    // the duration of the final commit may be recorded after the end of flush
+    assertThat(profiling.timer("batch.persistence_queue.task").durations().count()).isGreaterThanOrEqualTo(10L);
+    assertThat(profiling.timer("batch.persistence_queue.flush").durations().count()).isEqualTo(1L);
+  }
+
+  @Test
+  public void flush_should_fail_if_a_task_failed() {
+    queue.submit(new PersistenceQueue.Task() {
+      public void persist(BatchSession session) {
+        throw new IllegalStateException("Unexpected");
+      }
+    });
+    try {
+      queue.flush();
+      fail();
+    } catch (SonarException e) {
+      assertThat(e.getCause()).isInstanceOf(IllegalStateException.class);
+    }
+  }
+
+  @Test
+  public void flush_should_rollback_if_a_task_failed() {
+    queue.submit(new PersistenceQueue.Task() {
+      public void persist(BatchSession session) {
+        SnapshotDataDto data = new SnapshotDataDto();
+        data.setSnapshotId(1L);
+        data.setResourceId(2L);
+        data.setDataType("highlight_syntax");
+        data.setData("0,10,k;");
+        session.getMapper(SnapshotDataMapper.class).insert(data);
+      }
+    });
+    queue.submit(new PersistenceQueue.Task() {
+      public void persist(BatchSession session) {
+        throw new IllegalStateException("Unexpected");
+      }
+    });
+    try {
+      queue.flush();
+      fail();
+    } catch (SonarException e) {
+      assertEmptyTables("snapshot_data");
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void flush_should_fail_if_a_task_threw_an_error() {
+    queue.submit(new PersistenceQueue.Task() {
+      public void persist(BatchSession session) {
+        throw new NoClassDefFoundError("Unexpected");
+      }
+    });
+    try {
+      queue.flush();
+      fail();
+    } catch (SonarException e) {
+      assertThat(e.getCause()).isInstanceOf(NoClassDefFoundError.class);
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void should_fail_instead_of_waiting_if_background_thread_is_dead() {
+    MyBatis mybatis = mock(MyBatis.class);
+    when(mybatis.openTransactionalBatchSession()).thenThrow(new IllegalStateException("Unexpected"));
+    queue = new PersistenceQueue(mybatis, 2, profiling);
+
+    try {
+      for (int i = 0; i < 10; i++) {
+        queue.submit(new PersistenceQueue.Task() {
+          public void persist(BatchSession session) {
+          }
+        });
+      }
+      queue.flush();
+      fail();
+    } catch (SonarException e) {
+      assertThat(e.getCause()).isInstanceOf(IllegalStateException.class);
+    }
+  }
+
+  @Test
+  public void flush_should_do_nothing_if_no_tasks() {
+    queue.flush();
+    queue.stop();
+  }
+}
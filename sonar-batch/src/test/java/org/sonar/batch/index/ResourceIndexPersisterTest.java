@@ -0,0 +1,101 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.batch.index;
+
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.sonar.api.CoreProperties;
+import org.sonar.api.config.Settings;
+import org.sonar.api.database.model.Snapshot;
+import org.sonar.api.resources.JavaFile;
+import org.sonar.api.resources.Project;
+import org.sonar.api.resources.Qualifiers;
+import org.sonar.api.resources.Resource;
+import org.sonar.api.resources.Scopes;
+import org.sonar.core.resource.ResourceDto;
+import org.sonar.core.resource.ResourceIndexerDao;
+
+import java.util.Collection;
+import java.util.Iterator;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Matchers.anyCollection;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class ResourceIndexPersisterTest {
+
+  SnapshotCache snapshots = new SnapshotCache();
+  ResourceCache resources = new ResourceCache();
+  ResourceIndexerDao indexer = mock(ResourceIndexerDao.class);
+  Settings settings = new Settings();
+  ResourceIndexPersister persister = new ResourceIndexPersister(snapshots, resources, indexer, settings);
+
+  @Test
+  public void should_index_resources_of_analysis() throws Exception {
+    add(new Project("struts").setName("Struts"), snapshot(1, null, Scopes.PROJECT, Qualifiers.PROJECT));
+    add(new JavaFile("org.struts.Action"), snapshot(10, 1, Scopes.FILE, Qualifiers.CLASS));
+
+    persister.persist();
+
+    ArgumentCaptor<Collection> captor = ArgumentCaptor.forClass(Collection.class);
+    verify(indexer).indexResources(eq(1L), captor.capture());
+    assertThat(captor.getValue()).hasSize(2);
+    Iterator<ResourceDto> it = captor.getValue().iterator();
+    ResourceDto first = it.next();
+    ResourceDto file = first.getId() == 10L ? first : it.next();
+    assertThat(file.getId()).isEqualTo(10L);
+    assertThat(file.getName()).isEqualTo("Action");
+    assertThat(file.getScope()).isEqualTo(Scopes.FILE);
+    assertThat(file.getQualifier()).isEqualTo(Qualifiers.CLASS);
+  }
+
+  @Test
+  public void should_ignore_resources_without_name() throws Exception {
+    add(new Project("struts"), snapshot(1, null, Scopes.PROJECT, Qualifiers.PROJECT));
+
+    persister.persist();
+
+    verify(indexer, never()).indexResources(anyLong(), anyCollection());
+  }
+
+  @Test
+  public void should_not_index_in_dry_run() throws Exception {
+    settings.setProperty(CoreProperties.DRY_RUN, true);
+    add(new Project("struts").setName("Struts"), snapshot(1, null, Scopes.PROJECT, Qualifiers.PROJECT));
+
+    persister.persist();
+
+    verify(indexer, never()).indexResources(anyLong(), anyCollection());
+  }
+
+  private void add(Resource resource, Snapshot snapshot) {
+    resource.setEffectiveKey(resource.getKey());
+    resources.add(resource);
+    snapshots.put(resource.getKey(), snapshot);
+  }
+
+  private static Snapshot snapshot(int resourceId, Integer rootProjectId, String scope, String qualifier) {
+    return new Snapshot().setResourceId(resourceId).setRootProjectId(rootProjectId).setScope(scope).setQualifier(qualifier);
+  }
+}
@@ -19,21 +19,37 @@
  */
 package org.sonar.batch.index;
 
+import org.apache.commons.codec.digest.DigestUtils;
 import org.junit.Before;
 import org.junit.Test;
+import org.sonar.api.CoreProperties;
+import org.sonar.api.config.Settings;
 import org.sonar.api.database.model.Snapshot;
+import org.sonar.api.database.model.SnapshotSource;
 import org.sonar.api.resources.DuplicatedSourceException;
 import org.sonar.api.resources.JavaFile;
 import org.sonar.api.resources.Resource;
+import org.sonar.core.source.SnapshotDataTypes;
+import org.sonar.core.source.SnapshotSourceFormat;
+import org.sonar.core.source.jdbc.SnapshotDataDao;
+import org.sonar.core.source.jdbc.SnapshotDataDto;
+import org.sonar.core.source.jdbc.SnapshotSourceDao;
 import org.sonar.jpa.test.AbstractDbUnitTestCase;
 
-import static org.mockito.Matchers.any;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
+import java.util.Arrays;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.*;
 
 public class SourcePersisterTest extends AbstractDbUnitTestCase {
 
+  private static final String CONTENT = "this is the file content";
+
   private SourcePersister sourcePersister;
+  private Settings settings = new Settings();
+  private SnapshotSourceDao sourceDao = mock(SnapshotSourceDao.class);
+  private SnapshotDataDao dataDao = mock(SnapshotDataDao.class);
+  private ComponentDataCache componentDataCache = mock(ComponentDataCache.class);
 
   @Before
   public void before() {
@@ -41,13 +57,15 @@ public class SourcePersisterTest extends AbstractDbUnitTestCase {
     Snapshot snapshot = getSession().getSingleResult(Snapshot.class, "id", 1000);
     ResourcePersister resourcePersister = mock(ResourcePersister.class);
     when(resourcePersister.getSnapshotOrFail(any(Resource.class))).thenReturn(snapshot);
-    sourcePersister = new SourcePersister(getSession(), resourcePersister);
+    when(resourcePersister.getSnapshot(any(Resource.class))).thenReturn(snapshot);
+    sourcePersister = new SourcePersister(getSession(), resourcePersister, settings, sourceDao, dataDao, componentDataCache);
   }
 
   @Test
   public void shouldSaveSource() {
-    sourcePersister.saveSource(new JavaFile("org.foo.Bar"), "this is the file content");
+    sourcePersister.saveSource(new JavaFile("org.foo.Bar"), CONTENT);
     checkTables("shouldSaveSource", "snapshot_sources");
+    verify(componentDataCache).setStringData(anyString(), eq(SnapshotDataTypes.SOURCE_HASH), eq(DigestUtils.md5Hex(CONTENT)));
   }
 
   @Test(expected = DuplicatedSourceException.class)
@@ -56,4 +74,57 @@ public class SourcePersisterTest extends AbstractDbUnitTestCase {
     sourcePersister.saveSource(file, "this is the file content");
     sourcePersister.saveSource(file, "new content"); // fail
   }
+
+  @Test
+  public void shouldCompressSource() {
+    settings.setProperty(CoreProperties.CORE_COMPRESS_SOURCES_PROPERTY, true);
+    String content = CONTENT + "\n" + CONTENT + "\n" + CONTENT + "\n" + CONTENT;
+    JavaFile file = new JavaFile("org.foo.Bar");
+
+    sourcePersister.saveSource(file, content);
+
+    SnapshotSource saved = getSession().getSingleResult(SnapshotSource.class, "snapshotId", 1000);
+    assertThat(SnapshotSourceFormat.isCompressed(saved.getData())).isTrue();
+    assertThat(sourcePersister.getSource(file)).isEqualTo(content);
+  }
+
+  @Test
+  public void shouldCopyUnchangedSourceFromPreviousAnalysis() {
+    SnapshotDataDto previousHash = new SnapshotDataDto();
+    previousHash.setResourceId(200L);
+    previousHash.setData(DigestUtils.md5Hex(CONTENT));
+    when(dataDao.selectLastSnapshotDataOfRootProject(100L, SnapshotDataTypes.SOURCE_HASH)).thenReturn(Arrays.asList(previousHash));
+    when(sourceDao.insertCopyOfLastSnapshotSource(1000L, 200L)).thenReturn(true);
+
+    sourcePersister.saveSource(new JavaFile("org.foo.Bar"), CONTENT);
+
+    verify(sourceDao).insertCopyOfLastSnapshotSource(1000L, 200L);
+    assertThat(getSession().getSingleResult(SnapshotSource.class, "snapshotId", 1000)).isNull();
+  }
+
+  @Test
+  public void shouldSaveSourceIfChangedSincePreviousAnalysis() {
+    SnapshotDataDto previousHash = new SnapshotDataDto();
+    previousHash.setResourceId(200L);
+    previousHash.setData(DigestUtils.md5Hex("old content"));
+    when(dataDao.selectLastSnapshotDataOfRootProject(100L, SnapshotDataTypes.SOURCE_HASH)).thenReturn(Arrays.asList(previousHash));
+
+    sourcePersister.saveSource(new JavaFile("org.foo.Bar"), CONTENT);
+
+    verifyZeroInteractions(sourceDao);
+    checkTables("shouldSaveSource", "snapshot_sources");
+  }
+
+  @Test
+  public void shouldSaveSourceIfCompressionEnabledSincePreviousAnalysis() {
+    settings.setProperty(CoreProperties.CORE_COMPRESS_SOURCES_PROPERTY, true);
+    SnapshotDataDto previousHash = new SnapshotDataDto();
+    previousHash.setResourceId(200L);
+    previousHash.setData(DigestUtils.md5Hex(CONTENT));
+    when(dataDao.selectLastSnapshotDataOfRootProject(100L, SnapshotDataTypes.SOURCE_HASH)).thenReturn(Arrays.asList(previousHash));
+
+    sourcePersister.saveSource(new JavaFile("org.foo.Bar"), CONTENT);
+
+    verifyZeroInteractions(sourceDao);
+  }
 }
@@ -22,6 +22,7 @@ package org.sonar.batch.phases;
 import org.sonar.core.measure.MeasurementFilters;
 
 import org.junit.Test;
+import org.mockito.InOrder;
 import org.sonar.api.batch.BatchExtensionDictionnary;
 import org.sonar.api.batch.Decorator;
 import org.sonar.api.batch.DecoratorContext;
@@ -32,13 +33,19 @@ import org.sonar.api.resources.Resource;
 import org.sonar.api.utils.SonarException;
 import org.sonar.batch.DefaultDecoratorContext;
 import org.sonar.batch.events.EventBus;
+import org.sonar.batch.index.ResourceScanPersister;
+
+import java.util.Arrays;
+
 import static org.hamcrest.number.OrderingComparisons.greaterThanOrEqualTo;
 import static org.hamcrest.number.OrderingComparisons.lessThan;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 import static org.junit.matchers.JUnitMatchers.containsString;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 
 public class DecoratorsExecutorTest {
@@ -77,6 +84,22 @@ public class DecoratorsExecutorTest {
     }
   }
 
+  @Test
+  public void shouldPersistResourceOnceDecorated() {
+    Project project = new Project("key");
+    SonarIndex index = mock(SonarIndex.class);
+    ResourceScanPersister persister = mock(ResourceScanPersister.class);
+    Decorator decorator = mock(Decorator.class);
+
+    DecoratorsExecutor executor = new DecoratorsExecutor(mock(BatchExtensionDictionnary.class), project, index,
+        mock(EventBus.class), mock(MeasurementFilters.class), new ResourceScanPersister[] {persister});
+    executor.decorateResource(project, Arrays.asList(decorator), true);
+
+    InOrder inOrder = inOrder(decorator, persister);
+    inOrder.verify(decorator).decorate(eq(project), any(DecoratorContext.class));
+    inOrder.verify(persister).persist(project);
+  }
+
   static class Decorator1 implements Decorator {
     public void decorate(Resource resource, DecoratorContext context) {
     }
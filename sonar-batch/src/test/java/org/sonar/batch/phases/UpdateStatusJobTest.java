@@ -131,4 +131,29 @@ public class UpdateStatusJobTest extends AbstractDbUnitTestCase {
     job.evictDryRunDB();
     verify(serverClient, never()).request(anyString());
   }
+
+  @Test
+  public void should_notify_end_of_regular_analysis() throws Exception {
+    Settings settings = new Settings();
+    Project project = new Project("struts");
+    ServerClient serverClient = mock(ServerClient.class);
+    UpdateStatusJob job = new UpdateStatusJob(settings, serverClient, mock(DatabaseSession.class),
+      mock(ResourcePersister.class), project, mock(Snapshot.class));
+
+    job.notifyAnalysisCompleted();
+    verify(serverClient).request(contains("/batch_bootstrap/analysis_completed"));
+  }
+
+  @Test
+  public void should_not_notify_end_of_dry_run_analysis() throws Exception {
+    Settings settings = new Settings();
+    settings.setProperty("sonar.dryRun", true);
+    Project project = new Project("struts");
+    ServerClient serverClient = mock(ServerClient.class);
+    UpdateStatusJob job = new UpdateStatusJob(settings, serverClient, mock(DatabaseSession.class),
+      mock(ResourcePersister.class), project, mock(Snapshot.class));
+
+    job.notifyAnalysisCompleted();
+    verify(serverClient, never()).request(anyString());
+  }
 }
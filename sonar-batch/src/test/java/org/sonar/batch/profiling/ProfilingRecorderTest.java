@@ -0,0 +1,120 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.batch.profiling;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.batch.Decorator;
+import org.sonar.api.batch.Sensor;
+import org.sonar.api.batch.bootstrap.ProjectDefinition;
+import org.sonar.api.batch.bootstrap.ProjectReactor;
+import org.sonar.api.batch.events.DecoratorExecutionHandler.DecoratorExecutionEvent;
+import org.sonar.api.batch.events.ProjectAnalysisHandler.ProjectAnalysisEvent;
+import org.sonar.api.batch.events.SensorExecutionHandler.SensorExecutionEvent;
+import org.sonar.api.resources.Project;
+import org.sonar.batch.events.BatchStepEvent;
+import org.sonar.core.profiling.ProfilingRegistry;
+
+import java.io.File;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ProfilingRecorderTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  ProfilingRegistry profiling = new ProfilingRegistry();
+  File workDir;
+  ProfilingRecorder recorder;
+
+  @Before
+  public void before() throws Exception {
+    workDir = temp.newFolder("work");
+    ProjectReactor reactor = new ProjectReactor(ProjectDefinition.create().setWorkDir(workDir));
+    recorder = new ProfilingRecorder(profiling, reactor);
+  }
+
+  @Test
+  public void should_record_durations_of_extensions() {
+    Sensor sensor = mock(Sensor.class);
+    recorder.onSensorExecution(sensorEvent(sensor, true));
+    recorder.onSensorExecution(sensorEvent(sensor, false));
+    Decorator decorator = mock(Decorator.class);
+    for (int i = 0; i < 3; i++) {
+      recorder.onDecoratorExecution(decoratorEvent(decorator, true));
+      recorder.onDecoratorExecution(decoratorEvent(decorator, false));
+    }
+
+    assertThat(profiling.timer("batch.sensor." + sensor.getClass().getName()).durations().count()).isEqualTo(1L);
+    assertThat(profiling.timer("batch.decorator." + decorator.getClass().getName()).durations().count()).isEqualTo(3L);
+  }
+
+  @Test
+  public void should_record_durations_of_batch_steps() {
+    recorder.onBatchStep(new BatchStepEvent("Persisters", true));
+    recorder.onBatchStep(new BatchStepEvent("Persisters", false));
+
+    assertThat(profiling.timer("batch.step.Persisters").durations().count()).isEqualTo(1L);
+  }
+
+  @Test
+  public void should_export_report_at_the_end_of_root_module() throws Exception {
+    Project module = new Project("struts-core");
+    module.setParent(new Project("struts"));
+    Project root = module.getParent();
+
+    recorder.onProjectAnalysis(projectEvent(module, true));
+    recorder.onProjectAnalysis(projectEvent(module, false));
+    File report = new File(workDir, ProfilingRecorder.REPORT_FILENAME);
+    assertThat(report).doesNotExist();
+
+    recorder.onProjectAnalysis(projectEvent(root, true));
+    recorder.onProjectAnalysis(projectEvent(root, false));
+    assertThat(report).exists();
+    assertThat(FileUtils.readFileToString(report)).contains("\"batch.module\":{\"count\":2,");
+  }
+
+  private static SensorExecutionEvent sensorEvent(final Sensor sensor, final boolean start) {
+    SensorExecutionEvent event = mock(SensorExecutionEvent.class);
+    when(event.getSensor()).thenReturn(sensor);
+    when(event.isStart()).thenReturn(start);
+    return event;
+  }
+
+  private static DecoratorExecutionEvent decoratorEvent(final Decorator decorator, final boolean start) {
+    DecoratorExecutionEvent event = mock(DecoratorExecutionEvent.class);
+    when(event.getDecorator()).thenReturn(decorator);
+    when(event.isStart()).thenReturn(start);
+    return event;
+  }
+
+  private static ProjectAnalysisEvent projectEvent(final Project project, final boolean start) {
+    ProjectAnalysisEvent event = mock(ProjectAnalysisEvent.class);
+    when(event.getProject()).thenReturn(project);
+    when(event.isStart()).thenReturn(start);
+    return event;
+  }
+}
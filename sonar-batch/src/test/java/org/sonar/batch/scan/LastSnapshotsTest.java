@@ -19,17 +19,22 @@
  */
 package org.sonar.batch.scan;
 
+import org.junit.After;
+import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.sonar.api.CoreProperties;
+import org.sonar.api.batch.SonarIndex;
 import org.sonar.api.config.Settings;
 import org.sonar.api.resources.File;
 import org.sonar.api.resources.Project;
 import org.sonar.api.utils.HttpDownloader;
 import org.sonar.batch.bootstrap.ServerClient;
+import org.sonar.batch.index.Caches;
 import org.sonar.jpa.test.AbstractDbUnitTestCase;
 
+import java.io.StringReader;
 import java.net.URI;
 import java.net.URISyntaxException;
 
@@ -43,86 +48,112 @@ public class LastSnapshotsTest extends AbstractDbUnitTestCase {
   @Rule
   public ExpectedException thrown = ExpectedException.none();
 
+  Caches caches = new Caches();
+  SonarIndex index = mock(SonarIndex.class);
+  ServerClient server = mock(ServerClient.class);
+
+  @Before
+  public void before() {
+    caches.start();
+    Project module = new Project("myproject");
+    module.setId(10);
+    when(index.getProject()).thenReturn(module);
+  }
+
+  @After
+  public void after() {
+    caches.stop();
+  }
+
   @Test
   public void should_get_source_of_last_snapshot() {
     setupData("last_snapshot");
-    ServerClient server = mock(ServerClient.class);
 
-    LastSnapshots lastSnapshots = new LastSnapshots(new Settings(), getSession(), server);
+    LastSnapshots lastSnapshots = new LastSnapshots(new Settings(), getSession(), server, index, caches);
 
-    assertThat(lastSnapshots.getSource(newFile())).isEqualTo("this is bar");
+    assertThat(lastSnapshots.getSource(newFile("Bar.c"))).isEqualTo("this is bar");
+    assertThat(lastSnapshots.getSource(newFile("Baz.c"))).isEqualTo("this is baz");
     verifyZeroInteractions(server);
   }
 
   @Test
   public void should_return_empty_source_if_no_last_snapshot() {
     setupData("no_last_snapshot");
-    ServerClient server = mock(ServerClient.class);
 
-    LastSnapshots lastSnapshots = new LastSnapshots(new Settings(), getSession(), server);
+    LastSnapshots lastSnapshots = new LastSnapshots(new Settings(), getSession(), server, index, caches);
 
-    assertThat(lastSnapshots.getSource(newFile())).isEqualTo("");
+    assertThat(lastSnapshots.getSource(newFile("Bar.c"))).isEqualTo("");
     verifyZeroInteractions(server);
   }
 
   @Test
-  public void should_download_source_from_ws_if_dry_run() {
+  public void should_return_empty_source_of_new_file() {
+    setupData("last_snapshot");
+
+    LastSnapshots lastSnapshots = new LastSnapshots(new Settings(), getSession(), server, index, caches);
+
+    assertThat(lastSnapshots.getSource(newFile("New.c"))).isEqualTo("");
+  }
+
+  @Test
+  public void should_download_sources_of_module_from_ws_if_dry_run() {
     setupData("last_snapshot");
-    ServerClient server = mock(ServerClient.class);
-    when(server.request(anyString(), eq(false))).thenReturn("downloaded source of Bar.c");
+    when(server.requestAsReader(anyString(), eq(false))).thenReturn(new StringReader("[{\"k\": \"myproject:org/foo/Bar.c\", \"s\": \"downloaded source of Bar.c\"},"
+      + "{\"k\": \"myproject:org/foo/Baz.c\", \"s\": \"downloaded source of Baz.c\", \"other\": [1, 2]},"
+      + "{\"k\": \"myproject:org/foo/Empty.c\", \"s\": null}]"));
 
     Settings settings = new Settings();
     settings.setProperty(CoreProperties.DRY_RUN, true);
-    LastSnapshots lastSnapshots = new LastSnapshots(settings, getSession(), server);
-
-    String source = lastSnapshots.getSource(newFile());
-    assertThat(source).isEqualTo("downloaded source of Bar.c");
-    verify(server).request("/api/sources?resource=myproject:org/foo/Bar.c&format=txt", false);
+    LastSnapshots lastSnapshots = new LastSnapshots(settings, getSession(), server, index, caches);
+
+    assertThat(lastSnapshots.getSource(newFile("Bar.c"))).isEqualTo("downloaded source of Bar.c");
+    assertThat(lastSnapshots.getSource(newFile("Baz.c"))).isEqualTo("downloaded source of Baz.c");
+    assertThat(lastSnapshots.getSource(newFile("Empty.c"))).isEqualTo("");
+    assertThat(lastSnapshots.getSource(newFile("New.c"))).isEqualTo("");
+    // a single request for the whole module
+    verify(server, times(1)).requestAsReader("/batch_bootstrap/sources?project=myproject", false);
   }
 
   @Test
   public void should_fail_to_download_source_from_ws() throws URISyntaxException {
     setupData("last_snapshot");
-    ServerClient server = mock(ServerClient.class);
-    when(server.request(anyString(), eq(false))).thenThrow(new HttpDownloader.HttpException(new URI(""), 500));
+    when(server.requestAsReader(anyString(), eq(false))).thenThrow(new HttpDownloader.HttpException(new URI(""), 500));
 
     Settings settings = new Settings();
     settings.setProperty(CoreProperties.DRY_RUN, true);
-    LastSnapshots lastSnapshots = new LastSnapshots(settings, getSession(), server);
+    LastSnapshots lastSnapshots = new LastSnapshots(settings, getSession(), server, index, caches);
 
     thrown.expect(HttpDownloader.HttpException.class);
-    lastSnapshots.getSource(newFile());
+    lastSnapshots.getSource(newFile("Bar.c"));
   }
 
   @Test
   public void should_return_empty_source_if_dry_run_and_no_last_snapshot() throws URISyntaxException {
     setupData("last_snapshot");
-    ServerClient server = mock(ServerClient.class);
-    when(server.request(anyString(), eq(false))).thenThrow(new HttpDownloader.HttpException(new URI(""), 404));
+    when(server.requestAsReader(anyString(), eq(false))).thenThrow(new HttpDownloader.HttpException(new URI(""), 404));
 
     Settings settings = new Settings();
     settings.setProperty(CoreProperties.DRY_RUN, true);
-    LastSnapshots lastSnapshots = new LastSnapshots(settings, getSession(), server);
+    LastSnapshots lastSnapshots = new LastSnapshots(settings, getSession(), server, index, caches);
 
-    String source = lastSnapshots.getSource(newFile());
+    String source = lastSnapshots.getSource(newFile("Bar.c"));
     assertThat(source).isEqualTo("");
-    verify(server).request("/api/sources?resource=myproject:org/foo/Bar.c&format=txt", false);
+    verify(server).requestAsReader("/batch_bootstrap/sources?project=myproject", false);
   }
 
   @Test
   public void should_not_load_source_of_non_files() throws URISyntaxException {
     setupData("last_snapshot");
-    ServerClient server = mock(ServerClient.class);
 
-    LastSnapshots lastSnapshots = new LastSnapshots(new Settings(), getSession(), server);
+    LastSnapshots lastSnapshots = new LastSnapshots(new Settings(), getSession(), server, index, caches);
 
     String source = lastSnapshots.getSource(new Project("my-project"));
     assertThat(source).isEqualTo("");
   }
 
-  private File newFile() {
-    File file = new File("org/foo", "Bar.c");
-    file.setEffectiveKey("myproject:org/foo/Bar.c");
+  private File newFile(String name) {
+    File file = new File("org/foo", name);
+    file.setEffectiveKey("myproject:org/foo/" + name);
     return file;
   }
 }
@@ -237,4 +237,22 @@ public class ExclusionFiltersTest {
   }
 
 
+
+  @Test
+  public void should_compile_patterns_again_if_settings_change() throws IOException {
+    Settings settings = new Settings();
+    settings.setProperty(CoreProperties.PROJECT_EXCLUSIONS_PROPERTY, "**/*Dao.java");
+    ExclusionFilters filter = new ExclusionFilters(new FileExclusions(settings));
+
+    java.io.File file = temp.newFile();
+    InputFile inputFile = DefaultInputFile.create(file, "src/main/java/com/mycompany/FooDto.java", ImmutableMap.of(
+      InputFile.ATTRIBUTE_TYPE, InputFile.TYPE_SOURCE,
+      InputFile.ATTRIBUTE_SOURCE_RELATIVE_PATH, "com/mycompany/FooDto.java"
+    ));
+    assertThat(filter.accept(inputFile)).isTrue();
+    assertThat(filter.sourceExclusions()).isSameAs(filter.sourceExclusions());
+
+    settings.setProperty(CoreProperties.PROJECT_EXCLUSIONS_PROPERTY, "**/*Dao.java,**/*Dto.java");
+    assertThat(filter.accept(inputFile)).isFalse();
+  }
 }
@@ -69,6 +69,15 @@ public class FileHashDigestTest {
     assertThat(hash1).isNotEqualTo(hash4);
   }
 
+  @Test
+  public void should_compute_same_hash_from_content() throws Exception {
+    File file = temp.newFile();
+    FileUtils.write(file, "\nfoo\r\nbar\rbaz\u00e9", Charsets.UTF_8);
+
+    assertThat(FileHashDigest.INSTANCE.hash("\nfoo\r\nbar\rbaz\u00e9")).isEqualTo(FileHashDigest.INSTANCE.hash(file, Charsets.UTF_8));
+    assertThat(FileHashDigest.INSTANCE.hash("foo\r\nbar")).isEqualTo("daef8a22a3f12580beadf086a9e11519");
+  }
+
   @Test
   public void should_throw_if_file_does_not_exist() throws Exception {
     File tempFolder = temp.newFolder();
@@ -42,7 +42,7 @@ public class FileHashesTest {
     File file = temp.newFile();
     FileUtils.write(file, "fooo");
 
-    FileHashes hashes = new FileHashes(remoteFileHashes);
+    FileHashes hashes = new FileHashes(remoteFileHashes, new SourceContents());
     assertThat(hashes.hash(file, Charset.forName("UTF-8"))).isEqualTo("efc4470c96a94b1ff400175ef8368444");
     verifyZeroInteractions(remoteFileHashes);
   }
@@ -52,7 +52,7 @@ public class FileHashesTest {
     String path = "src/main/java/Foo.java";
     when(remoteFileHashes.remoteHash(path)).thenReturn("ABCDE");
 
-    FileHashes hashes = new FileHashes(remoteFileHashes);
+    FileHashes hashes = new FileHashes(remoteFileHashes, new SourceContents());
     assertThat(hashes.remoteHash(path)).isEqualTo("ABCDE");
   }
 }
@@ -0,0 +1,135 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.batch.scan.filesystem;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.scan.filesystem.InputFile;
+import org.sonar.api.scan.filesystem.internal.DefaultInputFile;
+import org.sonar.api.utils.WildcardPattern;
+
+import java.io.File;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class PathPatternSetTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  @Test
+  public void should_match_relative_and_absolute_patterns() throws Exception {
+    File file = new File(temp.newFolder(), "src/main/java/org/MyFoo.java");
+    InputFile inputFile = DefaultInputFile.create(file, "src/main/java/org/MyFoo.java", ImmutableMap.of(
+      InputFile.ATTRIBUTE_SOURCE_RELATIVE_PATH, "org/MyFoo.java"
+    ));
+
+    assertThat(PathPatternSet.create(new String[] {"**/*Bar.java", "org/*Foo.java"}).match(inputFile)).isTrue();
+    assertThat(PathPatternSet.create(new String[] {"**/*Bar.java", "com/**"}).match(inputFile)).isFalse();
+    assertThat(PathPatternSet.create(new String[] {"file:**/src/main/**Foo.java"}).match(inputFile)).isTrue();
+    assertThat(PathPatternSet.create(new String[] {"file:**/src/test/**"}).match(inputFile)).isFalse();
+    assertThat(PathPatternSet.create(new String[0]).match(inputFile)).isFalse();
+  }
+
+  @Test
+  public void should_not_match_relative_patterns_if_no_relative_path() throws Exception {
+    File file = new File(temp.newFolder(), "src/main/java/org/MyFoo.java");
+    InputFile inputFile = DefaultInputFile.create(file, "src/main/java/org/MyFoo.java", ImmutableMap.<String, String>of());
+
+    assertThat(PathPatternSet.create(new String[] {"**/*"}).match(inputFile)).isFalse();
+  }
+
+  @Test
+  public void should_have_same_semantic_as_wildcard_patterns() {
+    String[] patterns = {"org/T?st.java", "org/*.java", "org/**", "org/**/Test.java", "**/*Dao.java", "**", "*", "/foo/bar/",
+      "foo\\**\\bar", "**/*.js", "a/**/b/**/c", "**Generated.java"};
+    String[] paths = {"org/Test.java", "org/Tost.java", "org/Foo.java", "org/foo/Bar.java", "org/foo/bar/Test.java", "org",
+      "/org/", "com/foo/FooDao.java", "FooDao.java", "foo/bar", "foo/x/y/bar", "foo/bar/", "foo.js", "a/b/c", "a/x/b/y/z/c",
+      "a/b/x", "", "x/MyGenerated.java", "x/Generated.java.bak"};
+    for (String pattern : patterns) {
+      PathPatternSet.Automaton automaton = new PathPatternSet.Automaton();
+      automaton.add(WildcardPattern.create(pattern));
+      for (String path : paths) {
+        assertThat(automaton.match(path)).as(pattern + " on " + path).isEqualTo(WildcardPattern.create(pattern).match(path));
+      }
+    }
+  }
+
+  @Test
+  public void should_have_same_semantic_as_wildcard_patterns_when_combined() {
+    String[] patterns = new String[100];
+    for (int i = 0; i < patterns.length; i++) {
+      switch (i % 4) {
+        case 0:
+          patterns[i] = "**/package" + i + "/**";
+          break;
+        case 1:
+          patterns[i] = "org/sonar/module" + i + "/**/*Test.java";
+          break;
+        case 2:
+          patterns[i] = "**/generated" + i + "/*.java";
+          break;
+        default:
+          patterns[i] = "**/File" + i + "?.java";
+          break;
+      }
+    }
+    WildcardPattern[] wildcardPatterns = WildcardPattern.create(patterns);
+    PathPatternSet.Automaton automaton = new PathPatternSet.Automaton();
+    for (WildcardPattern pattern : wildcardPatterns) {
+      automaton.add(pattern);
+    }
+
+    int matches = 0;
+    for (int i = 0; i < 2000; i++) {
+      String path = "org/sonar/module" + (i % 50) + "/package" + (i % 400) + "/sub" + (i % 7) + "/File" + i + (i % 3 == 0 ? "Test.java" : ".java");
+      boolean match = WildcardPattern.match(wildcardPatterns, path);
+      assertThat(automaton.match(path)).as(path).isEqualTo(match);
+      if (match) {
+        matches++;
+      }
+    }
+    assertThat(matches).isGreaterThan(0);
+  }
+
+  @Test
+  public void should_match_segment() {
+    assertThat(PathPatternSet.matchSegment("*Dao.java", "FooDao.java")).isTrue();
+    assertThat(PathPatternSet.matchSegment("*Dao.java", "Dao.java")).isTrue();
+    assertThat(PathPatternSet.matchSegment("*Dao.java", "FooDto.java")).isFalse();
+    assertThat(PathPatternSet.matchSegment("T?st*", "Test")).isTrue();
+    assertThat(PathPatternSet.matchSegment("T?st*", "Tst")).isFalse();
+    assertThat(PathPatternSet.matchSegment("*a*b", "xaxbxab")).isTrue();
+    assertThat(PathPatternSet.matchSegment("*", "")).isTrue();
+  }
+
+  @Test
+  public void should_keep_source_patterns() {
+    PathPatternSet set = PathPatternSet.create(new String[] {"**/*Dao.java", "file:/tmp/**"});
+
+    assertThat(set.patterns()).hasSize(2);
+    assertThat(set.isEmpty()).isFalse();
+    assertThat(set.hasSource(new String[] {"**/*Dao.java", "file:/tmp/**"})).isTrue();
+    assertThat(set.hasSource(new String[] {"**/*Dao.java"})).isFalse();
+    assertThat(set.toString()).isEqualTo("**/*Dao.java,file:/tmp/**");
+  }
+}
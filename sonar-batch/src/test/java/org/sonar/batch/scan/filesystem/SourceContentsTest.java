@@ -0,0 +1,139 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.batch.scan.filesystem;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.batch.events.SensorsPhaseHandler;
+
+import java.io.File;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SourceContentsTest {
+
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  @Test
+  public void should_read_file_once() throws Exception {
+    File file = temp.newFile();
+    FileUtils.write(file, "foo\r\nbar", Charsets.UTF_8);
+
+    SourceContents contents = new SourceContents();
+    assertThat(contents.content(file, Charsets.UTF_8)).isEqualTo("foo\r\nbar");
+    assertThat(IOUtils.toString(contents.reader(file, Charsets.UTF_8))).isEqualTo("foo\r\nbar");
+    assertThat(contents.hash(file, Charsets.UTF_8)).isEqualTo(FileHashDigest.INSTANCE.hash(file, Charsets.UTF_8));
+
+    assertThat(contents.filesRead()).isEqualTo(1);
+    assertThat(contents.bytesRead()).isEqualTo(8L);
+    assertThat(contents.hits()).isEqualTo(2);
+  }
+
+  @Test
+  public void should_split_lines_like_commons_io() throws Exception {
+    File file = temp.newFile();
+    FileUtils.write(file, "foo\r\nbar\rbaz\n\n  \nqix\n", Charsets.UTF_8);
+
+    SourceContents contents = new SourceContents();
+    assertThat(contents.lines(file, Charsets.UTF_8)).isEqualTo(FileUtils.readLines(file, "UTF-8"));
+    assertThat(contents.lines(file, Charsets.UTF_8)).containsExactly("foo", "bar", "baz", "", "  ", "qix");
+    assertThat(Lists.newArrayList(contents.lineIterator(file, Charsets.UTF_8))).containsExactly("foo", "bar", "baz", "", "  ", "qix");
+  }
+
+  @Test
+  public void should_decode_with_charset() throws Exception {
+    File file = temp.newFile();
+    FileUtils.write(file, "caf\u00e9", Charsets.ISO_8859_1);
+
+    SourceContents contents = new SourceContents();
+    assertThat(contents.content(file, Charsets.ISO_8859_1)).isEqualTo("caf\u00e9");
+    // cached by charset
+    assertThat(contents.content(file, Charsets.UTF_8)).isEqualTo("caf\ufffd");
+    assertThat(contents.filesRead()).isEqualTo(2);
+  }
+
+  @Test
+  public void should_evict_least_recently_used_contents() throws Exception {
+    File file1 = temp.newFile();
+    FileUtils.write(file1, "12345", Charsets.UTF_8);
+    File file2 = temp.newFile();
+    FileUtils.write(file2, "67890", Charsets.UTF_8);
+    File bigFile = temp.newFile();
+    FileUtils.write(bigFile, "12345678901", Charsets.UTF_8);
+
+    SourceContents contents = new SourceContents(10);
+    contents.content(file1, Charsets.UTF_8);
+    contents.content(file2, Charsets.UTF_8);
+    contents.content(file1, Charsets.UTF_8);
+    assertThat(contents.hits()).isEqualTo(1);
+
+    // too big to be cached
+    contents.content(bigFile, Charsets.UTF_8);
+    contents.content(bigFile, Charsets.UTF_8);
+    assertThat(contents.filesRead()).isEqualTo(4);
+
+    // file2 is evicted
+    File file3 = temp.newFile();
+    FileUtils.write(file3, "abc", Charsets.UTF_8);
+    contents.content(file3, Charsets.UTF_8);
+    contents.content(file1, Charsets.UTF_8);
+    assertThat(contents.hits()).isEqualTo(2);
+    contents.content(file2, Charsets.UTF_8);
+    assertThat(contents.filesRead()).isEqualTo(6);
+  }
+
+  @Test
+  public void should_reset_statistics_at_end_of_phase() throws Exception {
+    File file = temp.newFile();
+    FileUtils.write(file, "foo", Charsets.UTF_8);
+    SourceContents contents = new SourceContents();
+    contents.content(file, Charsets.UTF_8);
+
+    SensorsPhaseHandler.SensorsPhaseEvent event = mock(SensorsPhaseHandler.SensorsPhaseEvent.class);
+    when(event.isEnd()).thenReturn(true);
+    contents.onSensorsPhase(event);
+
+    assertThat(contents.filesRead()).isEqualTo(0);
+    assertThat(contents.bytesRead()).isEqualTo(0L);
+    assertThat(contents.hits()).isEqualTo(0);
+  }
+
+  @Test
+  public void should_fail_if_file_does_not_exist() throws Exception {
+    File file = new File(temp.newFolder(), "doesNotExist.txt");
+
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage("Fail to read file " + file.getAbsolutePath() + " with charset UTF-8");
+
+    new SourceContents().content(file, Charsets.UTF_8);
+  }
+}
@@ -32,4 +32,15 @@ public abstract class Channel<O> {
    * @return false if the Channel doesn't want to consume the character stream, true otherwise.
    */
   public abstract boolean consume(CodeReader code, O output);
+
+  /**
+   * Characters the Channel is able to start consuming from. Dispatchers rely on this information to avoid trying the Channel on any other
+   * character, so it must not change once the Channel has been handed to a dispatcher.
+   * 
+   * @return the possible first characters, or null (the default) if the Channel may consume any character
+   * @since 4.0
+   */
+  public char[] getStartCharacters() {
+    return null;
+  }
 }
@@ -33,6 +33,7 @@ public class ChannelDispatcher<O> extends Channel<O> {
   private final boolean failIfNoChannelToConsumeOneCharacter;
 
   private final Channel<O>[] channels;
+  private final ChannelLookupTable lookupTable;
 
   /**
    * @deprecated in version 2.9. Please use the builder() method
@@ -59,11 +60,13 @@ public class ChannelDispatcher<O> extends Channel<O> {
   @Deprecated
   public ChannelDispatcher(List<Channel> channels, boolean failIfNoChannelToConsumeOneCharacter) {
     this.channels = channels.toArray(new Channel[channels.size()]);
+    this.lookupTable = new ChannelLookupTable(this.channels);
     this.failIfNoChannelToConsumeOneCharacter = failIfNoChannelToConsumeOneCharacter;
   }
 
   private ChannelDispatcher(Builder builder) {
     this.channels = builder.channels.toArray(new Channel[builder.channels.size()]);
+    this.lookupTable = new ChannelLookupTable(this.channels);
     this.failIfNoChannelToConsumeOneCharacter = builder.failIfNoChannelToConsumeOneCharacter;
   }
 
@@ -72,8 +75,8 @@ public class ChannelDispatcher<O> extends Channel<O> {
     int nextChar = code.peek();
     while (nextChar != -1) {
       boolean characterConsumed = false;
-      for (Channel<O> channel : channels) {
-        if (channel.consume(code, output)) {
+      for (int index : lookupTable.getCandidates(nextChar)) {
+        if (channels[index].consume(code, output)) {
           characterConsumed = true;
           break;
         }
@@ -0,0 +1,94 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.channel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per-character lookup table of the channels which may start consuming a given character, according to
+ * {@link Channel#getStartCharacters()}. Channels are referenced by their index so that the table remains valid when a dispatcher replaces
+ * some channels by copies of themselves. For a given character, indexes are sorted in the original order of the channels.
+ * 
+ * @since 4.0
+ */
+public final class ChannelLookupTable {
+
+  /**
+   * Only ASCII characters are indexed, any other character is tried against all channels
+   */
+  private static final int TABLE_SIZE = 128;
+
+  private final int[][] candidates = new int[TABLE_SIZE][];
+  private final int[] allChannels;
+
+  public ChannelLookupTable(Channel<?>[] channels) {
+    allChannels = new int[channels.length];
+    for (int i = 0; i < channels.length; i++) {
+      allChannels[i] = i;
+    }
+
+    List<Integer>[] lists = newLists();
+    for (int i = 0; i < channels.length; i++) {
+      char[] startCharacters = channels[i].getStartCharacters();
+      if (startCharacters == null) {
+        for (List<Integer> list : lists) {
+          list.add(i);
+        }
+      } else {
+        for (char c : startCharacters) {
+          if (c < TABLE_SIZE && !lists[c].contains(i)) {
+            lists[c].add(i);
+          }
+        }
+      }
+    }
+    for (int c = 0; c < TABLE_SIZE; c++) {
+      candidates[c] = toArray(lists[c]);
+    }
+  }
+
+  /**
+   * @return indexes of the channels to try on the given character, in their original order
+   */
+  public int[] getCandidates(int character) {
+    if (character >= 0 && character < TABLE_SIZE) {
+      return candidates[character];
+    }
+    return allChannels;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<Integer>[] newLists() {
+    List<Integer>[] lists = new List[TABLE_SIZE];
+    for (int c = 0; c < TABLE_SIZE; c++) {
+      lists[c] = new ArrayList<Integer>();
+    }
+    return lists;
+  }
+
+  private static int[] toArray(List<Integer> list) {
+    int[] result = new int[list.size()];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = list.get(i);
+    }
+    return result;
+  }
+}
@@ -29,6 +29,7 @@ public abstract class RegexChannel<O> extends Channel<O> {
 
   private final StringBuilder tmpBuilder = new StringBuilder();
   private final Matcher matcher;
+  private final char[] startCharacters;
 
   /**
    * Create a RegexChannel object with the required regular expression
@@ -37,7 +38,21 @@ public abstract class RegexChannel<O> extends Channel<O> {
    *          regular expression to be used to try matching the next characters in the stream
    */
   public RegexChannel(String regex) {
+    this(regex, null);
+  }
+
+  /**
+   * Create a RegexChannel object with the required regular expression and the characters a match can start with
+   *
+   * @param regex
+   *          regular expression to be used to try matching the next characters in the stream
+   * @param startCharacters
+   *          the only characters the regular expression can match first, or null if unknown
+   * @since 4.0
+   */
+  public RegexChannel(String regex, char[] startCharacters) {
     matcher = Pattern.compile(regex).matcher("");
+    this.startCharacters = startCharacters == null ? null : startCharacters.clone();
   }
 
   @Override
@@ -50,6 +65,11 @@ public abstract class RegexChannel<O> extends Channel<O> {
     return false;
   }
 
+  @Override
+  public char[] getStartCharacters() {
+    return startCharacters;
+  }
+
   /**
    * The consume method is called each time the regular expression used to create the RegexChannel object matches the next characters in the
    * character streams.
@@ -19,6 +19,7 @@
  */
 package org.sonar.channel;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 
@@ -48,6 +49,82 @@ public class ChannelDispatcherTest {
     dispatcher.consume(new CodeReader("two words"), new StringBuilder());
   }
 
+  @Test
+  public void shouldOnlyTryChannelsOnTheirStartCharacters() {
+    SpaceDeletionChannel spaceChannel = new SpaceDeletionChannel();
+    DigitChannel digitChannel = new DigitChannel();
+    ChannelDispatcher<StringBuilder> dispatcher = ChannelDispatcher.builder().addChannels(digitChannel, spaceChannel).build();
+    StringBuilder output = new StringBuilder();
+    dispatcher.consume(new CodeReader("a1 b2"), output);
+    assertThat(output.toString(), is("a<1>b<2>"));
+    assertThat(digitChannel.calls, is(2));
+  }
+
+  @Test
+  public void shouldProduceSameTokensWithAndWithoutStartCharacters() {
+    String code = "package org.sonar.sample;\n\n"
+      + "/* block comment */\n"
+      + "public class Sample<T> extends Object {\n"
+      + "  // inline comment\n"
+      + "  private static final int CONSTANT = 42 + 0x1F;\n"
+      + "  public String get(T param) {\n"
+      + "    return \"literal \\\" value\" + 'c' + param.toString() + (1.5e3 * CONSTANT);\n"
+      + "  }\n"
+      + "}\n";
+
+    StringBuilder withoutStartCharacters = new StringBuilder();
+    lexer(false).consume(new CodeReader(code), withoutStartCharacters);
+    StringBuilder withStartCharacters = new StringBuilder();
+    lexer(true).consume(new CodeReader(code), withStartCharacters);
+
+    assertThat(withStartCharacters.toString(), is(withoutStartCharacters.toString()));
+    assertThat(withStartCharacters.toString(), containsString("|\"literal \\\" value\"|"));
+  }
+
+  private static ChannelDispatcher<StringBuilder> lexer(boolean withStartCharacters) {
+    return ChannelDispatcher.builder()
+        .addChannel(new TokenChannel("\\s++", withStartCharacters ? " \t\r\n" : null))
+        .addChannel(new TokenChannel("//[^\\n\\r]*+", withStartCharacters ? "/" : null))
+        .addChannel(new TokenChannel("/\\*[\\s\\S]*?\\*/", withStartCharacters ? "/" : null))
+        .addChannel(new TokenChannel("\"([^\"\\\\]*+(\\\\[\\s\\S])?+)*+\"", withStartCharacters ? "\"" : null))
+        .addChannel(new TokenChannel("'([^'\\\\]*+(\\\\[\\s\\S])?+)*+'", withStartCharacters ? "'" : null))
+        .addChannel(new TokenChannel("0[xX][0-9a-fA-F]++", withStartCharacters ? "0" : null))
+        .addChannel(new TokenChannel("[0-9]++(\\.[0-9]++)?+([eE][0-9]++)?+", withStartCharacters ? "0123456789" : null))
+        .addChannel(new TokenChannel("[a-zA-Z_$][a-zA-Z0-9_$]*+",
+            withStartCharacters ? "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ_$" : null))
+        .addChannel(new TokenChannel("[{}()\\[\\];,.<>=+\\-*/]", withStartCharacters ? "{}()[];,.<>=+-*/" : null))
+        .failIfNoChannelToConsumeOneCharacter()
+        .build();
+  }
+
+  private static class TokenChannel extends RegexChannel<StringBuilder> {
+
+    TokenChannel(String regex, String startCharacters) {
+      super(regex, startCharacters == null ? null : startCharacters.toCharArray());
+    }
+
+    @Override
+    protected void consume(CharSequence token, StringBuilder output) {
+      output.append('|').append(token).append('|');
+    }
+  }
+
+  private static class DigitChannel extends Channel<StringBuilder> {
+    private int calls = 0;
+
+    @Override
+    public boolean consume(CodeReader code, StringBuilder output) {
+      calls++;
+      output.append('<').append((char) code.pop()).append('>');
+      return true;
+    }
+
+    @Override
+    public char[] getStartCharacters() {
+      return "0123456789".toCharArray();
+    }
+  }
+
   private static class SpaceDeletionChannel extends Channel<StringBuilder> {
     @Override
     public boolean consume(CodeReader code, StringBuilder output) {
@@ -0,0 +1,77 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.channel;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+public class ChannelLookupTableTest {
+
+  @Test
+  public void shouldKeepOnlyChannelsStartingWithCharacter() {
+    ChannelLookupTable table = new ChannelLookupTable(new Channel[] {new StartWith('a', 'b'), new StartWith('b'), new AnyCharacter()});
+
+    assertThat(table.getCandidates('a'), is(new int[] {0, 2}));
+    assertThat(table.getCandidates('b'), is(new int[] {0, 1, 2}));
+    assertThat(table.getCandidates('c'), is(new int[] {2}));
+  }
+
+  @Test
+  public void shouldTryAllChannelsOnNonAsciiCharacters() {
+    ChannelLookupTable table = new ChannelLookupTable(new Channel[] {new StartWith('a'), new StartWith('é')});
+
+    assertThat(table.getCandidates('é'), is(new int[] {0, 1}));
+    assertThat(table.getCandidates('a'), is(new int[] {0}));
+  }
+
+  @Test
+  public void shouldIgnoreDuplicatedStartCharacters() {
+    ChannelLookupTable table = new ChannelLookupTable(new Channel[] {new StartWith('a', 'a')});
+
+    assertThat(table.getCandidates('a'), is(new int[] {0}));
+  }
+
+  private static class StartWith extends Channel<StringBuilder> {
+    private final char[] startCharacters;
+
+    StartWith(char... startCharacters) {
+      this.startCharacters = startCharacters;
+    }
+
+    @Override
+    public boolean consume(CodeReader code, StringBuilder output) {
+      return false;
+    }
+
+    @Override
+    public char[] getStartCharacters() {
+      return startCharacters;
+    }
+  }
+
+  private static class AnyCharacter extends Channel<StringBuilder> {
+    @Override
+    public boolean consume(CodeReader code, StringBuilder output) {
+      return false;
+    }
+  }
+}
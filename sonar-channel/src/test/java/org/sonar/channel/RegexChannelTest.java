@@ -50,6 +50,29 @@ public class RegexChannelTest {
     assertThat(output.toString(), is("<literal>\">" + veryLongLiteral + "<\"</literal>"));
   }
 
+  @Test
+  public void shouldMatchWithStartCharacters() {
+    MyNumberChannel numberChannel = new MyNumberChannel();
+    assertThat(numberChannel.getStartCharacters(), is("0123456789".toCharArray()));
+
+    ChannelDispatcher<StringBuilder> dispatcher = ChannelDispatcher.builder().addChannel(numberChannel).addChannel(new BlackholeChannel()).build();
+    StringBuilder output = new StringBuilder();
+    dispatcher.consume(new CodeReader("a 12 b"), output);
+    assertThat(output.toString(), is("a <n>12</n> b"));
+  }
+
+  private static class MyNumberChannel extends RegexChannel<StringBuilder> {
+
+    public MyNumberChannel() {
+      super("[0-9]++", "0123456789".toCharArray());
+    }
+
+    @Override
+    protected void consume(CharSequence token, StringBuilder output) {
+      output.append("<n>" + token + "</n>");
+    }
+  }
+
   private static class MyLiteralChannel extends RegexChannel<StringBuilder> {
 
     public MyLiteralChannel() {
@@ -33,8 +33,8 @@ public class HtmlDecorator extends Tokenizer {
   private HtmlOptions options;
   private int lineId;
 
-  private static final int LF = '\n';
-  private static final int CR = '\r';
+  private static final char LF = '\n';
+  private static final char CR = '\r';
 
   public HtmlDecorator(HtmlOptions options) {
     this.options = options;
@@ -88,6 +88,11 @@ public class HtmlDecorator extends Tokenizer {
     return false;
   }
 
+  @Override
+  public char[] getStartCharacters() {
+    return new char[] {LF, CR};
+  }
+
   public static String getCss() {
     InputStream input = null;
     try {
@@ -49,6 +49,11 @@ public abstract class InlineDocTokenizer extends Tokenizer {
     }
   }
 
+  @Override
+  public char[] getStartCharacters() {
+    return new char[] {startToken[0]};
+  }
+
   private static final EndMatcher LINE_END_MATCHER = new EndMatcher() {
     public boolean match(int endFlag) {
       return endFlag == '\r' || endFlag == '\n';
@@ -50,4 +50,9 @@ public class JavaAnnotationTokenizer extends Tokenizer {
     }
   }
 
+  @Override
+  public char[] getStartCharacters() {
+    return new char[] {'@'};
+  }
+
 }
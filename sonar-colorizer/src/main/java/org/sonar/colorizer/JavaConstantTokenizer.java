@@ -62,6 +62,14 @@ public class JavaConstantTokenizer extends Tokenizer {
     }
   }
 
+  /**
+   * Only ASCII upper case letters are declared, other characters are always submitted to this tokenizer by {@link TokenizerDispatcher}
+   */
+  @Override
+  public char[] getStartCharacters() {
+    return "ABCDEFGHIJKLMNOPQRSTUVWXYZ".toCharArray();
+  }
+
   private boolean isJavaConstantStart(int character) {
     return Character.isUpperCase(character);
   }
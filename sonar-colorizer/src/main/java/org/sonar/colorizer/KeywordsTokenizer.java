@@ -38,6 +38,7 @@ public class KeywordsTokenizer extends NotThreadSafeTokenizer {
   private Matcher matcher;
   private final StringBuilder tmpBuilder = new StringBuilder();
   private static final String DEFAULT_REGEX = "[a-zA-Z_][a-zA-Z0-9_]*+";
+  private static final String DEFAULT_REGEX_START_CHARACTERS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ_";
 
   private Set<String> keywords = new HashSet<String>();
 
@@ -75,6 +76,17 @@ public class KeywordsTokenizer extends NotThreadSafeTokenizer {
     return false;
   }
 
+  /**
+   * Start characters are known only when the default regular expression is used
+   */
+  @Override
+  public char[] getStartCharacters() {
+    if (DEFAULT_REGEX.equals(matcher.pattern().pattern())) {
+      return DEFAULT_REGEX_START_CHARACTERS.toCharArray();
+    }
+    return null;
+  }
+
   private boolean isKeyword(String word) {
     if ( !caseInsensitive && keywords.contains(word)) {
       return true;
@@ -49,6 +49,11 @@ public class LiteralTokenizer extends Tokenizer {
     }
   }
 
+  @Override
+  public char[] getStartCharacters() {
+    return new char[] {'\'', '\"'};
+  }
+
   private static class EndCommentMatcher implements EndMatcher {
 
     private final int firstChar;
@@ -30,6 +30,7 @@ public class RegexpTokenizer extends NotThreadSafeTokenizer{
   private final String tagAfter;
   private final Matcher matcher;
   private final StringBuilder tmpBuilder = new StringBuilder();
+  private final char[] startCharacters;
 
   /**
    * @param tagBefore
@@ -40,9 +41,25 @@ public class RegexpTokenizer extends NotThreadSafeTokenizer{
    *          Regular expression which must be used to match token
    */
   public RegexpTokenizer(String tagBefore, String tagAfter, String regexp) {
+    this(tagBefore, tagAfter, regexp, null);
+  }
+
+  /**
+   * @param tagBefore
+   *          Html tag to add before the token
+   * @param tagAfter
+   *          Html tag to add after the token
+   * @param regexp
+   *          Regular expression which must be used to match token
+   * @param startCharacters
+   *          The only characters a token can start with, or null if unknown
+   * @since 4.0
+   */
+  public RegexpTokenizer(String tagBefore, String tagAfter, String regexp, char[] startCharacters) {
     this.tagBefore = tagBefore;
     this.tagAfter = tagAfter;
     this.matcher = Pattern.compile(regexp).matcher("");
+    this.startCharacters = startCharacters == null ? null : startCharacters.clone();
   }
 
   @Override
@@ -57,8 +74,13 @@ public class RegexpTokenizer extends NotThreadSafeTokenizer{
     return false;
   }
 
+  @Override
+  public char[] getStartCharacters() {
+    return startCharacters;
+  }
+
   @Override
   public RegexpTokenizer clone() {
-    return new RegexpTokenizer(tagBefore, tagAfter, matcher.pattern().pattern());
+    return new RegexpTokenizer(tagBefore, tagAfter, matcher.pattern().pattern(), startCharacters);
   }
 }
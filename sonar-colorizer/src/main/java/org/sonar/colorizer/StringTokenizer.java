@@ -37,4 +37,9 @@ public class StringTokenizer extends Tokenizer {
   public boolean consume(CodeReader code, HtmlCodeBuilder output) {
     return tokenizer.consume(code, output);
   }
+
+  @Override
+  public char[] getStartCharacters() {
+    return tokenizer.getStartCharacters();
+  }
 }
@@ -20,6 +20,7 @@
 package org.sonar.colorizer;
 
 import org.sonar.channel.Channel;
+import org.sonar.channel.ChannelLookupTable;
 import org.sonar.channel.CodeReader;
 
 import java.util.List;
@@ -27,13 +28,16 @@ import java.util.List;
 public class TokenizerDispatcher {
 
   private Channel<HtmlCodeBuilder>[] tokenizers;
+  private final ChannelLookupTable lookupTable;
 
   public TokenizerDispatcher(Channel<HtmlCodeBuilder>... tokenizers) {
     this.tokenizers = tokenizers;
+    this.lookupTable = new ChannelLookupTable(tokenizers);
   }
 
   public TokenizerDispatcher(List<Channel<HtmlCodeBuilder>> tokenizersArray) {
     this.tokenizers = tokenizersArray.toArray(new Channel[tokenizersArray.size()]);
+    this.lookupTable = new ChannelLookupTable(tokenizers);
   }
 
   public final String colorize(String code) {
@@ -46,8 +50,8 @@ public class TokenizerDispatcher {
     cloneNotThreadSafeTokenizers();
     nextChar:
     while (code.peek() != -1) {
-      for (Channel<HtmlCodeBuilder> codeTokenizer : tokenizers) {
-        if (codeTokenizer.consume(code, colorizedCode)) {
+      for (int index : lookupTable.getCandidates(code.peek())) {
+        if (tokenizers[index].consume(code, colorizedCode)) {
           continue nextChar;
         }
       }
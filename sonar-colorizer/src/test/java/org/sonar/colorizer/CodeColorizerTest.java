@@ -21,6 +21,8 @@ package org.sonar.colorizer;
 
 import org.apache.commons.io.IOUtils;
 import org.junit.Test;
+import org.sonar.channel.Channel;
+import org.sonar.channel.CodeReader;
 
 import java.io.IOException;
 import java.io.Reader;
@@ -140,6 +142,30 @@ public class CodeColorizerTest {
   /**
    * @return Reader for specified file with EOL normalized to specified one.
    */
+  @Test
+  public void shouldRenderSameHtmlWithAndWithoutStartCharactersOfTokenizers() throws IOException {
+    assertSameHtmlWithoutStartCharacters("/org/sonar/colorizer/samples/Sample.java", CodeColorizer.Format.JAVA.getTokenizers());
+    assertSameHtmlWithoutStartCharacters("/org/sonar/colorizer/samples/Sample.groovy", CodeColorizer.Format.GROOVY.getTokenizers());
+  }
+
+  private void assertSameHtmlWithoutStartCharacters(String path, List<Tokenizer> tokenizers) throws IOException {
+    String code = IOUtils.toString(readFile(path));
+    List<Channel<HtmlCodeBuilder>> hidingStartCharacters = new ArrayList<Channel<HtmlCodeBuilder>>();
+    for (final Tokenizer tokenizer : tokenizers) {
+      hidingStartCharacters.add(new Channel<HtmlCodeBuilder>() {
+        @Override
+        public boolean consume(CodeReader code, HtmlCodeBuilder output) {
+          return tokenizer.consume(code, output);
+        }
+      });
+    }
+
+    String html = new HtmlRenderer().render(new StringReader(code), tokenizers);
+
+    assertThat(new HtmlRenderer().render(new StringReader(code), hidingStartCharacters), is(html));
+    assertThat(html, containsString("<span class=\"k\">"));
+  }
+
   private Reader readFile(String path, String eol) throws IOException {
     StringBuilder sb = new StringBuilder();
     for (String line : IOUtils.readLines(getClass().getResourceAsStream(path))) {
@@ -75,6 +75,23 @@ public class TokenizerDispatcherTest {
     colorization.colorize("source code");
   }
 
+  @Test
+  public void testOnlyTryTokenizersOnTheirStartCharacters() {
+    Tokenizer failingTokenizer = new Tokenizer() {
+      @Override
+      public boolean consume(CodeReader code, HtmlCodeBuilder output) {
+        throw new IllegalStateException("Must not be called on '" + (char) code.peek() + "'");
+      }
+
+      @Override
+      public char[] getStartCharacters() {
+        return new char[] {'#'};
+      }
+    };
+    TokenizerDispatcher colorization = newColorizer(failingTokenizer, new LiteralTokenizer("<s>", "</s>"));
+    assertThat(colorization.colorize("call(\"message\");"), is("call(<s>\"message\"</s>);"));
+  }
+
   private TokenizerDispatcher newColorizer(Channel<HtmlCodeBuilder>... tokenizers) {
     return new TokenizerDispatcher(Arrays.asList(tokenizers));
   }
@@ -0,0 +1,36 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.component;
+
+import org.sonar.api.ServerComponent;
+
+/**
+ * Server-side caches that must be updated when the analysis of a project is completed. Handlers are
+ * called when the batch reports the end of the analysis, except for dry runs.
+ *
+ * @since 4.0
+ */
+public interface AnalysisCompletedHandler extends ServerComponent {
+
+  /**
+   * Called once per analysis, after the snapshot of the root project is flagged as last.
+   */
+  void onAnalysisCompleted(long rootProjectId);
+}
@@ -78,6 +78,24 @@ public class IssueNotifications implements BatchComponent, ServerComponent {
     return sendChanges(issues, context, queryResult.project(issue), queryResult.component(issue));
   }
 
+  /**
+   * Notifications of all the issues are scheduled at once.
+   * @since 4.0
+   */
+  public List<Notification> sendChanges(Iterable<DefaultIssue> issues, IssueChangeContext context, IssueQueryResult queryResult) {
+    List<Notification> notifications = Lists.newArrayList();
+    for (DefaultIssue issue : issues) {
+      Notification notification = createChangeNotification(issue, context, queryResult.rule(issue), queryResult.project(issue), queryResult.component(issue), null);
+      if (notification != null) {
+        notifications.add(notification);
+      }
+    }
+    if (!notifications.isEmpty()) {
+      notificationsManager.scheduleForSending(notifications);
+    }
+    return notifications;
+  }
+
   @CheckForNull
   public List<Notification> sendChanges(Map<DefaultIssue, Rule> issues, IssueChangeContext context, Component project, @Nullable Component component) {
     List<Notification> notifications = Lists.newArrayList();
@@ -20,6 +20,7 @@
 package org.sonar.core.issue.db;
 
 import com.google.common.collect.Lists;
+import org.apache.ibatis.executor.BatchResult;
 import org.apache.ibatis.session.SqlSession;
 import org.sonar.api.issue.Issue;
 import org.sonar.api.issue.IssueComment;
@@ -31,6 +32,7 @@ import org.sonar.api.rules.RuleFinder;
 import org.sonar.core.persistence.BatchSession;
 import org.sonar.core.persistence.MyBatis;
 
+import java.sql.Statement;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
@@ -48,6 +50,10 @@ public abstract class IssueStorage {
 
   private final MyBatis mybatis;
   private final RuleFinder ruleFinder;
+  private static final String UPDATE_IF_BEFORE_SELECTED_DATE = ".updateIfBeforeSelectedDate";
+  // lower than BatchSession.MAX_BATCH_SIZE
+  private static final int UPDATE_PARTITION_SIZE = 200;
+
   private final UpdateConflictResolver conflictResolver = new UpdateConflictResolver();
 
   protected IssueStorage(MyBatis mybatis, RuleFinder ruleFinder) {
@@ -60,8 +66,6 @@ public abstract class IssueStorage {
   }
 
   public void save(Iterable<DefaultIssue> issues) {
-    // Batch session can not be used for updates. It does not return the number of updated rows,
-    // required for detecting conflicts.
     Date now = new Date();
     List<DefaultIssue> toBeUpdated = batchInsert(issues, now);
     update(toBeUpdated, now);
@@ -100,37 +104,103 @@ public abstract class IssueStorage {
     issueMapper.insert(dto);
   }
 
+  /**
+   * Updates are executed in a single transaction. When the driver returns the number of updated rows, statements are
+   * executed in JDBC batches and the counts, required for detecting conflicts, are read when statements are flushed.
+   * Otherwise issues are updated one by one.
+   */
   private void update(List<DefaultIssue> toBeUpdated, Date now) {
     if (!toBeUpdated.isEmpty()) {
-      SqlSession session = mybatis.openSession();
-      try {
-        IssueMapper issueMapper = session.getMapper(IssueMapper.class);
-        IssueChangeMapper issueChangeMapper = session.getMapper(IssueChangeMapper.class);
-        for (DefaultIssue issue : toBeUpdated) {
-          update(issueMapper, now, issue);
-          insertChanges(issueChangeMapper, issue);
-        }
-        session.commit();
-      } finally {
-        MyBatis.closeQuietly(session);
+      if (mybatis.getDialect().supportsBatchUpdateCounts()) {
+        batchUpdate(toBeUpdated, now);
+      } else {
+        updateOneByOne(toBeUpdated, now);
       }
     }
   }
 
-  private void update(IssueMapper issueMapper, Date now, DefaultIssue issue) {
-    IssueDto dto = IssueDto.toDtoForUpdate(issue, now);
-    if (Issue.STATUS_CLOSED.equals(issue.status()) || issue.selectedAt() == null) {
-      // Issue is closed by scan or changed by end-user
-      issueMapper.update(dto);
-
-    } else {
-      int count = issueMapper.updateIfBeforeSelectedDate(dto);
-      if (count == 0) {
+  private void batchUpdate(List<DefaultIssue> toBeUpdated, Date now) {
+    // statements are flushed but never committed before the end of the loop
+    BatchSession batchSession = mybatis.openTransactionalBatchSession();
+    try {
+      IssueMapper issueMapper = batchSession.getMapper(IssueMapper.class);
+      IssueChangeMapper issueChangeMapper = batchSession.getMapper(IssueChangeMapper.class);
+      List<DefaultIssue> conflicts = Lists.newArrayList();
+      for (List<DefaultIssue> partition : Lists.partition(toBeUpdated, UPDATE_PARTITION_SIZE)) {
+        conflicts.addAll(update(batchSession, issueMapper, partition, now));
+      }
+      for (DefaultIssue conflict : conflicts) {
         // End-user and scan changed the issue at the same time.
         // See https://jira.codehaus.org/browse/SONAR-4309
-        conflictResolver.resolve(issue, issueMapper);
+        conflictResolver.resolve(conflict, issueMapper);
+      }
+      for (DefaultIssue issue : toBeUpdated) {
+        insertChanges(issueChangeMapper, issue);
+      }
+      batchSession.commit();
+    } finally {
+      MyBatis.closeQuietly(batchSession);
+    }
+  }
+
+  private void updateOneByOne(List<DefaultIssue> toBeUpdated, Date now) {
+    SqlSession session = mybatis.openSession();
+    try {
+      IssueMapper issueMapper = session.getMapper(IssueMapper.class);
+      IssueChangeMapper issueChangeMapper = session.getMapper(IssueChangeMapper.class);
+      for (DefaultIssue issue : toBeUpdated) {
+        IssueDto dto = IssueDto.toDtoForUpdate(issue, now);
+        if (Issue.STATUS_CLOSED.equals(issue.status()) || issue.selectedAt() == null) {
+          // Issue is closed by scan or changed by end-user
+          issueMapper.update(dto);
+        } else {
+          int count = issueMapper.updateIfBeforeSelectedDate(dto);
+          if (count == 0) {
+            // End-user and scan changed the issue at the same time.
+            // See https://jira.codehaus.org/browse/SONAR-4309
+            conflictResolver.resolve(issue, issueMapper);
+          }
+        }
+        insertChanges(issueChangeMapper, issue);
+      }
+      session.commit();
+    } finally {
+      MyBatis.closeQuietly(session);
+    }
+  }
+
+  /**
+   * @return the issues that have been updated in database since being loaded
+   */
+  private List<DefaultIssue> update(BatchSession batchSession, IssueMapper issueMapper, List<DefaultIssue> issues, Date now) {
+    List<DefaultIssue> selectedIssues = Lists.newArrayList();
+    for (DefaultIssue issue : issues) {
+      if (Issue.STATUS_CLOSED.equals(issue.status()) || issue.selectedAt() == null) {
+        // Issue is closed by scan or changed by end-user
+        issueMapper.update(IssueDto.toDtoForUpdate(issue, now));
+      } else {
+        selectedIssues.add(issue);
+      }
+    }
+    // grouped after the unconditional updates, so that they are executed in a single JDBC batch
+    for (DefaultIssue issue : selectedIssues) {
+      issueMapper.updateIfBeforeSelectedDate(IssueDto.toDtoForUpdate(issue, now));
+    }
+
+    List<DefaultIssue> conflicts = Lists.newArrayList();
+    int index = 0;
+    for (BatchResult result : batchSession.flushStatements()) {
+      if (result.getMappedStatement().getId().endsWith(UPDATE_IF_BEFORE_SELECTED_DATE)) {
+        for (int updateCount : result.getUpdateCounts()) {
+          // defensive: the count is unknown, so the resolver is executed
+          if (updateCount == 0 || updateCount == Statement.SUCCESS_NO_INFO) {
+            conflicts.add(selectedIssues.get(index));
+          }
+          index++;
+        }
       }
     }
+    return conflicts;
   }
 
   private void insertChanges(IssueChangeMapper mapper, DefaultIssue issue) {
@@ -37,17 +37,23 @@ public class MeasureFilterExecutor implements ServerComponent {
   private MyBatis mybatis;
   private Database database;
   private ResourceDao resourceDao;
+  private MeasureFilterStore store;
 
-  public MeasureFilterExecutor(MyBatis mybatis, Database database, ResourceDao resourceDao) {
+  public MeasureFilterExecutor(MyBatis mybatis, Database database, ResourceDao resourceDao, MeasureFilterStore store) {
     this.mybatis = mybatis;
     this.database = database;
     this.resourceDao = resourceDao;
+    this.store = store;
   }
 
   public List<MeasureFilterRow> execute(MeasureFilter filter, MeasureFilterContext context) throws SQLException {
     if (filter.isEmpty()) {
       return Collections.emptyList();
     }
+    if (store.supports(filter) && isValid(filter, context)) {
+      context.setSql("in-memory store");
+      return store.execute(filter);
+    }
 
     List<MeasureFilterRow> rows;
     SqlSession session = null;
@@ -0,0 +1,391 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.measure;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.apache.commons.dbutils.DbUtils;
+import org.apache.ibatis.session.SqlSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.ServerComponent;
+import org.sonar.api.config.Settings;
+import org.sonar.api.utils.TimeProfiler;
+import org.sonar.core.component.AnalysisCompletedHandler;
+import org.sonar.core.persistence.Database;
+import org.sonar.core.persistence.MyBatis;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Optional in-memory copy of the last measures of projects and branches, used to execute the most common
+ * measure filters (projects treemaps, dashboards widgets) without querying the table project_measures.
+ * Values are stored in columns of primitive arrays. The store is loaded lazily and reloaded after each
+ * analysis or project deletion. Filters that can not be evaluated by the store are executed in SQL.
+ *
+ * @since 4.0
+ */
+public class MeasureFilterStore implements ServerComponent, AnalysisCompletedHandler {
+
+  public static final String ENABLED_PROPERTY = "sonar.measureFilter.inMemory";
+
+  private static final Logger LOG = LoggerFactory.getLogger(MeasureFilterStore.class);
+  private static final Set<String> QUALIFIERS = ImmutableSet.of("TRK", "BRC");
+  private static final int PERIODS = 5;
+
+  private final MyBatis mybatis;
+  private final Database database;
+  private final boolean enabled;
+  private final Object loadLock = new Object();
+  // written while holding the lock on this, like generation
+  private volatile Index index = null;
+  // incremented on each invalidation, so that measures loaded before are not published
+  private long generation = 0L;
+
+  public MeasureFilterStore(MyBatis mybatis, Database database, Settings settings) {
+    this.mybatis = mybatis;
+    this.database = database;
+    this.enabled = settings.getBoolean(ENABLED_PROPERTY);
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void onAnalysisCompleted(long rootProjectId) {
+    invalidate();
+  }
+
+  /**
+   * Discard loaded measures. They are reloaded on next execution of filter.
+   */
+  public synchronized void invalidate() {
+    index = null;
+    generation++;
+  }
+
+  boolean supports(MeasureFilter filter) {
+    boolean supported = enabled
+      && filter.getBaseResourceKey() == null && filter.getBaseResourceId() == null
+      && !filter.isOnFavourites()
+      && filter.getResourceName() == null && filter.getResourceKey() == null
+      && filter.getFromDate() == null && filter.getToDate() == null
+      && !filter.getResourceQualifiers().isEmpty() && QUALIFIERS.containsAll(filter.getResourceQualifiers())
+      && supportsSort(filter.sort()) && supportsPeriod(filter.sort().period());
+    for (MeasureFilterCondition condition : filter.getMeasureConditions()) {
+      supported &= condition.textValue() == null && condition.operator() != MeasureFilterCondition.Operator.IN
+        && supportsPeriod(condition.period());
+    }
+    return supported;
+  }
+
+  /**
+   * Only the variations of the columns variation_value_1 to variation_value_5 are loaded
+   */
+  private static boolean supportsPeriod(@Nullable Integer period) {
+    return period == null || (period >= 1 && period <= PERIODS);
+  }
+
+  private static boolean supportsSort(MeasureFilterSort sort) {
+    switch (sort.field()) {
+      case KEY:
+      case NAME:
+      case LANGUAGE:
+      case DATE:
+      case PROJECT_CREATION_DATE:
+        return true;
+      case METRIC:
+        return sort.isOnNumericMeasure();
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Filter must be valid and supported.
+   */
+  List<MeasureFilterRow> execute(MeasureFilter filter) throws SQLException {
+    Index snapshot = index();
+    List<MeasureFilterCondition> conditions = filter.getMeasureConditions();
+    double[][] conditionColumns = new double[conditions.size()][];
+    for (int i = 0; i < conditions.size(); i++) {
+      MeasureFilterCondition condition = conditions.get(i);
+      conditionColumns[i] = snapshot.column(condition.metric().getId(), condition.period());
+      if (conditionColumns[i] == null) {
+        // no resources have this measure
+        return Collections.emptyList();
+      }
+    }
+
+    MeasureFilterSort sort = filter.sort();
+    double[] sortColumn = sort.isOnMeasure() ? snapshot.column(sort.metric().getId(), sort.period()) : null;
+    List<String> scopes = filter.getResourceScopes();
+    List<String> languages = filter.getResourceLanguages();
+    List<MeasureFilterRow> rows = Lists.newArrayList();
+    for (int row = 0; row < snapshot.size; row++) {
+      if (!filter.getResourceQualifiers().contains(snapshot.qualifiers[row])
+        || (!scopes.isEmpty() && !scopes.contains(snapshot.scopes[row]))
+        || (!languages.isEmpty() && !languages.contains(snapshot.languages[row]))
+        || !matches(conditions, conditionColumns, row)) {
+        continue;
+      }
+      MeasureFilterRow result = new MeasureFilterRow(snapshot.snapshotIds[row], snapshot.resourceIds[row], snapshot.rootIds[row]);
+      setSortField(result, snapshot, sort, sortColumn, row);
+      rows.add(result);
+    }
+    return newRowProcessor(sort).sort(rows, sort.isAsc());
+  }
+
+  private static boolean matches(List<MeasureFilterCondition> conditions, double[][] columns, int row) {
+    for (int i = 0; i < conditions.size(); i++) {
+      double value = columns[i][row];
+      // missing measures never match, as the SQL inner join
+      if (Double.isNaN(value) || !matches(conditions.get(i).operator(), value, conditions.get(i).value())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean matches(MeasureFilterCondition.Operator operator, double value, double expected) {
+    switch (operator) {
+      case EQUALS:
+        return value == expected;
+      case GREATER:
+        return value > expected;
+      case GREATER_OR_EQUALS:
+        return value >= expected;
+      case LESS:
+        return value < expected;
+      case LESS_OR_EQUALS:
+        return value <= expected;
+      default:
+        throw new IllegalArgumentException("Unsupported operator: " + operator);
+    }
+  }
+
+  private static void setSortField(MeasureFilterRow result, Index snapshot, MeasureFilterSort sort, @Nullable double[] sortColumn, int row) {
+    switch (sort.field()) {
+      case KEY:
+        result.setSortText(snapshot.keys[row]);
+        break;
+      case NAME:
+        result.setSortText(snapshot.names[row]);
+        break;
+      case LANGUAGE:
+        result.setSortText(snapshot.languages[row]);
+        break;
+      case DATE:
+        result.setSortDate(snapshot.snapshotDates[row]);
+        break;
+      case PROJECT_CREATION_DATE:
+        result.setSortDate(snapshot.resourceDates[row]);
+        break;
+      default:
+        if (sortColumn != null && !Double.isNaN(sortColumn[row])) {
+          result.setSortDouble(sortColumn[row]);
+        }
+    }
+  }
+
+  private static MeasureFilterSql.RowProcessor newRowProcessor(MeasureFilterSort sort) {
+    if (sort.isOnNumericMeasure()) {
+      return new MeasureFilterSql.NumericSortRowProcessor();
+    }
+    if (sort.isOnDate()) {
+      return new MeasureFilterSql.DateSortRowProcessor();
+    }
+    return new MeasureFilterSql.TextSortRowProcessor();
+  }
+
+  private Index index() throws SQLException {
+    Index result = index;
+    if (result == null) {
+      // measures are loaded once, but invalidation is not blocked during loading
+      synchronized (loadLock) {
+        result = index;
+        if (result == null) {
+          long loadGeneration;
+          synchronized (this) {
+            loadGeneration = generation;
+          }
+          result = load();
+          synchronized (this) {
+            if (loadGeneration == generation) {
+              index = result;
+            }
+          }
+        }
+      }
+    }
+    return result;
+  }
+
+  private Index load() throws SQLException {
+    TimeProfiler profiler = new TimeProfiler(LOG).start("Load measures of projects");
+    SqlSession session = null;
+    Connection connection = null;
+    try {
+      session = mybatis.openSession();
+      connection = session.getConnection();
+      Index result = new Index();
+      loadResources(connection, result);
+      loadMeasures(connection, result);
+      return result;
+    } finally {
+      MyBatis.closeQuietly(session);
+      // connection is supposed to be closed by the session
+      DbUtils.closeQuietly(connection);
+      profiler.stop();
+    }
+  }
+
+  private String lastSnapshotsCondition() {
+    return " s.status='P' AND s.islast=" + database.getDialect().getTrueSqlValue() + " AND s.qualifier IN ('TRK','BRC') ";
+  }
+
+  private void loadResources(Connection connection, Index result) throws SQLException {
+    String sql = "SELECT s.id, s.project_id, s.root_project_id, s.qualifier, s.scope, s.created_at, p.kee, p.long_name, p.language, p.created_at"
+      + " FROM snapshots s INNER JOIN projects p ON s.project_id=p.id"
+      + " WHERE" + lastSnapshotsCondition() + "AND p.copy_resource_id IS NULL";
+    Statement statement = connection.createStatement();
+    ResultSet rs = null;
+    try {
+      rs = statement.executeQuery(sql);
+      while (rs.next()) {
+        result.addResource(rs);
+      }
+    } finally {
+      DbUtils.closeQuietly(rs);
+      DbUtils.closeQuietly(statement);
+    }
+  }
+
+  private void loadMeasures(Connection connection, Index result) throws SQLException {
+    String sql = "SELECT pm.snapshot_id, pm.metric_id, pm.value, pm.variation_value_1, pm.variation_value_2, pm.variation_value_3, pm.variation_value_4, pm.variation_value_5"
+      + " FROM project_measures pm INNER JOIN snapshots s ON s.id=pm.snapshot_id"
+      + " WHERE" + lastSnapshotsCondition()
+      + "AND pm.rule_id IS NULL AND pm.rule_priority IS NULL AND pm.characteristic_id IS NULL AND pm.person_id IS NULL";
+    Statement statement = connection.createStatement();
+    ResultSet rs = null;
+    try {
+      rs = statement.executeQuery(sql);
+      while (rs.next()) {
+        result.addMeasure(rs);
+      }
+    } finally {
+      DbUtils.closeQuietly(rs);
+      DbUtils.closeQuietly(statement);
+    }
+  }
+
+  /**
+   * Columns of resources and measures. Never modified once loaded.
+   */
+  private static class Index {
+    private int size = 0;
+    private long[] snapshotIds = new long[64];
+    private long[] resourceIds = new long[64];
+    private long[] rootIds = new long[64];
+    private String[] qualifiers = new String[64];
+    private String[] scopes = new String[64];
+    private String[] keys = new String[64];
+    private String[] names = new String[64];
+    private String[] languages = new String[64];
+    private Timestamp[] snapshotDates = new Timestamp[64];
+    private Timestamp[] resourceDates = new Timestamp[64];
+
+    private final Map<Long, Integer> rowsBySnapshotId = Maps.newHashMap();
+    // key is metric id * (PERIODS + 1) + period, period 0 being the value
+    private final Map<Long, double[]> columns = Maps.newHashMap();
+
+    private void addResource(ResultSet rs) throws SQLException {
+      if (size == snapshotIds.length) {
+        int capacity = size * 2;
+        snapshotIds = Arrays.copyOf(snapshotIds, capacity);
+        resourceIds = Arrays.copyOf(resourceIds, capacity);
+        rootIds = Arrays.copyOf(rootIds, capacity);
+        qualifiers = Arrays.copyOf(qualifiers, capacity);
+        scopes = Arrays.copyOf(scopes, capacity);
+        keys = Arrays.copyOf(keys, capacity);
+        names = Arrays.copyOf(names, capacity);
+        languages = Arrays.copyOf(languages, capacity);
+        snapshotDates = Arrays.copyOf(snapshotDates, capacity);
+        resourceDates = Arrays.copyOf(resourceDates, capacity);
+      }
+      snapshotIds[size] = rs.getLong(1);
+      resourceIds[size] = rs.getLong(2);
+      rootIds[size] = rs.getLong(3);
+      qualifiers[size] = rs.getString(4);
+      scopes[size] = rs.getString(5);
+      snapshotDates[size] = rs.getTimestamp(6);
+      keys[size] = rs.getString(7);
+      names[size] = rs.getString(8);
+      languages[size] = rs.getString(9);
+      resourceDates[size] = rs.getTimestamp(10);
+      rowsBySnapshotId.put(snapshotIds[size], size);
+      size++;
+    }
+
+    private void addMeasure(ResultSet rs) throws SQLException {
+      Integer row = rowsBySnapshotId.get(rs.getLong(1));
+      if (row == null) {
+        // copy of resource, for example in views
+        return;
+      }
+      int metricId = rs.getInt(2);
+      for (int period = 0; period <= PERIODS; period++) {
+        double value = rs.getDouble(3 + period);
+        if (!rs.wasNull()) {
+          long key = columnKey(metricId, period);
+          double[] column = columns.get(key);
+          if (column == null) {
+            column = new double[size];
+            Arrays.fill(column, Double.NaN);
+            columns.put(key, column);
+          }
+          column[row] = value;
+        }
+      }
+    }
+
+    @CheckForNull
+    private double[] column(int metricId, @Nullable Integer period) {
+      return columns.get(columnKey(metricId, period != null ? period : 0));
+    }
+
+    private static long columnKey(int metricId, int period) {
+      return (long) metricId * (PERIODS + 1) + period;
+    }
+  }
+}
@@ -0,0 +1,212 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.metadata;
+
+import com.google.common.collect.Lists;
+import org.sonar.api.ServerComponent;
+import org.sonar.api.component.Component;
+import org.sonar.api.rules.Rule;
+import org.sonar.api.rules.RuleParam;
+import org.sonar.api.user.User;
+import org.sonar.api.user.UserFinder;
+import org.sonar.core.component.AnalysisCompletedHandler;
+import org.sonar.core.component.ComponentDto;
+import org.sonar.core.resource.ResourceDao;
+import org.sonar.core.rule.DefaultRuleFinder;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded LRU caches of the rules, users and component summaries used to enrich issues returned by web services,
+ * so that the same metadata are not loaded from database on every request. Rules are invalidated when they are
+ * registered or edited, users when they are updated or deactivated and components at the end of each analysis.
+ * Rules are cached as copies detached from the Hibernate session which loaded them. All methods are thread-safe.
+ *
+ * @since 4.0
+ */
+public class MetadataCache implements ServerComponent, AnalysisCompletedHandler {
+
+  static final int MAX_RULES = 10000;
+  static final int MAX_USERS = 5000;
+  static final int MAX_COMPONENTS = 20000;
+
+  private final DefaultRuleFinder ruleFinder;
+  private final UserFinder userFinder;
+  private final ResourceDao resourceDao;
+
+  private final Lru<Integer, Rule> rulesById;
+  private final Lru<String, User> usersByLogin;
+  private final Lru<Long, Component> componentsById;
+
+  public MetadataCache(DefaultRuleFinder ruleFinder, UserFinder userFinder, ResourceDao resourceDao) {
+    this(ruleFinder, userFinder, resourceDao, MAX_RULES, MAX_USERS, MAX_COMPONENTS);
+  }
+
+  MetadataCache(DefaultRuleFinder ruleFinder, UserFinder userFinder, ResourceDao resourceDao, int maxRules, int maxUsers, int maxComponents) {
+    this.ruleFinder = ruleFinder;
+    this.userFinder = userFinder;
+    this.resourceDao = resourceDao;
+    this.rulesById = new Lru<Integer, Rule>(maxRules);
+    this.usersByLogin = new Lru<String, User>(maxUsers);
+    this.componentsById = new Lru<Long, Component>(maxComponents);
+  }
+
+  public Collection<Rule> rules(Collection<Integer> ids) {
+    List<Rule> rules = Lists.newArrayList();
+    long generation = rulesById.generation();
+    List<Integer> missingIds = rulesById.getAll(ids, rules);
+    if (!missingIds.isEmpty()) {
+      for (Rule rule : ruleFinder.findByIds(missingIds)) {
+        Rule copy = detachedCopy(rule);
+        rules.add(copy);
+        if (copy.getId() != null) {
+          rulesById.put(copy.getId(), copy, generation);
+        }
+      }
+    }
+    return rules;
+  }
+
+  /**
+   * Active users only, as {@link UserFinder#findByLogins(java.util.List)}
+   */
+  public Collection<User> users(Collection<String> logins) {
+    List<User> users = Lists.newArrayList();
+    long generation = usersByLogin.generation();
+    List<String> missingLogins = usersByLogin.getAll(logins, users);
+    if (!missingLogins.isEmpty()) {
+      for (User user : userFinder.findByLogins(missingLogins)) {
+        users.add(user);
+        usersByLogin.put(user.login(), user, generation);
+      }
+    }
+    return users;
+  }
+
+  public Collection<Component> components(Collection<Long> ids) {
+    List<Component> components = Lists.newArrayList();
+    long generation = componentsById.generation();
+    List<Long> missingIds = componentsById.getAll(ids, components);
+    if (!missingIds.isEmpty()) {
+      for (Component component : resourceDao.findByIds(missingIds)) {
+        components.add(component);
+        Long id = component instanceof ComponentDto ? ((ComponentDto) component).getId() : null;
+        if (id != null) {
+          componentsById.put(id, component, generation);
+        }
+      }
+    }
+    return components;
+  }
+
+  /**
+   * Copy without lazy-loaded collections, so that the cached rule can be read by other requests
+   * after the session is closed.
+   */
+  private static Rule detachedCopy(Rule rule) {
+    Rule copy = Rule.create(rule.getRepositoryKey(), rule.getKey(), rule.getName())
+      .setConfigKey(rule.getConfigKey())
+      .setDescription(rule.getDescription())
+      .setSeverity(rule.getSeverity())
+      .setCardinality(rule.getCardinality())
+      .setLanguage(rule.getLanguage())
+      .setCreatedAt(rule.getCreatedAt())
+      .setUpdatedAt(rule.getUpdatedAt());
+    copy.setId(rule.getId());
+    if (rule.getStatus() != null) {
+      copy.setStatus(rule.getStatus());
+    }
+    if (rule.getParent() != null) {
+      copy.setParent(detachedCopy(rule.getParent()));
+    }
+    for (RuleParam param : rule.getParams()) {
+      copy.createParameter(param.getKey())
+        .setDescription(param.getDescription())
+        .setType(param.getType())
+        .setDefaultValue(param.getDefaultValue());
+    }
+    return copy;
+  }
+
+  public void invalidateRules() {
+    rulesById.clear();
+  }
+
+  public void invalidateUsers() {
+    usersByLogin.clear();
+  }
+
+  public void onAnalysisCompleted(long rootProjectId) {
+    invalidateComponents();
+  }
+
+  public void invalidateComponents() {
+    componentsById.clear();
+  }
+
+  private static final class Lru<K, V> {
+    private final LinkedHashMap<K, V> map;
+    // incremented on each invalidation, so that values loaded before are not cached
+    private long generation = 0L;
+
+    private Lru(final int maxSize) {
+      this.map = new LinkedHashMap<K, V>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+          return size() > maxSize;
+        }
+      };
+    }
+
+    /**
+     * Adds the cached values to the given list and returns the keys which are not cached
+     */
+    private synchronized List<K> getAll(Collection<K> keys, List<? super V> values) {
+      List<K> missingKeys = Lists.newArrayList();
+      for (K key : keys) {
+        V value = map.get(key);
+        if (value == null) {
+          missingKeys.add(key);
+        } else {
+          values.add(value);
+        }
+      }
+      return missingKeys;
+    }
+
+    private synchronized long generation() {
+      return generation;
+    }
+
+    private synchronized void put(K key, V value, long loadGeneration) {
+      if (loadGeneration == generation) {
+        map.put(key, value);
+      }
+    }
+
+    private synchronized void clear() {
+      map.clear();
+      generation++;
+    }
+  }
+}
@@ -38,6 +38,7 @@ public final class BatchSession implements SqlSession {
 
   private final SqlSession session;
   private final int batchSize;
+  private final boolean autoCommit;
   private int count = 0;
 
   BatchSession(SqlSession session) {
@@ -45,8 +46,17 @@ public final class BatchSession implements SqlSession {
   }
 
   BatchSession(SqlSession session, int batchSize) {
+    this(session, batchSize, true);
+  }
+
+  /**
+   * @param autoCommit if false, statements are only flushed when the batch size is reached. Nothing is committed
+   *                   before the explicit call to {@link #commit()}.
+   */
+  BatchSession(SqlSession session, int batchSize, boolean autoCommit) {
     this.session = session;
     this.batchSize = batchSize;
+    this.autoCommit = autoCommit;
   }
 
   public void select(String statement, Object parameter, ResultHandler handler) {
@@ -198,7 +208,11 @@ public final class BatchSession implements SqlSession {
   private BatchSession increment() {
     count += 1;
     if (count >= batchSize) {
-      commit();
+      if (autoCommit) {
+        commit();
+      } else {
+        flushStatements();
+      }
     }
     return this;
   }
@@ -35,6 +35,7 @@ import org.sonar.core.resource.ResourceIndexerDao;
 import org.sonar.core.resource.ResourceKeyUpdaterDao;
 import org.sonar.core.rule.RuleDao;
 import org.sonar.core.source.jdbc.SnapshotDataDao;
+import org.sonar.core.source.jdbc.SnapshotSourceDao;
 import org.sonar.core.technicaldebt.db.RequirementDao;
 import org.sonar.core.template.LoadedTemplateDao;
 import org.sonar.core.user.AuthorDao;
@@ -79,6 +80,7 @@ public final class DaoUtils {
       RuleDao.class,
       SemaphoreDao.class,
       SnapshotDataDao.class,
+      SnapshotSourceDao.class,
       UserDao.class
     );
   }
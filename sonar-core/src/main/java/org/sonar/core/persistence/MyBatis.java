@@ -41,6 +41,7 @@ import org.sonar.core.dependency.DependencyMapper;
 import org.sonar.core.dependency.ResourceSnapshotDto;
 import org.sonar.core.dependency.ResourceSnapshotMapper;
 import org.sonar.core.duplication.DuplicationMapper;
+import org.sonar.core.persistence.dialect.Dialect;
 import org.sonar.core.duplication.DuplicationUnitDto;
 import org.sonar.core.graph.jdbc.GraphDto;
 import org.sonar.core.graph.jdbc.GraphDtoMapper;
@@ -53,6 +54,8 @@ import org.sonar.core.permission.PermissionTemplateDto;
 import org.sonar.core.permission.PermissionTemplateGroupDto;
 import org.sonar.core.permission.PermissionTemplateMapper;
 import org.sonar.core.permission.PermissionTemplateUserDto;
+import org.sonar.core.profiling.Counter;
+import org.sonar.core.profiling.ProfilingRegistry;
 import org.sonar.core.properties.PropertiesMapper;
 import org.sonar.core.properties.PropertyDto;
 import org.sonar.core.purge.PurgeMapper;
@@ -75,12 +78,23 @@ public class MyBatis implements BatchComponent, ServerComponent {
   private final Database database;
   private final Settings settings;
   private final Logback logback;
+  private final Counter openedSessions;
+  private final Counter openedBatchSessions;
   private SqlSessionFactory sessionFactory;
 
   public MyBatis(Database database, Settings settings, Logback logback) {
+    this(database, settings, logback, new ProfilingRegistry());
+  }
+
+  /**
+   * @since 4.0
+   */
+  public MyBatis(Database database, Settings settings, Logback logback, ProfilingRegistry profiling) {
     this.database = database;
     this.settings = settings;
     this.logback = logback;
+    this.openedSessions = profiling.counter("db.sessions");
+    this.openedBatchSessions = profiling.counter("db.batch_sessions");
   }
 
   public MyBatis start() {
@@ -161,14 +175,35 @@ public class MyBatis implements BatchComponent, ServerComponent {
   }
 
   public SqlSession openSession() {
+    openedSessions.inc();
     return sessionFactory.openSession(ExecutorType.REUSE);
   }
 
   public BatchSession openBatchSession() {
+    openedBatchSessions.inc();
     SqlSession session = sessionFactory.openSession(ExecutorType.BATCH);
     return new BatchSession(session);
   }
 
+  /**
+   * Same as {@link #openBatchSession()}, except that the session never commits by itself, so that all the
+   * writes are executed in a single transaction. Statements are flushed when the batch size is reached.
+   *
+   * @since 4.0
+   */
+  public BatchSession openTransactionalBatchSession() {
+    openedBatchSessions.inc();
+    SqlSession session = sessionFactory.openSession(ExecutorType.BATCH);
+    return new BatchSession(session, BatchSession.MAX_BATCH_SIZE, false);
+  }
+
+  /**
+   * @since 4.0
+   */
+  public Dialect getDialect() {
+    return database.getDialect();
+  }
+
   public static void closeQuietly(SqlSession session) {
     if (session != null) {
       try {
@@ -70,4 +70,8 @@ abstract class AbstractDialect implements Dialect {
   public List<String> getConnectionInitStatements(String schema) {
     return Collections.emptyList();
   }
+
+  public boolean supportsBatchUpdateCounts() {
+    return true;
+  }
 }
@@ -72,4 +72,12 @@ public interface Dialect {
    * @since 3.2
    */
   String getValidationQuery();
+
+  /**
+   * Whether the JDBC driver returns the number of rows updated by each statement of a batch, instead
+   * of {@link java.sql.Statement#SUCCESS_NO_INFO}.
+   *
+   * @since 4.0
+   */
+  boolean supportsBatchUpdateCounts();
 }
@@ -46,6 +46,14 @@ public class Oracle extends AbstractDialect {
     return StringUtils.startsWithIgnoreCase(jdbcConnectionURL, "jdbc:oracle:");
   }
 
+  /**
+   * The Oracle driver returns {@link java.sql.Statement#SUCCESS_NO_INFO} for batched prepared statements
+   */
+  @Override
+  public boolean supportsBatchUpdateCounts() {
+    return false;
+  }
+
   public static class Oracle10gWithDecimalDialect extends Oracle10gDialect {
     public Oracle10gWithDecimalDialect() {
       super();
@@ -17,28 +17,31 @@
  * along with this program; if not, write to the Free Software Foundation,
  * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
  */
-package org.sonar.plugins.core.batch;
+package org.sonar.core.profiling;
 
-import org.sonar.core.DryRunIncompatible;
-import org.sonar.api.batch.PostJob;
-import org.sonar.api.batch.SensorContext;
-import org.sonar.api.resources.Project;
-import org.sonar.core.resource.ResourceIndexerDao;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * @since 2.13
+ * Thread-safe counter of events.
+ *
+ * @since 4.0
  */
-@DryRunIncompatible
-public class IndexProjectPostJob implements PostJob {
-  private ResourceIndexerDao indexer;
+public final class Counter {
+
+  private final AtomicLong count = new AtomicLong();
+
+  Counter() {
+  }
+
+  public void inc() {
+    count.incrementAndGet();
+  }
 
-  public IndexProjectPostJob(ResourceIndexerDao indexer) {
-    this.indexer = indexer;
+  public void inc(long n) {
+    count.addAndGet(n);
   }
 
-  public void executeOn(Project project, SensorContext context) {
-    if (project.getId() != null) {
-      indexer.indexProject(project.getId());
-    }
+  public long count() {
+    return count.get();
   }
 }
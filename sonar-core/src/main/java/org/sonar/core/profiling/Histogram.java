@@ -0,0 +1,111 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.profiling;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe distribution of positive values. Values are counted in buckets of powers of two, so
+ * percentiles are approximated by the upper bound of their bucket. Recording a value does not allocate
+ * any object.
+ *
+ * @since 4.0
+ */
+public final class Histogram {
+
+  private static final int BUCKETS = 64;
+
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLong sum = new AtomicLong();
+  private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+  private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+  // bucket i contains the values v such that 2^(i-1) <= v < 2^i. Bucket 0 contains 0.
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+  Histogram() {
+  }
+
+  public void update(long value) {
+    long v = Math.max(0L, value);
+    count.incrementAndGet();
+    sum.addAndGet(v);
+    buckets.incrementAndGet(BUCKETS - Long.numberOfLeadingZeros(v));
+    updateMin(v);
+    updateMax(v);
+  }
+
+  private void updateMin(long v) {
+    long current = min.get();
+    while (v < current && !min.compareAndSet(current, v)) {
+      current = min.get();
+    }
+  }
+
+  private void updateMax(long v) {
+    long current = max.get();
+    while (v > current && !max.compareAndSet(current, v)) {
+      current = max.get();
+    }
+  }
+
+  public long count() {
+    return count.get();
+  }
+
+  public long sum() {
+    return sum.get();
+  }
+
+  public long min() {
+    return count() == 0 ? 0L : min.get();
+  }
+
+  public long max() {
+    return count() == 0 ? 0L : max.get();
+  }
+
+  public double mean() {
+    long c = count();
+    return c == 0 ? 0.0 : (double) sum() / c;
+  }
+
+  /**
+   * Approximated value, which is greater than or equal to the given ratio of recorded values.
+   *
+   * @param ratio between 0.0 and 1.0, for example 0.95 for the 95th percentile
+   */
+  public long percentile(double ratio) {
+    long c = count();
+    if (c == 0) {
+      return 0L;
+    }
+    long rank = (long) Math.ceil(ratio * c);
+    long cumulated = 0L;
+    for (int i = 0; i < BUCKETS; i++) {
+      cumulated += buckets.get(i);
+      if (cumulated >= rank) {
+        long upperBound = i == 0 ? 0L : (i == BUCKETS - 1 ? Long.MAX_VALUE : (1L << i) - 1);
+        return Math.max(min(), Math.min(upperBound, max()));
+      }
+    }
+    return max();
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.profiling;
+
+import com.google.common.collect.Maps;
+import org.json.simple.JSONValue;
+import org.sonar.api.BatchComponent;
+import org.sonar.api.ServerComponent;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Registry of the counters, timers and histograms of the hot paths of batch and server. Metrics are created on first
+ * request and are never removed. Callers should keep a reference to the metrics they update frequently,
+ * instead of looking them up by name each time.
+ * <p/>
+ * Names should be low-cardinality, for example "batch.cache.issues.get", but never contain values like resource keys.
+ *
+ * @since 4.0
+ */
+public class ProfilingRegistry implements BatchComponent, ServerComponent {
+
+  private static final double MICROS_PER_MILLI = 1000.0;
+
+  private final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<String, Counter>();
+  private final ConcurrentMap<String, Timer> timers = new ConcurrentHashMap<String, Timer>();
+  private final ConcurrentMap<String, Histogram> histograms = new ConcurrentHashMap<String, Histogram>();
+
+  public Counter counter(String name) {
+    Counter counter = counters.get(name);
+    if (counter == null) {
+      counters.putIfAbsent(name, new Counter());
+      counter = counters.get(name);
+    }
+    return counter;
+  }
+
+  public Timer timer(String name) {
+    Timer timer = timers.get(name);
+    if (timer == null) {
+      timers.putIfAbsent(name, new Timer());
+      timer = timers.get(name);
+    }
+    return timer;
+  }
+
+  public Histogram histogram(String name) {
+    Histogram histogram = histograms.get(name);
+    if (histogram == null) {
+      histograms.putIfAbsent(name, new Histogram());
+      histogram = histograms.get(name);
+    }
+    return histogram;
+  }
+
+  /**
+   * Exports the current values, sorted by name. Durations of timers are in milliseconds.
+   */
+  public void writeJson(Writer writer) throws IOException {
+    Map<String, Object> json = Maps.newLinkedHashMap();
+
+    SortedMap<String, Object> countersJson = Maps.newTreeMap();
+    for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+      countersJson.put(entry.getKey(), entry.getValue().count());
+    }
+    json.put("counters", countersJson);
+
+    SortedMap<String, Object> timersJson = Maps.newTreeMap();
+    for (Map.Entry<String, Timer> entry : timers.entrySet()) {
+      timersJson.put(entry.getKey(), timerToJson(entry.getValue()));
+    }
+    json.put("timers", timersJson);
+
+    SortedMap<String, Object> histogramsJson = Maps.newTreeMap();
+    for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+      histogramsJson.put(entry.getKey(), histogramToJson(entry.getValue()));
+    }
+    json.put("histograms", histogramsJson);
+
+    JSONValue.writeJSONString(json, writer);
+    writer.flush();
+  }
+
+  private static Map<String, Object> histogramToJson(Histogram histogram) {
+    Map<String, Object> json = Maps.newLinkedHashMap();
+    json.put("count", histogram.count());
+    json.put("sum", histogram.sum());
+    json.put("min", histogram.min());
+    json.put("max", histogram.max());
+    json.put("mean", histogram.mean());
+    json.put("p50", histogram.percentile(0.5));
+    json.put("p95", histogram.percentile(0.95));
+    json.put("p99", histogram.percentile(0.99));
+    return json;
+  }
+
+  private static Map<String, Object> timerToJson(Timer timer) {
+    Histogram micros = timer.durations();
+    Map<String, Object> json = Maps.newLinkedHashMap();
+    json.put("count", micros.count());
+    json.put("sum", toMillis(micros.sum()));
+    json.put("min", toMillis(micros.min()));
+    json.put("max", toMillis(micros.max()));
+    json.put("mean", micros.mean() / MICROS_PER_MILLI);
+    json.put("p50", toMillis(micros.percentile(0.5)));
+    json.put("p95", toMillis(micros.percentile(0.95)));
+    json.put("p99", toMillis(micros.percentile(0.99)));
+    return json;
+  }
+
+  private static double toMillis(long micros) {
+    return micros / MICROS_PER_MILLI;
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.profiling;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thread-safe distribution of durations, recorded in microseconds.
+ *
+ * @since 4.0
+ */
+public final class Timer {
+
+  private final Histogram durations = new Histogram();
+
+  Timer() {
+  }
+
+  /**
+   * Starts measuring a duration, which is recorded when {@link Context#stop()} is called.
+   */
+  public Context start() {
+    return new Context(this, System.nanoTime());
+  }
+
+  public void update(long duration, TimeUnit unit) {
+    durations.update(unit.toMicros(duration));
+  }
+
+  /**
+   * Durations in microseconds
+   */
+  public Histogram durations() {
+    return durations;
+  }
+
+  public static final class Context {
+    private final Timer timer;
+    private final long startNanos;
+
+    private Context(Timer timer, long startNanos) {
+      this.timer = timer;
+      this.startNanos = startNanos;
+    }
+
+    /**
+     * @return the duration in nanoseconds
+     */
+    public long stop() {
+      long duration = System.nanoTime() - startNanos;
+      timer.update(duration, TimeUnit.NANOSECONDS);
+      return duration;
+    }
+  }
+}
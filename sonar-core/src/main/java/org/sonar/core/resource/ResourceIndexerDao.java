@@ -19,6 +19,8 @@
  */
 package org.sonar.core.resource;
 
+import com.google.common.collect.Maps;
+import org.apache.commons.lang.ArrayUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.ibatis.session.ResultContext;
 import org.apache.ibatis.session.ResultHandler;
@@ -27,6 +29,12 @@ import org.sonar.api.resources.Qualifiers;
 import org.sonar.api.resources.Scopes;
 import org.sonar.core.persistence.MyBatis;
 
+import javax.annotation.Nullable;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
 public class ResourceIndexerDao {
 
   private static final String SELECT_RESOURCES = "org.sonar.core.resource.ResourceIndexerMapper.selectResources";
@@ -115,6 +123,70 @@ public class ResourceIndexerDao {
     });
   }
 
+  /**
+   * Indexes the resources of a project that have been saved by an analysis. Only the resources that are
+   * not indexed yet or that have been renamed are written, so that a new analysis of an unchanged project
+   * does not touch the table RESOURCE_INDEX. The existing index of the project is loaded with a single request.
+   *
+   * @param rootProjectId id of the root project of all the given resources
+   * @since 4.0
+   */
+  public ResourceIndexerDao indexResources(long rootProjectId, Collection<ResourceDto> resources) {
+    SqlSession session = mybatis.openBatchSession();
+    try {
+      ResourceIndexerMapper mapper = session.getMapper(ResourceIndexerMapper.class);
+      Map<Long, String> indexedKeys = Maps.newHashMap();
+      for (ResourceIndexDto masterIndex : mapper.selectMasterIndexes(rootProjectId)) {
+        indexedKeys.put(masterIndex.getResourceId(), masterIndex.getKey());
+      }
+      for (ResourceDto resource : resources) {
+        if (isIndexable(resource)) {
+          doIncrementalIndex(resource, rootProjectId, indexedKeys.get(resource.getId()), mapper);
+        }
+      }
+      session.commit();
+      return this;
+
+    } finally {
+      MyBatis.closeQuietly(session);
+    }
+  }
+
+  private void doIncrementalIndex(ResourceDto resource, long rootProjectId, @Nullable String indexedKey, ResourceIndexerMapper mapper) {
+    String key = nameToKey(resource.getName());
+    if (indexedKey != null && indexedKey.equals(key)) {
+      // not renamed
+      return;
+    }
+    if (indexedKey != null || ArrayUtils.contains(RENAMABLE_SCOPES, resource.getScope())) {
+      // renamed resource, or module that was previously indexed under another root project
+      mapper.deleteByResourceId(resource.getId());
+    }
+    if (key.length() >= MINIMUM_KEY_SIZE || key.length() == SINGLE_INDEX_SIZE) {
+      insertIndexEntries(key, resource.getId(), resource.getQualifier(), rootProjectId, resource.getName().length(), mapper);
+    }
+  }
+
+  private static boolean isIndexable(ResourceDto resource) {
+    return (ArrayUtils.contains(RENAMABLE_SCOPES, resource.getScope()) && ArrayUtils.contains(RENAMABLE_QUALIFIERS, resource.getQualifier()))
+      || (ArrayUtils.contains(NOT_RENAMABLE_SCOPES, resource.getScope()) && ArrayUtils.contains(NOT_RENAMABLE_QUALIFIERS, resource.getQualifier()));
+  }
+
+  /**
+   * Returns the first index row (position 0) of each resource, either of a given root project or of all projects.
+   * The key of such a row is the full name of the resource in lower case.
+   *
+   * @since 4.0
+   */
+  public List<ResourceIndexDto> selectMasterIndexes(@Nullable Long rootProjectId) {
+    SqlSession session = mybatis.openSession();
+    try {
+      return session.getMapper(ResourceIndexerMapper.class).selectMasterIndexes(rootProjectId);
+    } finally {
+      MyBatis.closeQuietly(session);
+    }
+  }
+
   void doIndex(ResourceDto resource, ResourceIndexerMapper mapper) {
     String key = nameToKey(resource.getName());
     if (key.length() >= MINIMUM_KEY_SIZE || key.length() == SINGLE_INDEX_SIZE) {
@@ -19,10 +19,18 @@
  */
 package org.sonar.core.resource;
 
+import org.apache.ibatis.annotations.Param;
+
+import javax.annotation.Nullable;
+
+import java.util.List;
+
 public interface ResourceIndexerMapper {
 
   ResourceIndexDto selectMasterIndexByResourceId(long resourceId);
 
+  List<ResourceIndexDto> selectMasterIndexes(@Nullable @Param("rootProjectId") Long rootProjectId);
+
   ResourceDto selectResourceToIndex(long resourceId);
 
   void deleteByResourceId(long resourceId);
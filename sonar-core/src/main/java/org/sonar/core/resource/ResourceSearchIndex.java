@@ -0,0 +1,380 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.resource;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.CoreProperties;
+import org.sonar.api.ServerComponent;
+import org.sonar.api.config.Settings;
+import org.sonar.core.component.AnalysisCompletedHandler;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory copy of the table RESOURCE_INDEX, used to search for resources by name without executing
+ * a "LIKE" request on each keystroke. The index is loaded on first search, then it is updated
+ * project per project when an analysis is completed.
+ * <p/>
+ * The index is enabled by the property {@link CoreProperties#CORE_IN_MEMORY_RESOURCE_SEARCH_PROPERTY}. It is disabled
+ * if the number of indexed suffixes exceeds a maximum, so that memory stays bounded on large instances. Callers
+ * must then search the table RESOURCE_INDEX.
+ *
+ * @since 4.0
+ */
+public class ResourceSearchIndex implements ServerComponent, AnalysisCompletedHandler {
+
+  // about 80Mb for the suffixes and the buffer used to sort them
+  private static final int DEFAULT_MAX_ENTRIES = 5000000;
+
+  private final ResourceIndexerDao dao;
+  private final Settings settings;
+  private final int maxEntries;
+  private final Object lock = new Object();
+
+  // null when not loaded
+  private volatile Map<Long, ProjectIndex> indexesByRootProject = null;
+  private volatile boolean tooLarge = false;
+
+  public ResourceSearchIndex(ResourceIndexerDao dao, Settings settings) {
+    this(dao, settings, DEFAULT_MAX_ENTRIES);
+  }
+
+  @VisibleForTesting
+  ResourceSearchIndex(ResourceIndexerDao dao, Settings settings, int maxEntries) {
+    this.dao = dao;
+    this.settings = settings;
+    this.maxEntries = maxEntries;
+  }
+
+  /**
+   * Returns the resources whose name contains a word starting with the given text, with the same semantics than the request
+   * <code>RESOURCE_INDEX.KEE LIKE 'text%'</code>. Results are sorted by size of name.
+   *
+   * @param qualifiers if not empty, only the resources with these qualifiers are returned
+   * @return null if the index is disabled or too large
+   */
+  @CheckForNull
+  public List<ResourceIndexDto> search(String text, @Nullable Collection<String> qualifiers) {
+    Map<Long, ProjectIndex> indexes = indexes();
+    if (indexes == null) {
+      return null;
+    }
+    String key = text == null ? null : text.toLowerCase(Locale.ENGLISH);
+    List<ResourceIndexDto> result = Lists.newArrayList();
+    if (StringUtils.isNotEmpty(key)) {
+      for (ProjectIndex projectIndex : indexes.values()) {
+        projectIndex.search(key, qualifiers, result);
+      }
+      Collections.sort(result, NameSizeComparator.INSTANCE);
+    }
+    return result;
+  }
+
+  /**
+   * Loads again the index of a project, for example after an analysis. Nothing is done if the
+   * index is not loaded yet.
+   */
+  public void reloadProject(long rootProjectId) {
+    synchronized (lock) {
+      Map<Long, ProjectIndex> indexes = indexesByRootProject;
+      if (indexes != null) {
+        List<ResourceIndexDto> masterIndexes = dao.selectMasterIndexes(rootProjectId);
+        if (masterIndexes.isEmpty()) {
+          indexes.remove(rootProjectId);
+        } else {
+          ProjectIndex previous = indexes.get(rootProjectId);
+          int size = countEntries(indexes.values()) - (previous == null ? 0 : previous.size()) + ProjectIndex.countEntries(masterIndexes);
+          if (size > maxEntries) {
+            disable(size);
+          } else {
+            indexes.put(rootProjectId, new ProjectIndex(masterIndexes));
+          }
+        }
+      }
+    }
+  }
+
+  public void onAnalysisCompleted(long rootProjectId) {
+    reloadProject(rootProjectId);
+  }
+
+  public void removeProject(long rootProjectId) {
+    synchronized (lock) {
+      Map<Long, ProjectIndex> indexes = indexesByRootProject;
+      if (indexes != null) {
+        indexes.remove(rootProjectId);
+      }
+    }
+  }
+
+  /**
+   * The whole index is loaded again on next search, even if it was too large
+   */
+  public void invalidate() {
+    synchronized (lock) {
+      indexesByRootProject = null;
+      tooLarge = false;
+    }
+  }
+
+  /**
+   * @return null if the index is disabled or too large
+   */
+  @CheckForNull
+  private Map<Long, ProjectIndex> indexes() {
+    if (!settings.getBoolean(CoreProperties.CORE_IN_MEMORY_RESOURCE_SEARCH_PROPERTY)) {
+      // release memory if the property has been disabled since loading
+      if (indexesByRootProject != null) {
+        invalidate();
+      }
+      return null;
+    }
+    Map<Long, ProjectIndex> indexes = indexesByRootProject;
+    if (indexes == null && !tooLarge) {
+      synchronized (lock) {
+        indexes = indexesByRootProject;
+        if (indexes == null && !tooLarge) {
+          indexes = load();
+          indexesByRootProject = indexes;
+        }
+      }
+    }
+    return indexes;
+  }
+
+  private void disable(int size) {
+    LoggerFactory.getLogger(ResourceSearchIndex.class).warn(String.format(
+      "In-memory resource search is disabled: %d suffixes exceed the maximum of %d. Table RESOURCE_INDEX is searched instead.", size, maxEntries));
+    indexesByRootProject = null;
+    tooLarge = true;
+  }
+
+  private static int countEntries(Collection<ProjectIndex> indexes) {
+    int count = 0;
+    for (ProjectIndex index : indexes) {
+      count += index.size();
+    }
+    return count;
+  }
+
+  @CheckForNull
+  private Map<Long, ProjectIndex> load() {
+    Map<Long, List<ResourceIndexDto>> masterIndexesByRootProject = Maps.newHashMap();
+    for (ResourceIndexDto masterIndex : dao.selectMasterIndexes(null)) {
+      List<ResourceIndexDto> masterIndexes = masterIndexesByRootProject.get(masterIndex.getRootProjectId());
+      if (masterIndexes == null) {
+        masterIndexes = Lists.newArrayList();
+        masterIndexesByRootProject.put(masterIndex.getRootProjectId(), masterIndexes);
+      }
+      masterIndexes.add(masterIndex);
+    }
+    int size = 0;
+    for (List<ResourceIndexDto> masterIndexes : masterIndexesByRootProject.values()) {
+      size += ProjectIndex.countEntries(masterIndexes);
+    }
+    if (size > maxEntries) {
+      disable(size);
+      return null;
+    }
+    Map<Long, ProjectIndex> indexes = new ConcurrentHashMap<Long, ProjectIndex>();
+    for (Map.Entry<Long, List<ResourceIndexDto>> entry : masterIndexesByRootProject.entrySet()) {
+      indexes.put(entry.getKey(), new ProjectIndex(entry.getValue()));
+    }
+    return indexes;
+  }
+
+  /**
+   * Immutable index of the resources of a project. Each entry references a suffix of a name, encoded as
+   * <code>(slot of resource &lt;&lt; 32) | position in name</code>. Entries are sorted by suffix, so that
+   * the suffixes starting with a given text are contiguous.
+   */
+  static final class ProjectIndex {
+    private final String[] keys;
+    private final long[] resourceIds;
+    private final long[] rootProjectIds;
+    private final String[] qualifiers;
+    private final int[] nameSizes;
+    private final long[] entries;
+
+    ProjectIndex(List<ResourceIndexDto> masterIndexes) {
+      int size = masterIndexes.size();
+      keys = new String[size];
+      resourceIds = new long[size];
+      rootProjectIds = new long[size];
+      qualifiers = new String[size];
+      nameSizes = new int[size];
+      entries = new long[countEntries(masterIndexes)];
+      int index = 0;
+      for (int slot = 0; slot < size; slot++) {
+        ResourceIndexDto masterIndex = masterIndexes.get(slot);
+        String key = masterIndex.getKey();
+        keys[slot] = key;
+        resourceIds[slot] = masterIndex.getResourceId();
+        rootProjectIds[slot] = masterIndex.getRootProjectId();
+        qualifiers[slot] = masterIndex.getQualifier();
+        nameSizes[slot] = masterIndex.getNameSize();
+
+        for (int position = 0; position <= maxPosition(key); position++) {
+          entries[index++] = ((long) slot << 32) | position;
+        }
+      }
+      sort(entries.clone(), entries, 0, entries.length);
+    }
+
+    static int countEntries(List<ResourceIndexDto> masterIndexes) {
+      int count = 0;
+      for (ResourceIndexDto masterIndex : masterIndexes) {
+        count += maxPosition(masterIndex.getKey()) + 1;
+      }
+      return count;
+    }
+
+    /**
+     * Same positions than the rows inserted by ResourceIndexerDao
+     */
+    private static int maxPosition(String key) {
+      return key.length() == ResourceIndexerDao.SINGLE_INDEX_SIZE ? 0 : key.length() - ResourceIndexerDao.MINIMUM_KEY_SIZE;
+    }
+
+    int size() {
+      return entries.length;
+    }
+
+    /**
+     * Merge sort of the primitive entries by suffix. <code>src</code> is a copy of <code>dest</code> and
+     * is used as buffer.
+     */
+    private void sort(long[] src, long[] dest, int low, int high) {
+      int length = high - low;
+      if (length < 7) {
+        // insertion sort of small ranges
+        for (int i = low + 1; i < high; i++) {
+          for (int j = i; j > low && compareSuffix(dest[j - 1], dest[j]) > 0; j--) {
+            long tmp = dest[j];
+            dest[j] = dest[j - 1];
+            dest[j - 1] = tmp;
+          }
+        }
+        return;
+      }
+      int mid = (low + high) >>> 1;
+      sort(dest, src, low, mid);
+      sort(dest, src, mid, high);
+      for (int i = low, p = low, q = mid; i < high; i++) {
+        if (q >= high || (p < mid && compareSuffix(src[p], src[q]) <= 0)) {
+          dest[i] = src[p++];
+        } else {
+          dest[i] = src[q++];
+        }
+      }
+    }
+
+    void search(String text, @Nullable Collection<String> qualifierFilter, List<ResourceIndexDto> result) {
+      BitSet matchingSlots = new BitSet();
+      for (int i = lowerBound(text); i < entries.length && startsWith(entries[i], text); i++) {
+        matchingSlots.set(slot(entries[i]));
+      }
+      for (int slot = matchingSlots.nextSetBit(0); slot >= 0; slot = matchingSlots.nextSetBit(slot + 1)) {
+        if (qualifierFilter == null || qualifierFilter.isEmpty() || qualifierFilter.contains(qualifiers[slot])) {
+          result.add(new ResourceIndexDto()
+            .setResourceId(resourceIds[slot])
+            .setRootProjectId(rootProjectIds[slot])
+            .setQualifier(qualifiers[slot])
+            .setNameSize(nameSizes[slot]));
+        }
+      }
+    }
+
+    /**
+     * Index of the first entry whose suffix is greater than or equal to the text
+     */
+    private int lowerBound(String text) {
+      int low = 0;
+      int high = entries.length;
+      while (low < high) {
+        int mid = (low + high) >>> 1;
+        if (compare(keys[slot(entries[mid])], position(entries[mid]), text, 0) < 0) {
+          low = mid + 1;
+        } else {
+          high = mid;
+        }
+      }
+      return low;
+    }
+
+    private boolean startsWith(long entry, String text) {
+      return keys[slot(entry)].startsWith(text, position(entry));
+    }
+
+    private int compareSuffix(long entry1, long entry2) {
+      return compare(keys[slot(entry1)], position(entry1), keys[slot(entry2)], position(entry2));
+    }
+
+    private static int compare(String s1, int offset1, String s2, int offset2) {
+      int length1 = s1.length() - offset1;
+      int length2 = s2.length() - offset2;
+      int min = Math.min(length1, length2);
+      for (int i = 0; i < min; i++) {
+        char c1 = s1.charAt(offset1 + i);
+        char c2 = s2.charAt(offset2 + i);
+        if (c1 != c2) {
+          return c1 - c2;
+        }
+      }
+      return length1 - length2;
+    }
+
+    private static int slot(long entry) {
+      return (int) (entry >>> 32);
+    }
+
+    private static int position(long entry) {
+      return (int) entry;
+    }
+  }
+
+  private static final class NameSizeComparator implements Comparator<ResourceIndexDto> {
+    static final NameSizeComparator INSTANCE = new NameSizeComparator();
+
+    public int compare(ResourceIndexDto d1, ResourceIndexDto d2) {
+      if (d1.getNameSize() != d2.getNameSize()) {
+        return d1.getNameSize() < d2.getNameSize() ? -1 : 1;
+      }
+      if (d1.getResourceId() != d2.getResourceId()) {
+        return d1.getResourceId() < d2.getResourceId() ? -1 : 1;
+      }
+      return 0;
+    }
+  }
+}
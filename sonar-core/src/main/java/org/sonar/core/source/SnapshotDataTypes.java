@@ -30,4 +30,11 @@ public interface SnapshotDataTypes {
    * @since 4.0
    */
   String FILE_HASHES = "file_hashes";
+
+  /**
+   * Hash of the source saved in snapshot_sources, used to copy unchanged sources from the previous analysis.
+   * Stored on files.
+   * @since 4.0
+   */
+  String SOURCE_HASH = "source_hash";
 }
@@ -0,0 +1,105 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.source;
+
+import com.google.common.base.Charsets;
+import org.apache.commons.codec.binary.Base64;
+import org.sonar.api.utils.SonarException;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Formats of the column snapshot_sources.data. Sources are stored either as plain text, or compressed with deflate
+ * and encoded in base64 after a marker, as the column is a text column. Readers must always use {@link #decode(String)}
+ * as both formats coexist in database.
+ *
+ * @since 4.0
+ */
+public final class SnapshotSourceFormat {
+
+  static final String COMPRESSED_MARKER = "{sonar-deflate}";
+
+  private static final int BUFFER_SIZE = 8192;
+
+  private SnapshotSourceFormat() {
+    // only static methods
+  }
+
+  /**
+   * Returns the compressed format, or the plain text when compression does not make it shorter (small sources).
+   */
+  public static String compress(String source) {
+    byte[] bytes = source.getBytes(Charsets.UTF_8);
+    Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    try {
+      deflater.setInput(bytes);
+      deflater.finish();
+      ByteArrayOutputStream output = new ByteArrayOutputStream(bytes.length / 4 + 16);
+      byte[] buffer = new byte[BUFFER_SIZE];
+      while (!deflater.finished()) {
+        int count = deflater.deflate(buffer);
+        output.write(buffer, 0, count);
+      }
+      String compressed = COMPRESSED_MARKER + Base64.encodeBase64String(output.toByteArray());
+      return compressed.length() < source.length() ? compressed : source;
+    } finally {
+      deflater.end();
+    }
+  }
+
+  public static boolean isCompressed(@Nullable String data) {
+    return data != null && data.startsWith(COMPRESSED_MARKER);
+  }
+
+  /**
+   * Returns the source text of a value of snapshot_sources.data, whatever its format
+   */
+  @CheckForNull
+  public static String decode(@Nullable String data) {
+    if (!isCompressed(data)) {
+      return data;
+    }
+    byte[] bytes = Base64.decodeBase64(data.substring(COMPRESSED_MARKER.length()));
+    Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(bytes);
+      ByteArrayOutputStream output = new ByteArrayOutputStream(bytes.length * 4);
+      byte[] buffer = new byte[BUFFER_SIZE];
+      while (!inflater.finished()) {
+        int count = inflater.inflate(buffer);
+        if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          throw new SonarException("Source is truncated");
+        }
+        output.write(buffer, 0, count);
+      }
+      return new String(output.toByteArray(), Charsets.UTF_8);
+    } catch (DataFormatException e) {
+      throw new SonarException("Fail to decompress source", e);
+    } finally {
+      inflater.end();
+    }
+  }
+}
@@ -50,6 +50,21 @@ public class SnapshotDataDao implements BatchComponent, ServerComponent {
     }
   }
 
+  /**
+   * Data of the given type of all the components of a project, as saved by its last analysis
+   * @since 4.0
+   */
+  public Collection<SnapshotDataDto> selectLastSnapshotDataOfRootProject(long rootProjectId, String dataType) {
+    SqlSession session = mybatis.openSession();
+    try {
+      SnapshotDataMapper mapper = session.getMapper(SnapshotDataMapper.class);
+      return mapper.selectLastSnapshotDataOfRootProject(rootProjectId, dataType);
+
+    } finally {
+      MyBatis.closeQuietly(session);
+    }
+  }
+
   void insert(SnapshotDataDto snapshotData) {
     SqlSession session = mybatis.openSession();
     try {
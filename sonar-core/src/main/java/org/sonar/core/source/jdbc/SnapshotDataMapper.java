@@ -33,4 +33,6 @@ public interface SnapshotDataMapper {
   void insert(SnapshotDataDto snapshotData);
 
   Collection<SnapshotDataDto> selectSnapshotData(@Param("sid") long snapshotId, @Param("dataTypes") List<String> dataTypes);
+
+  Collection<SnapshotDataDto> selectLastSnapshotDataOfRootProject(@Param("rootProjectId") long rootProjectId, @Param("dataType") String dataType);
 }
@@ -21,12 +21,15 @@
 package org.sonar.core.source.jdbc;
 
 import org.apache.ibatis.session.SqlSession;
+import org.sonar.api.BatchComponent;
+import org.sonar.api.ServerComponent;
 import org.sonar.core.persistence.MyBatis;
+import org.sonar.core.source.SnapshotSourceFormat;
 
 /**
  * @since 3.6
  */
-public class SnapshotSourceDao {
+public class SnapshotSourceDao implements BatchComponent, ServerComponent {
 
   private final MyBatis mybatis;
 
@@ -34,13 +37,35 @@ public class SnapshotSourceDao {
     this.mybatis = myBatis;
   }
 
+  /**
+   * Returns the source text, whatever its storage format
+   */
   public String selectSnapshotSource(long snapshotId) {
 
     SqlSession session = mybatis.openBatchSession();
 
     try {
       SnapshotSourceMapper mapper = session.getMapper(SnapshotSourceMapper.class);
-      return mapper.selectSnapshotSource(snapshotId);
+      return SnapshotSourceFormat.decode(mapper.selectSnapshotSource(snapshotId));
+
+    } finally {
+      MyBatis.closeQuietly(session);
+    }
+  }
+
+  /**
+   * Saves the source of the last snapshot of the resource as the source of the given snapshot, without loading it.
+   *
+   * @return false if the last snapshot has no source
+   * @since 4.0
+   */
+  public boolean insertCopyOfLastSnapshotSource(long snapshotId, long resourceId) {
+    SqlSession session = mybatis.openSession();
+    try {
+      SnapshotSourceMapper mapper = session.getMapper(SnapshotSourceMapper.class);
+      int count = mapper.insertCopyOfLastSnapshotSource(snapshotId, resourceId);
+      session.commit();
+      return count > 0;
 
     } finally {
       MyBatis.closeQuietly(session);
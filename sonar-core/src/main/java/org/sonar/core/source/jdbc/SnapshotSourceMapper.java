@@ -28,4 +28,6 @@ import org.apache.ibatis.annotations.Param;
 public interface SnapshotSourceMapper {
 
   String selectSnapshotSource(@Param("sid") long snapshotId);
+
+  int insertCopyOfLastSnapshotSource(@Param("sid") long snapshotId, @Param("resourceId") long resourceId);
 }
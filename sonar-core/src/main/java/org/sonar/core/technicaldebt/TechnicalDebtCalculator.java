@@ -23,6 +23,7 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import org.slf4j.LoggerFactory;
 import org.sonar.api.BatchExtension;
 import org.sonar.api.batch.DecoratorContext;
@@ -30,14 +31,17 @@ import org.sonar.api.issue.Issue;
 import org.sonar.api.measures.CoreMetrics;
 import org.sonar.api.measures.Measure;
 import org.sonar.api.measures.MeasuresFilters;
-import org.sonar.api.measures.Metric;
+import org.sonar.api.qualitymodel.Characteristic;
+import org.sonar.api.rules.Rule;
 import org.sonar.api.rules.Violation;
 import org.sonar.api.technicaldebt.TechnicalDebt;
 import org.sonar.core.technicaldebt.functions.Functions;
 
+import javax.annotation.Nullable;
+
 import java.util.Collection;
-import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Computes the remediation cost based on the quality and analysis models.
@@ -66,17 +70,28 @@ public class TechnicalDebtCalculator implements BatchExtension {
     return null;
   }
 
+  /**
+   * Only the requirements which have violations on the resource or costs on its children are computed, so the cost of
+   * the other requirements and of the characteristics without any of those requirements is implicitly zero.
+   */
   public void compute(DecoratorContext context) {
     reset();
 
+    // root characteristics are always valued, even when zero, as they are required on projects by the history chart
+    for (TechnicalDebtCharacteristic characteristic : technicalDebtModel.getCharacteristics()) {
+      characteristicCosts.put(characteristic, 0.0);
+    }
+
     // group violations by requirement
     ListMultimap<TechnicalDebtRequirement, Violation> violationsByRequirement = groupViolations(context);
-
-    // the total cost is: cost(violations)
-    for (TechnicalDebtRequirement requirement : technicalDebtModel.getAllRequirements()) {
-      List<Violation> violations = violationsByRequirement.get(requirement);
-      double allViolationsCost = computeTechnicalDebt(CoreMetrics.TECHNICAL_DEBT, context, requirement, violations);
-      updateRequirementCosts(requirement, allViolationsCost);
+    Map<TechnicalDebtRequirement, Double> childrenCosts = groupChildrenCosts(context);
+
+    // the total cost is: cost(violations) + cost(children)
+    Set<TechnicalDebtRequirement> requirements = Sets.newHashSet(violationsByRequirement.keySet());
+    requirements.addAll(childrenCosts.keySet());
+    for (TechnicalDebtRequirement requirement : requirements) {
+      double cost = computeTechnicalDebt(requirement, violationsByRequirement.get(requirement), childrenCosts.get(requirement));
+      updateRequirementCosts(requirement, cost);
     }
   }
 
@@ -115,16 +130,33 @@ public class TechnicalDebtCalculator implements BatchExtension {
     propagateCostInParents(requirement.getParent(), cost);
   }
 
-  private double computeTechnicalDebt(Metric metric, DecoratorContext context, TechnicalDebtRequirement requirement, Collection<Violation> violations) {
+  /**
+   * Sums in one pass the costs of requirements saved on children, instead of looking up the children measures of each requirement.
+   */
+  @VisibleForTesting
+  protected Map<TechnicalDebtRequirement, Double> groupChildrenCosts(DecoratorContext context) {
+    Map<TechnicalDebtRequirement, Double> costsByRequirement = Maps.newHashMap();
+    for (Measure measure : context.getChildrenMeasures(MeasuresFilters.characteristics(CoreMetrics.TECHNICAL_DEBT))) {
+      Characteristic characteristic = measure.getCharacteristic();
+      Rule rule = characteristic.getRule();
+      if (rule != null && measure.getValue() != null && measure.getValue() > 0.0) {
+        TechnicalDebtRequirement requirement = technicalDebtModel.getRequirementByRule(rule.getRepositoryKey(), rule.getKey());
+        if (requirement != null && characteristic.equals(requirement.toCharacteristic())) {
+          Double cost = costsByRequirement.get(requirement);
+          costsByRequirement.put(requirement, cost == null ? measure.getValue() : cost + measure.getValue());
+        }
+      }
+    }
+    return costsByRequirement;
+  }
+
+  private double computeTechnicalDebt(TechnicalDebtRequirement requirement, Collection<Violation> violations, @Nullable Double childrenCost) {
     double cost = 0.0;
-    if (violations != null) {
+    if (!violations.isEmpty()) {
       cost = functions.costInHours(requirement, violations);
     }
-
-    for (Measure measure : context.getChildrenMeasures(MeasuresFilters.characteristic(metric, requirement.toCharacteristic()))) {
-      if (measure.getCharacteristic() != null && measure.getCharacteristic().equals(requirement.toCharacteristic()) && measure.getValue() != null) {
-        cost += measure.getValue();
-      }
+    if (childrenCost != null) {
+      cost += childrenCost;
     }
     return cost;
   }
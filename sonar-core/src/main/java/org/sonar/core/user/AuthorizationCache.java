@@ -0,0 +1,133 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.user;
+
+import com.google.common.collect.Sets;
+import org.sonar.api.ServerComponent;
+import org.sonar.core.component.AnalysisCompletedHandler;
+
+import javax.annotation.Nullable;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bounded LRU cache of the root projects on which a user, or anonymous, has a given role. The ids are loaded once
+ * from {@link AuthorizationDao} and kept as sorted arrays, so that permission checks are binary searches instead
+ * of join queries on the tables user_roles, group_roles and groups_users. The whole cache must be invalidated
+ * when permissions or group memberships are changed and when a project is created or deleted.
+ * All methods are thread-safe.
+ *
+ * @since 4.0
+ */
+public class AuthorizationCache implements ServerComponent, AnalysisCompletedHandler {
+
+  static final int MAX_ENTRIES = 1000;
+
+  private final AuthorizationDao authorizationDao;
+  private final LinkedHashMap<String, long[]> idsByUserAndRole;
+  // incremented on each invalidation, so that ids loaded before are not cached
+  private long generation = 0L;
+
+  public AuthorizationCache(AuthorizationDao authorizationDao) {
+    this(authorizationDao, MAX_ENTRIES);
+  }
+
+  AuthorizationCache(AuthorizationDao authorizationDao, final int maxEntries) {
+    this.authorizationDao = authorizationDao;
+    this.idsByUserAndRole = new LinkedHashMap<String, long[]>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, long[]> eldest) {
+        return size() > maxEntries;
+      }
+    };
+  }
+
+  public boolean isAuthorizedRootProjectId(long rootProjectId, @Nullable Integer userId, String role) {
+    return Arrays.binarySearch(authorizedIds(userId, role), rootProjectId) >= 0;
+  }
+
+  /**
+   * Returns the root project ids of the given collection on which the user has the role
+   */
+  public Set<Long> keepAuthorizedRootProjectIds(Collection<Long> rootProjectIds, @Nullable Integer userId, String role) {
+    Set<Long> result = Sets.newHashSet();
+    if (!rootProjectIds.isEmpty()) {
+      long[] authorizedIds = authorizedIds(userId, role);
+      for (Long rootProjectId : rootProjectIds) {
+        if (rootProjectId != null && Arrays.binarySearch(authorizedIds, rootProjectId) >= 0) {
+          result.add(rootProjectId);
+        }
+      }
+    }
+    return result;
+  }
+
+  public Set<Long> selectAuthorizedRootProjectsIds(@Nullable Integer userId, String role) {
+    long[] authorizedIds = authorizedIds(userId, role);
+    Set<Long> result = Sets.newHashSetWithExpectedSize(authorizedIds.length);
+    for (long authorizedId : authorizedIds) {
+      result.add(authorizedId);
+    }
+    return result;
+  }
+
+  /**
+   * The first analysis of a project creates it
+   */
+  public void onAnalysisCompleted(long rootProjectId) {
+    invalidate();
+  }
+
+  public synchronized void invalidate() {
+    idsByUserAndRole.clear();
+    generation++;
+  }
+
+  private long[] authorizedIds(@Nullable Integer userId, String role) {
+    String key = userId + ":" + role;
+    long loadGeneration;
+    synchronized (this) {
+      long[] ids = idsByUserAndRole.get(key);
+      if (ids != null) {
+        return ids;
+      }
+      loadGeneration = generation;
+    }
+    // the query is executed outside of the lock, so that the other users are not blocked
+    Collection<Long> loadedIds = authorizationDao.selectAuthorizedRootProjectsIds(userId, role);
+    long[] ids = new long[loadedIds.size()];
+    int index = 0;
+    for (Long loadedId : loadedIds) {
+      ids[index] = loadedId;
+      index++;
+    }
+    Arrays.sort(ids);
+    synchronized (this) {
+      if (loadGeneration == generation) {
+        idsByUserAndRole.put(key, ids);
+      }
+    }
+    return ids;
+  }
+}
@@ -39,6 +39,7 @@ import org.sonar.core.i18n.RuleI18nManager;
 
 import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
 
 import static org.fest.assertions.Assertions.assertThat;
 import static org.mockito.Matchers.eq;
@@ -107,6 +108,29 @@ public class IssueNotificationsTest {
     Mockito.verify(manager).scheduleForSending(eq(Arrays.asList(notification)));
   }
 
+  @Test
+  public void should_schedule_changes_of_many_issues_at_once() throws Exception {
+    IssueChangeContext context = IssueChangeContext.createScan(new Date());
+    DefaultIssue changed = new DefaultIssue()
+      .setKey("ABCDE")
+      .setFieldChange(context, "severity", "MINOR", "BLOCKER")
+      .setSendNotifications(true)
+      .setComponentKey("struts:Action")
+      .setProjectKey("struts");
+    DefaultIssue notNotified = new DefaultIssue()
+      .setKey("FGHIJ")
+      .setComponentKey("struts:Action")
+      .setProjectKey("struts");
+    DefaultIssueQueryResult queryResult = new DefaultIssueQueryResult(Arrays.<Issue>asList(changed, notNotified));
+    queryResult.addProjects(Arrays.<Component>asList(new Project("struts")));
+
+    List<Notification> notifications = issueNotifications.sendChanges(Arrays.asList(changed, notNotified), context, queryResult);
+
+    assertThat(notifications).hasSize(1);
+    assertThat(notifications.get(0).getFieldValue("key")).isEqualTo("ABCDE");
+    Mockito.verify(manager).scheduleForSending(eq(notifications));
+  }
+
   @Test
   public void should_send_changes_with_comment() throws Exception {
     IssueChangeContext context = IssueChangeContext.createScan(new Date());
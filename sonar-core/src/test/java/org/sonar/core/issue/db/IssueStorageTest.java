@@ -31,9 +31,15 @@ import org.sonar.api.technicaldebt.TechnicalDebt;
 import org.sonar.api.utils.DateUtils;
 import org.sonar.core.persistence.AbstractDaoTestCase;
 import org.sonar.core.persistence.MyBatis;
+import org.sonar.core.persistence.dialect.Oracle;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
+import java.util.List;
+
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
 
 public class IssueStorageTest extends AbstractDaoTestCase {
 
@@ -147,6 +153,71 @@ public class IssueStorageTest extends AbstractDaoTestCase {
     checkTables("should_resolve_conflicts_on_updates", new String[]{"id", "created_at", "updated_at"}, "issues");
   }
 
+  @Test
+  public void should_resolve_only_conflicting_updates() throws Exception {
+    setupData("should_resolve_only_conflicting_updates");
+
+    FakeSaver saver = new FakeSaver(getMyBatis(), new FakeRuleFinder());
+    saver.save(conflictingAndNotConflictingIssues());
+
+    checkTables("should_resolve_only_conflicting_updates", new String[]{"id", "created_at", "updated_at"}, "issues");
+  }
+
+  @Test
+  public void should_update_one_by_one_when_driver_does_not_return_batch_counts() throws Exception {
+    setupData("should_resolve_only_conflicting_updates");
+
+    MyBatis mybatis = spy(getMyBatis());
+    doReturn(new Oracle()).when(mybatis).getDialect();
+    FakeSaver saver = new FakeSaver(mybatis, new FakeRuleFinder());
+    saver.save(conflictingAndNotConflictingIssues());
+
+    checkTables("should_resolve_only_conflicting_updates", new String[]{"id", "created_at", "updated_at"}, "issues");
+  }
+
+  private List<DefaultIssue> conflictingAndNotConflictingIssues() {
+    Date date = DateUtils.parseDate("2013-05-18");
+    DefaultIssue conflicting = new DefaultIssue()
+      .setKey("ABCDE")
+      .setNew(false)
+      .setChanged(true)
+      .setCreationDate(DateUtils.parseDate("2005-05-12"))
+      .setUpdateDate(date)
+      .setRuleKey(RuleKey.of("squid", "AvoidCycles"))
+      .setComponentKey("struts:Action")
+
+        // issue in database has been updated in 2013, after the loading by scan
+      .setSelectedAt(DateUtils.parseDate("2005-01-01"))
+      .setLine(444)
+      .setSeverity("BLOCKER")
+      .setChecksum("FFFFF")
+      .setAttribute("JIRA", "http://jira.com")
+      .setAssignee("looser")
+      .setResolution(null)
+      .setStatus("REOPEN");
+
+    DefaultIssue notConflicting = new DefaultIssue()
+      .setKey("FGHIJ")
+      .setNew(false)
+      .setChanged(true)
+      .setCreationDate(DateUtils.parseDate("2005-05-12"))
+      .setUpdateDate(date)
+      .setRuleKey(RuleKey.of("squid", "AvoidCycles"))
+      .setComponentKey("struts:Action")
+
+        // issue in database has not been updated since the loading by scan
+      .setSelectedAt(DateUtils.parseDate("2006-01-01"))
+      .setLine(444)
+      .setSeverity("BLOCKER")
+      .setChecksum("FFFFF")
+      .setAttribute("JIRA", "http://jira.com")
+      .setAssignee("looser")
+      .setResolution(null)
+      .setStatus("REOPEN");
+
+    return Arrays.asList(conflicting, notConflicting);
+  }
+
   static class FakeSaver extends IssueStorage {
     protected FakeSaver(MyBatis mybatis, RuleFinder ruleFinder) {
       super(mybatis, ruleFinder);
@@ -22,6 +22,7 @@ package org.sonar.core.measure;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.sonar.api.config.Settings;
 import org.sonar.api.measures.CoreMetrics;
 import org.sonar.api.measures.Metric;
 import org.sonar.api.utils.DateUtils;
@@ -57,7 +58,7 @@ public class MeasureFilterExecutorTest {
 
   @Before
   public void before() {
-    executor = new MeasureFilterExecutor(db.myBatis(), db.database(), new ResourceDao(db.myBatis()));
+    executor = new MeasureFilterExecutor(db.myBatis(), db.database(), new ResourceDao(db.myBatis()), new MeasureFilterStore(db.myBatis(), db.database(), new Settings()));
   }
 
   @Test
@@ -0,0 +1,191 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.measure;
+
+import org.apache.ibatis.session.SqlSession;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.config.Settings;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.sonar.api.measures.Metric;
+import org.sonar.core.persistence.MyBatis;
+import org.sonar.core.persistence.TestDatabase;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class MeasureFilterStoreTest {
+
+  private static final Metric METRIC_LINES = new Metric.Builder("lines", "Lines", Metric.ValueType.INT).create().setId(1);
+  private static final Metric METRIC_PROFILE = new Metric.Builder("profile", "Profile", Metric.ValueType.STRING).create().setId(2);
+  private static final Metric METRIC_COVERAGE = new Metric.Builder("coverage", "Coverage", Metric.ValueType.FLOAT).create().setId(3);
+
+  @Rule
+  public TestDatabase db = new TestDatabase();
+
+  private MeasureFilterStore store;
+
+  @Before
+  public void before() {
+    db.prepareDbUnit(MeasureFilterExecutorTest.class, "shared.xml");
+    Settings settings = new Settings().setProperty(MeasureFilterStore.ENABLED_PROPERTY, true);
+    store = new MeasureFilterStore(db.myBatis(), db.database(), settings);
+  }
+
+  @Test
+  public void should_be_disabled_by_default() {
+    store = new MeasureFilterStore(db.myBatis(), db.database(), new Settings());
+
+    assertThat(store.isEnabled()).isFalse();
+    assertThat(store.supports(new MeasureFilter().setResourceQualifiers(Arrays.asList("TRK")))).isFalse();
+  }
+
+  @Test
+  public void should_support_only_filters_on_projects() {
+    assertThat(store.supports(new MeasureFilter().setResourceQualifiers(Arrays.asList("TRK")))).isTrue();
+    assertThat(store.supports(new MeasureFilter().setResourceQualifiers(Arrays.asList("TRK")).setResourceLanguages(Arrays.asList("java")))).isTrue();
+    assertThat(store.supports(new MeasureFilter().setResourceQualifiers(Arrays.asList("TRK")).setSortOnMetric(METRIC_LINES))).isTrue();
+    assertThat(store.supports(new MeasureFilter().setResourceQualifiers(Arrays.asList("TRK"))
+      .addCondition(new MeasureFilterCondition(METRIC_LINES, MeasureFilterCondition.Operator.GREATER, 0.0)))).isTrue();
+
+    assertThat(store.supports(new MeasureFilter().setResourceQualifiers(Arrays.asList("CLA")))).isFalse();
+    assertThat(store.supports(new MeasureFilter().setResourceQualifiers(Arrays.asList("TRK")).setResourceName("java"))).isFalse();
+    assertThat(store.supports(new MeasureFilter().setResourceQualifiers(Arrays.asList("TRK")).setBaseResourceKey("java_project"))).isFalse();
+    assertThat(store.supports(new MeasureFilter().setResourceQualifiers(Arrays.asList("TRK")).setSortOnMetric(METRIC_PROFILE))).isFalse();
+    assertThat(store.supports(new MeasureFilter().setResourceQualifiers(Arrays.asList("TRK")).setSortOn(MeasureFilterSort.Field.VERSION))).isFalse();
+    assertThat(store.supports(new MeasureFilter().setResourceQualifiers(Arrays.asList("TRK"))
+      .addCondition(new MeasureFilterCondition(METRIC_PROFILE, MeasureFilterCondition.Operator.IN, "('Sonar way')")))).isFalse();
+  }
+
+  @Test
+  public void should_support_only_loaded_periods() {
+    assertThat(store.supports(new MeasureFilter().setResourceQualifiers(Arrays.asList("TRK"))
+      .addCondition(new MeasureFilterCondition(METRIC_LINES, MeasureFilterCondition.Operator.GREATER, 0.0).setPeriod(5)))).isTrue();
+    assertThat(store.supports(new MeasureFilter().setResourceQualifiers(Arrays.asList("TRK")).setSortOnMetric(METRIC_LINES).setSortOnPeriod(5))).isTrue();
+
+    assertThat(store.supports(new MeasureFilter().setResourceQualifiers(Arrays.asList("TRK"))
+      .addCondition(new MeasureFilterCondition(METRIC_LINES, MeasureFilterCondition.Operator.GREATER, 0.0).setPeriod(6)))).isFalse();
+    assertThat(store.supports(new MeasureFilter().setResourceQualifiers(Arrays.asList("TRK")).setSortOnMetric(METRIC_LINES).setSortOnPeriod(6))).isFalse();
+  }
+
+  @Test
+  public void should_sort_by_name() throws SQLException {
+    List<MeasureFilterRow> rows = store.execute(new MeasureFilter().setResourceQualifiers(Arrays.asList("TRK")).setSortAsc(false));
+
+    assertThat(rows).hasSize(2);
+    assertThat(rows.get(0).getSnapshotId()).isEqualTo(110L);
+    assertThat(rows.get(1).getSnapshotId()).isEqualTo(101L);
+  }
+
+  @Test
+  public void should_filter_by_language() throws SQLException {
+    List<MeasureFilterRow> rows = store.execute(new MeasureFilter().setResourceQualifiers(Arrays.asList("TRK")).setResourceLanguages(Arrays.asList("php")));
+
+    assertThat(rows).hasSize(1);
+    assertThat(rows.get(0).getSnapshotId()).isEqualTo(110L);
+    assertThat(rows.get(0).getResourceId()).isEqualTo(10L);
+    assertThat(rows.get(0).getResourceRootId()).isEqualTo(10L);
+  }
+
+  @Test
+  public void should_filter_and_sort_by_measures() throws SQLException {
+    MeasureFilter filter = new MeasureFilter().setResourceQualifiers(Arrays.asList("TRK"))
+      .addCondition(new MeasureFilterCondition(METRIC_LINES, MeasureFilterCondition.Operator.GREATER, 500.0))
+      .setSortOnMetric(METRIC_LINES).setSortAsc(false);
+    List<MeasureFilterRow> rows = store.execute(filter);
+
+    assertThat(rows).hasSize(2);
+    assertThat(rows.get(0).getSnapshotId()).isEqualTo(110L);
+    assertThat(rows.get(0).getSortDouble()).isEqualTo(5000.0);
+    assertThat(rows.get(1).getSnapshotId()).isEqualTo(101L);
+  }
+
+  @Test
+  public void should_filter_on_variations() throws SQLException {
+    MeasureFilter filter = new MeasureFilter().setResourceQualifiers(Arrays.asList("TRK"))
+      .addCondition(new MeasureFilterCondition(METRIC_LINES, MeasureFilterCondition.Operator.LESS_OR_EQUALS, 400.0).setPeriod(5));
+    List<MeasureFilterRow> rows = store.execute(filter);
+
+    assertThat(rows).hasSize(1);
+    assertThat(rows.get(0).getSnapshotId()).isEqualTo(101L);
+  }
+
+  @Test
+  public void should_exclude_resources_without_condition_measure() throws SQLException {
+    // only the java project has coverage
+    MeasureFilter filter = new MeasureFilter().setResourceQualifiers(Arrays.asList("TRK"))
+      .addCondition(new MeasureFilterCondition(METRIC_COVERAGE, MeasureFilterCondition.Operator.GREATER_OR_EQUALS, 0.0));
+    List<MeasureFilterRow> rows = store.execute(filter);
+
+    assertThat(rows).hasSize(1);
+    assertThat(rows.get(0).getSnapshotId()).isEqualTo(101L);
+  }
+
+  @Test
+  public void should_put_missing_sort_measures_last() throws SQLException {
+    MeasureFilter filter = new MeasureFilter().setResourceQualifiers(Arrays.asList("TRK")).setSortOnMetric(METRIC_COVERAGE).setSortAsc(false);
+    List<MeasureFilterRow> rows = store.execute(filter);
+
+    assertThat(rows).hasSize(2);
+    assertThat(rows.get(0).getSnapshotId()).isEqualTo(101L);
+    assertThat(rows.get(1).getSnapshotId()).isEqualTo(110L);
+    assertThat(rows.get(1).getSortDouble()).isNull();
+  }
+
+  @Test
+  public void should_reload_measures_when_invalidated() throws SQLException {
+    MeasureFilter filter = new MeasureFilter().setResourceQualifiers(Arrays.asList("TRK"));
+    assertThat(store.execute(filter)).hasSize(2);
+
+    db.prepareDbUnit(MeasureFilterExecutorTest.class, "ignore_person_measures.xml");
+    assertThat(store.execute(filter)).hasSize(2);
+
+    store.invalidate();
+    assertThat(store.execute(filter)).hasSize(1);
+  }
+
+  @Test
+  public void should_not_keep_measures_loaded_during_invalidation() throws SQLException {
+    MyBatis mybatis = spy(db.myBatis());
+    store = new MeasureFilterStore(mybatis, db.database(), new Settings().setProperty(MeasureFilterStore.ENABLED_PROPERTY, true));
+    doAnswer(new Answer<SqlSession>() {
+      public SqlSession answer(InvocationOnMock invocation) throws Throwable {
+        // an analysis completes while measures are being loaded
+        store.invalidate();
+        return (SqlSession) invocation.callRealMethod();
+      }
+    }).when(mybatis).openSession();
+
+    MeasureFilter filter = new MeasureFilter().setResourceQualifiers(Arrays.asList("TRK"));
+    store.execute(filter);
+    store.execute(filter);
+
+    verify(mybatis, times(2)).openSession();
+  }
+}
@@ -0,0 +1,155 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.metadata;
+
+import org.junit.Test;
+import org.sonar.api.component.Component;
+import org.sonar.api.rules.Rule;
+import org.sonar.api.user.User;
+import org.sonar.api.user.UserFinder;
+import org.sonar.core.component.ComponentDto;
+import org.sonar.core.resource.ResourceDao;
+import org.sonar.core.rule.DefaultRuleFinder;
+import org.sonar.core.user.DefaultUser;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class MetadataCacheTest {
+
+  DefaultRuleFinder ruleFinder = mock(DefaultRuleFinder.class);
+  UserFinder userFinder = mock(UserFinder.class);
+  ResourceDao resourceDao = mock(ResourceDao.class);
+  MetadataCache cache = new MetadataCache(ruleFinder, userFinder, resourceDao, 2, 2, 2);
+
+  @Test
+  public void should_load_missing_rules_only() {
+    Rule rule1 = rule(1);
+    Rule rule2 = rule(2);
+    when(ruleFinder.findByIds(Arrays.asList(1, 2))).thenReturn(Arrays.asList(rule1, rule2));
+
+    assertThat(cache.rules(Arrays.asList(1, 2))).containsOnly(rule1, rule2);
+    assertThat(cache.rules(Arrays.asList(1, 2))).containsOnly(rule1, rule2);
+
+    verify(ruleFinder, times(1)).findByIds(anyCollectionOf(Integer.class));
+  }
+
+  @Test
+  public void should_evict_least_recently_used_rules() {
+    Rule rule1 = rule(1);
+    Rule rule2 = rule(2);
+    Rule rule3 = rule(3);
+    when(ruleFinder.findByIds(Arrays.asList(1, 2))).thenReturn(Arrays.asList(rule1, rule2));
+    when(ruleFinder.findByIds(Arrays.asList(3))).thenReturn(Arrays.asList(rule3));
+    when(ruleFinder.findByIds(Arrays.asList(1))).thenReturn(Arrays.asList(rule1));
+
+    cache.rules(Arrays.asList(1, 2));
+    cache.rules(Arrays.asList(2));
+    cache.rules(Arrays.asList(3));
+    assertThat(cache.rules(Arrays.asList(1))).containsOnly(rule1);
+
+    verify(ruleFinder).findByIds(Arrays.asList(1));
+  }
+
+  @Test
+  public void should_invalidate_rules() {
+    Rule rule = rule(1);
+    when(ruleFinder.findByIds(Arrays.asList(1))).thenReturn(Arrays.asList(rule));
+
+    cache.rules(Arrays.asList(1));
+    cache.invalidateRules();
+    cache.rules(Arrays.asList(1));
+
+    verify(ruleFinder, times(2)).findByIds(Arrays.asList(1));
+  }
+
+  @Test
+  public void should_cache_users() {
+    User user = new DefaultUser().setLogin("simon").setName("Simon");
+    when(userFinder.findByLogins(Arrays.asList("simon", "unknown"))).thenReturn(Arrays.asList(user));
+    when(userFinder.findByLogins(Arrays.asList("unknown"))).thenReturn(Collections.<User>emptyList());
+
+    assertThat(cache.users(Arrays.asList("simon", "unknown"))).containsOnly(user);
+    assertThat(cache.users(Arrays.asList("simon", "unknown"))).containsOnly(user);
+    verify(userFinder).findByLogins(Arrays.asList("unknown"));
+
+    cache.invalidateUsers();
+    cache.users(Arrays.asList("simon", "unknown"));
+    verify(userFinder, times(2)).findByLogins(Arrays.asList("simon", "unknown"));
+  }
+
+  @Test
+  public void should_cache_components() {
+    Component component = new ComponentDto().setId(10L).setKey("struts");
+    when(resourceDao.findByIds(Arrays.asList(10L))).thenReturn(Arrays.asList(component));
+
+    assertThat(cache.components(Arrays.asList(10L))).containsOnly(component);
+    assertThat(cache.components(Arrays.asList(10L))).containsOnly(component);
+    verify(resourceDao, times(1)).findByIds(anyCollectionOf(Long.class));
+
+    cache.invalidateComponents();
+    cache.components(Arrays.asList(10L));
+    verify(resourceDao, times(2)).findByIds(anyCollectionOf(Long.class));
+  }
+
+  @Test
+  public void should_not_load_anything_if_no_keys() {
+    assertThat(cache.rules(Collections.<Integer>emptyList())).isEmpty();
+    assertThat(cache.users(Collections.<String>emptyList())).isEmpty();
+    assertThat(cache.components(Collections.<Long>emptyList())).isEmpty();
+
+    verifyZeroInteractions(ruleFinder, userFinder, resourceDao);
+  }
+
+  @Test
+  public void should_cache_detached_copies_of_rules() {
+    Rule parent = rule(1);
+    Rule rule = rule(2);
+    rule.setName("Avoid cycles");
+    rule.setDescription("Description");
+    rule.setStatus(Rule.STATUS_BETA);
+    rule.setParent(parent);
+    rule.createParameter("max").setDefaultValue("10");
+    when(ruleFinder.findByIds(Arrays.asList(2))).thenReturn(Arrays.asList(rule));
+
+    Rule cached = cache.rules(Arrays.asList(2)).iterator().next();
+
+    assertThat(cached).isNotSameAs(rule);
+    assertThat(cached.getId()).isEqualTo(2);
+    assertThat(cached.ruleKey()).isEqualTo(rule.ruleKey());
+    assertThat(cached.getName()).isEqualTo("Avoid cycles");
+    assertThat(cached.getDescription()).isEqualTo("Description");
+    assertThat(cached.getStatus()).isEqualTo(Rule.STATUS_BETA);
+    assertThat(cached.getParent().getId()).isEqualTo(1);
+    assertThat(cached.getParent()).isNotSameAs(parent);
+    assertThat(cached.getParams()).isNotSameAs(rule.getParams());
+    assertThat(cached.getParam("max").getDefaultValue()).isEqualTo("10");
+    assertThat(cached.getParam("max").getRule()).isSameAs(cached);
+  }
+
+  private static Rule rule(int id) {
+    Rule rule = Rule.create("squid", "Rule" + id);
+    rule.setId(id);
+    return rule;
+  }
+}
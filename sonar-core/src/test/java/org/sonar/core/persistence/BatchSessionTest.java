@@ -51,4 +51,19 @@ public class BatchSessionTest {
       }
       verify(mybatisSession, times(3)).commit();
     }
+
+  @Test
+  public void shouldFlushWithoutCommittingWhenNoAutoCommit() {
+    SqlSession mybatisSession = mock(SqlSession.class);
+    BatchSession session = new BatchSession(mybatisSession, 10, false);
+
+    for (int i = 0; i < 35; i++) {
+      session.insert("id" + i);
+    }
+    verify(mybatisSession, times(3)).flushStatements();
+    verify(mybatisSession, never()).commit();
+
+    session.commit();
+    verify(mybatisSession).commit();
+  }
 }
@@ -28,6 +28,7 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 import org.sonar.api.config.Settings;
 import org.sonar.core.config.Logback;
+import org.sonar.core.profiling.ProfilingRegistry;
 import org.sonar.core.rule.RuleMapper;
 
 import static org.hamcrest.Matchers.notNullValue;
@@ -75,6 +76,20 @@ public class MyBatisTest {
     }
   }
 
+  @Test
+  public void shouldCountOpenedSessions() {
+    ProfilingRegistry profiling = new ProfilingRegistry();
+    MyBatis myBatis = new MyBatis(database, new Settings(), logback, profiling);
+    myBatis.start();
+
+    MyBatis.closeQuietly(myBatis.openSession());
+    MyBatis.closeQuietly(myBatis.openSession());
+    MyBatis.closeQuietly(myBatis.openBatchSession());
+
+    assertThat(profiling.counter("db.sessions").count(), Is.is(2L));
+    assertThat(profiling.counter("db.batch_sessions").count(), Is.is(1L));
+  }
+
   @Test
   public void log_sql_requests() {
     Settings settings = new Settings()
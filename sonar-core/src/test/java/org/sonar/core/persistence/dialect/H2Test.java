@@ -46,4 +46,9 @@ public class H2Test {
     assertThat(h2.getDefaultDriverClassName()).isEqualTo("org.h2.Driver");
     assertThat(h2.getValidationQuery()).isEqualTo("SELECT 1");
   }
+
+  @Test
+  public void should_support_batch_update_counts() {
+    assertThat(h2.supportsBatchUpdateCounts()).isTrue();
+  }
 }
@@ -63,4 +63,9 @@ public class OracleTest {
     assertThat(oracle.getDefaultDriverClassName()).isEqualTo("oracle.jdbc.OracleDriver");
     assertThat(oracle.getValidationQuery()).isEqualTo("SELECT 1 FROM DUAL");
   }
+
+  @Test
+  public void should_not_support_batch_update_counts() {
+    assertThat(oracle.supportsBatchUpdateCounts()).isFalse();
+  }
 }
@@ -0,0 +1,76 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.profiling;
+
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class HistogramTest {
+
+  @Test
+  public void should_compute_statistics() {
+    Histogram histogram = new Histogram();
+    for (int i = 1; i <= 100; i++) {
+      histogram.update(i);
+    }
+
+    assertThat(histogram.count()).isEqualTo(100L);
+    assertThat(histogram.sum()).isEqualTo(5050L);
+    assertThat(histogram.min()).isEqualTo(1L);
+    assertThat(histogram.max()).isEqualTo(100L);
+    assertThat(histogram.mean()).isEqualTo(50.5);
+  }
+
+  @Test
+  public void should_approximate_percentiles_by_upper_bound_of_power_of_two() {
+    Histogram histogram = new Histogram();
+    for (int i = 1; i <= 100; i++) {
+      histogram.update(i);
+    }
+
+    assertThat(histogram.percentile(0.5)).isEqualTo(63L);
+    // bounded by max
+    assertThat(histogram.percentile(0.95)).isEqualTo(100L);
+    assertThat(histogram.percentile(1.0)).isEqualTo(100L);
+    // bounded by min
+    assertThat(histogram.percentile(0.0)).isEqualTo(1L);
+  }
+
+  @Test
+  public void should_be_empty() {
+    Histogram histogram = new Histogram();
+
+    assertThat(histogram.count()).isEqualTo(0L);
+    assertThat(histogram.min()).isEqualTo(0L);
+    assertThat(histogram.max()).isEqualTo(0L);
+    assertThat(histogram.mean()).isEqualTo(0.0);
+    assertThat(histogram.percentile(0.99)).isEqualTo(0L);
+  }
+
+  @Test
+  public void should_record_negative_values_as_zero() {
+    Histogram histogram = new Histogram();
+    histogram.update(-5L);
+
+    assertThat(histogram.min()).isEqualTo(0L);
+    assertThat(histogram.sum()).isEqualTo(0L);
+  }
+}
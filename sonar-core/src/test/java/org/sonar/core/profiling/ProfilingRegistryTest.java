@@ -0,0 +1,75 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.profiling;
+
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class ProfilingRegistryTest {
+
+  ProfilingRegistry registry = new ProfilingRegistry();
+
+  @Test
+  public void should_create_metrics_once() {
+    assertThat(registry.counter("foo")).isSameAs(registry.counter("foo"));
+    assertThat(registry.timer("foo")).isSameAs(registry.timer("foo"));
+    assertThat(registry.histogram("foo")).isSameAs(registry.histogram("foo"));
+    assertThat(registry.counter("foo")).isNotSameAs(registry.counter("bar"));
+  }
+
+  @Test
+  public void should_count() {
+    Counter counter = registry.counter("foo");
+    counter.inc();
+    counter.inc(3);
+
+    assertThat(registry.counter("foo").count()).isEqualTo(4L);
+  }
+
+  @Test
+  public void should_record_durations_in_microseconds() {
+    Timer timer = registry.timer("foo");
+    timer.update(3, TimeUnit.MILLISECONDS);
+    long nanos = timer.start().stop();
+
+    assertThat(nanos).isGreaterThanOrEqualTo(0L);
+    assertThat(timer.durations().count()).isEqualTo(2L);
+    assertThat(timer.durations().max()).isGreaterThanOrEqualTo(3000L);
+  }
+
+  @Test
+  public void should_export_json_sorted_by_name() throws Exception {
+    registry.counter("db.sessions").inc(2);
+    registry.counter("batch.cache.get").inc();
+    registry.timer("batch.sensor.Foo").update(1500, TimeUnit.MICROSECONDS);
+    registry.histogram("batch.issues").update(4);
+
+    StringWriter writer = new StringWriter();
+    registry.writeJson(writer);
+
+    String json = writer.toString();
+    assertThat(json).startsWith("{\"counters\":{\"batch.cache.get\":1,\"db.sessions\":2},\"timers\":{\"batch.sensor.Foo\":{\"count\":1,\"sum\":1.5,");
+    assertThat(json).contains("\"histograms\":{\"batch.issues\":{\"count\":1,\"sum\":4,\"min\":4,\"max\":4,\"mean\":4.0,\"p50\":4,\"p95\":4,\"p99\":4}}");
+  }
+}
@@ -22,8 +22,14 @@ package org.sonar.core.resource;
 import org.junit.Before;
 import org.junit.Test;
 import org.sonar.api.resources.Qualifiers;
+import org.sonar.api.resources.Scopes;
 import org.sonar.core.persistence.AbstractDaoTestCase;
 
+import java.util.Arrays;
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+
 public class ResourceIndexerDaoTest extends AbstractDaoTestCase {
 
   private static ResourceIndexerDao dao;
@@ -113,4 +119,34 @@ public class ResourceIndexerDaoTest extends AbstractDaoTestCase {
 
     checkTables("shouldNotReindexUnchangedResource", new String[] {"id"}, "resource_index");
   }
+
+  @Test
+  public void shouldIndexResourcesIncrementally() {
+    setupData("shouldIndexResourcesIncrementally");
+
+    dao.indexResources(1L, Arrays.asList(
+      new ResourceDto().setId(1L).setName("Apache Struts").setScope(Scopes.PROJECT).setQualifier(Qualifiers.PROJECT),
+      new ResourceDto().setId(10L).setName("Action").setScope(Scopes.FILE).setQualifier(Qualifiers.CLASS),
+      new ResourceDto().setId(11L).setName("Util").setScope(Scopes.FILE).setQualifier(Qualifiers.CLASS),
+      // not indexed
+      new ResourceDto().setId(12L).setName("commons-lang").setScope(Scopes.PROJECT).setQualifier(Qualifiers.LIBRARY)
+    ));
+
+    checkTables("shouldIndexResourcesIncrementally", new String[] {"id"}, "resource_index");
+  }
+
+  @Test
+  public void shouldSelectMasterIndexes() {
+    setupData("shouldIndexResourcesIncrementally");
+
+    List<ResourceIndexDto> indexes = dao.selectMasterIndexes(1L);
+    assertThat(indexes).hasSize(2);
+    ResourceIndexDto struts = indexes.get(0).getResourceId() == 1L ? indexes.get(0) : indexes.get(1);
+    assertThat(struts.getKey()).isEqualTo("struts");
+    assertThat(struts.getRootProjectId()).isEqualTo(1L);
+    assertThat(struts.getQualifier()).isEqualTo("TRK");
+    assertThat(struts.getNameSize()).isEqualTo(6);
+
+    assertThat(dao.selectMasterIndexes(null)).hasSize(3);
+  }
 }
@@ -0,0 +1,201 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.resource;
+
+import com.google.common.collect.Lists;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonar.api.CoreProperties;
+import org.sonar.api.config.Settings;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ResourceSearchIndexTest {
+
+  ResourceIndexerDao dao = mock(ResourceIndexerDao.class);
+  Settings settings = new Settings();
+  ResourceSearchIndex index = new ResourceSearchIndex(dao, settings, 20);
+
+  @Before
+  public void before() {
+    settings.setProperty(CoreProperties.CORE_IN_MEMORY_RESOURCE_SEARCH_PROPERTY, true);
+    when(dao.selectMasterIndexes(null)).thenReturn(Arrays.asList(
+      masterIndex("apache struts", 1L, 1L, "TRK"),
+      masterIndex("action", 10L, 1L, "CLA"),
+      masterIndex("struts", 20L, 2L, "TRK"),
+      masterIndex("ab", 21L, 2L, "TRK")
+    ));
+  }
+
+  @Test
+  public void should_search_by_prefix_of_words() {
+    assertThat(resourceIds(index.search("str", null))).containsExactly(20L, 1L);
+    assertThat(resourceIds(index.search("STRUTS", null))).containsExactly(20L, 1L);
+    assertThat(resourceIds(index.search("ac", null))).containsExactly(10L, 1L);
+    assertThat(resourceIds(index.search("ab", null))).containsExactly(21L);
+    assertThat(index.search("zzz", null)).isEmpty();
+    assertThat(index.search("", null)).isEmpty();
+  }
+
+  @Test
+  public void should_have_same_positions_than_database_index() {
+    // the last indexed suffix of "struts" is "uts"
+    assertThat(resourceIds(index.search("uts", null))).containsExactly(20L, 1L);
+    assertThat(index.search("ts", null)).isEmpty();
+  }
+
+  @Test
+  public void should_filter_by_qualifiers() {
+    assertThat(resourceIds(index.search("a", Arrays.asList("CLA")))).containsExactly(10L);
+    assertThat(resourceIds(index.search("a", Collections.<String>emptyList()))).containsExactly(21L, 10L, 1L);
+  }
+
+  @Test
+  public void should_return_root_project_and_name_size() {
+    ResourceIndexDto result = index.search("action", null).get(0);
+    assertThat(result.getResourceId()).isEqualTo(10L);
+    assertThat(result.getRootProjectId()).isEqualTo(1L);
+    assertThat(result.getQualifier()).isEqualTo("CLA");
+    assertThat(result.getNameSize()).isEqualTo(6);
+  }
+
+  @Test
+  public void should_load_index_once() {
+    index.search("str", null);
+    index.search("act", null);
+
+    verify(dao, times(1)).selectMasterIndexes(null);
+  }
+
+  @Test
+  public void should_reload_project() {
+    index.search("str", null);
+    when(dao.selectMasterIndexes(1L)).thenReturn(Arrays.asList(masterIndex("apache struts 2", 1L, 1L, "TRK")));
+
+    index.reloadProject(1L);
+
+    assertThat(resourceIds(index.search("str", null))).containsExactly(20L, 1L);
+    assertThat(index.search("act", null)).isEmpty();
+    verify(dao, times(1)).selectMasterIndexes(null);
+  }
+
+  @Test
+  public void should_not_reload_project_if_index_is_not_loaded() {
+    index.reloadProject(1L);
+
+    verify(dao, times(0)).selectMasterIndexes(1L);
+  }
+
+  @Test
+  public void should_remove_project() {
+    index.search("str", null);
+
+    index.removeProject(2L);
+
+    assertThat(resourceIds(index.search("str", null))).containsExactly(1L);
+  }
+
+  @Test
+  public void should_load_again_after_invalidation() {
+    index.search("str", null);
+
+    index.invalidate();
+    index.search("str", null);
+
+    verify(dao, times(2)).selectMasterIndexes(null);
+  }
+
+  @Test
+  public void should_sort_many_suffixes() {
+    List<ResourceIndexDto> masterIndexes = Lists.newArrayList();
+    for (int i = 0; i < 500; i++) {
+      // names are not sorted
+      masterIndexes.add(masterIndex("class" + ((i * 7919) % 500) + "test", i, 1L, "CLA"));
+    }
+    when(dao.selectMasterIndexes(null)).thenReturn(masterIndexes);
+    index = new ResourceSearchIndex(dao, settings, 100000);
+
+    assertThat(index.search("class42", null)).hasSize(11);
+    assertThat(index.search("42te", null)).hasSize(5);
+    assertThat(index.search("test", null)).hasSize(500);
+  }
+
+  @Test
+  public void should_return_null_if_disabled() {
+    settings.setProperty(CoreProperties.CORE_IN_MEMORY_RESOURCE_SEARCH_PROPERTY, false);
+
+    assertThat(index.search("str", null)).isNull();
+    verify(dao, never()).selectMasterIndexes(null);
+  }
+
+  @Test
+  public void should_release_index_when_disabled() {
+    index.search("str", null);
+    settings.setProperty(CoreProperties.CORE_IN_MEMORY_RESOURCE_SEARCH_PROPERTY, false);
+    assertThat(index.search("str", null)).isNull();
+
+    settings.setProperty(CoreProperties.CORE_IN_MEMORY_RESOURCE_SEARCH_PROPERTY, true);
+    index.search("str", null);
+    verify(dao, times(2)).selectMasterIndexes(null);
+  }
+
+  @Test
+  public void should_return_null_if_too_many_suffixes() {
+    // the fixture has 20 suffixes
+    index = new ResourceSearchIndex(dao, settings, 19);
+
+    assertThat(index.search("str", null)).isNull();
+    assertThat(index.search("act", null)).isNull();
+    // not loaded again until invalidation
+    verify(dao, times(1)).selectMasterIndexes(null);
+  }
+
+  @Test
+  public void should_return_null_if_too_many_suffixes_after_reload() {
+    index.search("str", null);
+    when(dao.selectMasterIndexes(1L)).thenReturn(Arrays.asList(masterIndex("apache struts version two", 1L, 1L, "TRK")));
+
+    index.reloadProject(1L);
+
+    assertThat(index.search("str", null)).isNull();
+  }
+
+  private static ResourceIndexDto masterIndex(String key, long resourceId, long rootProjectId, String qualifier) {
+    return new ResourceIndexDto().setKey(key).setPosition(0).setResourceId(resourceId).setRootProjectId(rootProjectId)
+      .setQualifier(qualifier).setNameSize(key.length());
+  }
+
+  private static List<Long> resourceIds(List<ResourceIndexDto> dtos) {
+    List<Long> ids = Lists.newArrayList();
+    for (ResourceIndexDto dto : dtos) {
+      ids.add(dto.getResourceId());
+    }
+    return ids;
+  }
+}
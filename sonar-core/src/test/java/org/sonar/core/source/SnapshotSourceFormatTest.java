@@ -0,0 +1,66 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.source;
+
+import org.junit.Test;
+import org.sonar.api.utils.SonarException;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class SnapshotSourceFormatTest {
+
+  @Test
+  public void should_compress_and_decode() {
+    StringBuilder source = new StringBuilder();
+    for (int i = 0; i < 100; i++) {
+      source.append("public void method").append(i).append("() {\n  // caf\u00e9\n}\n");
+    }
+
+    String data = SnapshotSourceFormat.compress(source.toString());
+
+    assertThat(SnapshotSourceFormat.isCompressed(data)).isTrue();
+    assertThat(data.length()).isLessThan(source.length() / 2);
+    assertThat(SnapshotSourceFormat.decode(data)).isEqualTo(source.toString());
+  }
+
+  @Test
+  public void should_keep_plain_text_when_compression_is_useless() {
+    assertThat(SnapshotSourceFormat.compress("a")).isEqualTo("a");
+    assertThat(SnapshotSourceFormat.compress("")).isEqualTo("");
+  }
+
+  @Test
+  public void should_decode_plain_text() {
+    assertThat(SnapshotSourceFormat.isCompressed("public class Foo {}")).isFalse();
+    assertThat(SnapshotSourceFormat.decode("public class Foo {}")).isEqualTo("public class Foo {}");
+    assertThat(SnapshotSourceFormat.decode(null)).isNull();
+  }
+
+  @Test(expected = SonarException.class)
+  public void should_fail_on_truncated_data() {
+    StringBuilder source = new StringBuilder();
+    for (int i = 0; i < 100; i++) {
+      source.append("line ").append(i).append('\n');
+    }
+    String data = SnapshotSourceFormat.compress(source.toString());
+
+    SnapshotSourceFormat.decode(data.substring(0, data.length() / 2));
+  }
+}
@@ -49,6 +49,15 @@ public class SnapshotDataDaoTest extends AbstractDaoTestCase {
     assertThat(data).onProperty("data").containsOnly("0,10,k;", "20,25,20,35,45;");
   }
 
+  @Test
+  public void should_retrieve_last_snapshot_data_of_root_project() throws Exception {
+
+    Collection<SnapshotDataDto> data = dao.selectLastSnapshotDataOfRootProject(1L, "source_hash");
+
+    assertThat(data).onProperty("resourceId").containsOnly(2L);
+    assertThat(data).onProperty("data").containsOnly("abcd");
+  }
+
   @Test
   public void should_serialize_snapshot_data() throws Exception {
 
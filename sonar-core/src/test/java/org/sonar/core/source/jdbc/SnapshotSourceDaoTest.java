@@ -43,4 +43,25 @@ public class SnapshotSourceDaoTest extends AbstractDaoTestCase {
 
     assertThat(snapshotSource).isEqualTo("public class Foo {public Foo(){}}");
   }
+
+  @Test
+  public void should_decode_compressed_source() throws Exception {
+    String snapshotSource = dao.selectSnapshotSource(12L);
+
+    assertThat(snapshotSource).isEqualTo("public class Bar {}");
+  }
+
+  @Test
+  public void should_copy_source_of_last_snapshot() throws Exception {
+    assertThat(dao.insertCopyOfLastSnapshotSource(13L, 2L)).isTrue();
+
+    assertThat(dao.selectSnapshotSource(13L)).isEqualTo("public class Bar {}");
+  }
+
+  @Test
+  public void should_not_copy_if_last_snapshot_has_no_source() throws Exception {
+    assertThat(dao.insertCopyOfLastSnapshotSource(13L, 1L)).isFalse();
+
+    assertThat(dao.selectSnapshotSource(13L)).isNull();
+  }
 }
@@ -27,6 +27,8 @@ import org.junit.Test;
 import org.sonar.api.batch.DecoratorContext;
 import org.sonar.api.issue.Issue;
 import org.sonar.api.issue.internal.DefaultIssue;
+import org.sonar.api.measures.CoreMetrics;
+import org.sonar.api.measures.Measure;
 import org.sonar.api.measures.MeasuresFilter;
 import org.sonar.api.qualitymodel.Characteristic;
 import org.sonar.api.rule.RuleKey;
@@ -151,6 +153,49 @@ public class TechnicalDebtCalculatorTest {
     assertThat(remediationCostCalculator.getRequirementCosts().get(requirement2)).isEqualTo(1.0);
   }
 
+  @Test
+  public void compute_only_requirements_with_violations_or_children_costs() throws Exception {
+    Rule rule1 = Rule.create("repo1", "rule1");
+    Rule rule2 = Rule.create("repo2", "rule2");
+    TechnicalDebtRequirement requirement1 = mock(TechnicalDebtRequirement.class);
+    when(requirement1.toCharacteristic()).thenReturn(Characteristic.createByRule(rule1));
+    TechnicalDebtRequirement requirement2 = mock(TechnicalDebtRequirement.class);
+    when(requirement2.toCharacteristic()).thenReturn(Characteristic.createByRule(rule2));
+    TechnicalDebtRequirement requirementWithoutCost = mock(TechnicalDebtRequirement.class);
+
+    when(technicalDebtModel.getRequirementByRule("repo1", "rule1")).thenReturn(requirement1);
+    when(technicalDebtModel.getRequirementByRule("repo2", "rule2")).thenReturn(requirement2);
+    when(technicalDebtModel.getAllRequirements()).thenReturn(Lists.newArrayList(requirement1, requirement2, requirementWithoutCost));
+    when(functions.costInHours(any(TechnicalDebtRequirement.class), any(Collection.class))).thenReturn(1.0);
+
+    DecoratorContext context = mock(DecoratorContext.class);
+    when(context.getViolations()).thenReturn(Lists.newArrayList(buildViolation("rule1", "repo1", NOW)));
+    when(context.getChildrenMeasures(any(MeasuresFilter.class))).thenReturn(Lists.newArrayList(
+      buildRequirementMeasure(rule1, 2.0), buildRequirementMeasure(rule2, 3.0), buildRequirementMeasure(rule2, 4.0)));
+
+    remediationCostCalculator.compute(context);
+
+    assertThat(remediationCostCalculator.getTotal()).isEqualTo(10.0);
+    assertThat(remediationCostCalculator.getRequirementCosts()).hasSize(2);
+    assertThat(remediationCostCalculator.getRequirementCosts().get(requirement1)).isEqualTo(3.0);
+    assertThat(remediationCostCalculator.getRequirementCosts().get(requirement2)).isEqualTo(7.0);
+    verify(functions, times(1)).costInHours(any(TechnicalDebtRequirement.class), any(Collection.class));
+  }
+
+  @Test
+  public void root_characteristics_are_always_valued() throws Exception {
+    TechnicalDebtCharacteristic rootCharacteristic = new TechnicalDebtCharacteristic(Characteristic.create());
+    when(technicalDebtModel.getCharacteristics()).thenReturn(Lists.newArrayList(rootCharacteristic));
+
+    DecoratorContext context = mock(DecoratorContext.class);
+    when(context.getChildrenMeasures(any(MeasuresFilter.class))).thenReturn(Collections.EMPTY_LIST);
+
+    remediationCostCalculator.compute(context);
+
+    assertThat(remediationCostCalculator.getTotal()).isEqualTo(0.0);
+    assertThat(remediationCostCalculator.getCharacteristicCosts().get(rootCharacteristic)).isEqualTo(0.0);
+  }
+
   @Test
   public void technical_debt_from_one_issue() throws Exception {
     DefaultIssue issue = new DefaultIssue().setKey("ABCDE").setRuleKey(RuleKey.of("squid", "AvoidCycle"));
@@ -171,6 +216,12 @@ public class TechnicalDebtCalculatorTest {
     verify(functions, never()).costInMinutes(any(TechnicalDebtRequirement.class), any(Issue.class));
   }
 
+  private Measure buildRequirementMeasure(Rule rule, double value) {
+    Measure measure = new Measure(CoreMetrics.TECHNICAL_DEBT, value);
+    measure.setCharacteristic(Characteristic.createByRule(rule));
+    return measure;
+  }
+
   private Violation buildViolation(String ruleKey, String repositoryKey, Date creationDate) {
     Violation violation = mock(Violation.class);
     stub(violation.getRule()).toReturn(Rule.create(repositoryKey, ruleKey));
@@ -0,0 +1,87 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.user;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class AuthorizationCacheTest {
+
+  AuthorizationDao dao = mock(AuthorizationDao.class);
+  AuthorizationCache cache = new AuthorizationCache(dao, 2);
+
+  @Test
+  public void should_check_authorized_root_projects() {
+    when(dao.selectAuthorizedRootProjectsIds(10, "user")).thenReturn(Arrays.asList(300L, 100L, 200L));
+
+    assertThat(cache.isAuthorizedRootProjectId(100L, 10, "user")).isTrue();
+    assertThat(cache.isAuthorizedRootProjectId(300L, 10, "user")).isTrue();
+    assertThat(cache.isAuthorizedRootProjectId(150L, 10, "user")).isFalse();
+    assertThat(cache.keepAuthorizedRootProjectIds(Arrays.asList(100L, 150L, 200L), 10, "user")).containsOnly(100L, 200L);
+    assertThat(cache.selectAuthorizedRootProjectsIds(10, "user")).containsOnly(100L, 200L, 300L);
+
+    verify(dao, times(1)).selectAuthorizedRootProjectsIds(10, "user");
+  }
+
+  @Test
+  public void should_cache_each_role_and_anonymous_separately() {
+    when(dao.selectAuthorizedRootProjectsIds(10, "user")).thenReturn(Arrays.asList(100L));
+    when(dao.selectAuthorizedRootProjectsIds(10, "admin")).thenReturn(Arrays.<Long>asList());
+    when(dao.selectAuthorizedRootProjectsIds(null, "user")).thenReturn(Arrays.asList(200L));
+
+    assertThat(cache.isAuthorizedRootProjectId(100L, 10, "user")).isTrue();
+    assertThat(cache.isAuthorizedRootProjectId(100L, 10, "admin")).isFalse();
+    assertThat(cache.isAuthorizedRootProjectId(100L, null, "user")).isFalse();
+    assertThat(cache.isAuthorizedRootProjectId(200L, null, "user")).isTrue();
+  }
+
+  @Test
+  public void should_not_load_permissions_when_no_ids_to_filter() {
+    assertThat(cache.keepAuthorizedRootProjectIds(Arrays.<Long>asList(), 10, "user")).isEmpty();
+
+    verifyZeroInteractions(dao);
+  }
+
+  @Test
+  public void should_evict_least_recently_used_users() {
+    when(dao.selectAuthorizedRootProjectsIds(anyInt(), eq("user"))).thenReturn(Arrays.asList(100L));
+
+    cache.isAuthorizedRootProjectId(100L, 1, "user");
+    cache.isAuthorizedRootProjectId(100L, 2, "user");
+    cache.isAuthorizedRootProjectId(100L, 3, "user");
+    cache.isAuthorizedRootProjectId(100L, 1, "user");
+
+    verify(dao, times(2)).selectAuthorizedRootProjectsIds(1, "user");
+    verify(dao, times(1)).selectAuthorizedRootProjectsIds(3, "user");
+  }
+
+  @Test
+  public void should_invalidate() {
+    when(dao.selectAuthorizedRootProjectsIds(10, "user")).thenReturn(Arrays.asList(100L), Arrays.<Long>asList());
+
+    assertThat(cache.isAuthorizedRootProjectId(100L, 10, "user")).isTrue();
+    cache.invalidate();
+    assertThat(cache.isAuthorizedRootProjectId(100L, 10, "user")).isFalse();
+  }
+}
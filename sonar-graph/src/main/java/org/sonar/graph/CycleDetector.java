@@ -20,16 +20,33 @@
 package org.sonar.graph;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+/**
+ * Vertices are indexed and their edges copied in arrays, then cycles are searched only inside the
+ * strongly connected components having a cycle, as a cycle can not go through two components.
+ * Large graphs with several components are searched in parallel. When the number of cycles to find
+ * is limited, the whole graph is searched in the order of its vertices, so that the same cycles are
+ * found first whatever the components.
+ */
 public class CycleDetector<V> {
 
+  private static final int PARALLEL_SEARCH_MIN_VERTICES = 1000;
+
   private Set<V> vertices;
   private DirectedGraphAccessor<V, ? extends Edge> graph;
-  private Set<V> analyzedVertices;
   private Set<Cycle> cycles = new HashSet<Cycle>();
   private Set<Edge> edgesToExclude;
   private long searchCyclesCalls = 0;
@@ -37,6 +54,12 @@ public class CycleDetector<V> {
   private boolean maxSearchDepthActivated = false;
   private int maxCyclesToFound = Integer.MAX_VALUE;
 
+  // successors[i] and successorEdges[i] are the outgoing edges of the vertex i
+  private int[][] successors;
+  private Edge[][] successorEdges;
+  private boolean[] analyzedVertices;
+  private int[] positionsInPath;
+
   public CycleDetector(DirectedGraphAccessor<V, ? extends Edge> graph, Collection<V> vertices) {
     init(graph, vertices, new HashSet<Edge>());
   }
@@ -56,7 +79,6 @@ public class CycleDetector<V> {
   private void init(DirectedGraphAccessor<V, ? extends Edge> graph, Collection<V> vertices, Set<Edge> edgesToExclude) {
     this.graph = graph;
     this.vertices = new HashSet<V>(vertices);
-    this.analyzedVertices = new HashSet<V>();
     this.edgesToExclude = edgesToExclude;
   }
 
@@ -84,55 +106,220 @@ public class CycleDetector<V> {
     if (!cycles.isEmpty()) {
       throw new IllegalStateException("Cycle detection can't be executed twice on the same CycleDetector object.");
     }
+    indexVertices();
+    List<int[]> components = maxCyclesToFound == Integer.MAX_VALUE ? cyclicComponents() : Collections.singletonList(allVertices());
+    analyzedVertices = new boolean[successors.length];
+    positionsInPath = new int[successors.length];
+    Arrays.fill(positionsInPath, -1);
+
+    int componentVertices = 0;
+    for (int[] component : components) {
+      componentVertices += component.length;
+    }
+    if (maxCyclesToFound == Integer.MAX_VALUE && components.size() > 1 && componentVertices >= PARALLEL_SEARCH_MIN_VERTICES) {
+      searchInParallel(components);
+    } else {
+      try {
+        for (int[] component : components) {
+          Search search = new Search(component, cycles);
+          try {
+            search.run();
+          } finally {
+            searchCyclesCalls += search.calls;
+          }
+        }
+      } catch (MaximumCyclesToFoundException e) {
+        // ignore
+      }
+    }
+  }
+
+  private int[] allVertices() {
+    int[] result = new int[successors.length];
+    for (int vertex = 0; vertex < result.length; vertex++) {
+      result[vertex] = vertex;
+    }
+    return result;
+  }
+
+  private void indexVertices() {
+    List<V> indexedVertices = new ArrayList<V>(vertices);
+    Map<V, Integer> indexes = new HashMap<V, Integer>();
+    for (int index = 0; index < indexedVertices.size(); index++) {
+      indexes.put(indexedVertices.get(index), index);
+    }
+    successors = new int[indexedVertices.size()][];
+    successorEdges = new Edge[indexedVertices.size()][];
+    List<Edge> edges = new ArrayList<Edge>();
+    for (int index = 0; index < indexedVertices.size(); index++) {
+      edges.clear();
+      for (Edge<V> edge : graph.getOutgoingEdges(indexedVertices.get(index))) {
+        if (!edgesToExclude.contains(edge) && indexes.containsKey(edge.getTo())) {
+          edges.add(edge);
+        }
+      }
+      successors[index] = new int[edges.size()];
+      successorEdges[index] = edges.toArray(new Edge[edges.size()]);
+      for (int i = 0; i < edges.size(); i++) {
+        successors[index][i] = indexes.get(edges.get(i).getTo());
+      }
+    }
+  }
+
+  /**
+   * Removes the edges between components and returns the vertices of the components that contain at least one cycle.
+   */
+  private List<int[]> cyclicComponents() {
+    StronglyConnectedComponents components = new StronglyConnectedComponents(successors);
+    int[] sizes = new int[components.count()];
+    for (int vertex = 0; vertex < successors.length; vertex++) {
+      removeEdgesToOtherComponents(vertex, components);
+      int component = components.componentOf(vertex);
+      if (components.size(component) > 1 || successors[vertex].length > 0) {
+        sizes[component]++;
+      }
+    }
+    int[][] verticesByComponent = new int[components.count()][];
+    List<int[]> result = new ArrayList<int[]>();
+    for (int vertex = 0; vertex < successors.length; vertex++) {
+      int component = components.componentOf(vertex);
+      if (sizes[component] > 0) {
+        if (verticesByComponent[component] == null) {
+          verticesByComponent[component] = new int[sizes[component]];
+          result.add(verticesByComponent[component]);
+          sizes[component] = 0;
+        }
+        verticesByComponent[component][sizes[component]] = vertex;
+        sizes[component]++;
+      }
+    }
+    return result;
+  }
+
+  private void removeEdgesToOtherComponents(int vertex, StronglyConnectedComponents components) {
+    int component = components.componentOf(vertex);
+    int[] targets = successors[vertex];
+    int kept = 0;
+    for (int i = 0; i < targets.length; i++) {
+      if (components.componentOf(targets[i]) == component) {
+        targets[kept] = targets[i];
+        successorEdges[vertex][kept] = successorEdges[vertex][i];
+        kept++;
+      }
+    }
+    if (kept < targets.length) {
+      successors[vertex] = Arrays.copyOf(targets, kept);
+      successorEdges[vertex] = Arrays.copyOf(successorEdges[vertex], kept);
+    }
+  }
+
+  private void searchInParallel(List<int[]> components) {
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(components.size(), Runtime.getRuntime().availableProcessors()));
     try {
-      for (V vertex : vertices) {
-        if (maxSearchDepthActivated || !analyzedVertices.contains(vertex)) {
-          Set<V> tmpAnalyzedVertices = new HashSet<V>();
-          searchCycles(vertex, new ArrayList<V>(), tmpAnalyzedVertices);
-          analyzedVertices.addAll(tmpAnalyzedVertices);
+      List<Future<Search>> futures = new ArrayList<Future<Search>>();
+      for (final int[] component : components) {
+        futures.add(executor.submit(new Callable<Search>() {
+          public Search call() {
+            Search search = new Search(component, new HashSet<Cycle>());
+            search.run();
+            return search;
+          }
+        }));
+      }
+      for (Future<Search> future : futures) {
+        Search search = future.get();
+        cycles.addAll(search.cycles);
+        searchCyclesCalls += search.calls;
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Cycle detection has been interrupted", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Fail to detect cycles", e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Depth-first search of the cycles of a strongly connected component. Components are searched independently,
+   * they do not share vertices.
+   */
+  private class Search {
+    private final int[] componentVertices;
+    private final Set<Cycle> cycles;
+    private final int[] path;
+    private final int[] nextEdges;
+    private final Edge[] pathEdges;
+    private final List<Integer> visitedVertices = new ArrayList<Integer>();
+    private long calls = 0;
+
+    Search(int[] componentVertices, Set<Cycle> cycles) {
+      this.componentVertices = componentVertices;
+      this.cycles = cycles;
+      this.path = new int[componentVertices.length];
+      this.nextEdges = new int[componentVertices.length];
+      this.pathEdges = new Edge[componentVertices.length];
+    }
+
+    void run() {
+      for (int vertex : componentVertices) {
+        if (maxSearchDepthActivated || !analyzedVertices[vertex]) {
+          searchCycles(vertex);
+          for (Integer visitedVertex : visitedVertices) {
+            analyzedVertices[visitedVertex] = true;
+          }
+          visitedVertices.clear();
         }
       }
-    } catch (MaximumCyclesToFoundException e) {
-      // ignore
-    }
-  }
-
-  private void searchCycles(V fromVertex, List<V> path, Set<V> tmpAnalyzedVertices) {
-    searchCyclesCalls++;
-    path.add(fromVertex);
-    tmpAnalyzedVertices.add(fromVertex);
-    for (Edge<V> edge : graph.getOutgoingEdges(fromVertex)) {
-      V toVertex = edge.getTo();
-      if (!edgesToExclude.contains(edge) && vertices.contains(toVertex)
-          && (maxSearchDepthActivated || !analyzedVertices.contains(toVertex))) {
-        if (path.contains(toVertex)) {
-          path.add(toVertex);
-          List<V> cyclePath = path.subList(path.indexOf(toVertex), path.size());
-          Cycle cycle = convertListOfVerticesToCycle(cyclePath);
-          cycles.add(cycle);
-
-          if (cycles.size() >= maxCyclesToFound) {
-            throw new MaximumCyclesToFoundException();
+    }
+
+    private void searchCycles(int fromVertex) {
+      int depth = 0;
+      enter(fromVertex, 0, null);
+      while (depth >= 0) {
+        int vertex = path[depth];
+        if (nextEdges[depth] < successors[vertex].length) {
+          int edgeIndex = nextEdges[depth];
+          nextEdges[depth]++;
+          int toVertex = successors[vertex][edgeIndex];
+          if (maxSearchDepthActivated || !analyzedVertices[toVertex]) {
+            if (positionsInPath[toVertex] >= 0) {
+              addCycle(positionsInPath[toVertex], depth, successorEdges[vertex][edgeIndex]);
+            } else if (!maxSearchDepthActivated || depth + 1 < maxSearchDepth) {
+              depth++;
+              enter(toVertex, depth, successorEdges[vertex][edgeIndex]);
+            }
           }
-          path.remove(path.size() - 1);
-        } else if (!maxSearchDepthActivated || (maxSearchDepthActivated && path.size() < maxSearchDepth)) {
-          searchCycles(toVertex, path, tmpAnalyzedVertices);
+        } else {
+          positionsInPath[vertex] = -1;
+          depth--;
         }
       }
     }
-    path.remove(path.size() - 1);
-  }
 
-  private Cycle convertListOfVerticesToCycle(List<V> vertices) {
-    List<Edge> edges = new ArrayList<Edge>();
-    V firstVertex = vertices.get(0);
-    V from = firstVertex;
-    for (int index = 1; index < vertices.size(); index++) {
-      V to = vertices.get(index);
-      edges.add(graph.getEdge(from, to));
-      from = to;
-    }
-    return new Cycle(edges);
+    private void enter(int vertex, int depth, Edge fromEdge) {
+      calls++;
+      path[depth] = vertex;
+      pathEdges[depth] = fromEdge;
+      nextEdges[depth] = 0;
+      positionsInPath[vertex] = depth;
+      if (!maxSearchDepthActivated) {
+        visitedVertices.add(vertex);
+      }
+    }
+
+    private void addCycle(int fromDepth, int toDepth, Edge closingEdge) {
+      List<Edge> edges = new ArrayList<Edge>();
+      for (int depth = fromDepth + 1; depth <= toDepth; depth++) {
+        edges.add(pathEdges[depth]);
+      }
+      edges.add(closingEdge);
+      cycles.add(new Cycle(edges));
+      if (cycles.size() >= maxCyclesToFound) {
+        throw new MaximumCyclesToFoundException();
+      }
+    }
   }
 
   public Set<Cycle> getCycles() {
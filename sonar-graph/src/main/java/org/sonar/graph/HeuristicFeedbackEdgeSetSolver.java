@@ -0,0 +1,278 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.graph;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Computes a feedback edge set directly from the graph, without enumerating its cycles. Vertices are ordered with
+ * the Eades-Lin-Smyth heuristic (sinks are moved to the end, sources to the beginning, then the vertex with the largest
+ * difference between outgoing and incoming weights) and the edges that go backward in this order are the feedback edges.
+ * <p/>
+ * Contrary to {@link MinimumFeedbackEdgeSetSolver}, the result is not guaranteed to be minimal, but it is computed
+ * in O(E log V) whatever the number of cycles, and removing the feedback edges always leaves an acyclic graph.
+ * Only the edges inside strongly connected components are considered.
+ *
+ * @since 4.0
+ */
+public class HeuristicFeedbackEdgeSetSolver<V> {
+
+  private final List<V> indexedVertices;
+  private final int[][] successors;
+  private final Edge[][] successorEdges;
+  private final int[][] predecessors;
+  private final Edge[][] predecessorEdges;
+  private final Set<Edge> feedbackEdges = new HashSet<Edge>();
+  private final List<V> orderedVertices = new ArrayList<V>();
+  private int weightOfFeedbackEdgeSet = 0;
+
+  public HeuristicFeedbackEdgeSetSolver(DirectedGraphAccessor<V, ? extends Edge> graph) {
+    this(graph, graph.getVertices());
+  }
+
+  public HeuristicFeedbackEdgeSetSolver(DirectedGraphAccessor<V, ? extends Edge> graph, Collection<V> vertices) {
+    indexedVertices = new ArrayList<V>(new HashSet<V>(vertices));
+    int size = indexedVertices.size();
+    successors = new int[size][];
+    successorEdges = new Edge[size][];
+    predecessors = new int[size][];
+    predecessorEdges = new Edge[size][];
+    indexEdges(graph);
+    run();
+  }
+
+  /**
+   * Get edges tagged as feedback.
+   */
+  public Set<Edge> getEdges() {
+    return feedbackEdges;
+  }
+
+  public int getWeightOfFeedbackEdgeSet() {
+    return weightOfFeedbackEdgeSet;
+  }
+
+  /**
+   * Vertices in the order computed by the heuristic : apart from the feedback edges, all the edges go forward.
+   */
+  public List<V> getOrderedVertices() {
+    return Collections.unmodifiableList(orderedVertices);
+  }
+
+  private void indexEdges(DirectedGraphAccessor<V, ? extends Edge> graph) {
+    int size = indexedVertices.size();
+    Map<V, Integer> indexes = new HashMap<V, Integer>();
+    for (int index = 0; index < size; index++) {
+      indexes.put(indexedVertices.get(index), index);
+    }
+    int[][] allSuccessors = new int[size][];
+    Edge[][] allSuccessorEdges = new Edge[size][];
+    List<Edge> edges = new ArrayList<Edge>();
+    for (int index = 0; index < size; index++) {
+      edges.clear();
+      for (Edge<V> edge : graph.getOutgoingEdges(indexedVertices.get(index))) {
+        if (indexes.containsKey(edge.getTo())) {
+          edges.add(edge);
+        }
+      }
+      allSuccessors[index] = new int[edges.size()];
+      allSuccessorEdges[index] = edges.toArray(new Edge[edges.size()]);
+      for (int i = 0; i < edges.size(); i++) {
+        allSuccessors[index][i] = indexes.get(edges.get(i).getTo());
+      }
+    }
+    keepEdgesInsideComponents(allSuccessors, allSuccessorEdges);
+  }
+
+  /**
+   * Edges between strongly connected components can't be part of a cycle. Self-loops are always feedback edges.
+   */
+  private void keepEdgesInsideComponents(int[][] allSuccessors, Edge[][] allSuccessorEdges) {
+    int size = allSuccessors.length;
+    StronglyConnectedComponents components = new StronglyConnectedComponents(allSuccessors);
+    int[] predecessorsCount = new int[size];
+    for (int from = 0; from < size; from++) {
+      int kept = 0;
+      for (int i = 0; i < allSuccessors[from].length; i++) {
+        int to = allSuccessors[from][i];
+        if (to == from) {
+          addFeedbackEdge(allSuccessorEdges[from][i]);
+        } else if (components.componentOf(to) == components.componentOf(from)) {
+          kept++;
+          predecessorsCount[to]++;
+        }
+      }
+      successors[from] = new int[kept];
+      successorEdges[from] = new Edge[kept];
+      kept = 0;
+      for (int i = 0; i < allSuccessors[from].length; i++) {
+        int to = allSuccessors[from][i];
+        if (to != from && components.componentOf(to) == components.componentOf(from)) {
+          successors[from][kept] = to;
+          successorEdges[from][kept] = allSuccessorEdges[from][i];
+          kept++;
+        }
+      }
+    }
+    for (int to = 0; to < size; to++) {
+      predecessors[to] = new int[predecessorsCount[to]];
+      predecessorEdges[to] = new Edge[predecessorsCount[to]];
+      predecessorsCount[to] = 0;
+    }
+    for (int from = 0; from < size; from++) {
+      for (int i = 0; i < successors[from].length; i++) {
+        int to = successors[from][i];
+        predecessors[to][predecessorsCount[to]] = from;
+        predecessorEdges[to][predecessorsCount[to]] = successorEdges[from][i];
+        predecessorsCount[to]++;
+      }
+    }
+  }
+
+  private void run() {
+    int size = indexedVertices.size();
+    int[] outDegrees = new int[size];
+    int[] inDegrees = new int[size];
+    long[] deltas = new long[size];
+    boolean[] removed = new boolean[size];
+    int[] sinks = new int[size];
+    int sinksCount = 0;
+    int[] sources = new int[size];
+    int sourcesCount = 0;
+    PriorityQueue<Candidate> candidates = new PriorityQueue<Candidate>();
+
+    for (int vertex = 0; vertex < size; vertex++) {
+      outDegrees[vertex] = successors[vertex].length;
+      inDegrees[vertex] = predecessors[vertex].length;
+      for (Edge edge : successorEdges[vertex]) {
+        deltas[vertex] += edge.getWeight();
+      }
+      for (Edge edge : predecessorEdges[vertex]) {
+        deltas[vertex] -= edge.getWeight();
+      }
+      if (outDegrees[vertex] == 0) {
+        sinks[sinksCount++] = vertex;
+      } else if (inDegrees[vertex] == 0) {
+        sources[sourcesCount++] = vertex;
+      } else {
+        candidates.add(new Candidate(vertex, deltas[vertex]));
+      }
+    }
+
+    // the beginning of the ordering is filled from the left, the end from the right
+    int[] order = new int[size];
+    int left = 0;
+    int right = size - 1;
+    while (left <= right) {
+      int vertex;
+      boolean toTheRight = false;
+      if (sinksCount > 0) {
+        vertex = sinks[--sinksCount];
+        toTheRight = true;
+      } else if (sourcesCount > 0) {
+        vertex = sources[--sourcesCount];
+      } else {
+        Candidate candidate = candidates.poll();
+        vertex = candidate.vertex;
+        if (removed[vertex] || candidate.delta != deltas[vertex]) {
+          // outdated entry
+          continue;
+        }
+      }
+      if (removed[vertex]) {
+        continue;
+      }
+      removed[vertex] = true;
+      if (toTheRight) {
+        order[right--] = vertex;
+      } else {
+        order[left++] = vertex;
+      }
+
+      for (int i = 0; i < successors[vertex].length; i++) {
+        int to = successors[vertex][i];
+        if (!removed[to]) {
+          inDegrees[to]--;
+          deltas[to] += successorEdges[vertex][i].getWeight();
+          if (outDegrees[to] > 0 && inDegrees[to] == 0) {
+            sources[sourcesCount++] = to;
+          } else if (outDegrees[to] > 0) {
+            candidates.add(new Candidate(to, deltas[to]));
+          }
+        }
+      }
+      for (int i = 0; i < predecessors[vertex].length; i++) {
+        int from = predecessors[vertex][i];
+        if (!removed[from]) {
+          outDegrees[from]--;
+          deltas[from] -= predecessorEdges[vertex][i].getWeight();
+          if (outDegrees[from] == 0) {
+            sinks[sinksCount++] = from;
+          } else if (inDegrees[from] > 0) {
+            candidates.add(new Candidate(from, deltas[from]));
+          }
+        }
+      }
+    }
+
+    int[] positions = new int[size];
+    for (int position = 0; position < size; position++) {
+      positions[order[position]] = position;
+      orderedVertices.add(indexedVertices.get(order[position]));
+    }
+    for (int from = 0; from < size; from++) {
+      for (int i = 0; i < successors[from].length; i++) {
+        if (positions[successors[from][i]] < positions[from]) {
+          addFeedbackEdge(successorEdges[from][i]);
+        }
+      }
+    }
+  }
+
+  private void addFeedbackEdge(Edge edge) {
+    feedbackEdges.add(edge);
+    weightOfFeedbackEdgeSet += edge.getWeight();
+  }
+
+  private static final class Candidate implements Comparable<Candidate> {
+    private final int vertex;
+    private final long delta;
+
+    Candidate(int vertex, long delta) {
+      this.vertex = vertex;
+      this.delta = delta;
+    }
+
+    public int compareTo(Candidate other) {
+      if (delta != other.delta) {
+        return delta > other.delta ? -1 : 1;
+      }
+      return vertex - other.vertex;
+    }
+  }
+}
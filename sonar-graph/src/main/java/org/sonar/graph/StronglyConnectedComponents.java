@@ -0,0 +1,118 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.graph;
+
+import java.util.Arrays;
+
+/**
+ * Strongly connected components of a graph whose vertices are indexed from 0 to n-1, computed with
+ * the Tarjan algorithm. The implementation is iterative, so that it does not overflow the stack on large graphs.
+ *
+ * @since 4.0
+ */
+final class StronglyConnectedComponents {
+
+  private final int[] componentOf;
+  private final int[] componentSizes;
+
+  /**
+   * @param successors successors[v] are the indexes of the vertices targeted by the outgoing edges of v
+   */
+  StronglyConnectedComponents(int[][] successors) {
+    int size = successors.length;
+    componentOf = new int[size];
+    int[] order = new int[size];
+    int[] lowLink = new int[size];
+    boolean[] onStack = new boolean[size];
+    int[] stack = new int[size];
+    int stackSize = 0;
+    // call stack of the depth-first search : vertex and index of its next successor to visit
+    int[] callVertices = new int[size];
+    int[] callEdges = new int[size];
+    int[] sizes = new int[size];
+    int counter = 0;
+    int components = 0;
+    Arrays.fill(order, -1);
+
+    for (int root = 0; root < size; root++) {
+      if (order[root] >= 0) {
+        continue;
+      }
+      int depth = 0;
+      callVertices[0] = root;
+      callEdges[0] = 0;
+      order[root] = counter;
+      lowLink[root] = counter;
+      counter++;
+      stack[stackSize++] = root;
+      onStack[root] = true;
+
+      while (depth >= 0) {
+        int vertex = callVertices[depth];
+        int[] targets = successors[vertex];
+        if (callEdges[depth] < targets.length) {
+          int target = targets[callEdges[depth]];
+          callEdges[depth]++;
+          if (order[target] < 0) {
+            order[target] = counter;
+            lowLink[target] = counter;
+            counter++;
+            stack[stackSize++] = target;
+            onStack[target] = true;
+            depth++;
+            callVertices[depth] = target;
+            callEdges[depth] = 0;
+          } else if (onStack[target]) {
+            lowLink[vertex] = Math.min(lowLink[vertex], order[target]);
+          }
+        } else {
+          if (lowLink[vertex] == order[vertex]) {
+            int member;
+            do {
+              member = stack[--stackSize];
+              onStack[member] = false;
+              componentOf[member] = components;
+              sizes[components]++;
+            } while (member != vertex);
+            components++;
+          }
+          depth--;
+          if (depth >= 0) {
+            int parent = callVertices[depth];
+            lowLink[parent] = Math.min(lowLink[parent], lowLink[vertex]);
+          }
+        }
+      }
+    }
+    componentSizes = Arrays.copyOf(sizes, components);
+  }
+
+  int count() {
+    return componentSizes.length;
+  }
+
+  int componentOf(int vertex) {
+    return componentOf[vertex];
+  }
+
+  int size(int component) {
+    return componentSizes[component];
+  }
+}
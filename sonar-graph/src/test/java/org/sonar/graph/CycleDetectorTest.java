@@ -118,6 +118,33 @@ public class CycleDetectorTest {
     assertTrue(cycle.contains(new StringEdge("B", "A")));
   }
 
+  @Test
+  public void testSelfLoop() {
+    DirectedGraph<String, StringEdge> dcg = DirectedGraph.createStringDirectedGraph();
+    dcg.addEdge("A", "A").addEdge("A", "B");
+
+    CycleDetector<String> cycleDetector = new CycleDetector<String>(dcg);
+    cycleDetector.detectCycles();
+    assertThat(cycleDetector.getCycles().size(), is(1));
+    assertTrue(cycleDetector.getCycles().iterator().next().contains(new StringEdge("A", "A")));
+  }
+
+  @Test
+  public void testGetCyclesOfManyComponents() {
+    DirectedGraph<String, StringEdge> dcg = DirectedGraph.createStringDirectedGraph();
+    // 1000 components of 2 vertices, each one depending on the next one
+    for (int i = 0; i < 1000; i++) {
+      dcg.addEdge("A" + i, "B" + i).addEdge("B" + i, "A" + i);
+      if (i > 0) {
+        dcg.addEdge("A" + (i - 1), "A" + i);
+      }
+    }
+
+    CycleDetector<String> cycleDetector = new CycleDetector<String>(dcg);
+    cycleDetector.detectCycles();
+    assertThat(cycleDetector.getCycles().size(), is(1000));
+  }
+
   @Test
   public void getCyclesInLimitedSetOfVertices() {
     DirectedGraph<String, StringEdge> dcg = DirectedGraph.createStringDirectedGraph();
@@ -153,4 +180,18 @@ public class CycleDetectorTest {
     CycleDetector<String> cycleDetector = new CycleDetector<String>(dcg);
     assertThat(cycleDetector.detectCyclesWithUpperLimit(1).size(), is(1));
   }
+
+  @Test
+  public void testDetectCyclesWithUpperLimitInSeveralComponents() {
+    DirectedGraph<String, StringEdge> dcg = DirectedGraph.createStringDirectedGraph();
+    dcg.addEdge("A", "B").addEdge("B", "A").addEdge("B", "C");
+    dcg.addEdge("C", "D").addEdge("D", "E").addEdge("E", "C").addEdge("E", "D");
+    dcg.addEdge("F", "A");
+
+    Set<Cycle> allCycles = new CycleDetector<String>(dcg).detectCycles();
+    Set<Cycle> limitedCycles = new CycleDetector<String>(dcg).detectCyclesWithUpperLimit(10);
+
+    assertThat(allCycles.size(), is(3));
+    assertThat(limitedCycles, is(allCycles));
+  }
 }
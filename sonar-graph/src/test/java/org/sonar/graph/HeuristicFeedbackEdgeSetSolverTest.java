@@ -0,0 +1,105 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.graph;
+
+import java.util.Arrays;
+import java.util.Set;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class HeuristicFeedbackEdgeSetSolverTest {
+
+  @Test
+  public void testFlagFeedbackEdgesOnSimpleLoop() {
+    DirectedGraph<String, StringEdge> dcg = DirectedGraph.createStringDirectedGraph();
+    dcg.addEdge("A", "B", 3).addEdge("B", "A", 1);
+
+    HeuristicFeedbackEdgeSetSolver<String> solver = new HeuristicFeedbackEdgeSetSolver<String>(dcg);
+    Set<Edge> feedbackEdges = solver.getEdges();
+    assertThat(feedbackEdges.size(), is(1));
+    assertTrue(feedbackEdges.contains(dcg.getEdge("B", "A")));
+    assertThat(solver.getWeightOfFeedbackEdgeSet(), is(1));
+    assertThat(solver.getOrderedVertices(), is(Arrays.asList("A", "B")));
+  }
+
+  @Test
+  public void testGetFeedbackEdgesOnComplexGraph() {
+    DirectedGraph<String, StringEdge> dcg = DirectedGraph.createStringDirectedGraph();
+    dcg.addEdge("A", "B", 7).addEdge("B", "C", 3).addEdge("C", "D", 1).addEdge("D", "A", 3);
+    dcg.addEdge("B", "A", 12);
+
+    HeuristicFeedbackEdgeSetSolver<String> solver = new HeuristicFeedbackEdgeSetSolver<String>(dcg);
+    Set<Edge> feedbackEdges = solver.getEdges();
+    assertThat(feedbackEdges.size(), is(1));
+    assertTrue(feedbackEdges.contains(dcg.getEdge("A", "B")));
+  }
+
+  @Test
+  public void testFlagFeedbackEdgesOnUnrelatedCycles() {
+    DirectedGraph<String, StringEdge> dcg = DirectedGraph.createStringDirectedGraph();
+    dcg.addEdge("A", "B", 7).addEdge("B", "C", 3).addEdge("C", "A", 2);
+    dcg.addEdge("D", "E", 3).addEdge("E", "D", 5);
+    dcg.addEdge("F", "G", 1).addEdge("G", "H", 4).addEdge("H", "F", 7);
+
+    HeuristicFeedbackEdgeSetSolver<String> solver = new HeuristicFeedbackEdgeSetSolver<String>(dcg);
+    Set<Edge> feedbackEdges = solver.getEdges();
+    assertThat(feedbackEdges.size(), is(3));
+    assertTrue(feedbackEdges.contains(dcg.getEdge("C", "A")));
+    assertTrue(feedbackEdges.contains(dcg.getEdge("D", "E")));
+    assertTrue(new CycleDetector<String>(dcg, feedbackEdges).detectCycles().isEmpty());
+  }
+
+  @Test
+  public void testIgnoreEdgesBetweenComponents() {
+    DirectedGraph<String, StringEdge> dcg = DirectedGraph.createStringDirectedGraph();
+    dcg.addEdge("A", "B", 1).addEdge("B", "A", 5);
+    dcg.addEdge("B", "C", 1).addEdge("C", "D", 9).addEdge("D", "A", 1);
+    dcg.addEdge("E", "E", 2);
+
+    HeuristicFeedbackEdgeSetSolver<String> solver = new HeuristicFeedbackEdgeSetSolver<String>(dcg, Arrays.asList("B", "C", "D", "E"));
+    Set<Edge> feedbackEdges = solver.getEdges();
+    assertThat(feedbackEdges.size(), is(1));
+    assertTrue(feedbackEdges.contains(dcg.getEdge("E", "E")));
+    assertThat(solver.getWeightOfFeedbackEdgeSet(), is(2));
+  }
+
+  @Test
+  public void testSortDsmWithFeedbackEdges() {
+    DirectedGraph<String, StringEdge> dcg = DirectedGraph.createStringDirectedGraph();
+    dcg.addEdge("A", "B", 3).addEdge("B", "A", 1);
+
+    HeuristicFeedbackEdgeSetSolver<String> solver = new HeuristicFeedbackEdgeSetSolver<String>(dcg);
+
+    Dsm<String> dsm = new Dsm<String>(dcg, solver.getEdges());
+    DsmTopologicalSorter.sort(dsm);
+
+    StringPrintWriter expectedDsm = new StringPrintWriter();
+    expectedDsm.println("  | A | B |");
+    expectedDsm.println("A |   | 1*|");
+    expectedDsm.println("B | 3 |   |");
+
+    assertEquals(expectedDsm.toString(), DsmPrinter.print(dsm));
+  }
+}
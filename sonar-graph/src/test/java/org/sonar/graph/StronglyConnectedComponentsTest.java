@@ -0,0 +1,56 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.graph;
+
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class StronglyConnectedComponentsTest {
+
+  @Test
+  public void should_find_components() {
+    // 0 <-> 1 -> 2 -> 3 -> 2, 4 alone
+    int[][] successors = {{1}, {0, 2}, {3}, {2}, {}};
+
+    StronglyConnectedComponents components = new StronglyConnectedComponents(successors);
+
+    assertThat(components.count()).isEqualTo(3);
+    assertThat(components.componentOf(0)).isEqualTo(components.componentOf(1));
+    assertThat(components.componentOf(2)).isEqualTo(components.componentOf(3));
+    assertThat(components.componentOf(0)).isNotEqualTo(components.componentOf(2));
+    assertThat(components.size(components.componentOf(0))).isEqualTo(2);
+    assertThat(components.size(components.componentOf(4))).isEqualTo(1);
+  }
+
+  @Test
+  public void should_not_overflow_stack_on_long_paths() {
+    int size = 100000;
+    int[][] successors = new int[size][];
+    for (int vertex = 0; vertex < size; vertex++) {
+      successors[vertex] = new int[] {(vertex + 1) % size};
+    }
+
+    StronglyConnectedComponents components = new StronglyConnectedComponents(successors);
+
+    assertThat(components.count()).isEqualTo(1);
+    assertThat(components.size(0)).isEqualTo(size);
+  }
+}
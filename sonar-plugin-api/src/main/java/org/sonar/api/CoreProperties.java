@@ -185,6 +185,19 @@ public interface CoreProperties {
   String CORE_VIOLATION_LOCALE_DEFAULT_VALUE = "en";
   String CORE_IMPORT_SOURCES_PROPERTY = "sonar.importSources";
   boolean CORE_IMPORT_SOURCES_DEFAULT_VALUE = true;
+
+  /**
+   * @since 4.0
+   */
+  String CORE_COMPRESS_SOURCES_PROPERTY = "sonar.compressSources";
+  boolean CORE_COMPRESS_SOURCES_DEFAULT_VALUE = false;
+
+  /**
+   * @since 4.0
+   */
+  String CORE_IN_MEMORY_RESOURCE_SEARCH_PROPERTY = "sonar.inMemoryResourceSearch";
+  boolean CORE_IN_MEMORY_RESOURCE_SEARCH_DEFAULT_VALUE = false;
+
   String CORE_SKIPPED_MODULES_PROPERTY = "sonar.skippedModules";
   String CORE_RULE_WEIGHTS_PROPERTY = "sonar.core.rule.weight";
   String CORE_RULE_WEIGHTS_DEFAULT_VALUE = "INFO=0;MINOR=1;MAJOR=3;CRITICAL=5;BLOCKER=10";
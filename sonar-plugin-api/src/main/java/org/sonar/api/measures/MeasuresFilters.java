@@ -88,6 +88,32 @@ public final class MeasuresFilters {
     };
   }
 
+  /**
+   * All the measures of the given metric which are related to a characteristic, whatever the characteristic.
+   *
+   * @since 4.0
+   */
+  public static MeasuresFilter<Collection<Measure>> characteristics(final Metric metric) {
+    return new MetricFilter<Collection<Measure>>(metric) {
+
+      public Collection<Measure> filter(Collection<Measure> measures) {
+        if (measures == null) {
+          return null;
+        }
+        List<Measure> result = new ArrayList<Measure>();
+        for (Measure measure : measures) {
+          if (measure.getClass().equals(Measure.class) &&
+            measure.getMetric().equals(metric) &&
+            measure.getPersonId() == null &&
+            measure.getCharacteristic() != null) {
+            result.add(measure);
+          }
+        }
+        return result;
+      }
+    };
+  }
+
   /**
    * @since 2.0
    */
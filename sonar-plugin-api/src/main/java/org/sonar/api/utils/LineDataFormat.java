@@ -0,0 +1,223 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.utils;
+
+import com.google.common.collect.Maps;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * <p>Parses and formats data measures by line, like "1=10;2=0;5=3", into arrays indexed by line number. Contrary to
+ * {@link KeyValueFormat#parseIntInt(String)} and {@link KeyValueFormat#parseIntDateTime(String)}, values are not boxed
+ * and each distinct datetime is parsed only once, which makes it suitable to read coverage and SCM data of every file.</p>
+ *
+ * <p>Lines without value are set to {@link #NO_INT_VALUE} or {@link #NO_DATE_VALUE}. Entries whose key is not a
+ * line number between 1 and {@link #MAX_LINE} are ignored, so that a single corrupted key can not allocate a huge array.
+ * A warning is logged when a data contains such keys.</p>
+ *
+ * @since 4.0
+ */
+public final class LineDataFormat {
+
+  public static final int NO_INT_VALUE = Integer.MIN_VALUE;
+  public static final long NO_DATE_VALUE = Long.MIN_VALUE;
+  public static final int MAX_LINE = 1000000;
+
+  private static final Logger LOG = LoggerFactory.getLogger(LineDataFormat.class);
+  private static final char PAIR_SEPARATOR = ';';
+  private static final char FIELD_SEPARATOR = '=';
+  private static final int[] EMPTY_INTS = new int[0];
+  private static final long[] EMPTY_LONGS = new long[0];
+
+  private LineDataFormat() {
+    // only static methods
+  }
+
+  /**
+   * @return values indexed by line, so the length of the array is the greatest line + 1
+   */
+  public static int[] parseIntByLine(@Nullable String data) {
+    if (data == null) {
+      return EMPTY_INTS;
+    }
+    int[] values = new int[maxLine(data) + 1];
+    Arrays.fill(values, NO_INT_VALUE);
+    int start = 0;
+    while (start < data.length()) {
+      int end = endOfPair(data, start);
+      int separator = data.indexOf(FIELD_SEPARATOR, start);
+      int keyEnd = separator < 0 || separator > end ? end : separator;
+      int line = parseInt(data, start, keyEnd, 0);
+      if (isValidLine(line) && keyEnd < end) {
+        values[line] = parseInt(data, keyEnd + 1, end, NO_INT_VALUE);
+      }
+      start = end + 1;
+    }
+    return values;
+  }
+
+  /**
+   * Values must respect the format {@link DateUtils#DATETIME_FORMAT}.
+   *
+   * @return dates in milliseconds indexed by line, so the length of the array is the greatest line + 1
+   * @throws SonarException if a value is not a datetime
+   */
+  public static long[] parseDateTimeByLine(@Nullable String data) {
+    if (data == null) {
+      return EMPTY_LONGS;
+    }
+    long[] values = new long[maxLine(data) + 1];
+    Arrays.fill(values, NO_DATE_VALUE);
+    // the lines of a file usually share a few distinct commit dates
+    Map<String, Long> parsedDates = Maps.newHashMap();
+    int start = 0;
+    while (start < data.length()) {
+      int end = endOfPair(data, start);
+      int separator = data.indexOf(FIELD_SEPARATOR, start);
+      int keyEnd = separator < 0 || separator > end ? end : separator;
+      int line = parseInt(data, start, keyEnd, 0);
+      if (isValidLine(line) && keyEnd + 1 < end) {
+        String value = data.substring(keyEnd + 1, end);
+        Long date = parsedDates.get(value);
+        if (date == null) {
+          date = DateUtils.parseDateTime(value).getTime();
+          parsedDates.put(value, date);
+        }
+        values[line] = date;
+      }
+      start = end + 1;
+    }
+    return values;
+  }
+
+  public static String formatIntByLine(int[] values) {
+    StringBuilder sb = new StringBuilder();
+    for (int line = 1; line < values.length; line++) {
+      if (values[line] != NO_INT_VALUE) {
+        appendKey(sb, line);
+        sb.append(values[line]);
+      }
+    }
+    return sb.toString();
+  }
+
+  public static String formatDateTimeByLine(long[] values) {
+    StringBuilder sb = new StringBuilder();
+    for (int line = 1; line < values.length; line++) {
+      if (values[line] != NO_DATE_VALUE) {
+        appendKey(sb, line);
+        sb.append(DateUtils.formatDateTime(new Date(values[line])));
+      }
+    }
+    return sb.toString();
+  }
+
+  private static void appendKey(StringBuilder sb, int line) {
+    if (sb.length() > 0) {
+      sb.append(PAIR_SEPARATOR);
+    }
+    sb.append(line).append(FIELD_SEPARATOR);
+  }
+
+  private static int maxLine(String data) {
+    int max = 0;
+    int ignoredKeys = 0;
+    String firstIgnoredKey = null;
+    int start = 0;
+    while (start < data.length()) {
+      int end = endOfPair(data, start);
+      int separator = data.indexOf(FIELD_SEPARATOR, start);
+      int keyEnd = separator < 0 || separator > end ? end : separator;
+      int line = parseInt(data, start, keyEnd, 0);
+      if (isValidLine(line)) {
+        max = Math.max(max, line);
+      } else if (!isBlank(data, start, keyEnd)) {
+        if (ignoredKeys == 0) {
+          firstIgnoredKey = data.substring(start, keyEnd).trim();
+        }
+        ignoredKeys++;
+      }
+      start = end + 1;
+    }
+    if (ignoredKeys > 0) {
+      LOG.warn("Ignored keys of line data which are not line numbers between 1 and {}: {} (total {})",
+        new Object[] {MAX_LINE, firstIgnoredKey, ignoredKeys});
+    }
+    return max;
+  }
+
+  private static boolean isValidLine(int line) {
+    return line > 0 && line <= MAX_LINE;
+  }
+
+  private static boolean isBlank(String data, int start, int end) {
+    for (int index = start; index < end; index++) {
+      if (!Character.isWhitespace(data.charAt(index))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int endOfPair(String data, int start) {
+    int end = data.indexOf(PAIR_SEPARATOR, start);
+    return end < 0 ? data.length() : end;
+  }
+
+  /**
+   * Parses the decimal integer between start (inclusive) and end (exclusive), without creating a substring.
+   */
+  private static int parseInt(String data, int start, int end, int defaultValue) {
+    int from = start;
+    int to = end;
+    while (from < to && Character.isWhitespace(data.charAt(from))) {
+      from++;
+    }
+    while (to > from && Character.isWhitespace(data.charAt(to - 1))) {
+      to--;
+    }
+    if (from == to) {
+      return defaultValue;
+    }
+    boolean negative = data.charAt(from) == '-';
+    int index = negative ? from + 1 : from;
+    if (index == to) {
+      return defaultValue;
+    }
+    long result = 0;
+    for (; index < to; index++) {
+      char c = data.charAt(index);
+      if (c < '0' || c > '9') {
+        return defaultValue;
+      }
+      result = result * 10 + (c - '0');
+      if (result > Integer.MAX_VALUE) {
+        return defaultValue;
+      }
+    }
+    return (int) (negative ? -result : result);
+  }
+}
@@ -20,6 +20,7 @@
 package org.sonar.api.measures;
 
 import org.junit.Test;
+import org.sonar.api.qualitymodel.Characteristic;
 import org.sonar.api.rules.Rule;
 import org.sonar.api.rules.RulePriority;
 
@@ -97,4 +98,22 @@ public class MeasuresFiltersTest {
 
     assertThat(filter.filter(measures).getValue(), is(10.0));
   }
+
+  @Test
+  public void characteristics() {
+    Measure measureOnCharacteristic = new Measure(CoreMetrics.TECHNICAL_DEBT, 3.0);
+    measureOnCharacteristic.setCharacteristic(Characteristic.createByKey("EFFICIENCY", "Efficiency"));
+    Measure measureOnRequirement = new Measure(CoreMetrics.TECHNICAL_DEBT, 2.0);
+    measureOnRequirement.setCharacteristic(Characteristic.createByRule(new Rule("pmd", "key1")));
+    List<Measure> measures = Arrays.asList(
+        measureOnCharacteristic,
+        measureOnRequirement,
+        new Measure(CoreMetrics.TECHNICAL_DEBT, 5.0),
+        new Measure(CoreMetrics.VIOLATIONS, 10.0));
+
+    Collection<Measure> result = MeasuresFilters.characteristics(CoreMetrics.TECHNICAL_DEBT).filter(measures);
+    assertThat(result.size(), is(2));
+    assertThat(result.contains(measureOnCharacteristic), is(true));
+    assertThat(result.contains(measureOnRequirement), is(true));
+  }
 }
@@ -0,0 +1,103 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.utils;
+
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class LineDataFormatTest {
+
+  @Test
+  public void should_parse_int_by_line() {
+    int[] values = LineDataFormat.parseIntByLine("1=10;3=0;4=-2;5=");
+
+    assertThat(values).hasSize(6);
+    assertThat(values[1]).isEqualTo(10);
+    assertThat(values[2]).isEqualTo(LineDataFormat.NO_INT_VALUE);
+    assertThat(values[3]).isEqualTo(0);
+    assertThat(values[4]).isEqualTo(-2);
+    assertThat(values[5]).isEqualTo(LineDataFormat.NO_INT_VALUE);
+  }
+
+  @Test
+  public void should_ignore_invalid_lines() {
+    int[] values = LineDataFormat.parseIntByLine("foo=3;0=4;2=5");
+
+    assertThat(values).hasSize(3);
+    assertThat(values[0]).isEqualTo(LineDataFormat.NO_INT_VALUE);
+    assertThat(values[2]).isEqualTo(5);
+  }
+
+  @Test
+  public void should_ignore_too_big_lines() {
+    int[] ints = LineDataFormat.parseIntByLine("2=5;2147483647=3;" + (LineDataFormat.MAX_LINE + 1) + "=4");
+    long[] dates = LineDataFormat.parseDateTimeByLine("2=2013-05-18T10:00:00+0200;2000000000=2013-05-18T10:00:00+0200");
+
+    assertThat(ints).hasSize(3);
+    assertThat(ints[2]).isEqualTo(5);
+    assertThat(dates).hasSize(3);
+  }
+
+  @Test
+  public void should_keep_greatest_allowed_line() {
+    int[] values = LineDataFormat.parseIntByLine(LineDataFormat.MAX_LINE + "=4;" + (LineDataFormat.MAX_LINE + 1) + "=5");
+
+    assertThat(values).hasSize(LineDataFormat.MAX_LINE + 1);
+    assertThat(values[LineDataFormat.MAX_LINE]).isEqualTo(4);
+  }
+
+  @Test
+  public void should_parse_empty_data() {
+    assertThat(LineDataFormat.parseIntByLine(null)).isEmpty();
+    assertThat(LineDataFormat.parseIntByLine("")).hasSize(1);
+    assertThat(LineDataFormat.parseDateTimeByLine(null)).isEmpty();
+  }
+
+  @Test
+  public void should_parse_datetime_by_line() {
+    long[] values = LineDataFormat.parseDateTimeByLine("1=2008-05-18T00:00:00+0000;2=2008-05-18T00:00:00+0000;4=2011-01-01T10:20:30+0100");
+
+    assertThat(values).hasSize(5);
+    assertThat(values[1]).isEqualTo(DateUtils.parseDateTime("2008-05-18T00:00:00+0000").getTime());
+    assertThat(values[2]).isEqualTo(values[1]);
+    assertThat(values[3]).isEqualTo(LineDataFormat.NO_DATE_VALUE);
+    assertThat(values[4]).isEqualTo(DateUtils.parseDateTime("2011-01-01T10:20:30+0100").getTime());
+  }
+
+  @Test(expected = SonarException.class)
+  public void should_fail_to_parse_invalid_datetime() {
+    LineDataFormat.parseDateTimeByLine("1=2008-05-18");
+  }
+
+  @Test
+  public void should_format_int_by_line() {
+    int[] values = LineDataFormat.parseIntByLine("1=10;3=0;4=-2");
+
+    assertThat(LineDataFormat.formatIntByLine(values)).isEqualTo("1=10;3=0;4=-2");
+  }
+
+  @Test
+  public void should_format_datetime_by_line() {
+    long[] values = LineDataFormat.parseDateTimeByLine("2=2008-05-18T00:00:00+0000");
+
+    assertThat(LineDataFormat.parseDateTimeByLine(LineDataFormat.formatDateTimeByLine(values))).isEqualTo(values);
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.charts;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.sonar.api.ServerComponent;
+import org.sonar.core.component.AnalysisCompletedHandler;
+
+import javax.annotation.CheckForNull;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Bounded LRU cache of the PNG images generated by {@link ChartsServlet}. Images are identified by the whole set of
+ * request parameters, which contain the chart type, the values or the snapshot ids. The cache is cleared when an analysis
+ * is completed.
+ *
+ * @since 4.0
+ */
+public class ChartCache implements ServerComponent, AnalysisCompletedHandler {
+
+  static final int MAX_IMAGES = 2000;
+  static final long MAX_BYTES = 32L * 1024 * 1024;
+
+  private final LinkedHashMap<String, CachedChart> images = new LinkedHashMap<String, CachedChart>(16, 0.75f, true);
+  private final int maxImages;
+  private final long maxBytes;
+  private long bytes = 0L;
+
+  public ChartCache() {
+    this(MAX_IMAGES, MAX_BYTES);
+  }
+
+  ChartCache(int maxImages, long maxBytes) {
+    this.maxImages = maxImages;
+    this.maxBytes = maxBytes;
+  }
+
+  @CheckForNull
+  public synchronized CachedChart get(String key) {
+    return images.get(key);
+  }
+
+  public synchronized CachedChart put(String key, byte[] png) {
+    CachedChart chart = new CachedChart(png);
+    CachedChart previous = images.put(key, chart);
+    if (previous != null) {
+      bytes -= previous.png.length;
+    }
+    bytes += png.length;
+    Iterator<CachedChart> eldest = images.values().iterator();
+    while (images.size() > maxImages || (bytes > maxBytes && images.size() > 1)) {
+      bytes -= eldest.next().png.length;
+      eldest.remove();
+    }
+    return chart;
+  }
+
+  public void onAnalysisCompleted(long rootProjectId) {
+    clear();
+  }
+
+  public synchronized void clear() {
+    images.clear();
+    bytes = 0L;
+  }
+
+  synchronized int size() {
+    return images.size();
+  }
+
+  /**
+   * Parameters are sorted, so that the key does not depend on their order in the URL.
+   */
+  public static String key(Map<String, String> parameters) {
+    SortedMap<String, String> sorted = new TreeMap<String, String>(parameters);
+    StringBuilder sb = new StringBuilder();
+    for (Map.Entry<String, String> entry : sorted.entrySet()) {
+      sb.append(entry.getKey()).append('=').append(entry.getValue()).append('&');
+    }
+    return sb.toString();
+  }
+
+  public static final class CachedChart {
+    private final byte[] png;
+    private final String etag;
+
+    private CachedChart(byte[] png) {
+      this.png = png;
+      this.etag = "\"" + DigestUtils.md5Hex(png) + "\"";
+    }
+
+    public byte[] getPng() {
+      return png;
+    }
+
+    public String getEtag() {
+      return etag;
+    }
+  }
+}
@@ -20,7 +20,6 @@
 package org.sonar.server.charts;
 
 import com.google.common.collect.Maps;
-import com.google.common.io.Closeables;
 import org.jfree.chart.encoders.KeypointPNGEncoderAdapter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -33,13 +32,16 @@ import org.sonar.server.charts.deprecated.DeprecatedChart;
 import org.sonar.server.charts.deprecated.PieChart;
 import org.sonar.server.charts.deprecated.SparkLinesChart;
 import org.sonar.server.platform.Platform;
+import org.sonar.server.util.Etags;
 
+import javax.annotation.CheckForNull;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.Enumeration;
@@ -52,30 +54,55 @@ public class ChartsServlet extends HttpServlet {
 
   @Override
   public void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
-    if (isDeprecatedChart(request)) {
-      deprecatedDoGet(request, response);
-
-    } else {
-      ChartFactory chartFactory = Platform.getInstance().getContainer().getComponentByType(ChartFactory.class);
-      Chart chart = chartFactory.getChart(request.getParameter("ck"));
-      if (chart != null) {
-        BufferedImage image = chart.generateImage(getParams(request));
-        OutputStream out = response.getOutputStream();
-        try {
-          response.setContentType("image/png");
-          exportAsPNG(image, out);
-
-        } catch (Exception e) {
-          LOG.error("Generating chart " + chart.getClass().getName(), e);
-
-        } finally {
-          out.close();
-        }
+    Map<String, String> params = getParams(request);
+    ChartCache cache = Platform.getInstance().getContainer().getComponentByType(ChartCache.class);
+    String cacheKey = ChartCache.key(params);
+    ChartCache.CachedChart cachedChart = cache.get(cacheKey);
+    if (cachedChart == null) {
+      byte[] png = isDeprecatedChart(request) ? generateDeprecatedChart(request) : generateChart(params);
+      if (png == null) {
+        return;
       }
+      cachedChart = cache.put(cacheKey, png);
     }
+    write(cachedChart, request, response);
   }
 
-  private ChartParameters getParams(HttpServletRequest request) {
+  private void write(ChartCache.CachedChart chart, HttpServletRequest request, HttpServletResponse response) throws IOException {
+    response.setHeader("ETag", chart.getEtag());
+    if (Etags.matchesIfNoneMatch(request.getHeader("If-None-Match"), chart.getEtag())) {
+      response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+      return;
+    }
+    response.setContentType("image/png");
+    response.setContentLength(chart.getPng().length);
+    OutputStream out = response.getOutputStream();
+    try {
+      out.write(chart.getPng());
+    } finally {
+      out.close();
+    }
+  }
+
+  @CheckForNull
+  private byte[] generateChart(Map<String, String> params) {
+    ChartFactory chartFactory = Platform.getInstance().getContainer().getComponentByType(ChartFactory.class);
+    Chart chart = chartFactory.getChart(params.get("ck"));
+    if (chart != null) {
+      try {
+        BufferedImage image = chart.generateImage(new ChartParameters(params));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportAsPNG(image, out);
+        return out.toByteArray();
+
+      } catch (Exception e) {
+        LOG.error("Generating chart " + chart.getClass().getName(), e);
+      }
+    }
+    return null;
+  }
+
+  private Map<String, String> getParams(HttpServletRequest request) {
     Map<String, String> map = Maps.newHashMap();
     Enumeration keys = request.getParameterNames();
     while (keys.hasMoreElements()) {
@@ -83,7 +110,7 @@ public class ChartsServlet extends HttpServlet {
       String value = request.getParameter(key);
       map.put(key, value);
     }
-    return new ChartParameters(map);
+    return map;
   }
 
   private void exportAsPNG(BufferedImage image, OutputStream out) throws IOException {
@@ -109,7 +136,8 @@ public class ChartsServlet extends HttpServlet {
     return false;
   }
 
-  public void deprecatedDoGet(HttpServletRequest request, HttpServletResponse response) {
+  @CheckForNull
+  public byte[] generateDeprecatedChart(HttpServletRequest request) {
     Map<String, String> params = Maps.newHashMap();
     params.put(BaseChartWeb.CHART_PARAM_TYPE, request.getParameter(BaseChartWeb.CHART_PARAM_TYPE));
     params.put(BaseChartWeb.CHART_PARAM_VALUES, request.getParameter(BaseChartWeb.CHART_PARAM_VALUES));
@@ -145,16 +173,14 @@ public class ChartsServlet extends HttpServlet {
     }
 
     if (chart != null) {
-      OutputStream out = null;
       try {
-        out = response.getOutputStream();
-        response.setContentType("image/png");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
         chart.exportChartAsPNG(out);
+        return out.toByteArray();
       } catch (Exception e) {
         LOG.error("Generating chart " + chart.getClass().getName(), e);
-      } finally {
-        Closeables.closeQuietly(out);
       }
     }
+    return null;
   }
 }
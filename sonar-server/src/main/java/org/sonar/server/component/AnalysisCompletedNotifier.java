@@ -0,0 +1,56 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.component;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.ServerComponent;
+import org.sonar.core.component.AnalysisCompletedHandler;
+
+/**
+ * Notifies the {@link AnalysisCompletedHandler}s when the batch reports the end of an analysis.
+ *
+ * @since 4.0
+ */
+public class AnalysisCompletedNotifier implements ServerComponent {
+
+  private static final Logger LOG = LoggerFactory.getLogger(AnalysisCompletedNotifier.class);
+
+  private final AnalysisCompletedHandler[] handlers;
+
+  public AnalysisCompletedNotifier(AnalysisCompletedHandler[] handlers) {
+    this.handlers = handlers;
+  }
+
+  public AnalysisCompletedNotifier() {
+    this(new AnalysisCompletedHandler[0]);
+  }
+
+  public void notifyAnalysisCompleted(long rootProjectId) {
+    for (AnalysisCompletedHandler handler : handlers) {
+      try {
+        handler.onAnalysisCompleted(rootProjectId);
+      } catch (RuntimeException e) {
+        // other caches must be updated anyway
+        LOG.error("Fail to notify " + handler.getClass().getName() + " of the analysis of project " + rootProjectId, e);
+      }
+    }
+  }
+}
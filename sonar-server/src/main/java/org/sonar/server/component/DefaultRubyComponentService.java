@@ -28,6 +28,7 @@ import org.sonar.core.component.ComponentDto;
 import org.sonar.core.resource.ResourceDao;
 import org.sonar.core.resource.ResourceDto;
 import org.sonar.core.resource.ResourceIndexerDao;
+import org.sonar.core.resource.ResourceSearchIndex;
 import org.sonar.server.exceptions.BadRequestException;
 import org.sonar.server.exceptions.NotFoundException;
 import org.sonar.server.util.RubyUtils;
@@ -41,11 +42,14 @@ public class DefaultRubyComponentService implements RubyComponentService {
   private final ResourceDao resourceDao;
   private final DefaultComponentFinder finder;
   private final ResourceIndexerDao resourceIndexerDao;
+  private final ResourceSearchIndex resourceSearchIndex;
 
-  public DefaultRubyComponentService(ResourceDao resourceDao, DefaultComponentFinder finder, ResourceIndexerDao resourceIndexerDao) {
+  public DefaultRubyComponentService(ResourceDao resourceDao, DefaultComponentFinder finder, ResourceIndexerDao resourceIndexerDao,
+                                     ResourceSearchIndex resourceSearchIndex) {
     this.resourceDao = resourceDao;
     this.finder = finder;
     this.resourceIndexerDao = resourceIndexerDao;
+    this.resourceSearchIndex = resourceSearchIndex;
   }
 
   @Override
@@ -75,6 +79,7 @@ public class DefaultRubyComponentService implements RubyComponentService {
       throw new BadRequestException("Resource not created: "+kee);
     }
     resourceIndexerDao.indexResource(component.getId());
+    resourceSearchIndex.reloadProject(component.getId());
   }
 
   public void updateComponent(Long id, String key, String name) {
@@ -19,7 +19,6 @@
  */
 package org.sonar.server.issue;
 
-import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import org.apache.ibatis.session.SqlSession;
 import org.slf4j.Logger;
@@ -30,16 +29,14 @@ import org.sonar.api.issue.internal.DefaultIssue;
 import org.sonar.api.issue.internal.DefaultIssueComment;
 import org.sonar.api.rules.Rule;
 import org.sonar.api.user.User;
-import org.sonar.api.user.UserFinder;
 import org.sonar.api.utils.Paging;
 import org.sonar.core.issue.DefaultIssueQueryResult;
 import org.sonar.core.issue.db.IssueChangeDao;
 import org.sonar.core.issue.db.IssueDao;
 import org.sonar.core.issue.db.IssueDto;
+import org.sonar.core.metadata.MetadataCache;
 import org.sonar.core.persistence.MyBatis;
-import org.sonar.core.resource.ResourceDao;
-import org.sonar.core.rule.DefaultRuleFinder;
-import org.sonar.core.user.AuthorizationDao;
+import org.sonar.core.user.AuthorizationCache;
 import org.sonar.server.user.UserSession;
 
 import java.util.Collection;
@@ -59,26 +56,20 @@ public class DefaultIssueFinder implements IssueFinder {
   private final MyBatis myBatis;
   private final IssueDao issueDao;
   private final IssueChangeDao issueChangeDao;
-  private final AuthorizationDao authorizationDao;
-  private final DefaultRuleFinder ruleFinder;
-  private final UserFinder userFinder;
-  private final ResourceDao resourceDao;
+  private final AuthorizationCache authorizationCache;
+  private final MetadataCache metadataCache;
   private final ActionPlanService actionPlanService;
 
   public DefaultIssueFinder(MyBatis myBatis,
                             IssueDao issueDao, IssueChangeDao issueChangeDao,
-                            AuthorizationDao authorizationDao,
-                            DefaultRuleFinder ruleFinder,
-                            UserFinder userFinder,
-                            ResourceDao resourceDao,
+                            AuthorizationCache authorizationCache,
+                            MetadataCache metadataCache,
                             ActionPlanService actionPlanService) {
     this.myBatis = myBatis;
     this.issueDao = issueDao;
     this.issueChangeDao = issueChangeDao;
-    this.authorizationDao = authorizationDao;
-    this.ruleFinder = ruleFinder;
-    this.userFinder = userFinder;
-    this.resourceDao = resourceDao;
+    this.authorizationCache = authorizationCache;
+    this.metadataCache = metadataCache;
     this.actionPlanService = actionPlanService;
   }
 
@@ -87,7 +78,7 @@ public class DefaultIssueFinder implements IssueFinder {
     if (dto == null) {
       throw new IllegalStateException("Unknown issue: " + issueKey);
     }
-    if (!authorizationDao.isAuthorizedComponentId(dto.getComponentId(), UserSession.get().userId(), requiredRole)) {
+    if (!authorizationCache.isAuthorizedRootProjectId(dto.getRootComponentId(), UserSession.get().userId(), requiredRole)) {
       throw new IllegalStateException("User does not have the required role required to change the issue: " + issueKey);
     }
     return dto.toDefaultIssue();
@@ -180,15 +171,15 @@ public class DefaultIssueFinder implements IssueFinder {
   }
 
   private Collection<Rule> findRules(Set<Integer> ruleIds) {
-    return ruleFinder.findByIds(ruleIds);
+    return metadataCache.rules(ruleIds);
   }
 
   private Collection<User> findUsers(Set<String> logins) {
-    return userFinder.findByLogins(Lists.newArrayList(logins));
+    return metadataCache.users(logins);
   }
 
   private Collection<Component> findComponents(Set<Long> componentIds) {
-    return resourceDao.findByIds(componentIds);
+    return metadataCache.components(componentIds);
   }
 
   private Collection<ActionPlan> findActionPlans(Set<String> actionPlanKeys) {
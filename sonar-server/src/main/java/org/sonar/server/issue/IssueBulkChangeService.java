@@ -22,6 +22,7 @@ package org.sonar.server.issue;
 
 import com.google.common.base.Predicate;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonar.api.issue.Issue;
@@ -46,6 +47,7 @@ import static com.google.common.collect.Lists.newArrayList;
 public class IssueBulkChangeService {
 
   private static final Logger LOG = LoggerFactory.getLogger(IssueBulkChangeService.class);
+  private static final int CHUNK_SIZE = 500;
 
   private final DefaultIssueFinder issueFinder;
   private final IssueStorage issueStorage;
@@ -73,21 +75,28 @@ public class IssueBulkChangeService {
 
     IssueChangeContext issueChangeContext = IssueChangeContext.createUser(new Date(), userSession.login());
     Set<String> concernedProjects = new HashSet<String>();
-    for (Issue issue : issues) {
-      ActionContext actionContext = new ActionContext(issue, issueChangeContext);
-      for (Action action : bulkActions) {
-        applyAction(action, actionContext, issueBulkChangeQuery, result);
-      }
-      if (result.issuesChanged().contains(issue)) {
-        // Apply comment action only on changed issues
-        if (issueBulkChangeQuery.hasComment()) {
-          applyAction(getAction(CommentAction.KEY), actionContext, issueBulkChangeQuery, result);
+    for (List<Issue> chunk : Lists.partition(issues, CHUNK_SIZE)) {
+      List<DefaultIssue> changedIssues = newArrayList();
+      for (Issue issue : chunk) {
+        ActionContext actionContext = new ActionContext(issue, issueChangeContext);
+        for (Action action : bulkActions) {
+          applyAction(action, actionContext, issueBulkChangeQuery, result);
+        }
+        if (result.issuesChanged().contains(issue)) {
+          // Apply comment action only on changed issues
+          if (issueBulkChangeQuery.hasComment()) {
+            applyAction(getAction(CommentAction.KEY), actionContext, issueBulkChangeQuery, result);
+          }
+          changedIssues.add((DefaultIssue) issue);
+          concernedProjects.add(((DefaultIssue) issue).projectKey());
         }
-        issueStorage.save((DefaultIssue) issue);
+      }
+      if (!changedIssues.isEmpty()) {
+        // one batched save and one batch of notifications per chunk
+        issueStorage.save(changedIssues);
         if (issueBulkChangeQuery.sendNotifications()) {
-          issueNotifications.sendChanges((DefaultIssue) issue, issueChangeContext, issueQueryResult);
+          issueNotifications.sendChanges(changedIssues, issueChangeContext, issueQueryResult);
         }
-        concernedProjects.add(((DefaultIssue) issue).projectKey());
       }
     }
     // Purge dryRun cache
@@ -30,6 +30,7 @@ import org.sonar.core.permission.PermissionFacade;
 import org.sonar.core.resource.ResourceDao;
 import org.sonar.core.resource.ResourceDto;
 import org.sonar.core.resource.ResourceQuery;
+import org.sonar.core.user.AuthorizationCache;
 import org.sonar.core.user.GroupDto;
 import org.sonar.core.user.UserDao;
 import org.sonar.core.user.UserDto;
@@ -59,11 +60,13 @@ public class InternalPermissionService implements ServerComponent {
   private final UserDao userDao;
   private final ResourceDao resourceDao;
   private final PermissionFacade permissionFacade;
+  private final AuthorizationCache authorizationCache;
 
-  public InternalPermissionService(UserDao userDao, ResourceDao resourceDao, PermissionFacade permissionFacade) {
+  public InternalPermissionService(UserDao userDao, ResourceDao resourceDao, PermissionFacade permissionFacade, AuthorizationCache authorizationCache) {
     this.userDao = userDao;
     this.resourceDao = resourceDao;
     this.permissionFacade = permissionFacade;
+    this.authorizationCache = authorizationCache;
   }
 
   public List<String> globalPermissions() {
@@ -92,6 +95,7 @@ public class InternalPermissionService implements ServerComponent {
     }
 
     permissionFacade.grantDefaultRoles(component.getId(), component.qualifier());
+    authorizationCache.invalidate();
   }
 
   public void applyPermissionTemplate(Map<String, Object> params) {
@@ -102,6 +106,7 @@ public class InternalPermissionService implements ServerComponent {
     for (String component : query.getSelectedComponents()) {
       permissionFacade.applyPermissionTemplate(query.getTemplateKey(), Long.parseLong(component));
     }
+    authorizationCache.invalidate();
   }
 
   private void changePermission(String permissionChange, Map<String, Object> params) {
@@ -110,6 +115,9 @@ public class InternalPermissionService implements ServerComponent {
     PermissionChangeQuery permissionChangeQuery = PermissionChangeQuery.buildFromParams(params);
     permissionChangeQuery.validate();
     applyPermissionChange(permissionChange, permissionChangeQuery);
+    if (permissionChangeQuery.component() != null) {
+      authorizationCache.invalidate();
+    }
   }
 
   private void applyPermissionChange(String operation, PermissionChangeQuery permissionChangeQuery) {
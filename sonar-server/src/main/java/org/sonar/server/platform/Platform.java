@@ -49,13 +49,17 @@ import org.sonar.core.issue.workflow.IssueWorkflow;
 import org.sonar.core.measure.MeasureFilterEngine;
 import org.sonar.core.measure.MeasureFilterExecutor;
 import org.sonar.core.measure.MeasureFilterFactory;
+import org.sonar.core.measure.MeasureFilterStore;
+import org.sonar.core.metadata.MetadataCache;
 import org.sonar.core.metric.DefaultMetricFinder;
 import org.sonar.core.notification.DefaultNotificationManager;
 import org.sonar.core.permission.PermissionFacade;
 import org.sonar.core.persistence.*;
+import org.sonar.core.profiling.ProfilingRegistry;
 import org.sonar.core.purge.PurgeProfiler;
 import org.sonar.core.qualitymodel.DefaultModelFinder;
 import org.sonar.core.resource.DefaultResourcePermissions;
+import org.sonar.core.resource.ResourceSearchIndex;
 import org.sonar.core.rule.DefaultRuleFinder;
 import org.sonar.core.source.HtmlSourceDecorator;
 import org.sonar.core.technicaldebt.TechnicalDebtConverter;
@@ -65,6 +69,7 @@ import org.sonar.core.technicaldebt.TechnicalDebtXMLImporter;
 import org.sonar.core.test.TestPlanPerspectiveLoader;
 import org.sonar.core.test.TestablePerspectiveLoader;
 import org.sonar.core.timemachine.Periods;
+import org.sonar.core.user.AuthorizationCache;
 import org.sonar.core.user.DefaultUserFinder;
 import org.sonar.core.user.HibernateUserFinder;
 import org.sonar.jpa.dao.MeasuresDao;
@@ -74,8 +79,10 @@ import org.sonar.jpa.session.DatabaseSessionFactory;
 import org.sonar.jpa.session.DatabaseSessionProvider;
 import org.sonar.jpa.session.DefaultDatabaseConnector;
 import org.sonar.jpa.session.ThreadLocalDatabaseSessionFactory;
+import org.sonar.server.charts.ChartCache;
 import org.sonar.server.charts.ChartFactory;
 import org.sonar.server.component.DefaultComponentFinder;
+import org.sonar.server.component.AnalysisCompletedNotifier;
 import org.sonar.server.component.DefaultRubyComponentService;
 import org.sonar.server.configuration.Backup;
 import org.sonar.server.configuration.ProfilesManager;
@@ -163,6 +170,7 @@ public final class Platform {
     rootContainer.addSingleton(ServerSettings.class);
     rootContainer.addSingleton(ServerImpl.class);
     rootContainer.addSingleton(Logback.class);
+    rootContainer.addSingleton(ProfilingRegistry.class);
     rootContainer.addSingleton(EmbeddedDatabaseFactory.class);
     rootContainer.addSingleton(DefaultDatabase.class);
     rootContainer.addSingleton(MyBatis.class);
@@ -224,6 +232,7 @@ public final class Platform {
     // depends on plugins
     servicesContainer.addSingleton(DefaultModelFinder.class);
     servicesContainer.addSingleton(ChartFactory.class);
+    servicesContainer.addSingleton(ChartCache.class);
     servicesContainer.addSingleton(Languages.class);
     servicesContainer.addSingleton(Views.class);
     servicesContainer.addSingleton(CodeColorizers.class);
@@ -242,12 +251,14 @@ public final class Platform {
     servicesContainer.addSingleton(XMLRuleParser.class);
     servicesContainer.addSingleton(DefaultRuleFinder.class);
     servicesContainer.addSingleton(DefaultMetricFinder.class);
+    servicesContainer.addSingleton(MetadataCache.class);
     servicesContainer.addSingleton(ProfilesConsole.class);
     servicesContainer.addSingleton(RulesConsole.class);
     servicesContainer.addSingleton(ResourceTypes.class);
     servicesContainer.addSingleton(SettingsChangeNotifier.class);
     servicesContainer.addSingleton(PageDecorations.class);
     servicesContainer.addSingleton(MeasureFilterFactory.class);
+    servicesContainer.addSingleton(MeasureFilterStore.class);
     servicesContainer.addSingleton(MeasureFilterExecutor.class);
     servicesContainer.addSingleton(MeasureFilterEngine.class);
     servicesContainer.addSingleton(DryRunDatabaseFactory.class);
@@ -261,12 +272,15 @@ public final class Platform {
     servicesContainer.addSingleton(DefaultUserFinder.class);
     servicesContainer.addSingleton(DefaultUserService.class);
     servicesContainer.addSingleton(PermissionFacade.class);
+    servicesContainer.addSingleton(AuthorizationCache.class);
     servicesContainer.addSingleton(InternalPermissionService.class);
     servicesContainer.addSingleton(InternalPermissionTemplateService.class);
 
     // components
     servicesContainer.addSingleton(DefaultComponentFinder.class);
     servicesContainer.addSingleton(DefaultRubyComponentService.class);
+    servicesContainer.addSingleton(ResourceSearchIndex.class);
+    servicesContainer.addSingleton(AnalysisCompletedNotifier.class);
 
     // issues
     servicesContainer.addSingleton(ServerIssueStorage.class);
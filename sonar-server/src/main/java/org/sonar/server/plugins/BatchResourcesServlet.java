@@ -32,7 +32,6 @@ import javax.servlet.http.HttpServletResponse;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 import java.io.PrintWriter;
 
 /**
@@ -44,6 +43,8 @@ public class BatchResourcesServlet extends HttpServlet {
   private static final Logger LOG = LoggerFactory.getLogger(BatchResourcesServlet.class);
   private static final long serialVersionUID = -2100128371794649028L;
 
+  private final transient StaticResourceCache cache = new StaticResourceCache();
+
   @Override
   public void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
     String filename = filename(request);
@@ -61,26 +62,33 @@ public class BatchResourcesServlet extends HttpServlet {
       }
     } else {
       InputStream in = null;
-      OutputStream out = null;
       try {
-        in = getServletContext().getResourceAsStream("/WEB-INF/lib/" + filename);
+        // libraries are too big to be kept in memory, they are streamed with an ETag computed once
+        in = getResourceAsStream(filename);
         if (in == null) {
           // TODO
         } else {
-          response.setContentType("application/java-archive");
-          out = response.getOutputStream();
-          IOUtils.copy(in, out);
+          String etag = cache.getStreamedEtag(filename);
+          if (etag == null) {
+            etag = cache.loadStreamedEtag(filename, in);
+            IOUtils.closeQuietly(in);
+            in = getResourceAsStream(filename);
+          }
+          StaticResourceCache.stream(in, etag, "application/java-archive", null, request, response);
         }
       } catch (Exception e) {
         LOG.error("Unable to load batch resource '" + filename + "'", e);
         response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
       } finally {
         IOUtils.closeQuietly(in);
-        IOUtils.closeQuietly(out);
       }
     }
   }
 
+  private InputStream getResourceAsStream(String filename) {
+    return getServletContext().getResourceAsStream("/WEB-INF/lib/" + filename);
+  }
+
   /**
    * @return part of request URL after servlet path
    */
@@ -34,6 +34,7 @@ public final class MimeTypes {
   }
 
   private static final Map<String, String> MAP = new ImmutableMap.Builder<String, String>()
+    .put("js", "application/javascript")
     .put("json", "application/json")
     .put("zip", "application/zip")
     .put("tgz", "application/tgz")
@@ -0,0 +1,247 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.plugins;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.math.NumberUtils;
+import org.sonar.server.util.Etags;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * In-memory cache of the static resources served by {@link StaticResourcesServlet} and {@link BatchResourcesServlet}.
+ * Resources do not change until the server is restarted, so each one is read once, with its strong ETag and, for text
+ * resources, a gzipped copy. Conditional GET requests are answered with 304 (Not Modified).
+ * <p/>
+ * Big resources, like the libraries of batch, are not kept in memory. They are streamed on each request, with an ETag
+ * computed once.
+ *
+ * @since 4.0
+ */
+class StaticResourceCache {
+
+  static final int MAX_CACHED_SIZE = 2 * 1024 * 1024;
+  static final long MAX_TOTAL_SIZE = 32L * 1024 * 1024;
+  static final String VERSION_PARAMETER = "v";
+
+  /**
+   * Versioned URLs change when the resource changes, so browsers can keep them for one year. The version
+   * must be the current one, else an old URL would be cached with the new content.
+   */
+  private static final String VERSIONED_CACHE_CONTROL = "public, max-age=31536000";
+  private static final String REVALIDATED_CACHE_CONTROL = "public, max-age=0, must-revalidate";
+
+  private final ConcurrentMap<String, CachedResource> resources = new ConcurrentHashMap<String, CachedResource>();
+  private final ConcurrentMap<String, String> streamedEtags = new ConcurrentHashMap<String, String>();
+  private final AtomicLong totalSize = new AtomicLong();
+
+  @CheckForNull
+  CachedResource get(String key) {
+    return resources.get(key);
+  }
+
+  /**
+   * Reads the stream, which is not closed. Resources are not cached when the total size of the cache would exceed
+   * {@link #MAX_TOTAL_SIZE}.
+   *
+   * @return null if the resource is bigger than {@link #MAX_CACHED_SIZE}. It must then be streamed. The stream is
+   *         partially read.
+   */
+  @CheckForNull
+  CachedResource load(String key, InputStream input, String contentType) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    if (IOUtils.copyLarge(input, bytes, 0L, MAX_CACHED_SIZE + 1L) > MAX_CACHED_SIZE) {
+      return null;
+    }
+    CachedResource resource = new CachedResource(bytes.toByteArray(), contentType);
+    if (reserve(resource.content.length)) {
+      CachedResource previous = resources.putIfAbsent(key, resource);
+      if (previous != null) {
+        totalSize.addAndGet(-resource.content.length);
+        return previous;
+      }
+    }
+    return resource;
+  }
+
+  private boolean reserve(long size) {
+    while (true) {
+      long current = totalSize.get();
+      if (current + size > MAX_TOTAL_SIZE) {
+        return false;
+      }
+      if (totalSize.compareAndSet(current, current + size)) {
+        return true;
+      }
+    }
+  }
+
+  @CheckForNull
+  String getStreamedEtag(String key) {
+    return streamedEtags.get(key);
+  }
+
+  /**
+   * Reads the stream, which is not closed, to compute the ETag of a resource that is not kept in memory.
+   */
+  String loadStreamedEtag(String key, InputStream input) throws IOException {
+    String etag = "\"" + DigestUtils.md5Hex(input) + "\"";
+    String previous = streamedEtags.putIfAbsent(key, etag);
+    return previous != null ? previous : etag;
+  }
+
+  /**
+   * @param version the version of the resource, or null if the resource is not versioned. The response can be
+   *                kept by browsers for one year only if the request parameter "v" equals this version.
+   */
+  static void write(CachedResource resource, @Nullable String version, HttpServletRequest request, HttpServletResponse response) throws IOException {
+    if (resource.gzippedContent != null) {
+      response.setHeader("Vary", "Accept-Encoding");
+    }
+    if (isNotModified(resource.etag, version, request, response)) {
+      return;
+    }
+
+    // mime type must be set before writing response body
+    response.setContentType(resource.contentType);
+    byte[] body = resource.content;
+    if (resource.gzippedContent != null && acceptsGzip(request.getHeader("Accept-Encoding"))) {
+      response.setHeader("Content-Encoding", "gzip");
+      body = resource.gzippedContent;
+    }
+    response.setContentLength(body.length);
+    OutputStream out = response.getOutputStream();
+    try {
+      out.write(body);
+    } finally {
+      IOUtils.closeQuietly(out);
+    }
+  }
+
+  /**
+   * Copies the stream, which is not closed, without keeping it in memory.
+   *
+   * @param etag the ETag of the resource, or null if unknown
+   * @see #write(CachedResource, String, HttpServletRequest, HttpServletResponse)
+   */
+  static void stream(InputStream input, @Nullable String etag, String contentType, @Nullable String version,
+                     HttpServletRequest request, HttpServletResponse response) throws IOException {
+    if (isNotModified(etag, version, request, response)) {
+      return;
+    }
+    response.setContentType(contentType);
+    OutputStream out = response.getOutputStream();
+    try {
+      IOUtils.copyLarge(input, out);
+    } finally {
+      IOUtils.closeQuietly(out);
+    }
+  }
+
+  /**
+   * Sets the cache headers, then answers 304 (Not Modified) if the request matches the ETag.
+   */
+  private static boolean isNotModified(@Nullable String etag, @Nullable String version, HttpServletRequest request, HttpServletResponse response) {
+    boolean versioned = version != null && version.equals(request.getParameter(VERSION_PARAMETER));
+    response.setHeader("Cache-Control", versioned ? VERSIONED_CACHE_CONTROL : REVALIDATED_CACHE_CONTROL);
+    if (etag == null) {
+      return false;
+    }
+    response.setHeader("ETag", etag);
+    if (Etags.matchesIfNoneMatch(request.getHeader("If-None-Match"), etag)) {
+      response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+      return true;
+    }
+    return false;
+  }
+
+  @VisibleForTesting
+  static boolean acceptsGzip(String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return false;
+    }
+    for (String encoding : StringUtils.split(acceptEncoding, ',')) {
+      String[] fields = StringUtils.split(encoding, ';');
+      if (fields.length > 0 && "gzip".equalsIgnoreCase(fields[0].trim())) {
+        return fields.length == 1 || NumberUtils.toDouble(StringUtils.substringAfter(StringUtils.deleteWhitespace(fields[1]), "q="), 1.0) > 0.0;
+      }
+    }
+    return false;
+  }
+
+  static boolean isCompressible(String contentType) {
+    return contentType.startsWith("text/") || contentType.endsWith("javascript") || contentType.endsWith("json")
+      || contentType.endsWith("xml") || "image/svg+xml".equals(contentType);
+  }
+
+  static final class CachedResource {
+    private final byte[] content;
+    private final byte[] gzippedContent;
+    private final String etag;
+    private final String contentType;
+
+    CachedResource(byte[] content, String contentType) throws IOException {
+      this.content = content;
+      this.contentType = contentType;
+      this.etag = "\"" + DigestUtils.md5Hex(content) + "\"";
+      this.gzippedContent = isCompressible(contentType) ? gzip(content) : null;
+    }
+
+    String getEtag() {
+      return etag;
+    }
+
+    @CheckForNull
+    byte[] getGzippedContent() {
+      return gzippedContent;
+    }
+
+    /**
+     * @return null if compression does not reduce the size
+     */
+    @CheckForNull
+    private static byte[] gzip(byte[] content) throws IOException {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream(content.length / 2 + 32);
+      GZIPOutputStream gzip = new GZIPOutputStream(bytes);
+      try {
+        gzip.write(content);
+      } finally {
+        gzip.close();
+      }
+      byte[] result = bytes.toByteArray();
+      return result.length < content.length ? result : null;
+    }
+  }
+}
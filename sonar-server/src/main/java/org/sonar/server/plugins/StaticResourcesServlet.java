@@ -24,21 +24,24 @@ import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.sonar.api.platform.PluginMetadata;
 import org.sonar.server.platform.Platform;
 
+import javax.annotation.Nullable;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 
 public class StaticResourcesServlet extends HttpServlet {
 
   private static final Logger LOG = LoggerFactory.getLogger(StaticResourcesServlet.class);
   private static final long serialVersionUID = -2577454614650178426L;
 
+  private final transient StaticResourceCache cache = new StaticResourceCache();
+
   @Override
   public void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
     String pluginKey = getPluginKey(request);
@@ -51,15 +54,28 @@ public class StaticResourcesServlet extends HttpServlet {
       response.sendError(HttpServletResponse.SC_NOT_FOUND);
       return;
     }
+    PluginMetadata metadata = pluginRepository.getMetadata(pluginKey);
+    String version = metadata != null ? metadata.getVersion() : null;
+    String cacheKey = getCacheKey(pluginKey, metadata, resource);
+    StaticResourceCache.CachedResource cachedResource = cache.get(cacheKey);
+    if (cachedResource != null) {
+      StaticResourceCache.write(cachedResource, version, request, response);
+      return;
+    }
     InputStream in = null;
-    OutputStream out = null;
     try {
       in = classLoader.getResourceAsStream(resource);
       if (in != null) {
-        // mime type must be set before writing response body
-        completeContentType(response, resource);
-        out = response.getOutputStream();
-        IOUtils.copy(in, out);
+        String contentType = MimeTypes.getByFilename(resource);
+        cachedResource = cache.load(cacheKey, in, contentType);
+        if (cachedResource != null) {
+          StaticResourceCache.write(cachedResource, version, request, response);
+        } else {
+          // too big to be kept in memory
+          IOUtils.closeQuietly(in);
+          in = classLoader.getResourceAsStream(resource);
+          StaticResourceCache.stream(in, null, contentType, version, request, response);
+        }
 
       } else {
         LOG.error("Unable to find resource '" + resource + "' in plugin '" + pluginKey + "'");
@@ -70,10 +86,17 @@ public class StaticResourcesServlet extends HttpServlet {
       response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
     } finally {
       IOUtils.closeQuietly(in);
-      IOUtils.closeQuietly(out);
     }
   }
 
+  /**
+   * Plugins can be updated only by restarting the server, but the version is part of the key for safety.
+   */
+  @VisibleForTesting
+  String getCacheKey(String pluginKey, @Nullable PluginMetadata metadata, String resource) {
+    return pluginKey + ":" + (metadata != null ? metadata.getVersion() : "") + ":" + resource;
+  }
+
   /**
    * @return part of request URL after servlet path
    */
@@ -91,9 +114,4 @@ public class StaticResourcesServlet extends HttpServlet {
   protected String getResourcePath(HttpServletRequest request) {
     return "static/" + StringUtils.substringAfter(getPluginKeyAndResourcePath(request), "/");
   }
-
-  @VisibleForTesting
-  void completeContentType(HttpServletResponse response, String filename) {
-    response.setContentType(MimeTypes.getByFilename(filename));
-  }
 }
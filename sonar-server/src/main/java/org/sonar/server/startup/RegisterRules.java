@@ -26,6 +26,8 @@ import com.google.common.base.Strings;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -39,42 +41,180 @@ import org.sonar.api.utils.TimeProfiler;
 import org.sonar.core.i18n.RuleI18nManager;
 import org.sonar.jpa.session.DatabaseSessionFactory;
 import org.sonar.server.configuration.ProfilesManager;
+import org.sonar.server.platform.PersistentSettings;
 
 import java.util.*;
 
 import static com.google.common.collect.Lists.newArrayList;
 import static com.google.common.collect.Maps.newHashMap;
 
+/**
+ * Rules of a repository are saved in database only if the repository changed since the last startup. A fingerprint
+ * of the definitions of each repository is stored in the global properties to detect changes. These properties are
+ * not sent to batch. As they could be restored independently of the table RULES, the number of rules in database is
+ * also verified.
+ */
 public final class RegisterRules {
 
+  public static final String FINGERPRINT_PROPERTY_PREFIX = "sonar.core.rulesFingerprint.";
+
   private static final Logger LOG = LoggerFactory.getLogger(RegisterRules.class);
   private final DatabaseSessionFactory sessionFactory;
   private final ProfilesManager profilesManager;
   private final List<RuleRepository> repositories;
   private final RuleI18nManager ruleI18nManager;
+  private final PersistentSettings settings;
 
-  public RegisterRules(DatabaseSessionFactory sessionFactory, RuleRepository[] repos, RuleI18nManager ruleI18nManager, ProfilesManager profilesManager) {
+  public RegisterRules(DatabaseSessionFactory sessionFactory, RuleRepository[] repos, RuleI18nManager ruleI18nManager, ProfilesManager profilesManager,
+                       PersistentSettings settings) {
     this.sessionFactory = sessionFactory;
     this.profilesManager = profilesManager;
     this.repositories = newArrayList(repos);
     this.ruleI18nManager = ruleI18nManager;
+    this.settings = settings;
   }
 
-  public RegisterRules(DatabaseSessionFactory sessionFactory, RuleI18nManager ruleI18nManager, ProfilesManager profilesManager) {
-    this(sessionFactory, new RuleRepository[0], ruleI18nManager, profilesManager);
+  public RegisterRules(DatabaseSessionFactory sessionFactory, RuleI18nManager ruleI18nManager, ProfilesManager profilesManager, PersistentSettings settings) {
+    this(sessionFactory, new RuleRepository[0], ruleI18nManager, profilesManager, settings);
   }
 
   public void start() {
+    Map<String, List<Rule>> definedRules = loadRepositoryRules();
+    Map<String, String> fingerprints = fingerprints(definedRules);
+    Map<String, String> previousFingerprints = previousFingerprints();
     DatabaseSession session = sessionFactory.getSession();
+    Set<String> unchangedRepositories = unchangedRepositories(definedRules, fingerprints, previousFingerprints, session);
+    if (!previousFingerprints.isEmpty() && fingerprints.equals(previousFingerprints) && unchangedRepositories.equals(fingerprints.keySet())) {
+      LOG.info("Rule repositories are unchanged");
+      return;
+    }
+
     RulesByRepository existingRules = new RulesByRepository(findAllRules(session));
 
-    List<Rule> registeredRules = registerRules(existingRules, session);
+    Set<Rule> registeredRules = registerRules(definedRules, unchangedRepositories, existingRules, session);
 
     LOG.info("Removing deprecated rules");
     disableDeprecatedRules(existingRules, registeredRules, session);
     disableDeprecatedRepositories(existingRules, session);
 
     session.commit();
+    saveFingerprints(fingerprints, previousFingerprints);
+  }
+
+  private Map<String, List<Rule>> loadRepositoryRules() {
+    Map<String, List<Rule>> rulesByRepository = newHashMap();
+    for (RuleRepository repository : repositories) {
+      List<Rule> rules = rulesByRepository.get(repository.getKey());
+      if (rules == null) {
+        rules = newArrayList();
+        rulesByRepository.put(repository.getKey(), rules);
+      }
+      for (Rule rule : repository.createRules()) {
+        updateRuleFromRepositoryInfo(rule, repository);
+        validateRule(rule, repository.getKey());
+        rules.add(rule);
+      }
+    }
+    return rulesByRepository;
+  }
+
+  private static Map<String, String> fingerprints(Map<String, List<Rule>> rulesByRepository) {
+    Map<String, String> fingerprints = newHashMap();
+    for (Map.Entry<String, List<Rule>> entry : rulesByRepository.entrySet()) {
+      fingerprints.put(entry.getKey(), fingerprint(entry.getValue()));
+    }
+    return fingerprints;
+  }
+
+  /**
+   * Hash of all the fields that are copied to database
+   */
+  static String fingerprint(List<Rule> rules) {
+    Map<String, Rule> sortedRules = new TreeMap<String, Rule>();
+    for (Rule rule : rules) {
+      sortedRules.put(rule.getKey(), rule);
+    }
+    StringBuilder sb = new StringBuilder();
+    for (Rule rule : sortedRules.values()) {
+      sb.append(rule.getKey()).append('|').append(rule.getName()).append('|').append(rule.getConfigKey())
+        .append('|').append(rule.getDescription()).append('|').append(rule.getSeverity()).append('|').append(rule.getCardinality())
+        .append('|').append(rule.getStatus()).append('|').append(rule.getLanguage()).append('\n');
+      Map<String, RuleParam> sortedParams = new TreeMap<String, RuleParam>();
+      for (RuleParam param : params(rule)) {
+        sortedParams.put(param.getKey(), param);
+      }
+      for (RuleParam param : sortedParams.values()) {
+        sb.append(param.getKey()).append('|').append(param.getDescription()).append('|').append(param.getType())
+          .append('|').append(param.getDefaultValue()).append('\n');
+      }
+    }
+    return DigestUtils.md5Hex(sb.toString());
+  }
+
+  private Map<String, String> previousFingerprints() {
+    Map<String, String> fingerprints = newHashMap();
+    for (Map.Entry<String, String> entry : settings.getProperties().entrySet()) {
+      if (entry.getKey().startsWith(FINGERPRINT_PROPERTY_PREFIX)) {
+        fingerprints.put(StringUtils.substringAfter(entry.getKey(), FINGERPRINT_PROPERTY_PREFIX), entry.getValue());
+      }
+    }
+    return fingerprints;
+  }
+
+  /**
+   * Repositories whose fingerprint did not change since last startup and whose rules are all in database
+   */
+  private static Set<String> unchangedRepositories(Map<String, List<Rule>> definedRules, Map<String, String> fingerprints,
+                                                   Map<String, String> previousFingerprints, DatabaseSession session) {
+    Set<String> unchangedRepositories = Sets.newHashSet();
+    if (previousFingerprints.isEmpty()) {
+      return unchangedRepositories;
+    }
+    Map<String, Long> persistedCounts = countPersistedRules(session);
+    for (Map.Entry<String, String> entry : fingerprints.entrySet()) {
+      String repositoryKey = entry.getKey();
+      Set<String> definedKeys = Sets.newHashSet();
+      for (Rule rule : definedRules.get(repositoryKey)) {
+        definedKeys.add(rule.getKey());
+      }
+      long persistedCount = Objects.firstNonNull(persistedCounts.get(repositoryKey), 0L);
+      if (entry.getValue().equals(previousFingerprints.get(repositoryKey)) && persistedCount == definedKeys.size()) {
+        unchangedRepositories.add(repositoryKey);
+      }
+    }
+    return unchangedRepositories;
+  }
+
+  /**
+   * Enabled rules by repository, excluding template rules which are not defined by repositories
+   */
+  private static Map<String, Long> countPersistedRules(DatabaseSession session) {
+    Map<String, Long> counts = newHashMap();
+    List<Object[]> rows = session.createQuery("SELECT r.pluginName, COUNT(r.id) FROM " + Rule.class.getSimpleName() + " r "
+      + "WHERE r.parent IS NULL AND r.status<>:removed GROUP BY r.pluginName")
+      .setParameter("removed", Rule.STATUS_REMOVED)
+      .getResultList();
+    for (Object[] row : rows) {
+      counts.put((String) row[0], ((Number) row[1]).longValue());
+    }
+    return counts;
+  }
+
+  private void saveFingerprints(Map<String, String> fingerprints, Map<String, String> previousFingerprints) {
+    for (String repositoryKey : previousFingerprints.keySet()) {
+      if (!fingerprints.containsKey(repositoryKey)) {
+        settings.deleteProperty(FINGERPRINT_PROPERTY_PREFIX + repositoryKey);
+      }
+    }
+    Map<String, String> properties = newHashMap();
+    for (Map.Entry<String, String> entry : fingerprints.entrySet()) {
+      if (!entry.getValue().equals(previousFingerprints.get(entry.getKey()))) {
+        properties.put(FINGERPRINT_PROPERTY_PREFIX + entry.getKey(), entry.getValue());
+      }
+    }
+    if (!properties.isEmpty()) {
+      settings.saveProperties(properties);
+    }
   }
 
   private List<Rule> findAllRules(DatabaseSession session) {
@@ -84,46 +224,51 @@ public final class RegisterRules {
       .getResultList();
   }
 
-  private List<Rule> registerRules(RulesByRepository existingRules, DatabaseSession session) {
+  private Set<Rule> registerRules(Map<String, List<Rule>> definedRules, Set<String> unchangedRepositories,
+                                  RulesByRepository existingRules, DatabaseSession session) {
     TimeProfiler profiler = new TimeProfiler();
-    List<Rule> registeredRules = newArrayList();
+    Set<Rule> registeredRules = Sets.newHashSet();
     for (RuleRepository repository : repositories) {
-      profiler.start("Register rules [" + repository.getKey() + "/" + StringUtils.defaultString(repository.getLanguage(), "-") + "]");
-      registeredRules.addAll(registerRepositoryRules(repository, existingRules, session));
-      profiler.stop();
+      List<Rule> rules = definedRules.remove(repository.getKey());
+      if (rules == null) {
+        // repository key already registered by another repository
+        continue;
+      }
+      if (unchangedRepositories.contains(repository.getKey())) {
+        LOG.debug("Rules of repository " + repository.getKey() + " are unchanged");
+      } else {
+        profiler.start("Register rules [" + repository.getKey() + "/" + StringUtils.defaultString(repository.getLanguage(), "-") + "]");
+        registerRepositoryRules(repository, rules, existingRules, session);
+        profiler.stop();
+      }
+      registeredRules.addAll(rules);
     }
     // Template rules have to be registered after all rules in order for their parent to be updated.
     registeredRules.addAll(registerTemplateRules(registeredRules, existingRules, session));
     return registeredRules;
   }
 
-  private List<Rule> registerRepositoryRules(RuleRepository repository, RulesByRepository existingRules, DatabaseSession session) {
-    List<Rule> registeredRules = newArrayList();
+  private void registerRepositoryRules(RuleRepository repository, List<Rule> rules, RulesByRepository existingRules, DatabaseSession session) {
     Map<String, Rule> ruleByKey = newHashMap();
-    for (Rule rule : repository.createRules()) {
-      updateRuleFromRepositoryInfo(rule, repository);
-      validateRule(rule, repository.getKey());
+    for (Rule rule : rules) {
       ruleByKey.put(rule.getKey(), rule);
-      registeredRules.add(rule);
     }
     LOG.debug(ruleByKey.size() + " rules");
 
     for (Rule persistedRule : existingRules.get(repository.getKey())) {
-      Rule rule = ruleByKey.get(persistedRule.getKey());
-      if (rule != null) {
+      Rule rule = ruleByKey.remove(persistedRule.getKey());
+      if (rule != null && !isUpToDate(persistedRule, rule)) {
         updateExistingRule(persistedRule, rule, session);
         session.saveWithoutFlush(persistedRule);
-        ruleByKey.remove(rule.getKey());
       }
     }
     saveNewRules(ruleByKey.values(), session);
-    return registeredRules;
   }
 
   /**
    * Template rules do not exists in rule repositories, only in database, they have to be updated from their parent.
    */
-  private List<Rule> registerTemplateRules(List<Rule> registeredRules, RulesByRepository existingRules, DatabaseSession session) {
+  private List<Rule> registerTemplateRules(Set<Rule> registeredRules, RulesByRepository existingRules, DatabaseSession session) {
     List<Rule> templateRules = newArrayList();
     for (Rule persistedRule : existingRules.rules()) {
       Rule parent = persistedRule.getParent();
@@ -170,6 +315,33 @@ public final class RegisterRules {
     }
   }
 
+  private static boolean isUpToDate(Rule persistedRule, Rule rule) {
+    boolean upToDate = Objects.equal(persistedRule.getName(), rule.getName())
+      && Objects.equal(persistedRule.getConfigKey(), rule.getConfigKey())
+      && Objects.equal(persistedRule.getDescription(), rule.getDescription())
+      && Objects.equal(persistedRule.getSeverity(), rule.getSeverity())
+      && Objects.equal(persistedRule.getCardinality(), rule.getCardinality())
+      && Objects.equal(persistedRule.getStatus(), rule.getStatus())
+      && Objects.equal(persistedRule.getLanguage(), rule.getLanguage())
+      && params(persistedRule).size() == params(rule).size();
+    if (upToDate) {
+      for (RuleParam param : params(rule)) {
+        RuleParam persistedParam = persistedRule.getParam(param.getKey());
+        if (persistedParam == null
+          || !Objects.equal(persistedParam.getDescription(), param.getDescription())
+          || !Objects.equal(persistedParam.getType(), param.getType())
+          || !Objects.equal(persistedParam.getDefaultValue(), param.getDefaultValue())) {
+          return false;
+        }
+      }
+    }
+    return upToDate;
+  }
+
+  private static List<RuleParam> params(Rule rule) {
+    return rule.getParams() != null ? rule.getParams() : Collections.<RuleParam>emptyList();
+  }
+
   private void updateExistingRule(Rule persistedRule, Rule rule, DatabaseSession session) {
     LOG.debug("Update existing rule " + rule);
 
@@ -226,7 +398,7 @@ public final class RegisterRules {
     }
   }
 
-  private void disableDeprecatedRules(RulesByRepository existingRules, List<Rule> registeredRules, DatabaseSession session) {
+  private void disableDeprecatedRules(RulesByRepository existingRules, Set<Rule> registeredRules, DatabaseSession session) {
     for (Rule rule : existingRules.rules()) {
       if (!registeredRules.contains(rule)) {
         disable(rule, session);
@@ -50,11 +50,18 @@ import org.sonar.core.dryrun.DryRunCache;
 import org.sonar.core.i18n.RuleI18nManager;
 import org.sonar.core.measure.MeasureFilterEngine;
 import org.sonar.core.measure.MeasureFilterResult;
+import org.sonar.core.measure.MeasureFilterStore;
+import org.sonar.core.metadata.MetadataCache;
 import org.sonar.core.persistence.Database;
+import org.sonar.core.profiling.ProfilingRegistry;
 import org.sonar.core.purge.PurgeDao;
+import org.sonar.core.resource.ResourceIndexDto;
 import org.sonar.core.resource.ResourceIndexerDao;
 import org.sonar.core.resource.ResourceKeyUpdaterDao;
+import org.sonar.core.resource.ResourceSearchIndex;
 import org.sonar.core.timemachine.Periods;
+import org.sonar.core.user.AuthorizationCache;
+import org.sonar.server.component.AnalysisCompletedNotifier;
 import org.sonar.server.configuration.Backup;
 import org.sonar.server.configuration.ProfilesManager;
 import org.sonar.server.db.migrations.DatabaseMigrator;
@@ -74,8 +81,11 @@ import org.sonar.updatecenter.common.PluginReferential;
 import org.sonar.updatecenter.common.UpdateCenter;
 import org.sonar.updatecenter.common.Version;
 
+import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 
+import java.io.IOException;
+import java.io.StringWriter;
 import java.net.InetAddress;
 import java.sql.Connection;
 import java.util.Collection;
@@ -199,6 +209,12 @@ public final class JRubyFacade {
     return get(PluginRepository.class).getMetadata();
   }
 
+  @CheckForNull
+  public String getPluginVersion(String pluginKey) {
+    PluginMetadata metadata = get(PluginRepository.class).getMetadata(pluginKey);
+    return metadata != null ? metadata.getVersion() : null;
+  }
+
   // SYNTAX HIGHLIGHTING ------------------------------------------------------
   public String colorizeCode(String code, String language) {
     try {
@@ -427,6 +443,18 @@ public final class JRubyFacade {
 
   public void indexProjects() {
     get(ResourceIndexerDao.class).indexProjects();
+    ResourceSearchIndex searchIndex = get(ResourceSearchIndex.class);
+    if (searchIndex != null) {
+      searchIndex.invalidate();
+    }
+  }
+
+  /**
+   * @return null if the in-memory search is disabled
+   */
+  @CheckForNull
+  public List<ResourceIndexDto> searchResources(String text, @Nullable List<String> qualifiers) {
+    return get(ResourceSearchIndex.class).search(text, qualifiers);
   }
 
   public void indexResource(long resourceId) {
@@ -436,6 +464,9 @@ public final class JRubyFacade {
   public void deleteResourceTree(long rootProjectId) {
     try {
       get(PurgeDao.class).deleteResourceTree(rootProjectId);
+      get(MeasureFilterStore.class).invalidate();
+      get(AuthorizationCache.class).invalidate();
+      get(ResourceSearchIndex.class).removeProject(rootProjectId);
     } catch (RuntimeException e) {
       LoggerFactory.getLogger(JRubyFacade.class).error("Fail to delete resource with ID: " + rootProjectId, e);
       throw e;
@@ -473,6 +504,7 @@ public final class JRubyFacade {
   // UPDATE PROJECT KEY ------------------------------------------------------------------
   public void updateResourceKey(long projectId, String newKey) {
     get(ResourceKeyUpdaterDao.class).updateKey(projectId, newKey);
+    invalidateComponentsCache();
   }
 
   public Map<String, String> checkModuleKeysBeforeRenaming(long projectId, String stringToReplace, String replacementString) {
@@ -481,6 +513,7 @@ public final class JRubyFacade {
 
   public void bulkUpdateKey(long projectId, String stringToReplace, String replacementString) {
     get(ResourceKeyUpdaterDao.class).bulkUpdateKey(projectId, stringToReplace, replacementString);
+    invalidateComponentsCache();
   }
 
   // USERS
@@ -496,6 +529,49 @@ public final class JRubyFacade {
     }
   }
 
+  public void onAnalysisCompleted(long rootProjectId) {
+    get(AnalysisCompletedNotifier.class).notifyAnalysisCompleted(rootProjectId);
+  }
+
+  public void invalidateRulesCache() {
+    MetadataCache cache = get(MetadataCache.class);
+    // the cache is not available while the database is being upgraded
+    if (cache != null) {
+      cache.invalidateRules();
+    }
+  }
+
+  public void invalidateUsersCache() {
+    MetadataCache cache = get(MetadataCache.class);
+    if (cache != null) {
+      cache.invalidateUsers();
+    }
+  }
+
+  public void invalidateComponentsCache() {
+    MetadataCache cache = get(MetadataCache.class);
+    if (cache != null) {
+      cache.invalidateComponents();
+    }
+  }
+
+  public String getProfilingReport() {
+    StringWriter writer = new StringWriter();
+    try {
+      get(ProfilingRegistry.class).writeJson(writer);
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to export profiling report", e);
+    }
+    return writer.toString();
+  }
+
+  public void invalidateAuthorizationCache() {
+    AuthorizationCache cache = get(AuthorizationCache.class);
+    if (cache != null) {
+      cache.invalidate();
+    }
+  }
+
   public byte[] createDatabaseForDryRun(@Nullable Long projectId) {
     return get(DryRunCache.class).getDatabaseForDryRun(projectId);
   }
@@ -0,0 +1,86 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.ui;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.apache.commons.lang.StringUtils;
+import org.sonar.core.profiling.ProfilingRegistry;
+import org.sonar.core.profiling.Timer;
+import org.sonar.server.platform.Platform;
+
+import javax.servlet.*;
+import javax.servlet.http.HttpServletRequest;
+
+import java.io.IOException;
+
+/**
+ * Records the duration of HTTP requests in the {@link ProfilingRegistry}, by category of URL.
+ *
+ * @since 4.0
+ */
+public class ProfilingFilter implements Filter {
+
+  private static final String[] STATIC_PREFIXES = {"/images/", "/javascripts/", "/stylesheets/", "/fonts/", "/static/"};
+  private static final String[] BATCH_PREFIXES = {"/batch_bootstrap/", "/batch/", "/deploy/"};
+
+  @Override
+  public void init(FilterConfig filterConfig) throws ServletException {
+
+  }
+
+  @Override
+  public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+    ProfilingRegistry profiling = Platform.getInstance().getContainer().getComponentByType(ProfilingRegistry.class);
+    if (profiling == null || !(request instanceof HttpServletRequest)) {
+      chain.doFilter(request, response);
+      return;
+    }
+    HttpServletRequest httpRequest = (HttpServletRequest) request;
+    String path = StringUtils.substringAfter(httpRequest.getRequestURI(), httpRequest.getContextPath());
+    Timer.Context context = profiling.timer("server.http." + category(path)).start();
+    try {
+      chain.doFilter(request, response);
+    } finally {
+      context.stop();
+    }
+  }
+
+  /**
+   * Low-cardinality category, so that unknown URLs do not create new timers.
+   */
+  @VisibleForTesting
+  static String category(String path) {
+    if (StringUtils.startsWith(path, "/api/")) {
+      return "api";
+    }
+    if (StringUtils.startsWithAny(path, BATCH_PREFIXES)) {
+      return "batch";
+    }
+    if (StringUtils.startsWithAny(path, STATIC_PREFIXES)) {
+      return "static";
+    }
+    return "web";
+  }
+
+  @Override
+  public void destroy() {
+
+  }
+}
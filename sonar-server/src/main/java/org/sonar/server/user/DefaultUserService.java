@@ -25,6 +25,7 @@ import org.sonar.api.user.RubyUserService;
 import org.sonar.api.user.User;
 import org.sonar.api.user.UserFinder;
 import org.sonar.api.user.UserQuery;
+import org.sonar.core.metadata.MetadataCache;
 import org.sonar.core.permission.GlobalPermissions;
 import org.sonar.core.user.UserDao;
 import org.sonar.server.exceptions.BadRequestException;
@@ -38,10 +39,12 @@ import java.util.Map;
 public class DefaultUserService implements RubyUserService {
   private final UserFinder finder;
   private final UserDao dao;
+  private final MetadataCache metadataCache;
 
-  public DefaultUserService(UserFinder finder, UserDao dao) {
+  public DefaultUserService(UserFinder finder, UserDao dao, MetadataCache metadataCache) {
     this.finder = finder;
     this.dao = dao;
+    this.metadataCache = metadataCache;
   }
 
   @Override
@@ -76,5 +79,6 @@ public class DefaultUserService implements RubyUserService {
       throw new BadRequestException("Self-deactivation is not possible");
     }
     dao.deactivateUserByLogin(login);
+    metadataCache.invalidateUsers();
   }
 }
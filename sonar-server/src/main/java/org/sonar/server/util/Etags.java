@@ -0,0 +1,56 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.util;
+
+import org.apache.commons.lang.StringUtils;
+
+import javax.annotation.Nullable;
+
+/**
+ * HTTP entity tags, used to answer conditional GET requests with 304 (Not Modified).
+ *
+ * @since 4.0
+ */
+public final class Etags {
+
+  private static final String WEAK_PREFIX = "W/";
+
+  private Etags() {
+    // only static methods
+  }
+
+  /**
+   * Weak comparison of the header If-None-Match with the ETag of the resource, as required by RFC 2616 for GET requests.
+   * The header can be a list of tags or "*".
+   */
+  public static boolean matchesIfNoneMatch(@Nullable String ifNoneMatch, String etag) {
+    if (ifNoneMatch == null) {
+      return false;
+    }
+    String opaqueEtag = StringUtils.removeStart(etag, WEAK_PREFIX);
+    for (String candidate : StringUtils.split(ifNoneMatch, ',')) {
+      String trimmed = candidate.trim();
+      if ("*".equals(trimmed) || opaqueEtag.equals(StringUtils.removeStart(trimmed, WEAK_PREFIX))) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
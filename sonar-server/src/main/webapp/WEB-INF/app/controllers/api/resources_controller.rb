@@ -42,19 +42,24 @@ class Api::ResourcesController < Api::ApiController
     bad_request("Page index must be greater than 0") if page<=0
     bad_request("Page size must be greater than 0") if page_size<=0
 
-    key = escape_like(search_text).downcase
-    conditions=['kee like ?']
-    condition_values=[key + '%']
+    # in-memory index, sorted by name size. Nil if disabled.
+    indexes = java_facade.searchResources(search_text, qualifiers.to_a)
+    if indexes
+      indexes = select_authorized(:user, indexes.to_a, :root_project_id)
+    else
+      key = escape_like(search_text).downcase
+      conditions=['kee like ?']
+      condition_values=[key + '%']
 
-    unless qualifiers.empty?
-      conditions<<'qualifier in (?)'
-      condition_values<<qualifiers
+      unless qualifiers.empty?
+        conditions<<'qualifier in (?)'
+        condition_values<<qualifiers
+      end
+      indexes = ResourceIndex.all(:select => 'distinct(resource_id),root_project_id,qualifier,name_size', # optimization to not load unused columns like 'kee'
+                                   :conditions => [conditions.join(' and ')].concat(condition_values),
+                                   :order => 'name_size')
+      indexes = select_authorized(:user, indexes)
     end
-    indexes = ResourceIndex.all(:select => 'distinct(resource_id),root_project_id,qualifier,name_size', # optimization to not load unused columns like 'kee'
-                                 :conditions => [conditions.join(' and ')].concat(condition_values),
-                                 :order => 'name_size')
-
-    indexes = select_authorized(:user, indexes)
     total = indexes.size
 
     select2_format=(params[:f]=='s2')
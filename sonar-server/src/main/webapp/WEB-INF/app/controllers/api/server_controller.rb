@@ -19,7 +19,7 @@
 #
 class Api::ServerController < Api::ApiController
 
-  skip_before_filter :check_authentication, :except => 'system'
+  skip_before_filter :check_authentication, :except => ['system', 'profiling']
 
   # prevent HTTP proxies from caching server status
   before_filter :set_cache_buster, :only => 'index'
@@ -64,6 +64,17 @@ class Api::ServerController < Api::ApiController
     end
   end
 
+  # GET /api/server/profiling
+  # Counters and durations of the hot paths since server startup. Durations are in milliseconds.
+  def profiling
+    access_denied unless has_role?(:admin)
+    respond_to do |format|
+      format.json { render :json => java_facade.getProfilingReport() }
+      format.xml { render :xml => xml_not_supported }
+      format.text { render :text => text_not_supported }
+    end
+  end
+
   def setup
     begin
       # Ask the DB migration manager to start the migration
@@ -18,9 +18,13 @@
 # Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
 #
 
+require 'zlib'
+
 # Since 3.4
 class BatchBootstrapController < Api::ApiController
 
+  SOURCES_PAGE_SIZE = 500
+
   # SONAR-4211 Access to index should not require authentication
   skip_before_filter :check_authentication, :only => 'index'
 
@@ -51,6 +55,21 @@ class BatchBootstrapController < Api::ApiController
     end
   end
 
+  # PUT /batch_bootstrap/analysis_completed?project=<key or id>
+  # Updates the server caches at the end of an analysis. Since 4.0.
+  def analysis_completed
+    has_scan_role = has_role?('scan')
+    return render_unauthorized("You're not authorized to execute any SonarQube analysis. Please contact your SonarQube administrator.") if !has_scan_role
+
+    project = load_project()
+    if project
+      java_facade.onAnalysisCompleted(project.root_project.id)
+      render_success('Analysis completed')
+    else
+      render_bad_request('missing projectId')
+    end
+  end
+
   # GET /batch_bootstrap/properties?[project=<key or id>][&dryRun=true|false]
   def properties
     dryRun = params[:dryRun].present? && params[:dryRun] == "true"
@@ -90,6 +109,48 @@ class BatchBootstrapController < Api::ApiController
     render :json => JSON(json_properties)
   end
 
+  # GET /batch_bootstrap/sources?project=<key or id>
+  # Sources of the files of the module, as saved by its last analysis. Since 4.0.
+  def sources
+    has_dryrun_role = has_role?('dryRunScan')
+    return render_unauthorized("You're not authorized to execute a dry run analysis. Please contact your SonarQube administrator.") if !has_dryrun_role
+    project = load_project()
+    return render_bad_request('missing project') if !project
+    return render_unauthorized("You're not authorized to access to project '" + project.name + "', please contact your SonarQube administrator") if !has_role?(:codeviewer, project)
+
+    gzip = request.env['HTTP_ACCEPT_ENCODING'].to_s.include?('gzip')
+    response.headers['Content-Encoding'] = 'gzip' if gzip
+
+    # Sources are loaded by pages of snapshots and written while being loaded, so that the sources
+    # of the whole module are never kept in memory. The block is executed after the action.
+    module_id = project.id
+    render :content_type => 'application/json', :text => proc { |resp, output|
+      begin
+        out = gzip ? Zlib::GzipWriter.new(output) : output
+        out.write('[')
+        first = true
+        last_snapshot_id = 0
+        begin
+          sources = SnapshotSource.find(:all, :select => 'snapshot_sources.snapshot_id, snapshot_sources.data, projects.kee',
+                                        :joins => 'INNER JOIN snapshots ON snapshots.id=snapshot_sources.snapshot_id INNER JOIN projects ON projects.id=snapshots.project_id',
+                                        :conditions => ['snapshots.islast=? AND snapshots.scope=? AND projects.root_id=? AND snapshot_sources.snapshot_id>?', true, 'FIL', module_id, last_snapshot_id],
+                                        :order => 'snapshot_sources.snapshot_id', :limit => SOURCES_PAGE_SIZE)
+          sources.each do |source|
+            out.write(',') unless first
+            first = false
+            out.write(JSON({:k => source.kee, :s => source.data}))
+          end
+          last_snapshot_id = sources.last.snapshot_id.to_i unless sources.empty?
+        end while sources.size == SOURCES_PAGE_SIZE
+        out.write(']')
+        out.finish if gzip
+      ensure
+        # the connection is not released by Rails, as the block is executed after the request
+        ActiveRecord::Base.clear_active_connections!
+      end
+    }
+  end
+
   # GET /batch_bootstrap/index
   def index
     redirect_to ApplicationController.root_context.to_s + "/deploy/bootstrap/index.txt"
@@ -120,7 +181,10 @@ class BatchBootstrapController < Api::ApiController
   end
 
   def allowed?(property_key, dryRun, has_scan_role)
-    if property_key.end_with?('.secured')
+    if property_key.start_with?(Java::OrgSonarServerStartup::RegisterRules::FINGERPRINT_PROPERTY_PREFIX)
+      # internal to server
+      false
+    elsif property_key.end_with?('.secured')
       property_key.include?('.license') ? true : (!dryRun && has_scan_role)
     else
       true
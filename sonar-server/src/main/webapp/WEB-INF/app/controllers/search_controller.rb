@@ -31,12 +31,17 @@ class SearchController < ApplicationController
     search = params[:s]
     bad_request("Minimum search is #{ResourceIndex::MIN_SEARCH_SIZE} characters") if search.empty? || search.to_s.size<ResourceIndex::MIN_SEARCH_SIZE
 
-    key = escape_like(search).downcase
-    results = ResourceIndex.all(:select => 'distinct(resource_id),root_project_id,qualifier,name_size', # optimization to not load unused columns like 'kee'
-                                 :conditions => ["kee like ?", key + '%'],
-                                 :order => 'name_size')
-
-    results = select_authorized(:user, results)
+    # in-memory index, sorted by name size. Nil if disabled.
+    results = java_facade.searchResources(search, nil)
+    if results
+      results = select_authorized(:user, results.to_a, :root_project_id)
+    else
+      key = escape_like(search).downcase
+      results = ResourceIndex.all(:select => 'distinct(resource_id),root_project_id,qualifier,name_size', # optimization to not load unused columns like 'kee'
+                                  :conditions => ["kee like ?", key + '%'],
+                                  :order => 'name_size')
+      results = select_authorized(:user, results)
+    end
     @total = results.size
 
     resource_ids=[]
@@ -143,7 +143,7 @@ module ApplicationHelper
     Metric.by_key(key)
   end
 
-  # URL to static resource.
+  # URL to static resource. URLs of plugin resources contain the plugin version, so that browsers can cache them.
   #
   # === Optional parameters
   #
@@ -155,7 +155,9 @@ module ApplicationHelper
   #   url_for_static(:plugin => 'myplugin', :path => 'image.png')
   def url_for_static(options={})
     if options[:plugin]
-      "#{ApplicationController.root_context}/static/#{options[:plugin]}/#{options[:path]}"
+      url = "#{ApplicationController.root_context}/static/#{options[:plugin]}/#{options[:path]}"
+      version = Api::Utils.java_facade.getPluginVersion(options[:plugin])
+      version ? "#{url}#{url.include?('?') ? '&' : '?'}v=#{u(version)}" : url
     else
       "#{ApplicationController.root_context}/#{options[:path]}"
     end
@@ -30,6 +30,10 @@ class Group < ActiveRecord::Base
   validates_uniqueness_of   :name
   validate       :name_cant_be_anyone
 
+  # permissions of users are cached by the Java services of issues
+  after_save :invalidate_authorization_cache
+  after_destroy :invalidate_authorization_cache
+
   # all the users that are NOT members of this group
   def available_users
     User.find(:all, :conditions => ["active=?", true], :order => 'name') - users
@@ -52,4 +56,10 @@ class Group < ActiveRecord::Base
   def name_cant_be_anyone
     errors.add(:name, 'cannot be "Anyone" as this is a reserved group name.') if name && name.downcase == ANYONE
   end
+
+  private
+
+  def invalidate_authorization_cache
+    Java::OrgSonarServerUi::JRubyFacade.getInstance().invalidateAuthorizationCache()
+  end
 end
@@ -33,6 +33,10 @@ class Rule < ActiveRecord::Base
   validates_presence_of :plugin_rule_key, :if => 'name.present?'
   validates_uniqueness_of :name
 
+  # rules are cached by the Java services of issues
+  after_save :invalidate_rules_cache
+  after_destroy :invalidate_rules_cache
+
   has_many :rules_parameters, :inverse_of => :rule
   has_many :active_rules, :inverse_of => :rule
   belongs_to :parent, :class_name => 'Rule', :foreign_key => 'parent_id'
@@ -384,4 +388,9 @@ class Rule < ActiveRecord::Base
     rules
   end
 
+  private
+
+  def invalidate_rules_cache
+    Java::OrgSonarServerUi::JRubyFacade.getInstance().invalidateRulesCache()
+  end
 end
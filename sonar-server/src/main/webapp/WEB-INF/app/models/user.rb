@@ -48,6 +48,10 @@ class User < ActiveRecord::Base
 
   validates_length_of :email, :maximum => 100, :allow_blank => true, :allow_nil => true
 
+  # users are cached by the Java services of issues
+  after_save :invalidate_users_cache
+  after_destroy :invalidate_users_cache
+
   # The following two validations not needed, because they come with Authentication::ByPassword - see SONAR-2656
   #validates_length_of       :password, :within => 4..40, :if => :password_required?
   #validates_confirmation_of :password, :if => :password_required?
@@ -77,6 +81,7 @@ class User < ActiveRecord::Base
 
     new_groups=(new_groups || []).compact.uniq
     self.groups = Group.find(new_groups)
+    Java::OrgSonarServerUi::JRubyFacade.getInstance().invalidateAuthorizationCache()
     save
   end
 
@@ -237,4 +242,9 @@ class User < ActiveRecord::Base
     hash
   end
 
+  private
+
+  def invalidate_users_cache
+    Java::OrgSonarServerUi::JRubyFacade.getInstance().invalidateUsersCache()
+  end
 end
@@ -155,6 +155,7 @@ class PluginRealm
         Rails.logger.error("Error from external groups provider: #{e.message}")
       else
         if groups
+          previous_group_ids = user.group_ids.sort
           user.groups = []
           for group_name in groups
             group = Group.find_by_name(group_name)
@@ -162,6 +163,9 @@ class PluginRealm
               user.groups << group
             end
           end
+          if user.group_ids.sort != previous_group_ids
+            Java::OrgSonarServerUi::JRubyFacade.getInstance().invalidateAuthorizationCache()
+          end
         end
       end
     end
@@ -0,0 +1,80 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.charts;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class ChartCacheTest {
+
+  @Test
+  public void should_cache_images() {
+    ChartCache cache = new ChartCache();
+    ChartCache.CachedChart chart = cache.put("ck=xradar&", new byte[] {1, 2, 3});
+
+    assertThat(cache.get("ck=xradar&")).isSameAs(chart);
+    assertThat(cache.get("ck=other&")).isNull();
+    assertThat(chart.getEtag()).startsWith("\"").endsWith("\"");
+    assertThat(chart.getEtag()).isNotEqualTo(new ChartCache().put("ck=xradar&", new byte[] {1, 2, 4}).getEtag());
+  }
+
+  @Test
+  public void should_evict_least_recently_used_images() {
+    ChartCache cache = new ChartCache(2, 1000L);
+    cache.put("a", new byte[10]);
+    cache.put("b", new byte[10]);
+    cache.get("a");
+    cache.put("c", new byte[10]);
+
+    assertThat(cache.size()).isEqualTo(2);
+    assertThat(cache.get("a")).isNotNull();
+    assertThat(cache.get("b")).isNull();
+  }
+
+  @Test
+  public void should_limit_size_in_bytes() {
+    ChartCache cache = new ChartCache(100, 25L);
+    cache.put("a", new byte[10]);
+    cache.put("b", new byte[10]);
+    cache.put("c", new byte[10]);
+
+    assertThat(cache.size()).isEqualTo(2);
+    assertThat(cache.get("a")).isNull();
+  }
+
+  @Test
+  public void should_clear() {
+    ChartCache cache = new ChartCache();
+    cache.put("a", new byte[10]);
+    cache.clear();
+
+    assertThat(cache.size()).isEqualTo(0);
+  }
+
+  @Test
+  public void key_should_not_depend_on_parameter_order() {
+    String key = ChartCache.key(ImmutableMap.of("ck", "xradar", "w", "200", "v", "1,2"));
+
+    assertThat(key).isEqualTo("ck=xradar&v=1,2&w=200&");
+    assertThat(ChartCache.key(ImmutableMap.of("w", "200", "v", "1,2", "ck", "xradar"))).isEqualTo(key);
+  }
+}
@@ -0,0 +1,57 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.component;
+
+import org.junit.Test;
+import org.sonar.core.component.AnalysisCompletedHandler;
+
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class AnalysisCompletedNotifierTest {
+
+  @Test
+  public void should_notify_handlers() {
+    AnalysisCompletedHandler handler1 = mock(AnalysisCompletedHandler.class);
+    AnalysisCompletedHandler handler2 = mock(AnalysisCompletedHandler.class);
+
+    new AnalysisCompletedNotifier(new AnalysisCompletedHandler[]{handler1, handler2}).notifyAnalysisCompleted(42L);
+
+    verify(handler1).onAnalysisCompleted(42L);
+    verify(handler2).onAnalysisCompleted(42L);
+  }
+
+  @Test
+  public void should_notify_other_handlers_if_one_fails() {
+    AnalysisCompletedHandler handler1 = mock(AnalysisCompletedHandler.class);
+    AnalysisCompletedHandler handler2 = mock(AnalysisCompletedHandler.class);
+    doThrow(new IllegalStateException()).when(handler1).onAnalysisCompleted(42L);
+
+    new AnalysisCompletedNotifier(new AnalysisCompletedHandler[]{handler1, handler2}).notifyAnalysisCompleted(42L);
+
+    verify(handler2).onAnalysisCompleted(42L);
+  }
+
+  @Test
+  public void should_support_no_handlers() {
+    new AnalysisCompletedNotifier().notifyAnalysisCompleted(42L);
+  }
+}
@@ -36,7 +36,7 @@ import org.sonar.core.issue.db.*;
 import org.sonar.core.resource.ResourceDao;
 import org.sonar.core.resource.ResourceDto;
 import org.sonar.core.resource.ResourceQuery;
-import org.sonar.core.user.AuthorizationDao;
+import org.sonar.core.user.AuthorizationCache;
 import org.sonar.server.user.UserSession;
 
 import java.util.Collection;
@@ -52,7 +52,7 @@ public class ActionPlanServiceTest {
   private ActionPlanDao actionPlanDao = mock(ActionPlanDao.class);
   private ActionPlanStatsDao actionPlanStatsDao = mock(ActionPlanStatsDao.class);
   private ResourceDao resourceDao = mock(ResourceDao.class);
-  private AuthorizationDao authorizationDao = mock(AuthorizationDao.class);
+  private AuthorizationCache authorizationCache = mock(AuthorizationCache.class);
   private UserSession userSession = mock(UserSession.class);
   private IssueDao issueDao = mock(IssueDao.class);
   private IssueUpdater issueUpdater = mock(IssueUpdater.class);
@@ -64,9 +64,9 @@ public class ActionPlanServiceTest {
   public void before() {
     when(userSession.isLoggedIn()).thenReturn(true);
     when(userSession.userId()).thenReturn(10);
-    when(authorizationDao.isAuthorizedComponentId(anyLong(), eq(10), anyString())).thenReturn(true);
+    when(authorizationCache.isAuthorizedRootProjectId(anyLong(), eq(10), anyString())).thenReturn(true);
 
-    actionPlanService = new ActionPlanService(actionPlanDao, actionPlanStatsDao, resourceDao, authorizationDao, issueDao, issueUpdater, issueStorage);
+    actionPlanService = new ActionPlanService(actionPlanDao, actionPlanStatsDao, resourceDao, authorizationCache, issueDao, issueUpdater, issueStorage);
   }
 
   @Test
@@ -76,14 +76,14 @@ public class ActionPlanServiceTest {
 
     actionPlanService.create(actionPlan, userSession);
     verify(actionPlanDao).save(any(ActionPlanDto.class));
-    verify(authorizationDao).isAuthorizedComponentId(anyLong(), anyInt(), eq(UserRole.ADMIN));
+    verify(authorizationCache).isAuthorizedRootProjectId(anyLong(), anyInt(), eq(UserRole.ADMIN));
   }
 
   @Test
   public void should_create_required_admin_role() {
     when(resourceDao.getResource(any(ResourceQuery.class))).thenReturn(new ResourceDto().setKey("org.sonar.Sample").setId(1l));
     ActionPlan actionPlan = DefaultActionPlan.create("Long term");
-    when(authorizationDao.isAuthorizedComponentId(anyLong(), eq(10), anyString())).thenReturn(false);
+    when(authorizationCache.isAuthorizedRootProjectId(anyLong(), eq(10), anyString())).thenReturn(false);
 
     try {
       actionPlanService.create(actionPlan, userSession);
@@ -91,7 +91,7 @@ public class ActionPlanServiceTest {
     } catch (Exception e) {
       assertThat(e).isInstanceOf(IllegalStateException.class).hasMessage("User does not have the required role on the project: org.sonar.Sample");
     }
-    verify(authorizationDao).isAuthorizedComponentId(eq(1l), eq(10), eq(UserRole.ADMIN));
+    verify(authorizationCache).isAuthorizedRootProjectId(eq(1l), eq(10), eq(UserRole.ADMIN));
     verifyZeroInteractions(actionPlanDao);
   }
 
@@ -105,7 +105,7 @@ public class ActionPlanServiceTest {
 
     assertThat(result).isNotNull();
     assertThat(result.status()).isEqualTo("CLOSED");
-    verify(authorizationDao).isAuthorizedComponentId(anyLong(), anyInt(), eq(UserRole.ADMIN));
+    verify(authorizationCache).isAuthorizedRootProjectId(anyLong(), anyInt(), eq(UserRole.ADMIN));
   }
 
   @Test
@@ -115,7 +115,7 @@ public class ActionPlanServiceTest {
 
     actionPlanService.update(actionPlan, userSession);
     verify(actionPlanDao).update(any(ActionPlanDto.class));
-    verify(authorizationDao).isAuthorizedComponentId(anyLong(), anyInt(), eq(UserRole.ADMIN));
+    verify(authorizationCache).isAuthorizedRootProjectId(anyLong(), anyInt(), eq(UserRole.ADMIN));
   }
 
   @Test
@@ -124,7 +124,7 @@ public class ActionPlanServiceTest {
     when(resourceDao.getResource(any(ResourceQuery.class))).thenReturn(new ResourceDto().setKey("org.sonar.Sample").setId(1l));
     actionPlanService.delete("ABCD", userSession);
     verify(actionPlanDao).delete("ABCD");
-    verify(authorizationDao).isAuthorizedComponentId(anyLong(), anyInt(), eq(UserRole.ADMIN));
+    verify(authorizationCache).isAuthorizedRootProjectId(anyLong(), anyInt(), eq(UserRole.ADMIN));
   }
 
   @Test
@@ -139,7 +139,7 @@ public class ActionPlanServiceTest {
     ArgumentCaptor<DefaultIssue> captor = ArgumentCaptor.forClass(DefaultIssue.class);
     actionPlanService.delete("ABCD", userSession);
     verify(actionPlanDao).delete("ABCD");
-    verify(authorizationDao).isAuthorizedComponentId(anyLong(), anyInt(), eq(UserRole.ADMIN));
+    verify(authorizationCache).isAuthorizedRootProjectId(anyLong(), anyInt(), eq(UserRole.ADMIN));
     verify(issueUpdater).plan(captor.capture(), eq((ActionPlan) null), any(IssueChangeContext.class));
     verify(issueStorage).save(newArrayList(captor.getAllValues()));
   }
@@ -152,7 +152,7 @@ public class ActionPlanServiceTest {
     ActionPlan result = actionPlanService.findByKey("ABCD", userSession);
     assertThat(result).isNotNull();
     assertThat(result.key()).isEqualTo("ABCD");
-    verify(authorizationDao).isAuthorizedComponentId(anyLong(), anyInt(), eq(UserRole.USER));
+    verify(authorizationCache).isAuthorizedRootProjectId(anyLong(), anyInt(), eq(UserRole.USER));
   }
 
   @Test
@@ -176,14 +176,14 @@ public class ActionPlanServiceTest {
     Collection<ActionPlan> results = actionPlanService.findOpenByProjectKey("org.sonar.Sample", userSession);
     assertThat(results).hasSize(1);
     assertThat(results.iterator().next().key()).isEqualTo("ABCD");
-    verify(authorizationDao).isAuthorizedComponentId(anyLong(), anyInt(), eq(UserRole.USER));
+    verify(authorizationCache).isAuthorizedRootProjectId(anyLong(), anyInt(), eq(UserRole.USER));
   }
 
   @Test
   public void should_find_open_by_project_key_required_user_role() {
     when(resourceDao.getResource(any(ResourceQuery.class))).thenReturn(new ResourceDto().setKey("org.sonar.Sample").setId(1l));
     when(actionPlanDao.findOpenByProjectId(1l)).thenReturn(newArrayList(new ActionPlanDto().setKey("ABCD")));
-    when(authorizationDao.isAuthorizedComponentId(anyLong(), eq(10), anyString())).thenReturn(false);
+    when(authorizationCache.isAuthorizedRootProjectId(anyLong(), eq(10), anyString())).thenReturn(false);
 
     try {
       actionPlanService.findOpenByProjectKey("org.sonar.Sample", userSession);
@@ -191,7 +191,7 @@ public class ActionPlanServiceTest {
     } catch (Exception e) {
       assertThat(e).isInstanceOf(IllegalStateException.class).hasMessage("User does not have the required role on the project: org.sonar.Sample");
     }
-    verify(authorizationDao).isAuthorizedComponentId(eq(1l), eq(10), eq(UserRole.USER));
+    verify(authorizationCache).isAuthorizedRootProjectId(eq(1l), eq(10), eq(UserRole.USER));
     verifyZeroInteractions(actionPlanDao);
   }
 
@@ -208,7 +208,7 @@ public class ActionPlanServiceTest {
 
     Collection<ActionPlanStats> results = actionPlanService.findActionPlanStats("org.sonar.Sample", userSession);
     assertThat(results).hasSize(1);
-    verify(authorizationDao).isAuthorizedComponentId(anyLong(), anyInt(), eq(UserRole.USER));
+    verify(authorizationCache).isAuthorizedRootProjectId(anyLong(), anyInt(), eq(UserRole.USER));
   }
 
   @Test(expected = IllegalArgumentException.class)
@@ -37,10 +37,11 @@ import org.sonar.core.issue.DefaultActionPlan;
 import org.sonar.core.issue.db.IssueChangeDao;
 import org.sonar.core.issue.db.IssueDao;
 import org.sonar.core.issue.db.IssueDto;
+import org.sonar.core.metadata.MetadataCache;
 import org.sonar.core.persistence.MyBatis;
 import org.sonar.core.resource.ResourceDao;
 import org.sonar.core.rule.DefaultRuleFinder;
-import org.sonar.core.user.AuthorizationDao;
+import org.sonar.core.user.AuthorizationCache;
 import org.sonar.core.user.DefaultUser;
 
 import java.util.Collections;
@@ -61,12 +62,12 @@ public class DefaultIssueFinderTest {
   MyBatis mybatis = mock(MyBatis.class);
   IssueDao issueDao = mock(IssueDao.class);
   IssueChangeDao issueChangeDao = mock(IssueChangeDao.class);
-  AuthorizationDao authorizationDao = mock(AuthorizationDao.class);
+  AuthorizationCache authorizationCache = mock(AuthorizationCache.class);
   DefaultRuleFinder ruleFinder = mock(DefaultRuleFinder.class);
   ResourceDao resourceDao = mock(ResourceDao.class);
   ActionPlanService actionPlanService = mock(ActionPlanService.class);
   UserFinder userFinder = mock(UserFinder.class);
-  DefaultIssueFinder finder = new DefaultIssueFinder(mybatis, issueDao, issueChangeDao, authorizationDao, ruleFinder, userFinder, resourceDao, actionPlanService);
+  DefaultIssueFinder finder = new DefaultIssueFinder(mybatis, issueDao, issueChangeDao, authorizationCache, new MetadataCache(ruleFinder, userFinder, resourceDao), actionPlanService);
 
   @Test
   public void should_find_issues() {
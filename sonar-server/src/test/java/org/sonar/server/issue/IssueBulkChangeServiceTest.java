@@ -95,9 +95,9 @@ public class IssueBulkChangeServiceTest {
     assertThat(result.issuesChanged()).hasSize(1);
     assertThat(result.issuesNotChanged()).isEmpty();
 
-    verify(issueStorage).save(eq(issue));
+    verify(issueStorage).save(eq(newArrayList(issue)));
     verifyNoMoreInteractions(issueStorage);
-    verify(issueNotifications).sendChanges(eq(issue), any(IssueChangeContext.class), eq(issueQueryResult));
+    verify(issueNotifications).sendChanges(eq(newArrayList(issue)), any(IssueChangeContext.class), eq(issueQueryResult));
     verifyNoMoreInteractions(issueNotifications);
   }
 
@@ -114,9 +114,9 @@ public class IssueBulkChangeServiceTest {
     assertThat(result.issuesChanged()).hasSize(1);
     assertThat(result.issuesNotChanged()).isEmpty();
 
-    verify(issueStorage).save(eq(issue));
+    verify(issueStorage).save(eq(newArrayList(issue)));
     verifyNoMoreInteractions(issueStorage);
-    verify(issueNotifications, never()).sendChanges(eq(issue), any(IssueChangeContext.class), eq(issueQueryResult));
+    verify(issueNotifications, never()).sendChanges(eq(newArrayList(issue)), any(IssueChangeContext.class), eq(issueQueryResult));
     verifyNoMoreInteractions(issueNotifications);
   }
 
@@ -141,7 +141,7 @@ public class IssueBulkChangeServiceTest {
     assertThat(result.issuesNotChanged()).isEmpty();
 
     verify(commentAction).execute(anyMap(), any(IssueBulkChangeService.ActionContext.class));
-    verify(issueStorage).save(eq(issue));
+    verify(issueStorage).save(eq(newArrayList(issue)));
   }
 
   @Test
@@ -175,7 +175,7 @@ public class IssueBulkChangeServiceTest {
 
     // Only one issue will receive the comment
     verify(assignAction, times(1)).execute(anyMap(), any(IssueBulkChangeService.ActionContext.class));
-    verify(issueStorage).save(eq(issue));
+    verify(issueStorage).save(eq(newArrayList(issue)));
   }
 
   @Test
@@ -194,12 +194,37 @@ public class IssueBulkChangeServiceTest {
     assertThat(result.issuesChanged()).hasSize(1);
     assertThat(result.issuesNotChanged()).isEmpty();
 
-    verify(issueStorage, times(1)).save(eq(issue));
+    verify(issueStorage, times(1)).save(eq(newArrayList(issue)));
     verifyNoMoreInteractions(issueStorage);
-    verify(issueNotifications, times(1)).sendChanges(eq(issue), any(IssueChangeContext.class), eq(issueQueryResult));
+    verify(issueNotifications, times(1)).sendChanges(eq(newArrayList(issue)), any(IssueChangeContext.class), eq(issueQueryResult));
     verifyNoMoreInteractions(issueNotifications);
   }
 
+  @Test
+  public void should_save_issues_by_chunks() {
+    List<Issue> issues = newArrayList();
+    for (int i = 0; i < 501; i++) {
+      issues.add(new DefaultIssue().setKey("ISSUE-" + i));
+    }
+    when(issueQueryResult.issues()).thenReturn(issues);
+
+    Map<String, Object> properties = newHashMap();
+    properties.put("issues", "ABCD");
+    properties.put("actions", "assign");
+    properties.put("assign.assignee", "fred");
+    actions.add(new MockAction("assign"));
+
+    IssueBulkChangeQuery issueBulkChangeQuery = new IssueBulkChangeQuery(properties, true);
+    IssueBulkChangeResult result = service.execute(issueBulkChangeQuery, userSession);
+    assertThat(result.issuesChanged()).hasSize(501);
+
+    ArgumentCaptor<List> saved = ArgumentCaptor.forClass(List.class);
+    verify(issueStorage, times(2)).save(saved.capture());
+    assertThat(saved.getAllValues().get(0)).hasSize(500);
+    assertThat(saved.getAllValues().get(1)).hasSize(1);
+    verify(issueNotifications, times(2)).sendChanges(anyListOf(DefaultIssue.class), any(IssueChangeContext.class), eq(issueQueryResult));
+  }
+
   @Test
   public void should_load_issues_from_issue_keys_with_maximum_page_size() {
     Map<String, Object> properties = newHashMap();
@@ -34,6 +34,7 @@ import org.sonar.core.permission.PermissionFacade;
 import org.sonar.core.resource.ResourceDao;
 import org.sonar.core.resource.ResourceDto;
 import org.sonar.core.resource.ResourceQuery;
+import org.sonar.core.user.AuthorizationCache;
 import org.sonar.core.user.GroupDto;
 import org.sonar.core.user.UserDao;
 import org.sonar.core.user.UserDto;
@@ -64,6 +65,7 @@ public class InternalPermissionServiceTest {
   private UserDao userDao;
   private ResourceDao resourceDao;
   private PermissionFacade permissionFacade;
+  private AuthorizationCache authorizationCache;
 
   @Before
   public void setUpCommonStubbing() {
@@ -77,7 +79,9 @@ public class InternalPermissionServiceTest {
 
     permissionFacade = mock(PermissionFacade.class);
 
-    service = new InternalPermissionService(userDao, resourceDao, permissionFacade);
+    authorizationCache = mock(AuthorizationCache.class);
+
+    service = new InternalPermissionService(userDao, resourceDao, permissionFacade, authorizationCache);
   }
 
   @Test
@@ -95,6 +99,7 @@ public class InternalPermissionServiceTest {
     service.addPermission(params);
 
     verify(permissionFacade).insertUserPermission(eq((Long) null), eq(2L), eq("shareDashboard"));
+    verify(authorizationCache, never()).invalidate();
   }
 
   @Test
@@ -108,6 +113,7 @@ public class InternalPermissionServiceTest {
     service.addPermission(params);
 
     verify(permissionFacade).insertUserPermission(eq(10L), eq(2L), eq("user"));
+    verify(authorizationCache).invalidate();
   }
 
   @Test
@@ -342,6 +348,7 @@ public class InternalPermissionServiceTest {
     verify(permissionFacade).applyPermissionTemplate("my_template_key", 1L);
     verify(permissionFacade).applyPermissionTemplate("my_template_key", 2L);
     verify(permissionFacade).applyPermissionTemplate("my_template_key", 3L);
+    verify(authorizationCache).invalidate();
   }
 
   @Test
@@ -358,6 +365,7 @@ public class InternalPermissionServiceTest {
     service.applyDefaultPermissionTemplate(componentKey);
     verify(resourceDao).findByKey(componentKey);
     verify(permissionFacade).grantDefaultRoles(componentId, qualifier);
+    verify(authorizationCache).invalidate();
   }
 
   @Test(expected = ForbiddenException.class)
@@ -0,0 +1,199 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.plugins;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPInputStream;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class StaticResourceCacheTest {
+
+  private static final String CSS = "body { color: #333; } body { color: #333; } body { color: #333; } body { color: #333; }";
+
+  StaticResourceCache cache = new StaticResourceCache();
+
+  @Test
+  public void should_load_resource_once() throws Exception {
+    StaticResourceCache.CachedResource resource = cache.load("plugin:1.0:static/style.css", new ByteArrayInputStream(CSS.getBytes()), "text/css");
+
+    assertThat(cache.get("plugin:1.0:static/style.css")).isSameAs(resource);
+    assertThat(cache.get("plugin:1.1:static/style.css")).isNull();
+    assertThat(resource.getEtag()).startsWith("\"").endsWith("\"");
+    assertThat(IOUtils.toString(new GZIPInputStream(new ByteArrayInputStream(resource.getGzippedContent())))).isEqualTo(CSS);
+  }
+
+  @Test
+  public void should_not_compress_binary_resources() throws Exception {
+    StaticResourceCache.CachedResource resource = cache.load("image.png", new ByteArrayInputStream(CSS.getBytes()), "image/png");
+
+    assertThat(resource.getGzippedContent()).isNull();
+  }
+
+  @Test
+  public void should_not_load_big_resources() throws Exception {
+    StaticResourceCache.CachedResource resource = cache.load("big.jar", new ByteArrayInputStream(new byte[StaticResourceCache.MAX_CACHED_SIZE + 1]), "application/java-archive");
+
+    assertThat(resource).isNull();
+    assertThat(cache.get("big.jar")).isNull();
+  }
+
+  @Test
+  public void should_bound_total_size_of_cache() throws Exception {
+    int count = (int) (StaticResourceCache.MAX_TOTAL_SIZE / StaticResourceCache.MAX_CACHED_SIZE);
+    for (int i = 0; i < count; i++) {
+      cache.load("image" + i + ".png", new ByteArrayInputStream(new byte[StaticResourceCache.MAX_CACHED_SIZE]), "image/png");
+      assertThat(cache.get("image" + i + ".png")).isNotNull();
+    }
+
+    StaticResourceCache.CachedResource resource = cache.load("style.css", new ByteArrayInputStream(CSS.getBytes()), "text/css");
+
+    assertThat(resource).isNotNull();
+    assertThat(cache.get("style.css")).isNull();
+  }
+
+  @Test
+  public void should_compute_etag_of_streamed_resource_once() throws Exception {
+    String etag = cache.loadStreamedEtag("big.jar", new ByteArrayInputStream(CSS.getBytes()));
+
+    assertThat(etag).startsWith("\"").endsWith("\"");
+    assertThat(cache.getStreamedEtag("big.jar")).isEqualTo(etag);
+    assertThat(cache.getStreamedEtag("other.jar")).isNull();
+  }
+
+  @Test
+  public void should_stream_resource() throws Exception {
+    HttpServletRequest request = mock(HttpServletRequest.class);
+    HttpServletResponse response = mock(HttpServletResponse.class);
+    ByteArrayOutputStream body = mockOutput(response);
+
+    StaticResourceCache.stream(new ByteArrayInputStream(CSS.getBytes()), "\"abc\"", "application/java-archive", null, request, response);
+
+    verify(response).setContentType("application/java-archive");
+    verify(response).setHeader("ETag", "\"abc\"");
+    verify(response).setHeader("Cache-Control", "public, max-age=0, must-revalidate");
+    assertThat(new String(body.toByteArray())).isEqualTo(CSS);
+  }
+
+  @Test
+  public void should_answer_not_modified_to_streamed_resource() throws Exception {
+    HttpServletRequest request = mock(HttpServletRequest.class);
+    when(request.getHeader("If-None-Match")).thenReturn("\"abc\"");
+    HttpServletResponse response = mock(HttpServletResponse.class);
+
+    StaticResourceCache.stream(new ByteArrayInputStream(CSS.getBytes()), "\"abc\"", "application/java-archive", null, request, response);
+
+    verify(response).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+    verify(response, never()).getOutputStream();
+  }
+
+  @Test
+  public void should_write_gzipped_content() throws Exception {
+    StaticResourceCache.CachedResource resource = cache.load("style.css", new ByteArrayInputStream(CSS.getBytes()), "text/css");
+    HttpServletRequest request = mock(HttpServletRequest.class);
+    when(request.getHeader("Accept-Encoding")).thenReturn("gzip, deflate");
+    when(request.getParameter("v")).thenReturn("1.0");
+    HttpServletResponse response = mock(HttpServletResponse.class);
+    ByteArrayOutputStream body = mockOutput(response);
+
+    StaticResourceCache.write(resource, "1.0", request, response);
+
+    verify(response).setContentType("text/css");
+    verify(response).setHeader("ETag", resource.getEtag());
+    verify(response).setHeader("Content-Encoding", "gzip");
+    verify(response).setHeader("Cache-Control", "public, max-age=31536000");
+    assertThat(body.toByteArray()).isEqualTo(resource.getGzippedContent());
+  }
+
+  @Test
+  public void should_write_plain_content() throws Exception {
+    StaticResourceCache.CachedResource resource = cache.load("style.css", new ByteArrayInputStream(CSS.getBytes()), "text/css");
+    HttpServletRequest request = mock(HttpServletRequest.class);
+    HttpServletResponse response = mock(HttpServletResponse.class);
+    ByteArrayOutputStream body = mockOutput(response);
+
+    StaticResourceCache.write(resource, "1.0", request, response);
+
+    verify(response, never()).setHeader(eq("Content-Encoding"), anyString());
+    verify(response).setHeader("Cache-Control", "public, max-age=0, must-revalidate");
+    assertThat(new String(body.toByteArray())).isEqualTo(CSS);
+  }
+
+  @Test
+  public void should_revalidate_if_version_is_not_current() throws Exception {
+    StaticResourceCache.CachedResource resource = cache.load("style.css", new ByteArrayInputStream(CSS.getBytes()), "text/css");
+    HttpServletRequest request = mock(HttpServletRequest.class);
+    when(request.getParameter("v")).thenReturn("0.9");
+    HttpServletResponse response = mock(HttpServletResponse.class);
+    mockOutput(response);
+
+    StaticResourceCache.write(resource, "1.0", request, response);
+    verify(response).setHeader("Cache-Control", "public, max-age=0, must-revalidate");
+
+    response = mock(HttpServletResponse.class);
+    mockOutput(response);
+    StaticResourceCache.write(resource, null, request, response);
+    verify(response).setHeader("Cache-Control", "public, max-age=0, must-revalidate");
+  }
+
+  @Test
+  public void should_answer_not_modified() throws Exception {
+    StaticResourceCache.CachedResource resource = cache.load("style.css", new ByteArrayInputStream(CSS.getBytes()), "text/css");
+    HttpServletRequest request = mock(HttpServletRequest.class);
+    when(request.getHeader("If-None-Match")).thenReturn(resource.getEtag());
+    HttpServletResponse response = mock(HttpServletResponse.class);
+
+    StaticResourceCache.write(resource, "1.0", request, response);
+
+    verify(response).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+    verify(response, never()).getOutputStream();
+  }
+
+  @Test
+  public void should_accept_gzip() {
+    assertThat(StaticResourceCache.acceptsGzip(null)).isFalse();
+    assertThat(StaticResourceCache.acceptsGzip("deflate")).isFalse();
+    assertThat(StaticResourceCache.acceptsGzip("gzip,deflate,sdch")).isTrue();
+    assertThat(StaticResourceCache.acceptsGzip("deflate, gzip;q=1.0")).isTrue();
+    assertThat(StaticResourceCache.acceptsGzip("gzip;q=0")).isFalse();
+    assertThat(StaticResourceCache.acceptsGzip("gzip; q=0.0")).isFalse();
+  }
+
+  private ByteArrayOutputStream mockOutput(HttpServletResponse response) throws IOException {
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    when(response.getOutputStream()).thenReturn(new ServletOutputStream() {
+      @Override
+      public void write(int b) throws IOException {
+        output.write(b);
+      }
+    });
+    return output;
+  }
+}
@@ -21,13 +21,12 @@ package org.sonar.server.plugins;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.sonar.api.platform.PluginMetadata;
 
 import javax.servlet.http.HttpServletRequest;
-import javax.servlet.http.HttpServletResponse;
 
 import static org.fest.assertions.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class StaticResourcesServletTest {
@@ -70,9 +69,11 @@ public class StaticResourcesServletTest {
   }
 
   @Test
-  public void completeMimeType() {
-    HttpServletResponse response = mock(HttpServletResponse.class);
-    servlet.completeContentType(response, "static/sqale/sqale.css");
-    verify(response).setContentType("text/css");
+  public void cache_key_should_contain_plugin_version() {
+    PluginMetadata metadata = mock(PluginMetadata.class);
+    when(metadata.getVersion()).thenReturn("1.2");
+
+    assertThat(servlet.getCacheKey("myplugin", metadata, "static/image.png")).isEqualTo("myplugin:1.2:static/image.png");
+    assertThat(servlet.getCacheKey("myplugin", null, "static/image.png")).isEqualTo("myplugin::static/image.png");
   }
 }
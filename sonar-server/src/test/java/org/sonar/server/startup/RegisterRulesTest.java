@@ -20,18 +20,22 @@
 
 package org.sonar.server.startup;
 
+import com.google.common.collect.ImmutableMap;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.sonar.api.rules.*;
 import org.sonar.api.utils.SonarException;
 import org.sonar.core.i18n.RuleI18nManager;
 import org.sonar.jpa.test.AbstractDbUnitTestCase;
 import org.sonar.server.configuration.ProfilesManager;
+import org.sonar.server.platform.PersistentSettings;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 import static org.hamcrest.Matchers.*;
 import static org.hamcrest.number.OrderingComparisons.greaterThan;
@@ -45,11 +49,13 @@ public class RegisterRulesTest extends AbstractDbUnitTestCase {
 
   private RegisterRules task;
   private ProfilesManager profilesManager;
+  private PersistentSettings settings;
 
   @Before
   public void init() {
     profilesManager = mock(ProfilesManager.class);
-    task = new RegisterRules(getSessionFactory(), new RuleRepository[] {new FakeRepository()}, null, profilesManager);
+    settings = mock(PersistentSettings.class);
+    task = new RegisterRules(getSessionFactory(), new RuleRepository[] {new FakeRepository()}, null, profilesManager, settings);
   }
 
   @Test
@@ -70,6 +76,71 @@ public class RegisterRulesTest extends AbstractDbUnitTestCase {
     assertThat(first.getParams().size(), is(2));
   }
 
+  @Test
+  public void should_save_fingerprints_of_repositories() {
+    setupData("shared");
+    task.start();
+
+    Map<String, String> fingerprints = savedFingerprints();
+    assertThat(fingerprints.size(), is(1));
+    assertThat(fingerprints.get("sonar.core.rulesFingerprint.fake"), notNullValue());
+  }
+
+  @Test
+  public void should_not_register_rules_if_repositories_are_unchanged() {
+    setupData("shared");
+    task.start();
+    when(settings.getProperties()).thenReturn(savedFingerprints());
+
+    Rule rule = getSession().getSingleResult(Rule.class, "pluginName", "fake", "key", "rule1");
+    rule.setName("Changed in database");
+    getSession().commit();
+
+    task.start();
+
+    rule = getSession().getSingleResult(Rule.class, "pluginName", "fake", "key", "rule1");
+    assertThat(rule.getName(), is("Changed in database"));
+  }
+
+  @Test
+  public void should_register_rules_if_repository_is_unchanged_but_rules_are_missing_in_database() {
+    setupData("shared");
+    task.start();
+    when(settings.getProperties()).thenReturn(savedFingerprints());
+
+    // fingerprints are kept but table RULES is restored
+    setupData("shared");
+    task.start();
+
+    assertThat(getSession().getResults(Rule.class, "pluginName", "fake").size(), is(2));
+  }
+
+  @Test
+  public void should_register_rules_if_a_repository_changed() {
+    setupData("shared");
+    when(settings.getProperties()).thenReturn(ImmutableMap.of("sonar.core.rulesFingerprint.fake", "old fingerprint"));
+    task.start();
+
+    assertThat(getSession().getResults(Rule.class, "pluginName", "fake").size(), is(2));
+    assertThat(savedFingerprints().get("sonar.core.rulesFingerprint.fake"), is(not(equalTo("old fingerprint"))));
+  }
+
+  @Test
+  public void fingerprint_should_change_with_rule_definitions() {
+    List<Rule> rules = new FakeRepository().createRules();
+    String fingerprint = RegisterRules.fingerprint(rules);
+    assertThat(RegisterRules.fingerprint(new FakeRepository().createRules()), is(fingerprint));
+
+    rules.get(0).getParam("param1").setDefaultValue("other value");
+    assertThat(RegisterRules.fingerprint(rules), is(not(equalTo(fingerprint))));
+  }
+
+  private Map<String, String> savedFingerprints() {
+    ArgumentCaptor<Map> captor = ArgumentCaptor.forClass(Map.class);
+    verify(settings, atLeastOnce()).saveProperties(captor.capture());
+    return captor.getValue();
+  }
+
   @Test
   public void should_update_template_rule() {
     setupData("should_update_template_rule_language");
@@ -255,7 +326,7 @@ public class RegisterRulesTest extends AbstractDbUnitTestCase {
 
   @Test
   public void volume_testing() {
-    task = new RegisterRules(getSessionFactory(), new RuleRepository[] {new VolumeRepository()}, null, profilesManager);
+    task = new RegisterRules(getSessionFactory(), new RuleRepository[] {new VolumeRepository()}, null, profilesManager, settings);
     setupData("shared");
     task.start();
 
@@ -267,7 +338,7 @@ public class RegisterRulesTest extends AbstractDbUnitTestCase {
   @Test
   public void should_fail_with_rule_without_name() throws Exception {
     RuleI18nManager ruleI18nManager = mock(RuleI18nManager.class);
-    task = new RegisterRules(getSessionFactory(), new RuleRepository[] {new RuleWithoutNameRepository()}, ruleI18nManager, profilesManager);
+    task = new RegisterRules(getSessionFactory(), new RuleRepository[] {new RuleWithoutNameRepository()}, ruleI18nManager, profilesManager, settings);
     setupData("shared");
 
     // the rule has no name, it should fail
@@ -289,7 +360,7 @@ public class RegisterRulesTest extends AbstractDbUnitTestCase {
   public void should_fail_with_rule_with_blank_name() throws Exception {
     RuleI18nManager ruleI18nManager = mock(RuleI18nManager.class);
     when(ruleI18nManager.getName(anyString(), anyString(), any(Locale.class))).thenReturn("");
-    task = new RegisterRules(getSessionFactory(), new RuleRepository[] {new RuleWithoutNameRepository()}, ruleI18nManager, profilesManager);
+    task = new RegisterRules(getSessionFactory(), new RuleRepository[] {new RuleWithoutNameRepository()}, ruleI18nManager, profilesManager, settings);
     setupData("shared");
 
     // the rule has no name, it should fail
@@ -306,7 +377,7 @@ public class RegisterRulesTest extends AbstractDbUnitTestCase {
   public void should_fail_with_rule_without_description() throws Exception {
     RuleI18nManager ruleI18nManager = mock(RuleI18nManager.class);
     when(ruleI18nManager.getName(anyString(), anyString(), any(Locale.class))).thenReturn("Name");
-    task = new RegisterRules(getSessionFactory(), new RuleRepository[] {new RuleWithoutDescriptionRepository()}, ruleI18nManager, profilesManager);
+    task = new RegisterRules(getSessionFactory(), new RuleRepository[] {new RuleWithoutDescriptionRepository()}, ruleI18nManager, profilesManager, settings);
     setupData("shared");
 
     // the rule has no name, it should fail
@@ -327,7 +398,7 @@ public class RegisterRulesTest extends AbstractDbUnitTestCase {
   @Test
   public void should_fail_with_rule_without_name_in_bundle() throws Exception {
     RuleI18nManager ruleI18nManager = mock(RuleI18nManager.class);
-    task = new RegisterRules(getSessionFactory(), new RuleRepository[] {new RuleWithoutDescriptionRepository()}, ruleI18nManager, profilesManager);
+    task = new RegisterRules(getSessionFactory(), new RuleRepository[] {new RuleWithoutDescriptionRepository()}, ruleI18nManager, profilesManager, settings);
     setupData("shared");
 
     // the rule has no name, it should fail
@@ -27,6 +27,7 @@ import org.junit.rules.ExpectedException;
 import org.mockito.ArgumentMatcher;
 import org.sonar.api.user.UserFinder;
 import org.sonar.api.user.UserQuery;
+import org.sonar.core.metadata.MetadataCache;
 import org.sonar.core.permission.GlobalPermissions;
 import org.sonar.core.user.UserDao;
 import org.sonar.server.exceptions.BadRequestException;
@@ -41,7 +42,8 @@ public class DefaultUserServiceTest {
 
   UserFinder finder = mock(UserFinder.class);
   UserDao dao = mock(UserDao.class);
-  DefaultUserService service = new DefaultUserService(finder, dao);
+  MetadataCache metadataCache = mock(MetadataCache.class);
+  DefaultUserService service = new DefaultUserService(finder, dao, metadataCache);
 
   @Rule
   public ExpectedException thrown = ExpectedException.none();
@@ -106,6 +108,7 @@ public class DefaultUserServiceTest {
     MockUserSession.set().setLogin("simon").setPermissions(GlobalPermissions.SYSTEM_ADMIN);
     service.deactivate("julien");
     verify(dao).deactivateUserByLogin("julien");
+    verify(metadataCache).invalidateUsers();
   }
 
   @Test
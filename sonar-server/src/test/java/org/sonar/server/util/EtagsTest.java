@@ -17,37 +17,28 @@
  * along with this program; if not, write to the Free Software Foundation,
  * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
  */
-package org.sonar.plugins.core.batch;
+package org.sonar.server.util;
 
 import org.junit.Test;
-import org.sonar.api.resources.Project;
-import org.sonar.core.resource.ResourceIndexerDao;
 
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.fest.assertions.Assertions.assertThat;
 
-public class IndexProjectPostJobTest {
-  @Test
-  public void shouldIndexProject() {
-    ResourceIndexerDao indexer = mock(ResourceIndexerDao.class);
-    IndexProjectPostJob job = new IndexProjectPostJob(indexer);
-    Project project = new Project("foo");
-    project.setId(123);
-
-    job.executeOn(project, null);
+public class EtagsTest {
 
-    verify(indexer).indexProject(123);
+  @Test
+  public void should_match_if_none_match() {
+    assertThat(Etags.matchesIfNoneMatch(null, "\"abc\"")).isFalse();
+    assertThat(Etags.matchesIfNoneMatch("\"abc\"", "\"abc\"")).isTrue();
+    assertThat(Etags.matchesIfNoneMatch("\"def\", \"abc\"", "\"abc\"")).isTrue();
+    assertThat(Etags.matchesIfNoneMatch("*", "\"abc\"")).isTrue();
+    assertThat(Etags.matchesIfNoneMatch("\"def\"", "\"abc\"")).isFalse();
   }
 
   @Test
-  public void shouldNotIndexProjectIfMissingId() {
-    ResourceIndexerDao indexer = mock(ResourceIndexerDao.class);
-    IndexProjectPostJob job = new IndexProjectPostJob(indexer);
-
-    job.executeOn(new Project("foo"), null);
-
-    verifyZeroInteractions(indexer);
+  public void should_use_weak_comparison() {
+    assertThat(Etags.matchesIfNoneMatch("W/\"abc\"", "\"abc\"")).isTrue();
+    assertThat(Etags.matchesIfNoneMatch("\"def\",W/\"abc\"", "\"abc\"")).isTrue();
+    assertThat(Etags.matchesIfNoneMatch("\"abc\"", "W/\"abc\"")).isTrue();
+    assertThat(Etags.matchesIfNoneMatch("W/\"def\"", "\"abc\"")).isFalse();
   }
-
 }
@@ -19,15 +19,24 @@
  */
 package org.sonar.wsclient;
 
+import org.sonar.wsclient.connectors.ConnectionException;
 import org.sonar.wsclient.connectors.Connector;
 import org.sonar.wsclient.connectors.ConnectorFactory;
 import org.sonar.wsclient.services.*;
+import org.sonar.wsclient.unmarshallers.AbstractUnmarshaller;
 import org.sonar.wsclient.unmarshallers.UnmarshalException;
 import org.sonar.wsclient.unmarshallers.Unmarshaller;
 import org.sonar.wsclient.unmarshallers.Unmarshallers;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 public class Sonar {
 
@@ -75,6 +84,93 @@ public class Sonar {
     return result;
   }
 
+  /**
+   * Same as {@link #findAll(Query)} except that models are unmarshalled one by one while the response is downloaded
+   * and are given to the handler instead of being collected, so that memory does not grow with the size of the response.
+   * The response is streamed only if the connector supports it, like {@link org.sonar.wsclient.connectors.HttpClient4Connector}.
+   *
+   * @since 4.0
+   */
+  public <M extends Model> void findAll(Query<M> query, ModelHandler<M> handler) {
+    Reader json = connector.executeAsReader(query);
+    if (json != null) {
+      try {
+        Unmarshaller<M> unmarshaller = Unmarshallers.forModel(query.getModelClass());
+        if (unmarshaller instanceof AbstractUnmarshaller) {
+          ((AbstractUnmarshaller<M>) unmarshaller).toModels(json, handler);
+        } else {
+          for (M model : unmarshaller.toModels(read(json))) {
+            handler.handle(model);
+          }
+        }
+      } catch (IOException e) {
+        throw new ConnectionException("Fail to read the response of query " + query.getUrl(), e);
+      } catch (ConnectionException e) {
+        throw e;
+      } catch (Exception e) {
+        throw new UnmarshalException(query, e);
+      } finally {
+        closeQuietly(json);
+      }
+    }
+  }
+
+  private static String read(Reader reader) throws IOException {
+    StringBuilder sb = new StringBuilder();
+    char[] buffer = new char[4096];
+    int count;
+    while ((count = reader.read(buffer)) != -1) {
+      sb.append(buffer, 0, count);
+    }
+    return sb.toString();
+  }
+
+  private static void closeQuietly(Reader reader) {
+    try {
+      reader.close();
+    } catch (IOException e) {
+      // ignored
+    }
+  }
+
+  /**
+   * Executes the queries concurrently with the given executor. The connector must support concurrent requests, like
+   * {@link org.sonar.wsclient.connectors.HttpClient4Connector}, whose number of connections should be
+   * close to the number of threads of the executor.
+   *
+   * @return the results of the queries, in the same order as the queries
+   * @since 4.0
+   */
+  public <M extends Model> List<List<M>> findAll(List<? extends Query<M>> queries, ExecutorService executor) {
+    List<Future<List<M>>> futures = new ArrayList<Future<List<M>>>(queries.size());
+    for (final Query<M> query : queries) {
+      futures.add(executor.submit(new Callable<List<M>>() {
+        public List<M> call() {
+          return findAll(query);
+        }
+      }));
+    }
+    List<List<M>> results = new ArrayList<List<M>>(queries.size());
+    try {
+      for (Future<List<M>> future : futures) {
+        results.add(future.get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ConnectionException("Interrupted while waiting for query results", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new ConnectionException("Fail to execute query", e.getCause());
+    } finally {
+      for (Future<List<M>> future : futures) {
+        future.cancel(true);
+      }
+    }
+    return results;
+  }
+
   public <M extends Model> M create(CreateQuery<M> query) {
     String json = connector.execute(query);
     M result = null;
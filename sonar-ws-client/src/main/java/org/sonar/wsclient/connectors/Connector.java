@@ -24,6 +24,9 @@ import org.sonar.wsclient.services.DeleteQuery;
 import org.sonar.wsclient.services.Query;
 import org.sonar.wsclient.services.UpdateQuery;
 
+import java.io.Reader;
+import java.io.StringReader;
+
 /**
  * @since 2.1
  */
@@ -52,4 +55,17 @@ public abstract class Connector {
    * @since 2.6
    */
   public abstract String execute(UpdateQuery<?> query);
+
+  /**
+   * Same as {@link #execute(Query)} but the response can be read while it is downloaded. The default implementation
+   * loads the whole response in memory, connectors should override it when they can stream the HTTP response.
+   * The caller is responsible for closing the reader.
+   *
+   * @return JSON response or null if 404 NOT FOUND error
+   * @since 4.0
+   */
+  public Reader executeAsReader(Query<?> query) {
+    String json = execute(query);
+    return json == null ? null : new StringReader(json);
+  }
 }
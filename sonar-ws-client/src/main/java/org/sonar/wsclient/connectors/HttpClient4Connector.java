@@ -19,12 +19,15 @@
  */
 package org.sonar.wsclient.connectors;
 
+import org.apache.http.Header;
+import org.apache.http.HeaderElement;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpException;
 import org.apache.http.HttpHost;
 import org.apache.http.HttpRequest;
 import org.apache.http.HttpRequestInterceptor;
 import org.apache.http.HttpResponse;
+import org.apache.http.HttpResponseInterceptor;
 import org.apache.http.HttpStatus;
 import org.apache.http.auth.AuthScheme;
 import org.apache.http.auth.AuthScope;
@@ -38,10 +41,13 @@ import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpPut;
 import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.entity.GzipDecompressingEntity;
 import org.apache.http.client.protocol.ClientContext;
+import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.auth.BasicScheme;
 import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
 import org.apache.http.params.CoreConnectionPNames;
 import org.apache.http.params.HttpConnectionParams;
 import org.apache.http.params.HttpParams;
@@ -57,19 +63,37 @@ import org.sonar.wsclient.services.Query;
 import org.sonar.wsclient.services.UpdateQuery;
 
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
 
 /**
+ * Connections are pooled and kept alive, so the connector can be shared by concurrent threads.
+ * Responses are compressed with gzip when the server supports it.
+ *
  * @since 2.1
  */
 public class HttpClient4Connector extends Connector {
 
+  private static final int MAX_TOTAL_CONNECTIONS = 40;
+  private static final int MAX_HOST_CONNECTIONS = 4;
+
   private Host server;
   private DefaultHttpClient client;
 
   public HttpClient4Connector(Host server) {
+    this(server, MAX_HOST_CONNECTIONS);
+  }
+
+  /**
+   * @param maxHostConnections maximum number of connections opened to the server, for example the number of threads
+   * executing queries concurrently
+   * @since 4.0
+   */
+  public HttpClient4Connector(Host server, int maxHostConnections) {
     this.server = server;
-    initClient();
+    initClient(maxHostConnections);
   }
 
   public DefaultHttpClient getHttpClient() {
@@ -96,6 +120,39 @@ public class HttpClient4Connector extends Connector {
     return executeRequest(newDeleteMethod(query));
   }
 
+  /**
+   * The connection is given back to the pool when the reader is closed.
+   */
+  @Override
+  public Reader executeAsReader(Query<?> query) {
+    HttpGet request = newGetMethod(query);
+    Reader reader = null;
+    try {
+      HttpResponse response = client.execute(request, createLocalContext(client));
+      HttpEntity entity = response.getEntity();
+      if (entity != null) {
+        if (response.getStatusLine().getStatusCode() == HttpStatus.SC_OK) {
+          Charset charset = ContentType.getOrDefault(entity).getCharset();
+          reader = new InputStreamReader(entity.getContent(), charset != null ? charset : Charset.forName("UTF-8"));
+
+        } else if (response.getStatusLine().getStatusCode() != HttpStatus.SC_NOT_FOUND) {
+          throw new ConnectionException("HTTP error: " + response.getStatusLine().getStatusCode()
+            + ", msg: " + response.getStatusLine().getReasonPhrase()
+            + ", query: " + request.toString());
+        }
+      }
+
+    } catch (IOException e) {
+      throw new ConnectionException("Query: " + request.getURI(), e);
+
+    } finally {
+      if (reader == null) {
+        request.releaseConnection();
+      }
+    }
+    return reader;
+  }
+
   private String executeRequest(HttpRequestBase request) {
     String json = null;
     try {
@@ -128,15 +185,22 @@ public class HttpClient4Connector extends Connector {
     }
   }
 
-  private void initClient() {
-    client = new DefaultHttpClient();
+  private void initClient(int maxHostConnections) {
+    PoolingClientConnectionManager connectionManager = new PoolingClientConnectionManager();
+    connectionManager.setDefaultMaxPerRoute(maxHostConnections);
+    connectionManager.setMaxTotal(Math.max(maxHostConnections, MAX_TOTAL_CONNECTIONS));
+    client = new DefaultHttpClient(connectionManager);
     HttpParams params = client.getParams();
     HttpConnectionParams.setConnectionTimeout(params, AbstractQuery.DEFAULT_TIMEOUT_MILLISECONDS);
     HttpConnectionParams.setSoTimeout(params, AbstractQuery.DEFAULT_TIMEOUT_MILLISECONDS);
     if (server.getUsername() != null) {
       client.getCredentialsProvider()
         .setCredentials(AuthScope.ANY, new UsernamePasswordCredentials(server.getUsername(), server.getPassword()));
+      // Add as the first request interceptor
+      client.addRequestInterceptor(new PreemptiveAuth(), 0);
     }
+    client.addRequestInterceptor(new AcceptGzip());
+    client.addResponseInterceptor(new GzipResponse());
   }
 
   private BasicHttpContext createLocalContext(DefaultHttpClient client) {
@@ -147,9 +211,6 @@ public class HttpClient4Connector extends Connector {
       // execution context
       BasicScheme basicAuth = new BasicScheme();
       localcontext.setAttribute("preemptive-auth", basicAuth);
-
-      // Add as the first request interceptor
-      client.addRequestInterceptor(new PreemptiveAuth(), 0);
     }
     return localcontext;
   }
@@ -225,4 +286,29 @@ public class HttpClient4Connector extends Connector {
       }
     }
   }
+
+  static final class AcceptGzip implements HttpRequestInterceptor {
+    public void process(HttpRequest request, HttpContext context) {
+      if (!request.containsHeader("Accept-Encoding")) {
+        request.addHeader("Accept-Encoding", "gzip");
+      }
+    }
+  }
+
+  static final class GzipResponse implements HttpResponseInterceptor {
+    public void process(HttpResponse response, HttpContext context) {
+      HttpEntity entity = response.getEntity();
+      if (entity != null) {
+        Header encoding = entity.getContentEncoding();
+        if (encoding != null) {
+          for (HeaderElement element : encoding.getElements()) {
+            if ("gzip".equalsIgnoreCase(element.getName())) {
+              response.setEntity(new GzipDecompressingEntity(entity));
+              return;
+            }
+          }
+        }
+      }
+    }
+  }
 }
@@ -23,6 +23,7 @@ import com.github.kevinsawicki.http.HttpRequest;
 import org.sonar.wsclient.base.HttpException;
 
 import javax.annotation.Nullable;
+import java.io.Reader;
 import java.util.Map;
 
 /**
@@ -121,6 +122,23 @@ public class HttpRequestFactory {
     return execute(request);
   }
 
+  /**
+   * Same as {@link #get(String, java.util.Map)} but the response body is read from the connection
+   * instead of being loaded in memory. The caller must close the reader.
+   */
+  public Reader getAsReader(String wsUrl, Map<String, Object> queryParams) {
+    HttpRequest request = prepare(HttpRequest.get(baseUrl + wsUrl, queryParams, true));
+    try {
+      if (request.ok()) {
+        return request.bufferedReader(HttpRequest.CHARSET_UTF8);
+      }
+      throw new HttpException(request.url().toString(), request.code());
+
+    } catch (HttpRequest.HttpRequestException e) {
+      throw new IllegalStateException("Fail to request " + request.url(), e.getCause());
+    }
+  }
+
   public String post(String wsUrl, Map<String, Object> queryParams) {
     HttpRequest request = prepare(HttpRequest.post(baseUrl + wsUrl, true)).form(queryParams, HttpRequest.CHARSET_UTF8);
     return execute(request);
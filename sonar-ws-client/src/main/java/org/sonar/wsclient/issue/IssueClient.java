@@ -21,6 +21,7 @@ package org.sonar.wsclient.issue;
 
 import javax.annotation.Nullable;
 
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -35,6 +36,15 @@ public interface IssueClient {
    */
   Issues find(IssueQuery query);
 
+  /**
+   * Iterate over all the issues matching the query. The pages of /api/issues/search are requested
+   * one after the other while iterating, so that only one page of issues is kept in memory. The page index
+   * of the query is ignored, its page size is used if set.
+   *
+   * @since 4.0
+   */
+  Iterator<Issue> findAll(IssueQuery query);
+
   /**
    * Assign an existing issue to a user. A null assignee removes the assignee.
    *
@@ -26,6 +26,9 @@ import org.sonar.wsclient.issue.*;
 
 import javax.annotation.Nullable;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -45,8 +48,19 @@ public class DefaultIssueClient implements IssueClient {
   }
 
   public Issues find(IssueQuery query) {
-    String json = requestFactory.get(SEARCH_URL, query.urlParams());
-    return parser.parseIssues(json);
+    Reader json = requestFactory.getAsReader(SEARCH_URL, query.urlParams());
+    try {
+      return parser.parseIssues(json);
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to read the response of " + SEARCH_URL, e);
+    } finally {
+      closeQuietly(json);
+    }
+  }
+
+  @Override
+  public Iterator<Issue> findAll(IssueQuery query) {
+    return new IssueIterator(this, query);
   }
 
   @Override
@@ -123,4 +137,12 @@ public class DefaultIssueClient implements IssueClient {
     return new DefaultIssue((Map) jsonRoot.get("issue"));
   }
 
+  private static void closeQuietly(Reader reader) {
+    try {
+      reader.close();
+    } catch (IOException e) {
+      // ignored
+    }
+  }
+
 }
@@ -0,0 +1,78 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.wsclient.issue.internal;
+
+import org.sonar.wsclient.base.Paging;
+import org.sonar.wsclient.issue.Issue;
+import org.sonar.wsclient.issue.IssueClient;
+import org.sonar.wsclient.issue.IssueQuery;
+import org.sonar.wsclient.issue.Issues;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Requests the next page of issues only when the current one is consumed.
+ *
+ * @since 4.0
+ */
+class IssueIterator implements Iterator<Issue> {
+
+  private final IssueClient client;
+  private final IssueQuery query;
+  private Iterator<Issue> page = Collections.<Issue>emptyList().iterator();
+  private int pageIndex = 0;
+  private boolean lastPage = false;
+
+  IssueIterator(IssueClient client, IssueQuery query) {
+    this.client = client;
+    // the page index is changed on a copy, the query of the caller is left unchanged
+    this.query = IssueQuery.create();
+    this.query.urlParams().putAll(query.urlParams());
+  }
+
+  public boolean hasNext() {
+    while (!page.hasNext() && !lastPage) {
+      fetchNextPage();
+    }
+    return page.hasNext();
+  }
+
+  public Issue next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    return page.next();
+  }
+
+  public void remove() {
+    throw new UnsupportedOperationException();
+  }
+
+  private void fetchNextPage() {
+    pageIndex++;
+    Issues issues = client.find(query.pageIndex(pageIndex));
+    page = issues.list().iterator();
+    Paging paging = issues.paging();
+    Integer pages = paging != null ? paging.pages() : null;
+    lastPage = issues.list().isEmpty() || pages == null || pageIndex >= pages;
+  }
+}
@@ -26,10 +26,17 @@ import org.sonar.wsclient.component.Component;
 import org.sonar.wsclient.issue.BulkChange;
 import org.sonar.wsclient.issue.Issues;
 import org.sonar.wsclient.rule.Rule;
+import org.sonar.wsclient.unmarshallers.JsonStreamParser;
 import org.sonar.wsclient.unmarshallers.JsonUtils;
 import org.sonar.wsclient.user.User;
 
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -39,71 +46,50 @@ import java.util.Map;
 public class IssueJsonParser {
 
   public Issues parseIssues(String json) {
-    DefaultIssues result = new DefaultIssues();
-    Map jsonRoot = (Map) JSONValue.parse(json);
-    List<Map> jsonIssues = (List<Map>) jsonRoot.get("issues");
-    if (jsonIssues != null) {
-      for (Map jsonIssue : jsonIssues) {
-        result.add(new DefaultIssue(jsonIssue));
-      }
-    }
-    parseRules(result, jsonRoot);
-    parseUsers(result, jsonRoot);
-    parseComponents(result, jsonRoot);
-    parseProjects(result, jsonRoot);
-    parseActionPlans(result, jsonRoot);
-    parsePaging(result, jsonRoot);
-    return result;
-  }
-
-  private void parsePaging(DefaultIssues result, Map jsonRoot) {
-    Map paging = (Map) jsonRoot.get("paging");
-    result.setPaging(new Paging(paging));
-    result.setMaxResultsReached(JsonUtils.getBoolean(jsonRoot, "maxResultsReached"));
-  }
-
-  private void parseProjects(DefaultIssues result, Map jsonRoot) {
-    List<Map> jsonProjects = (List<Map>) jsonRoot.get("projects");
-    if (jsonProjects != null) {
-      for (Map jsonProject : jsonProjects) {
-        result.addProject(new Component(jsonProject));
-      }
+    try {
+      return parseIssues(new StringReader(json));
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to read JSON string", e);
     }
   }
 
-  private void parseComponents(DefaultIssues result, Map jsonRoot) {
-    List<Map> jsonComponents = (List<Map>) jsonRoot.get("components");
-    if (jsonComponents != null) {
-      for (Map jsonComponent : jsonComponents) {
-        result.addComponent(new Component(jsonComponent));
+  /**
+   * Issues and their related objects are built while the JSON response is read, without loading
+   * the whole document in memory.
+   *
+   * @since 4.0
+   */
+  public Issues parseIssues(Reader json) throws IOException {
+    final DefaultIssues result = new DefaultIssues();
+    final Map<String, Object> paging = new HashMap<String, Object>();
+    JsonStreamParser.parse(json, new JsonStreamParser.Handler() {
+      public void value(@Nullable String field, @Nullable Object value) {
+        if (value instanceof Map) {
+          addElement(result, paging, field, (Map) value);
+        } else if ("maxResultsReached".equals(field)) {
+          result.setMaxResultsReached((Boolean) value);
+        }
       }
-    }
-  }
-
-  private void parseUsers(DefaultIssues result, Map jsonRoot) {
-    List<Map> jsonUsers = (List<Map>) jsonRoot.get("users");
-    if (jsonUsers != null) {
-      for (Map jsonUser : jsonUsers) {
-        result.add(new User(jsonUser));
-      }
-    }
-  }
-
-  private void parseRules(DefaultIssues result, Map jsonRoot) {
-    List<Map> jsonRules = (List<Map>) jsonRoot.get("rules");
-    if (jsonRules != null) {
-      for (Map jsonRule : jsonRules) {
-        result.add(new Rule(jsonRule));
-      }
-    }
+    });
+    result.setPaging(new Paging(paging));
+    return result;
   }
 
-  private void parseActionPlans(DefaultIssues result, Map jsonRoot) {
-    List<Map> jsonRules = (List) jsonRoot.get("actionPlans");
-    if (jsonRules != null) {
-      for (Map jsonRule : jsonRules) {
-        result.add(new DefaultActionPlan(jsonRule));
-      }
+  private static void addElement(DefaultIssues result, Map<String, Object> paging, @Nullable String field, Map json) {
+    if ("issues".equals(field)) {
+      result.add(new DefaultIssue(json));
+    } else if ("rules".equals(field)) {
+      result.add(new Rule(json));
+    } else if ("users".equals(field)) {
+      result.add(new User(json));
+    } else if ("components".equals(field)) {
+      result.addComponent(new Component(json));
+    } else if ("projects".equals(field)) {
+      result.addProject(new Component(json));
+    } else if ("actionPlans".equals(field)) {
+      result.add(new DefaultActionPlan(json));
+    } else if ("paging".equals(field)) {
+      paging.putAll(json);
     }
   }
 
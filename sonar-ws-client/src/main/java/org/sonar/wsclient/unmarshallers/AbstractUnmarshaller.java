@@ -20,8 +20,13 @@
 package org.sonar.wsclient.unmarshallers;
 
 import org.sonar.wsclient.services.Model;
+import org.sonar.wsclient.services.ModelHandler;
 import org.sonar.wsclient.services.WSUtils;
 
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.io.Reader;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -58,5 +63,21 @@ public abstract class AbstractUnmarshaller<M extends Model> implements Unmarshal
     return result;
   }
 
+  /**
+   * Unmarshals the elements of the JSON array one by one while it is read, so that the whole response
+   * is never loaded in memory.
+   *
+   * @since 4.0
+   */
+  public final void toModels(Reader json, final ModelHandler<M> handler) throws IOException {
+    JsonStreamParser.parse(json, new JsonStreamParser.Handler() {
+      public void value(@Nullable String field, @Nullable Object elt) {
+        if (elt != null) {
+          handler.handle(parse(elt));
+        }
+      }
+    });
+  }
+
   protected abstract M parse(Object elt);
 }
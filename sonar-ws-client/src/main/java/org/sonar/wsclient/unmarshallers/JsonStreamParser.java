@@ -0,0 +1,149 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.wsclient.unmarshallers;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.ContentHandler;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.LinkedList;
+
+/**
+ * Reads a JSON document from a stream without building it entirely in memory. The document is cut into
+ * values that are given one by one to a {@link Handler} as soon as they are read :
+ * <ul>
+ * <li>when the root is an array, each of its elements</li>
+ * <li>when the root is an object, each element of its array fields, and the value of its other fields</li>
+ * </ul>
+ * Values are built with the types of json-simple (JSONObject, JSONArray, String, Long, Double, Boolean or null).
+ * <p/>
+ * For internal use.
+ *
+ * @since 4.0
+ */
+public final class JsonStreamParser {
+
+  public interface Handler {
+    /**
+     * @param field the field of the root object that contains the value, or null if the root is an array
+     */
+    void value(@Nullable String field, @Nullable Object value);
+  }
+
+  private JsonStreamParser() {
+    // only static methods
+  }
+
+  public static void parse(Reader json, Handler handler) throws IOException {
+    try {
+      new JSONParser().parse(json, new ValueBuilder(handler));
+    } catch (ParseException e) {
+      throw new IllegalArgumentException("Invalid JSON: " + e, e);
+    }
+  }
+
+  private static final class ValueBuilder implements ContentHandler {
+    // markers of the containers that are not built in memory
+    private static final Object ROOT_OBJECT = new Object();
+    private static final Object STREAMED_ARRAY = new Object();
+
+    private final Handler handler;
+    private final LinkedList<Object> containers = new LinkedList<Object>();
+    private final LinkedList<String> keys = new LinkedList<String>();
+    private String rootField;
+
+    ValueBuilder(Handler handler) {
+      this.handler = handler;
+    }
+
+    public void startJSON() {
+      // nothing to do
+    }
+
+    public void endJSON() {
+      // nothing to do
+    }
+
+    public boolean startObject() {
+      containers.addFirst(containers.isEmpty() ? ROOT_OBJECT : new JSONObject());
+      return true;
+    }
+
+    public boolean endObject() {
+      return endContainer();
+    }
+
+    public boolean startObjectEntry(String key) {
+      keys.addFirst(key);
+      if (containers.getFirst() == ROOT_OBJECT) {
+        rootField = key;
+      }
+      return true;
+    }
+
+    public boolean endObjectEntry() {
+      keys.removeFirst();
+      return true;
+    }
+
+    public boolean startArray() {
+      if (containers.isEmpty() || containers.getFirst() == ROOT_OBJECT) {
+        containers.addFirst(STREAMED_ARRAY);
+      } else {
+        containers.addFirst(new JSONArray());
+      }
+      return true;
+    }
+
+    public boolean endArray() {
+      return endContainer();
+    }
+
+    public boolean primitive(Object value) {
+      add(value);
+      return true;
+    }
+
+    private boolean endContainer() {
+      Object container = containers.removeFirst();
+      if (container != ROOT_OBJECT && container != STREAMED_ARRAY) {
+        add(container);
+      }
+      return true;
+    }
+
+    private void add(@Nullable Object value) {
+      Object parent = containers.isEmpty() ? null : containers.getFirst();
+      if (parent == null || parent == ROOT_OBJECT || parent == STREAMED_ARRAY) {
+        handler.value(rootField, value);
+      } else if (parent instanceof JSONArray) {
+        ((JSONArray) parent).add(value);
+      } else {
+        ((JSONObject) parent).put(keys.getFirst(), value);
+      }
+    }
+  }
+}
@@ -32,4 +32,11 @@ public final class UnmarshalException extends RuntimeException {
   public UnmarshalException(AbstractQuery query, String json, Throwable t) {
     super("Can not parse the response of query " + query.getUrl() + ": " + json, t);
   }
+
+  /**
+   * @since 4.0
+   */
+  public UnmarshalException(AbstractQuery query, Throwable t) {
+    super("Can not parse the response of query " + query.getUrl(), t);
+  }
 }
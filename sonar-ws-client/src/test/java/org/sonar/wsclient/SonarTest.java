@@ -29,14 +29,19 @@ import org.sonar.wsclient.connectors.HttpClient3Connector;
 import org.sonar.wsclient.connectors.HttpClient4Connector;
 import org.sonar.wsclient.services.Metric;
 import org.sonar.wsclient.services.MetricQuery;
+import org.sonar.wsclient.services.ModelHandler;
 import org.sonar.wsclient.services.Query;
 import org.sonar.wsclient.services.RuleQuery;
 import org.sonar.wsclient.services.Server;
 import org.sonar.wsclient.services.ServerQuery;
 import org.sonar.wsclient.unmarshallers.UnmarshalException;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.nullValue;
@@ -68,6 +73,7 @@ public class SonarTest {
     tester.setContextPath("/");
     tester.addServlet(ServerServlet.class, "/api/server/index");
     tester.addServlet(MetricServlet.class, "/api/metrics");
+    tester.addServlet(GzipMetricServlet.class, "/api/gzip_metrics");
     tester.addServlet(EmptyServlet.class, "/api/empty");
     tester.addServlet(BadRulesServlet.class, "/api/rules");
     baseUrl = tester.createSocketConnector(true);
@@ -90,6 +96,51 @@ public class SonarTest {
     assertThat(metrics.size(), greaterThan(1));
   }
 
+  @Test
+  public void findAllWithCompressedResponse() {
+    Collection<Metric> metrics = sonar.findAll(new GzipMetricQuery());
+    assertThat(metrics.size(), is(sonar.findAll(MetricQuery.all()).size()));
+  }
+
+  @Test
+  public void findAllWithHandler() {
+    final List<Metric> metrics = new ArrayList<Metric>();
+    sonar.findAll(MetricQuery.all(), new ModelHandler<Metric>() {
+      public void handle(Metric metric) {
+        metrics.add(metric);
+      }
+    });
+    assertThat(metrics.size(), is(sonar.findAll(MetricQuery.all()).size()));
+  }
+
+  @Test
+  public void findAllWithHandlerAndEmptyResponse() {
+    final List<Metric> metrics = new ArrayList<Metric>();
+    sonar.findAll(new EmptyQuery(), new ModelHandler<Metric>() {
+      public void handle(Metric metric) {
+        metrics.add(metric);
+      }
+    });
+    assertThat(metrics.size(), is(0));
+  }
+
+  @Test
+  public void findAllConcurrently() {
+    List<Query<Metric>> queries = Arrays.<Query<Metric>>asList(MetricQuery.all(), new EmptyQuery(), MetricQuery.all(), new GzipMetricQuery());
+    ExecutorService executor = Executors.newFixedThreadPool(3);
+    try {
+      List<List<Metric>> results = sonar.findAll(queries, executor);
+
+      assertThat(results.size(), is(4));
+      assertThat(results.get(0).size(), greaterThan(1));
+      assertThat(results.get(1).size(), is(0));
+      assertThat(results.get(2).size(), is(results.get(0).size()));
+      assertThat(results.get(3).size(), is(results.get(0).size()));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
   @Test
   public void findEmptyResults() {
     Query<Metric> query = new EmptyQuery();
@@ -127,6 +178,18 @@ public class SonarTest {
     }
   }
 
+  static class GzipMetricQuery extends Query<Metric> {
+    @Override
+    public String getUrl() {
+      return "/api/gzip_metrics";
+    }
+
+    @Override
+    public Class<Metric> getModelClass() {
+      return Metric.class;
+    }
+  }
+
   static class EmptyQuery extends Query<Metric> {
     @Override
     public String getUrl() {
@@ -27,6 +27,7 @@ import org.sonar.wsclient.base.HttpException;
 import org.sonar.wsclient.internal.HttpRequestFactory;
 import org.sonar.wsclient.issue.*;
 
+import java.util.Iterator;
 import java.util.List;
 
 import static org.fest.assertions.Assertions.assertThat;
@@ -52,6 +53,23 @@ public class DefaultIssueClientTest {
     assertThat(issues.list().get(0).key()).isEqualTo("ABCDE");
   }
 
+  @Test
+  public void should_find_all_issues() {
+    HttpRequestFactory requestFactory = new HttpRequestFactory(httpServer.url());
+    httpServer.stubResponseBody("{\"issues\": [{\"key\": \"ABCDE\"}, {\"key\": \"FGHIJ\"}], \"paging\": {\"pageIndex\": 1, \"pages\": 1}}");
+
+    IssueClient client = new DefaultIssueClient(requestFactory);
+    Iterator<Issue> issues = client.findAll(IssueQuery.create().pageSize(500));
+
+    assertThat(issues.next().key()).isEqualTo("ABCDE");
+    assertThat(issues.next().key()).isEqualTo("FGHIJ");
+    assertThat(issues.hasNext()).isFalse();
+    assertThat(httpServer.requestParams()).includes(
+      entry("pageSize", "500"),
+      entry("pageIndex", "1")
+    );
+  }
+
   @Test
   public void should_fail_to_find_issues() {
     HttpRequestFactory requestFactory = new HttpRequestFactory(httpServer.url());
@@ -0,0 +1,111 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.wsclient.issue.internal;
+
+import org.junit.Test;
+import org.sonar.wsclient.base.Paging;
+import org.sonar.wsclient.issue.Issue;
+import org.sonar.wsclient.issue.IssueClient;
+import org.sonar.wsclient.issue.IssueQuery;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.fest.assertions.Fail.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class IssueIteratorTest {
+
+  IssueClient client = mock(IssueClient.class);
+
+  @Test
+  public void should_request_pages_while_iterating() {
+    when(client.find(any(IssueQuery.class))).thenReturn(page(2, "A", "B"), page(2, "C"));
+    IssueQuery query = IssueQuery.create().pageSize(2);
+
+    Iterator<Issue> it = new IssueIterator(client, query);
+
+    assertThat(keys(it)).containsExactly("A", "B", "C");
+    verify(client, times(2)).find(any(IssueQuery.class));
+    assertThat(query.urlParams().containsKey("pageIndex")).isFalse();
+  }
+
+  @Test
+  public void should_not_request_next_page_before_current_one_is_consumed() {
+    when(client.find(any(IssueQuery.class))).thenReturn(page(2, "A", "B"), page(2, "C"));
+
+    Iterator<Issue> it = new IssueIterator(client, IssueQuery.create());
+    it.next();
+    it.next();
+
+    verify(client, times(1)).find(any(IssueQuery.class));
+  }
+
+  @Test
+  public void should_stop_on_empty_page() {
+    when(client.find(any(IssueQuery.class))).thenReturn(page(5, "A"), page(5));
+
+    assertThat(keys(new IssueIterator(client, IssueQuery.create()))).containsExactly("A");
+    verify(client, times(2)).find(any(IssueQuery.class));
+  }
+
+  @Test
+  public void should_fail_when_no_more_issues() {
+    when(client.find(any(IssueQuery.class))).thenReturn(page(1));
+
+    Iterator<Issue> it = new IssueIterator(client, IssueQuery.create());
+    assertThat(it.hasNext()).isFalse();
+    try {
+      it.next();
+      fail();
+    } catch (NoSuchElementException e) {
+      // expected
+    }
+  }
+
+  private static List<String> keys(Iterator<Issue> it) {
+    List<String> keys = new ArrayList<String>();
+    while (it.hasNext()) {
+      keys.add(it.next().key());
+    }
+    return keys;
+  }
+
+  private static DefaultIssues page(int pages, String... keys) {
+    DefaultIssues issues = new DefaultIssues();
+    for (String key : keys) {
+      issues.add(new DefaultIssue(Collections.singletonMap("key", key)));
+    }
+    Map<String, Object> paging = new HashMap<String, Object>();
+    paging.put("pages", (long) pages);
+    issues.setPaging(new Paging(paging));
+    return issues;
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.wsclient.unmarshallers;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.junit.Test;
+
+import javax.annotation.Nullable;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class JsonStreamParserTest {
+
+  @Test
+  public void should_stream_elements_of_root_array() throws Exception {
+    Collector collector = parse("[{\"key\": \"foo\", \"values\": [1, 2]}, null, \"bar\", 3]");
+
+    assertThat(collector.fields).containsExactly(null, null, null, null);
+    assertThat(collector.values).hasSize(4);
+    JSONObject first = (JSONObject) collector.values.get(0);
+    assertThat(first.get("key")).isEqualTo("foo");
+    assertThat(((JSONArray) first.get("values")).toArray()).isEqualTo(new Object[] {1L, 2L});
+    assertThat(collector.values.get(1)).isNull();
+    assertThat(collector.values.get(2)).isEqualTo("bar");
+    assertThat(collector.values.get(3)).isEqualTo(3L);
+  }
+
+  @Test
+  public void should_stream_array_fields_of_root_object() throws Exception {
+    Collector collector = parse("{\"issues\": [{\"key\": \"A\"}, {\"key\": \"B\"}], \"paging\": {\"pages\": 2}, \"maxResultsReached\": false, \"rules\": []}");
+
+    assertThat(collector.fields).containsExactly("issues", "issues", "paging", "maxResultsReached");
+    assertThat(((JSONObject) collector.values.get(0)).get("key")).isEqualTo("A");
+    assertThat(((JSONObject) collector.values.get(1)).get("key")).isEqualTo("B");
+    assertThat(((JSONObject) collector.values.get(2)).get("pages")).isEqualTo(2L);
+    assertThat(collector.values.get(3)).isEqualTo(false);
+  }
+
+  @Test
+  public void should_build_nested_arrays() throws Exception {
+    Collector collector = parse("{\"matrix\": [[1, [2]], []]}");
+
+    assertThat(collector.fields).containsExactly("matrix", "matrix");
+    assertThat(collector.values.get(0).toString()).isEqualTo("[1,[2]]");
+    assertThat(collector.values.get(1).toString()).isEqualTo("[]");
+  }
+
+  @Test
+  public void should_stream_nothing_from_empty_array() throws Exception {
+    assertThat(parse("[]").values).isEmpty();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void should_fail_on_invalid_json() throws Exception {
+    parse("[{\"key\": }]");
+  }
+
+  private static Collector parse(String json) throws Exception {
+    Collector collector = new Collector();
+    JsonStreamParser.parse(new StringReader(json), collector);
+    return collector;
+  }
+
+  private static class Collector implements JsonStreamParser.Handler {
+    private final List<String> fields = new ArrayList<String>();
+    private final List<Object> values = new ArrayList<Object>();
+
+    public void value(@Nullable String field, @Nullable Object value) {
+      fields.add(field);
+      values.add(value);
+    }
+  }
+}